@@ -20,6 +20,7 @@ import java.io.Closeable;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Named;
@@ -61,6 +62,7 @@ import org.jclouds.chef.functions.ParseCookbookDefinitionFromJsonv10;
 import org.jclouds.chef.functions.ParseCookbookDefinitionListFromJsonv10;
 import org.jclouds.chef.functions.ParseCookbookVersionsCheckingChefVersion;
 import org.jclouds.chef.functions.ParseKeySetFromJson;
+import org.jclouds.chef.functions.ParsePartialSearchFromJson;
 import org.jclouds.chef.functions.ParseSearchClientsFromJson;
 import org.jclouds.chef.functions.ParseSearchDatabagFromJson;
 import org.jclouds.chef.functions.ParseSearchEnvironmentsFromJson;
@@ -69,6 +71,7 @@ import org.jclouds.chef.functions.ParseSearchRolesFromJson;
 import org.jclouds.chef.functions.UriForResource;
 import org.jclouds.chef.options.CreateClientOptions;
 import org.jclouds.chef.options.SearchOptions;
+import org.jclouds.domain.JsonBall;
 import org.jclouds.io.Payload;
 import org.jclouds.rest.annotations.BinderParam;
 import org.jclouds.rest.annotations.EndpointParam;
@@ -829,6 +832,24 @@ public interface ChefApi extends Closeable {
    @ResponseParser(ParseSearchNodesFromJson.class)
    SearchResult<? extends Node> searchNodes(SearchOptions options);
 
+   /**
+    * Searches the nodes that match the given options, returning only the
+    * selected attributes of each node instead of the whole node.
+    * 
+    * @param keys
+    *           maps the name under which each attribute is returned to its
+    *           path in the node, for example {@code "ohai_time"} to
+    *           {@code ["ohai_time"]}
+    * @return the selected attributes of each matching node
+    */
+   @SinceApiVersion("11.0.0")
+   @Named("search:partial_nodes")
+   @POST
+   @Path("/search/node")
+   @ResponseParser(ParsePartialSearchFromJson.class)
+   SearchResult<? extends Map<String, JsonBall>> partialSearchNodes(SearchOptions options,
+         @BinderParam(BindToJsonPayload.class) Map<String, List<String>> keys);
+
    /**
     * Searches all roles.
     * <p>
@@ -16,6 +16,7 @@
  */
 package org.jclouds.chef;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -26,6 +27,7 @@ import org.jclouds.chef.domain.BootstrapConfig;
 import org.jclouds.chef.domain.Client;
 import org.jclouds.chef.domain.CookbookVersion;
 import org.jclouds.chef.domain.Environment;
+import org.jclouds.chef.domain.Metadata;
 import org.jclouds.chef.domain.Node;
 import org.jclouds.chef.internal.BaseChefService;
 import org.jclouds.chef.util.ChefUtils;
@@ -266,6 +268,29 @@ public interface ChefService {
     */
    Iterable<? extends CookbookVersion> listCookbookVersionsInEnvironment(String environmentName, String numVersions, ExecutorService executorService);
 
+   /**
+    * Uploads the files of a cookbook directory and saves it as a new cookbook
+    * version, named after the metadata. Files the server already has are not
+    * uploaded again.
+    *
+    * @param metadata          The metadata of the cookbook version.
+    * @param cookbookDirectory The directory with the cookbook files.
+    * @return The saved cookbook version.
+    */
+   CookbookVersion uploadCookbookVersion(Metadata metadata, File cookbookDirectory);
+
+   /**
+    * Uploads the files of a cookbook directory and saves it as a new cookbook
+    * version, hashing and uploading the files concurrently using the threads
+    * available in the ExecutorService.
+    *
+    * @param metadata          The metadata of the cookbook version.
+    * @param cookbookDirectory The directory with the cookbook files.
+    * @param executorService   The thread pool used in this operation.
+    * @return The saved cookbook version.
+    */
+   CookbookVersion uploadCookbookVersion(Metadata metadata, File cookbookDirectory, ExecutorService executorService);
+
    /**
     * Lists the details of all existing environments.
     *
@@ -107,6 +107,22 @@ public final class ChefProperties {
     */
    public static final String CHEF_USE_OMNIBUS = "chef.use-omnibus";
 
+   /**
+    * Integer property. Default (10).
+    * <p>
+    * The most requests the bulk strategies, such as listing or deleting all
+    * nodes, have in flight at once against the Chef server.
+    */
+   public static final String CHEF_MAX_CONCURRENT_REQUESTS = "chef.max-concurrent-requests";
+
+   /**
+    * Integer property. Default (1000).
+    * <p>
+    * The number of rows the node listing strategies fetch per search request. The search index is updated
+    * asynchronously, so {@code 0} makes them get each node instead, for results that reflect the latest changes.
+    */
+   public static final String CHEF_SEARCH_PAGE_SIZE = "chef.search-page-size";
+
    private ChefProperties() {
       throw new AssertionError("intentionally unimplemented");
    }
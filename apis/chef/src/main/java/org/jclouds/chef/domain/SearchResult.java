@@ -26,6 +26,7 @@ import com.google.common.collect.Iterables;
 public class SearchResult<T> extends LinkedHashSet<T> {
    private static final long serialVersionUID = 4000610660948065287L;
    private long start;
+   private long total = -1;
 
    SearchResult() {
    }
@@ -35,6 +36,11 @@ public class SearchResult<T> extends LinkedHashSet<T> {
       Iterables.addAll(this, results);
    }
 
+   public SearchResult(long start, long total, Iterable<T> results) {
+      this(start, results);
+      this.total = total;
+   }
+
    /**
     * 
     * @return the result position this started from from
@@ -43,4 +49,12 @@ public class SearchResult<T> extends LinkedHashSet<T> {
       return start;
    }
 
+   /**
+    * 
+    * @return how many rows matched the query in total, or -1 if the server didn't say
+    */
+   public long getTotal() {
+      return total;
+   }
+
 }
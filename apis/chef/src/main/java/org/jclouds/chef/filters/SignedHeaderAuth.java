@@ -22,11 +22,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.hash.Hashing.sha1;
 import static com.google.common.io.BaseEncoding.base64;
 
-import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.security.PrivateKey;
 import java.util.NoSuchElementException;
 
 import javax.annotation.Resource;
+import javax.crypto.Cipher;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -36,6 +37,7 @@ import org.jclouds.Constants;
 import org.jclouds.crypto.Crypto;
 import org.jclouds.date.TimeStamp;
 import org.jclouds.domain.Credentials;
+import org.jclouds.encryption.internal.JCECrypto;
 import org.jclouds.http.HttpException;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpRequestFilter;
@@ -46,7 +48,6 @@ import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
 import org.jclouds.io.payloads.MultipartForm;
 import org.jclouds.io.payloads.Part;
-import org.jclouds.io.payloads.RSAEncryptingPayload;
 import org.jclouds.logging.Logger;
 import org.jclouds.util.Strings2;
 
@@ -189,9 +190,15 @@ public class SignedHeaderAuth implements HttpRequestFilter {
 
    public String sign(String toSign) {
       try {
-         byte[] encrypted = ByteStreams2.toByteArrayAndClose(new RSAEncryptingPayload(crypto, Payloads.newStringPayload(toSign), supplyKey.get()).openStream());
-         return base64().encode(encrypted);
-      } catch (IOException e) {
+         // the string to sign fits in a single RSA block, so the cipher is finished before it is given back
+         JCECrypto ciphers = crypto instanceof JCECrypto ? (JCECrypto) crypto : null;
+         Cipher cipher = ciphers != null ? ciphers.borrowCipher("RSA") : crypto.cipher("RSA");
+         cipher.init(Cipher.ENCRYPT_MODE, supplyKey.get());
+         String signature = base64().encode(cipher.doFinal(toSign.getBytes(UTF_8)));
+         if (ciphers != null)
+            ciphers.releaseCipher(cipher);
+         return signature;
+      } catch (GeneralSecurityException e) {
          throw new HttpException("error signing request", e);
       }
    }
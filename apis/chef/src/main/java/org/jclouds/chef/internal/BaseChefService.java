@@ -19,6 +19,7 @@ package org.jclouds.chef.internal;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.chef.config.ChefProperties.CHEF_BOOTSTRAP_DATABAG;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.PrivateKey;
@@ -40,6 +41,7 @@ import org.jclouds.chef.domain.Client;
 import org.jclouds.chef.domain.CookbookVersion;
 import org.jclouds.chef.domain.DatabagItem;
 import org.jclouds.chef.domain.Environment;
+import org.jclouds.chef.domain.Metadata;
 import org.jclouds.chef.domain.Node;
 import org.jclouds.chef.functions.BootstrapConfigForGroup;
 import org.jclouds.chef.functions.GroupToBootScript;
@@ -54,6 +56,7 @@ import org.jclouds.chef.strategy.ListEnvironments;
 import org.jclouds.chef.strategy.ListNodes;
 import org.jclouds.chef.strategy.ListNodesInEnvironment;
 import org.jclouds.chef.strategy.UpdateAutomaticAttributesOnNode;
+import org.jclouds.chef.strategy.UploadCookbookVersion;
 import org.jclouds.crypto.Crypto;
 import org.jclouds.io.ByteStreams2;
 import org.jclouds.io.Payloads;
@@ -89,6 +92,7 @@ public class BaseChefService implements ChefService {
    private final ListCookbookVersionsInEnvironment listCookbookVersionsInEnvironment;
    private final ListEnvironments listEnvironments;
    private final ListNodesInEnvironment listNodesInEnvironment;
+   private final UploadCookbookVersion uploadCookbookVersion;
    private final Json json;
    private final Crypto crypto;
 
@@ -105,7 +109,8 @@ public class BaseChefService implements ChefService {
          @Named(CHEF_BOOTSTRAP_DATABAG) String databag, GroupToBootScript groupToBootScript,
          BootstrapConfigForGroup bootstrapConfigForGroup, ListEnvironments listEnvironments,
          ListNodesInEnvironment listNodesInEnvironment,
-         ListCookbookVersionsInEnvironment listCookbookVersionsInEnvironment, Json json, Crypto crypto) {
+         ListCookbookVersionsInEnvironment listCookbookVersionsInEnvironment,
+         UploadCookbookVersion uploadCookbookVersion, Json json, Crypto crypto) {
       this.chefContext = chefContext;
       this.api = api;
       this.cleanupStaleNodesAndClients = cleanupStaleNodesAndClients;
@@ -123,6 +128,7 @@ public class BaseChefService implements ChefService {
       this.listEnvironments = listEnvironments;
       this.listNodesInEnvironment = listNodesInEnvironment;
       this.listCookbookVersionsInEnvironment = listCookbookVersionsInEnvironment;
+      this.uploadCookbookVersion = uploadCookbookVersion;
       this.json = json;
       this.crypto = crypto;
    }
@@ -276,6 +282,17 @@ public class BaseChefService implements ChefService {
       return listCookbookVersionsInEnvironment.execute(executorService, environmentName, numVersions);
    }
 
+   @Override
+   public CookbookVersion uploadCookbookVersion(Metadata metadata, File cookbookDirectory) {
+      return uploadCookbookVersion.execute(metadata, cookbookDirectory);
+   }
+
+   @Override
+   public CookbookVersion uploadCookbookVersion(Metadata metadata, File cookbookDirectory,
+         ExecutorService executorService) {
+      return uploadCookbookVersion.execute(executorService, metadata, cookbookDirectory);
+   }
+
    @Override
    public Iterable<? extends Environment> listEnvironments() {
       return listEnvironments.execute();
@@ -17,11 +17,19 @@
 package org.jclouds.chef.strategy;
 
 import com.google.inject.ImplementedBy;
+import org.jclouds.chef.config.ChefProperties;
 import org.jclouds.chef.domain.Node;
 import org.jclouds.chef.strategy.internal.ListNodesImpl;
 
 import java.util.concurrent.ExecutorService;
 
+/**
+ * Lists every node on the server.
+ * <p>
+ * The default implementation pages through the search index, which the server updates asynchronously: nodes saved or
+ * deleted in the last few seconds may be missing or still listed. Set {@link ChefProperties#CHEF_SEARCH_PAGE_SIZE} to
+ * {@code 0} to get each node from the node list instead.
+ */
 @ImplementedBy(ListNodesImpl.class)
 public interface ListNodes {
 
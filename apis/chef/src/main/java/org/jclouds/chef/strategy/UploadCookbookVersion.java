@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.chef.strategy;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+
+import org.jclouds.chef.domain.CookbookVersion;
+import org.jclouds.chef.domain.Metadata;
+import org.jclouds.chef.strategy.internal.UploadCookbookVersionImpl;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Uploads the files of a cookbook directory to a sandbox, and saves the
+ * cookbook version that refers to them.
+ */
+@ImplementedBy(UploadCookbookVersionImpl.class)
+public interface UploadCookbookVersion {
+
+   CookbookVersion execute(Metadata metadata, File cookbookDirectory);
+
+   CookbookVersion execute(ExecutorService executor, Metadata metadata, File cookbookDirectory);
+
+}
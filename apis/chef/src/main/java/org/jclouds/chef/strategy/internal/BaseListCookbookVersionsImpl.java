@@ -17,28 +17,38 @@
 package org.jclouds.chef.strategy.internal;
 
 import com.google.common.base.Function;
-import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.config.ChefProperties;
 import org.jclouds.chef.domain.CookbookVersion;
 import org.jclouds.logging.Logger;
 
+import javax.annotation.Resource;
+import javax.inject.Named;
+
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.Callable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.transform;
-import static com.google.common.util.concurrent.Futures.allAsList;
-import static com.google.common.util.concurrent.Futures.getUnchecked;
 
 public abstract class BaseListCookbookVersionsImpl {
 
    protected final ChefApi api;
 
+   @Resource
+   @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
+   @com.google.inject.Inject(optional = true)
+   @Named(ChefProperties.CHEF_MAX_CONCURRENT_REQUESTS)
+   protected int maxConcurrentRequests = 10;
+
    BaseListCookbookVersionsImpl(ChefApi api) {
       this.api = checkNotNull(api, "api");
    }
@@ -67,31 +77,30 @@ public abstract class BaseListCookbookVersionsImpl {
    }
 
    protected Iterable<? extends CookbookVersion> executeConcurrently(final ListeningExecutorService executor,
-         Iterable<String> cookbookNames) {
-      return concat(transform(cookbookNames, new Function<String, Iterable<? extends CookbookVersion>>() {
+         Iterable<String> toGet) {
+      List<String> cookbookNames = ImmutableList.copyOf(toGet);
+      List<Set<String>> versions = BoundedParallel.transform(executor, maxConcurrentRequests, cookbookNames,
+            new Function<String, Set<String>>() {
+               @Override
+               public Set<String> apply(String cookbook) {
+                  logger.trace(String.format("getting versions of cookbook: %s", cookbook));
+                  return api.listVersionsOfCookbook(cookbook);
+               }
+            });
 
-         @Override
-         public Iterable<? extends CookbookVersion> apply(final String cookbook) {
-            // TODO getting each version could also go parallel
-            Set<String> cookbookVersions = api.listVersionsOfCookbook(cookbook);
-            ListenableFuture<List<CookbookVersion>> futures = allAsList(transform(cookbookVersions,
-                  new Function<String, ListenableFuture<CookbookVersion>>() {
-                     @Override
-                     public ListenableFuture<CookbookVersion> apply(final String version) {
-                        return executor.submit(new Callable<CookbookVersion>() {
-                           @Override
-                           public CookbookVersion call() throws Exception {
-                              return api.getCookbook(cookbook, version);
-                           }
-                        });
-                     }
-                  }
-            ));
+      List<Entry<String, String>> cookbookVersions = Lists.newArrayList();
+      for (int i = 0; i < cookbookNames.size(); i++) {
+         for (String version : versions.get(i))
+            cookbookVersions.add(Maps.immutableEntry(cookbookNames.get(i), version));
+      }
 
-            logger.trace(String.format("getting versions of cookbook: %s", cookbook));
-            return getUnchecked(futures);
-         }
-      }));
+      return BoundedParallel.transform(executor, maxConcurrentRequests, cookbookVersions,
+            new Function<Entry<String, String>, CookbookVersion>() {
+               @Override
+               public CookbookVersion apply(Entry<String, String> cookbookVersion) {
+                  return api.getCookbook(cookbookVersion.getKey(), cookbookVersion.getValue());
+               }
+            });
    }
 
 }
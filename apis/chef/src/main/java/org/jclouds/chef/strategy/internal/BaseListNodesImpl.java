@@ -18,26 +18,41 @@ package org.jclouds.chef.strategy.internal;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
-import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.config.ChefProperties;
 import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.options.SearchOptions;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 
+import javax.annotation.Resource;
+import javax.inject.Named;
+
 import java.util.List;
-import java.util.concurrent.Callable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.transform;
-import static com.google.common.util.concurrent.Futures.allAsList;
-import static com.google.common.util.concurrent.Futures.getUnchecked;
 
 public abstract class BaseListNodesImpl {
 
    protected final ChefApi api;
 
+   @Resource
+   @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
+   @com.google.inject.Inject(optional = true)
+   @Named(ChefProperties.CHEF_MAX_CONCURRENT_REQUESTS)
+   protected int maxConcurrentRequests = 10;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(ChefProperties.CHEF_SEARCH_PAGE_SIZE)
+   protected int searchPageSize = 1000;
+
    BaseListNodesImpl(ChefApi api) {
       this.api = checkNotNull(api, "api");
    }
@@ -58,20 +73,52 @@ public abstract class BaseListNodesImpl {
 
    protected Iterable<? extends Node> executeConcurrently(final ListeningExecutorService executor,
          Iterable<String> toGet) {
-      ListenableFuture<List<Node>> futures = allAsList(transform(toGet, new Function<String, ListenableFuture<Node>>() {
+      logger.trace(String.format("getting nodes: %s", Joiner.on(',').join(toGet)));
+      return BoundedParallel.transform(executor, maxConcurrentRequests, toGet, new Function<String, Node>() {
          @Override
-         public ListenableFuture<Node> apply(final String input) {
-            return executor.submit(new Callable<Node>() {
-               @Override
-               public Node call() throws Exception {
-                  return api.getNode(input);
-               }
-            });
+         public Node apply(String input) {
+            return api.getNode(input);
          }
-      }));
+      });
+   }
 
-      logger.trace(String.format("getting nodes: %s", Joiner.on(',').join(toGet)));
-      return getUnchecked(futures);
+   /**
+    * Whether there are rows after the page that started at {@code start}. Pages can be shorter than requested even
+    * when more rows follow, as duplicate rows collapse in a {@link SearchResult} and the server skips rows deleted
+    * since it counted them, so the {@code total} the server reported decides. Without it, a short page is the last.
+    */
+   static boolean hasMorePages(SearchResult<?> page, int start, int pageSize) {
+      if (page.getTotal() >= 0)
+         return !page.isEmpty() && start + pageSize < page.getTotal();
+      return page.size() >= pageSize;
+   }
+
+   /**
+    * Pages through the nodes that match the query with the search api, which takes a request per
+    * {@code searchPageSize} nodes instead of one per node. The search index is updated asynchronously by
+    * the server, so nodes saved in the last few seconds may be missing or out of date.
+    * 
+    * @return the matching nodes, or null if search is disabled or the server could not be searched
+    */
+   @Nullable
+   protected List<Node> search(String query) {
+      if (searchPageSize <= 0)
+         return null;
+      List<Node> nodes = Lists.newArrayList();
+      try {
+         for (int start = 0;; start += searchPageSize) {
+            SearchResult<? extends Node> page = api.searchNodes(SearchOptions.Builder.query(query)
+                  .rows(searchPageSize).start(start));
+            Iterables.addAll(nodes, page);
+            if (!hasMorePages(page, start, searchPageSize))
+               break;
+         }
+      } catch (RuntimeException e) {
+         logger.warn(e, "could not search nodes(%s); getting them one at a time", query);
+         return null;
+      }
+      logger.trace(String.format("found %d nodes matching %s", nodes.size(), query));
+      return nodes;
    }
 
 }
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Applies a function to many inputs on an executor with a bounded number of calls in flight. Instead of a task per
+ * input, at most {@code maxInFlight} tasks are submitted, and each one takes the next input until none are left.
+ */
+final class BoundedParallel {
+
+   /**
+    * @return the results, in the order of the inputs
+    * @throws com.google.common.util.concurrent.UncheckedExecutionException
+    *            with the first failure, after which no further inputs are started
+    */
+   static <F, T> List<T> transform(ListeningExecutorService executor, int maxInFlight, Iterable<F> inputs,
+         final Function<? super F, ? extends T> function) {
+      checkNotNull(executor, "executor");
+      checkNotNull(function, "function");
+      final List<F> work = ImmutableList.copyOf(checkNotNull(inputs, "inputs"));
+      final AtomicReferenceArray<T> results = new AtomicReferenceArray<T>(work.size());
+      final AtomicInteger next = new AtomicInteger();
+      final AtomicBoolean failed = new AtomicBoolean();
+      int workers = Math.min(Math.max(1, maxInFlight), work.size());
+      List<ListenableFuture<Void>> futures = Lists.newArrayListWithCapacity(workers);
+      for (int w = 0; w < workers; w++) {
+         futures.add(executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+               for (int i = next.getAndIncrement(); i < work.size() && !failed.get(); i = next.getAndIncrement()) {
+                  try {
+                     results.set(i, function.apply(work.get(i)));
+                  } catch (RuntimeException e) {
+                     failed.set(true);
+                     throw e;
+                  }
+               }
+               return null;
+            }
+         }));
+      }
+      getUnchecked(allAsList(futures));
+      List<T> out = Lists.newArrayListWithCapacity(work.size());
+      for (int i = 0; i < work.size(); i++)
+         out.add(results.get(i));
+      return out;
+   }
+
+   private BoundedParallel() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
@@ -25,41 +25,62 @@ import static org.jclouds.chef.util.ChefUtils.fromOhaiTime;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.chef.ChefApi;
 import org.jclouds.chef.config.ChefProperties;
 import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.options.SearchOptions;
 import org.jclouds.chef.strategy.CleanupStaleNodesAndClients;
 import org.jclouds.chef.strategy.DeleteAllClientsInList;
 import org.jclouds.chef.strategy.DeleteAllNodesInList;
 import org.jclouds.chef.strategy.ListNodes;
 import org.jclouds.domain.JsonBall;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 /**
  * 
  * Cleans up nodes and apis who have been hanging around too long.
+ * <p>
+ * The candidates are found with a partial search that only returns the name and {@code ohai_time} of each node.
+ * When the server cannot be searched, every node is listed instead.
  */
 @Singleton
 public class CleanupStaleNodesAndClientsImpl implements CleanupStaleNodesAndClients {
+   private static final Map<String, List<String>> NAME_AND_OHAI_TIME = ImmutableMap.<String, List<String>> of(
+         "name", ImmutableList.of("name"), "ohai_time", ImmutableList.of("ohai_time"));
+
    @Resource
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
+   @com.google.inject.Inject(optional = true)
+   @Named(ChefProperties.CHEF_SEARCH_PAGE_SIZE)
+   protected int searchPageSize = 1000;
+
+   private final ChefApi api;
    private final ListNodes nodeLister;
    private final DeleteAllNodesInList nodeDeleter;
    private final DeleteAllClientsInList clientDeleter;
 
    @Inject
-   public CleanupStaleNodesAndClientsImpl(DeleteAllNodesInList nodeDeleter, DeleteAllClientsInList clientDeleter,
-         ListNodes nodeLister) {
+   public CleanupStaleNodesAndClientsImpl(ChefApi api, DeleteAllNodesInList nodeDeleter,
+         DeleteAllClientsInList clientDeleter, ListNodes nodeLister) {
+      this.api = checkNotNull(api, "api");
       this.nodeLister = checkNotNull(nodeLister, "nodeLister");
       this.nodeDeleter = checkNotNull(nodeDeleter, "nodeDeleter");
       this.clientDeleter = checkNotNull(clientDeleter, "clientDeleter");
@@ -70,6 +91,46 @@ public class CleanupStaleNodesAndClientsImpl implements CleanupStaleNodesAndClie
       final Calendar expired = Calendar.getInstance();
       expired.setTime(new Date());
       expired.add(Calendar.SECOND, -secondsStale);
+      List<String> nodeNames = searchStaleNodes(prefix, expired);
+      if (nodeNames == null)
+         nodeNames = listStaleNodes(prefix, expired);
+      nodeDeleter.execute(nodeNames);
+      clientDeleter.execute(nodeNames);
+   }
+
+   /**
+    * @return the names of the stale nodes, or null if search is disabled or the server could not be searched
+    */
+   @Nullable
+   private List<String> searchStaleNodes(String prefix, Calendar expired) {
+      if (searchPageSize <= 0)
+         return null;
+      String query = prefix.isEmpty() ? "*:*" : "name:" + escape(prefix) + "*";
+      ImmutableList.Builder<String> nodeNames = ImmutableList.builder();
+      try {
+         for (int start = 0;; start += searchPageSize) {
+            SearchResult<? extends Map<String, JsonBall>> page = api.partialSearchNodes(
+                  SearchOptions.Builder.query(query).rows(searchPageSize).start(start), NAME_AND_OHAI_TIME);
+            for (Map<String, JsonBall> node : page) {
+               JsonBall name = node.get("name");
+               if (name == null)
+                  continue;
+               // the search index is case insensitive and tokenized, so match the prefix exactly here
+               String nodeName = name.toString().replaceAll("^\"|\"$", "");
+               if (nodeName.startsWith(prefix) && isStale(node.get("ohai_time"), expired))
+                  nodeNames.add(nodeName);
+            }
+            if (!BaseListNodesImpl.hasMorePages(page, start, searchPageSize))
+               break;
+         }
+      } catch (RuntimeException e) {
+         logger.warn(e, "could not search nodes(%s); listing all of them", query);
+         return null;
+      }
+      return nodeNames.build();
+   }
+
+   private List<String> listStaleNodes(final String prefix, final Calendar expired) {
       Iterable<? extends Node> staleNodes = filter(
          nodeLister.execute(), and(notNull(), new Predicate<Node>() {
                @Override
@@ -80,23 +141,37 @@ public class CleanupStaleNodesAndClientsImpl implements CleanupStaleNodesAndClie
          new Predicate<Node>() {
              @Override
              public boolean apply(Node input) {
-                JsonBall dateLong = input.getAutomaticAttributes().get("ohai_time");
-                if (dateLong == null)
-                   return true;
-                Calendar nodeUpdate = Calendar.getInstance();
-                nodeUpdate.setTime(fromOhaiTime(dateLong));
-                return expired.after(nodeUpdate);
+                return isStale(input.getAutomaticAttributes().get("ohai_time"), expired);
              }
          }));
-      Iterable<String> nodeNames = transform(staleNodes, new Function<Node, String>() {
+      return ImmutableList.copyOf(transform(staleNodes, new Function<Node, String>() {
 
          @Override
          public String apply(Node from) {
             return from.getName();
          }
 
-      });
-      nodeDeleter.execute(nodeNames);
-      clientDeleter.execute(nodeNames);
+      }));
+   }
+
+   private static boolean isStale(@Nullable JsonBall dateLong, Calendar expired) {
+      if (dateLong == null)
+         return true;
+      Calendar nodeUpdate = Calendar.getInstance();
+      nodeUpdate.setTime(fromOhaiTime(dateLong));
+      return expired.after(nodeUpdate);
+   }
+
+   /**
+    * Escapes the characters that have a meaning in the query syntax of the search index.
+    */
+   private static String escape(String prefix) {
+      StringBuilder escaped = new StringBuilder(prefix.length());
+      for (char c : prefix.toCharArray()) {
+         if (!CharMatcher.JAVA_LETTER_OR_DIGIT.matches(c))
+            escaped.append('\\');
+         escaped.append(c);
+      }
+      return escaped.toString();
    }
 }
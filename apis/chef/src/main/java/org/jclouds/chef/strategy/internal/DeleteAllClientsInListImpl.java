@@ -17,12 +17,6 @@
 package org.jclouds.chef.strategy.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Iterables.transform;
-import static com.google.common.util.concurrent.Futures.allAsList;
-import static com.google.common.util.concurrent.Futures.getUnchecked;
-
-import java.util.List;
-import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -37,7 +31,6 @@ import org.jclouds.logging.Logger;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
-import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 
@@ -53,6 +46,10 @@ public class DeleteAllClientsInListImpl implements DeleteAllClientsInList {
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
+   @Inject(optional = true)
+   @Named(ChefProperties.CHEF_MAX_CONCURRENT_REQUESTS)
+   protected int maxConcurrentRequests = 10;
+
    @Inject
    DeleteAllClientsInListImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api) {
       this.userExecutor = checkNotNull(userExecutor, "userExecuor");
@@ -66,20 +63,12 @@ public class DeleteAllClientsInListImpl implements DeleteAllClientsInList {
 
    @Override
    public void execute(final ListeningExecutorService executor, Iterable<String> names) {
-      ListenableFuture<List<Client>> futures = allAsList(transform(names,
-            new Function<String, ListenableFuture<Client>>() {
-               @Override
-               public ListenableFuture<Client> apply(final String input) {
-                  return executor.submit(new Callable<Client>() {
-                     @Override
-                     public Client call() throws Exception {
-                        return api.deleteClient(input);
-                     }
-                  });
-               }
-            }));
-
       logger.trace(String.format("deleting clients: %s", Joiner.on(',').join(names)));
-      getUnchecked(futures);
+      BoundedParallel.transform(executor, maxConcurrentRequests, names, new Function<String, Client>() {
+         @Override
+         public Client apply(String input) {
+            return api.deleteClient(input);
+         }
+      });
    }
 }
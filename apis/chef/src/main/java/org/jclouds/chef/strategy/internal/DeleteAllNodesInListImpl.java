@@ -17,12 +17,6 @@
 package org.jclouds.chef.strategy.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Iterables.transform;
-import static com.google.common.util.concurrent.Futures.allAsList;
-import static com.google.common.util.concurrent.Futures.getUnchecked;
-
-import java.util.List;
-import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -37,7 +31,6 @@ import org.jclouds.logging.Logger;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
-import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 
@@ -50,6 +43,10 @@ public class DeleteAllNodesInListImpl implements DeleteAllNodesInList {
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
+   @Inject(optional = true)
+   @Named(ChefProperties.CHEF_MAX_CONCURRENT_REQUESTS)
+   protected int maxConcurrentRequests = 10;
+
    @Inject
    DeleteAllNodesInListImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api) {
       this.userExecutor = checkNotNull(userExecutor, "userExecuor");
@@ -63,19 +60,12 @@ public class DeleteAllNodesInListImpl implements DeleteAllNodesInList {
 
    @Override
    public void execute(final ListeningExecutorService executor, Iterable<String> names) {
-      ListenableFuture<List<Node>> futures = allAsList(transform(names, new Function<String, ListenableFuture<Node>>() {
+      logger.trace(String.format("deleting nodes: %s", Joiner.on(',').join(names)));
+      BoundedParallel.transform(executor, maxConcurrentRequests, names, new Function<String, Node>() {
          @Override
-         public ListenableFuture<Node> apply(final String input) {
-            return executor.submit(new Callable<Node>() {
-               @Override
-               public Node call() throws Exception {
-                  return api.deleteNode(input);
-               }
-            });
+         public Node apply(String input) {
+            return api.deleteNode(input);
          }
-      }));
-
-      logger.trace(String.format("deleting nodes: %s", Joiner.on(',').join(names)));
-      getUnchecked(futures);
+      });
    }
 }
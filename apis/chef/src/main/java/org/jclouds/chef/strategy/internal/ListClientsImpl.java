@@ -18,11 +18,6 @@ package org.jclouds.chef.strategy.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.transform;
-import static com.google.common.util.concurrent.Futures.allAsList;
-import static com.google.common.util.concurrent.Futures.getUnchecked;
-
-import java.util.List;
-import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -30,7 +25,6 @@ import javax.inject.Singleton;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
-import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Inject;
@@ -51,6 +45,10 @@ public class ListClientsImpl implements ListClients {
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
+   @Inject(optional = true)
+   @Named(ChefProperties.CHEF_MAX_CONCURRENT_REQUESTS)
+   protected int maxConcurrentRequests = 10;
+
    @Inject
    ListClientsImpl(ChefApi api) {
       this.api = checkNotNull(api, "api");
@@ -88,22 +86,13 @@ public class ListClientsImpl implements ListClients {
 
    private Iterable<? extends Client> executeConcurrently(final ListeningExecutorService executor,
          Iterable<String> toGet) {
-      ListenableFuture<List<Client>> futures = allAsList(transform(toGet,
-            new Function<String, ListenableFuture<Client>>() {
-               @Override
-               public ListenableFuture<Client> apply(final String input) {
-                  return executor.submit(new Callable<Client>() {
-                     @Override
-                     public Client call() throws Exception {
-                        return api.getClient(input);
-                     }
-                  });
-               }
-            }
-      ));
-
       logger.trace(String.format("getting clients: %s", Joiner.on(',').join(toGet)));
-      return getUnchecked(futures);
+      return BoundedParallel.transform(executor, maxConcurrentRequests, toGet, new Function<String, Client>() {
+         @Override
+         public Client apply(String input) {
+            return api.getClient(input);
+         }
+      });
    }
 
 }
@@ -17,12 +17,6 @@
 package org.jclouds.chef.strategy.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Iterables.transform;
-import static com.google.common.util.concurrent.Futures.allAsList;
-import static com.google.common.util.concurrent.Futures.getUnchecked;
-
-import java.util.List;
-import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -37,12 +31,10 @@ import org.jclouds.logging.Logger;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
-import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 import com.google.common.util.concurrent.MoreExecutors;
 
-
 import java.util.concurrent.ExecutorService;
 
 
@@ -56,6 +48,10 @@ public class ListEnvironmentsImpl implements ListEnvironments {
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
+   @Inject(optional = true)
+   @Named(ChefProperties.CHEF_MAX_CONCURRENT_REQUESTS)
+   protected int maxConcurrentRequests = 10;
+
    @Inject
    ListEnvironmentsImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api) {
       this.userExecutor = checkNotNull(userExecutor, "userExecuor");
@@ -77,20 +73,12 @@ public class ListEnvironmentsImpl implements ListEnvironments {
    }
 
    private Iterable<? extends Environment> execute(final ListeningExecutorService executor, Iterable<String> toGet) {
-      ListenableFuture<List<Environment>> futures = allAsList(transform(toGet,
-            new Function<String, ListenableFuture<Environment>>() {
-               @Override
-               public ListenableFuture<Environment> apply(final String input) {
-                  return executor.submit(new Callable<Environment>() {
-                     @Override
-                     public Environment call() throws Exception {
-                        return api.getEnvironment(input);
-                     }
-                  });
-               }
-            }));
-
-      logger.trace(String.format("deleting environments: %s", Joiner.on(',').join(toGet)));
-      return getUnchecked(futures);
+      logger.trace(String.format("getting environments: %s", Joiner.on(',').join(toGet)));
+      return BoundedParallel.transform(executor, maxConcurrentRequests, toGet, new Function<String, Environment>() {
+         @Override
+         public Environment apply(String input) {
+            return api.getEnvironment(input);
+         }
+      });
    }
 }
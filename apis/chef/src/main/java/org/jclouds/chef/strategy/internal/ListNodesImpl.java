@@ -29,8 +29,13 @@ import org.jclouds.chef.domain.Node;
 import org.jclouds.chef.strategy.ListNodes;
 import org.jclouds.logging.Logger;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
+/**
+ * Lists the nodes with the search api, falling back to getting each node when search is disabled or the server cannot
+ * be searched.
+ */
 @Singleton
 public class ListNodesImpl extends BaseListNodesImpl implements ListNodes {
 
@@ -46,7 +51,8 @@ public class ListNodesImpl extends BaseListNodesImpl implements ListNodes {
 
    @Override
    public Iterable<? extends Node> execute() {
-      return super.execute(api.listNodes());
+      List<Node> nodes = search("*:*");
+      return nodes != null ? nodes : super.execute(api.listNodes());
    }
 
    @Override
@@ -56,7 +62,8 @@ public class ListNodesImpl extends BaseListNodesImpl implements ListNodes {
 
 
    private Iterable<? extends Node> executeConcurrently(ListeningExecutorService executor) {
-      return super.executeConcurrently(executor, api.listNodes());
+      List<Node> nodes = search("*:*");
+      return nodes != null ? nodes : super.executeConcurrently(executor, api.listNodes());
    }
 
 }
@@ -29,8 +29,13 @@ import org.jclouds.chef.domain.Node;
 import org.jclouds.chef.strategy.ListNodesInEnvironment;
 import org.jclouds.logging.Logger;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
+/**
+ * Lists the nodes of an environment with the search api, falling back to getting each node when search is disabled or
+ * the server cannot be searched.
+ */
 @Singleton
 public class ListNodesInEnvironmentImpl extends BaseListNodesImpl implements ListNodesInEnvironment {
 
@@ -45,7 +50,8 @@ public class ListNodesInEnvironmentImpl extends BaseListNodesImpl implements Lis
 
    @Override
    public Iterable<? extends Node> execute(String environmentName) {
-      return super.execute(api.listNodesInEnvironment(environmentName));
+      List<Node> nodes = search(query(environmentName));
+      return nodes != null ? nodes : super.execute(api.listNodesInEnvironment(environmentName));
    }
 
    @Override
@@ -56,7 +62,12 @@ public class ListNodesInEnvironmentImpl extends BaseListNodesImpl implements Lis
 
    private Iterable<? extends Node> executeConcurrently(ListeningExecutorService executor,
          String environmentName) {
-      return super.executeConcurrently(executor, api.listNodesInEnvironment(environmentName));
+      List<Node> nodes = search(query(environmentName));
+      return nodes != null ? nodes : super.executeConcurrently(executor, api.listNodesInEnvironment(environmentName));
+   }
+
+   private static String query(String environmentName) {
+      return "chef_environment:" + environmentName;
    }
 
 }
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.hash.Hashing.md5;
+import static com.google.common.io.BaseEncoding.base16;
+import static com.google.common.primitives.Bytes.toArray;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.config.ChefProperties;
+import org.jclouds.chef.domain.ChecksumStatus;
+import org.jclouds.chef.domain.CookbookVersion;
+import org.jclouds.chef.domain.Metadata;
+import org.jclouds.chef.domain.Resource;
+import org.jclouds.chef.domain.UploadSandbox;
+import org.jclouds.chef.strategy.UploadCookbookVersion;
+import org.jclouds.io.Payloads;
+import org.jclouds.io.payloads.FilePayload;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.google.common.primitives.Bytes;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.Inject;
+
+/**
+ * Uploads a cookbook the way {@code knife cookbook upload} does.
+ * <p>
+ * The files are hashed concurrently, and a sandbox is requested for their
+ * distinct checksums. Only the checksums the server does not have yet are
+ * uploaded, at most {@link ChefProperties#CHEF_MAX_CONCURRENT_REQUESTS} at a
+ * time, each streamed from its file. Once the sandbox is committed, the
+ * cookbook version is saved.
+ * <p>
+ * The files directly in the cookbook directory are its root files, and the
+ * files under the {@code attributes}, {@code definitions}, {@code files},
+ * {@code libraries}, {@code providers}, {@code recipes}, {@code resources} and
+ * {@code templates} directories belong to those segments. Hidden files and
+ * other directories are left out.
+ */
+@Singleton
+public class UploadCookbookVersionImpl implements UploadCookbookVersion {
+
+   private static final Set<String> SEGMENTS = ImmutableSet.of("attributes", "definitions", "files", "libraries",
+         "providers", "recipes", "resources", "templates");
+
+   protected final ChefApi api;
+   protected final ListeningExecutorService userExecutor;
+   @javax.annotation.Resource
+   @Named(ChefProperties.CHEF_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(ChefProperties.CHEF_MAX_CONCURRENT_REQUESTS)
+   protected int maxConcurrentRequests = 10;
+
+   @Inject
+   UploadCookbookVersionImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         ChefApi api) {
+      this.userExecutor = checkNotNull(userExecutor, "userExecuor");
+      this.api = checkNotNull(api, "api");
+   }
+
+   @Override
+   public CookbookVersion execute(Metadata metadata, File cookbookDirectory) {
+      return execute(userExecutor, metadata, cookbookDirectory);
+   }
+
+   @Override
+   public CookbookVersion execute(ExecutorService executor, Metadata metadata, File cookbookDirectory) {
+      return execute(MoreExecutors.listeningDecorator(executor), metadata, cookbookDirectory);
+   }
+
+   private CookbookVersion execute(ListeningExecutorService executor, Metadata metadata, File cookbookDirectory) {
+      String cookbookName = checkNotNull(metadata.getName(), "metadata.name");
+      String version = checkNotNull(metadata.getVersion(), "metadata.version");
+      checkArgument(cookbookDirectory.isDirectory(), "%s is not a directory", cookbookDirectory);
+
+      final File root = cookbookDirectory;
+      List<String> paths = listFiles(root);
+      List<List<Byte>> checksums = BoundedParallel.transform(executor, maxConcurrentRequests, paths,
+            new Function<String, List<Byte>>() {
+               @Override
+               public List<Byte> apply(String path) {
+                  try {
+                     return Bytes.asList(Files.asByteSource(new File(root, path)).hash(md5()).asBytes());
+                  } catch (IOException e) {
+                     throw propagate(e);
+                  }
+               }
+            });
+
+      // identical files have the same checksum, and are only uploaded once
+      Map<List<Byte>, File> contents = Maps.newLinkedHashMap();
+      CookbookVersion.Builder cookbook = CookbookVersion.builder(cookbookName, version).metadata(metadata);
+      for (int i = 0; i < paths.size(); i++) {
+         if (!contents.containsKey(checksums.get(i)))
+            contents.put(checksums.get(i), new File(root, paths.get(i)));
+         addResource(cookbook, paths.get(i), toArray(checksums.get(i)));
+      }
+      if (!contents.isEmpty())
+         uploadSandbox(executor, contents);
+
+      logger.debug(">> saving cookbook %s version %s with %d files", cookbookName, version, paths.size());
+      return api.updateCookbook(cookbookName, version, cookbook.build());
+   }
+
+   private void uploadSandbox(ListeningExecutorService executor, Map<List<Byte>, File> contents) {
+      final UploadSandbox sandbox = api.createUploadSandboxForChecksums(contents.keySet());
+      List<Map.Entry<List<Byte>, File>> toUpload = Lists.newArrayList();
+      for (Map.Entry<List<Byte>, File> content : contents.entrySet()) {
+         ChecksumStatus status = sandbox.getChecksums().get(content.getKey());
+         if (status != null && status.needsUpload())
+            toUpload.add(content);
+      }
+      logger.debug(">> uploading %d of %d files to sandbox %s", toUpload.size(), contents.size(),
+            sandbox.getSandboxId());
+      try {
+         BoundedParallel.transform(executor, maxConcurrentRequests, toUpload,
+               new Function<Map.Entry<List<Byte>, File>, Void>() {
+                  @Override
+                  public Void apply(Map.Entry<List<Byte>, File> content) {
+                     FilePayload payload = Payloads.newFilePayload(content.getValue());
+                     payload.getContentMetadata().setContentType("application/x-binary");
+                     payload.getContentMetadata().setContentMD5(toArray(content.getKey()));
+                     logger.trace(">> uploading %s as %s", content.getValue(),
+                           base16().lowerCase().encode(toArray(content.getKey())));
+                     api.uploadContent(sandbox.getChecksums().get(content.getKey()).getUrl(), payload);
+                     return null;
+                  }
+               });
+      } catch (RuntimeException e) {
+         try {
+            api.commitSandbox(sandbox.getSandboxId(), false);
+         } catch (RuntimeException abandonFailure) {
+            logger.warn(abandonFailure, "could not abandon sandbox %s", sandbox.getSandboxId());
+         }
+         throw e;
+      }
+      api.commitSandbox(sandbox.getSandboxId(), true);
+   }
+
+   /**
+    * @return the paths of the cookbook files, relative to the directory and separated by {@code /}
+    */
+   private static List<String> listFiles(File cookbookDirectory) {
+      ImmutableList.Builder<String> paths = ImmutableList.builder();
+      for (File child : sorted(cookbookDirectory)) {
+         if (child.isFile())
+            paths.add(child.getName());
+         else if (SEGMENTS.contains(child.getName()))
+            listFiles(child, child.getName() + "/", paths);
+      }
+      return paths.build();
+   }
+
+   private static void listFiles(File directory, String prefix, ImmutableList.Builder<String> paths) {
+      for (File child : sorted(directory)) {
+         if (child.isDirectory())
+            listFiles(child, prefix + child.getName() + "/", paths);
+         else if (child.isFile())
+            paths.add(prefix + child.getName());
+      }
+   }
+
+   private static List<File> sorted(File directory) {
+      File[] children = directory.listFiles();
+      if (children == null)
+         throw propagate(new IOException("could not list " + directory));
+      Arrays.sort(children);
+      ImmutableList.Builder<File> visible = ImmutableList.builder();
+      for (File child : children) {
+         if (!child.getName().startsWith("."))
+            visible.add(child);
+      }
+      return visible.build();
+   }
+
+   /**
+    * Adds the file at the path to its segment. Files and templates are under a
+    * directory named after their specificity, such as {@code default} or a
+    * platform name.
+    */
+   private static void addResource(CookbookVersion.Builder cookbook, String path, byte[] checksum) {
+      List<String> parts = ImmutableList.copyOf(path.split("/"));
+      Resource.Builder resource = Resource.builder().name(parts.get(parts.size() - 1)).path(path).checksum(checksum);
+      if (parts.size() == 1) {
+         cookbook.rootFile(resource.build());
+         return;
+      }
+      String segment = parts.get(0);
+      if (parts.size() > 2 && (segment.equals("files") || segment.equals("templates")))
+         resource.specificity(parts.get(1));
+      if (segment.equals("attributes"))
+         cookbook.attribute(resource.build());
+      else if (segment.equals("definitions"))
+         cookbook.definition(resource.build());
+      else if (segment.equals("files"))
+         cookbook.file(resource.build());
+      else if (segment.equals("libraries"))
+         cookbook.library(resource.build());
+      else if (segment.equals("providers"))
+         cookbook.provider(resource.build());
+      else if (segment.equals("recipes"))
+         cookbook.recipe(resource.build());
+      else if (segment.equals("resources"))
+         cookbook.resource(resource.build());
+      else
+         cookbook.template(resource.build());
+   }
+}
@@ -23,6 +23,7 @@ import static org.testng.Assert.assertEquals;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
@@ -41,6 +42,7 @@ import org.jclouds.chef.filters.SignedHeaderAuth;
 import org.jclouds.chef.filters.SignedHeaderAuthTest;
 import org.jclouds.chef.functions.ParseCookbookVersionsCheckingChefVersion;
 import org.jclouds.chef.functions.ParseKeySetFromJson;
+import org.jclouds.chef.functions.ParsePartialSearchFromJson;
 import org.jclouds.chef.functions.ParseSearchClientsFromJson;
 import org.jclouds.chef.functions.ParseSearchDatabagFromJson;
 import org.jclouds.chef.functions.ParseSearchNodesFromJson;
@@ -63,6 +65,7 @@ import org.testng.annotations.Test;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.Invokable;
 import com.google.inject.Module;
@@ -652,6 +655,25 @@ public class ChefApiTest extends BaseRestAnnotationProcessingTest<ChefApi> {
 
    }
 
+   public void testPartialSearchNodes() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(ChefApi.class, "partialSearchNodes", SearchOptions.class, Map.class);
+      GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method, ImmutableList.<Object> of(
+            SearchOptions.Builder.query("name:foo*").rows(100),
+            ImmutableMap.of("ohai_time", ImmutableList.of("ohai_time")))));
+
+      assertRequestLineEquals(httpRequest, "POST http://localhost:4000/search/node?q=name%3Afoo%2A&rows=100 HTTP/1.1");
+      assertNonPayloadHeadersEqual(httpRequest, "Accept: application/json\nX-Chef-Version: " + ChefApiMetadata.DEFAULT_API_VERSION
+            + "-test\n");
+      assertPayloadEquals(httpRequest, "{\"ohai_time\":[\"ohai_time\"]}", "application/json", false);
+
+      assertResponseParserClassEquals(method, httpRequest, ParsePartialSearchFromJson.class);
+      assertSaxResponseParserClassEquals(method, null);
+      assertFallbackClassEquals(method, MapHttp4xxCodesToExceptions.class);
+
+      checkFilters(httpRequest);
+
+   }
+
    public void testSearchDatabagItems() throws SecurityException, NoSuchMethodException, IOException {
       Invokable<?, ?> method = method(ChefApi.class, "searchDatabagItems", String.class);
       GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method, ImmutableList.<Object> of("foo")));
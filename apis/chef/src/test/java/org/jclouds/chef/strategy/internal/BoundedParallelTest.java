@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Range;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+@Test(groups = "unit", testName = "BoundedParallelTest")
+public class BoundedParallelTest {
+
+   private final ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(16));
+
+   @AfterClass
+   public void shutdown() {
+      executor.shutdownNow();
+   }
+
+   public void testKeepsOrderAndBoundsCallsInFlight() {
+      final AtomicInteger inFlight = new AtomicInteger();
+      final AtomicInteger maxInFlight = new AtomicInteger();
+      List<Integer> inputs = ImmutableList.copyOf(ContiguousSet.create(Range.closedOpen(0, 200),
+            DiscreteDomain.integers()));
+
+      List<Integer> results = BoundedParallel.transform(executor, 3, inputs, new Function<Integer, Integer>() {
+         @Override
+         public Integer apply(Integer input) {
+            int current = inFlight.incrementAndGet();
+            while (true) {
+               int max = maxInFlight.get();
+               if (current <= max || maxInFlight.compareAndSet(max, current))
+                  break;
+            }
+            Thread.yield();
+            inFlight.decrementAndGet();
+            return input * 2;
+         }
+      });
+
+      assertEquals(results.size(), 200);
+      for (int i = 0; i < 200; i++)
+         assertEquals(results.get(i).intValue(), i * 2);
+      assertTrue(maxInFlight.get() <= 3, "max in flight: " + maxInFlight.get());
+   }
+
+   public void testStopsAfterFirstFailure() {
+      final AtomicInteger calls = new AtomicInteger();
+      List<Integer> inputs = ImmutableList.copyOf(ContiguousSet.create(Range.closedOpen(0, 1000),
+            DiscreteDomain.integers()));
+      try {
+         BoundedParallel.transform(executor, 2, inputs, new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer input) {
+               calls.incrementAndGet();
+               throw new IllegalStateException("failed " + input);
+            }
+         });
+         fail("expected the failure to be rethrown");
+      } catch (UncheckedExecutionException e) {
+         assertTrue(e.getCause() instanceof IllegalStateException, e.toString());
+      }
+      assertTrue(calls.get() <= 2, "calls: " + calls.get());
+   }
+
+   public void testEmptyInputs() {
+      assertEquals(BoundedParallel.transform(executor, 3, ImmutableList.<String> of(), new Function<String, String>() {
+         @Override
+         public String apply(String input) {
+            throw new AssertionError(input);
+         }
+      }), ImmutableList.of());
+   }
+}
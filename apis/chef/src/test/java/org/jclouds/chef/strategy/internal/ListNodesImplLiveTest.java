@@ -16,18 +16,24 @@
  */
 package org.jclouds.chef.strategy.internal;
 
-import static com.google.common.collect.Iterables.size;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jclouds.util.Predicates2.retry;
 import static org.testng.Assert.assertTrue;
 
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.domain.Node;
 import org.jclouds.chef.internal.BaseChefLiveTest;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -37,6 +43,8 @@ import java.util.concurrent.Executors;
 @Test(groups = "live", testName = "ListNodesImplLiveTest")
 public class ListNodesImplLiveTest extends BaseChefLiveTest<ChefApi> {
 
+   protected int maxWaitForIndexInMs = 60000;
+
    private ListNodesImpl strategy;
    private CreateNodeAndPopulateAutomaticAttributesImpl creator;
 
@@ -69,14 +77,44 @@ public class ListNodesImplLiveTest extends BaseChefLiveTest<ChefApi> {
 
    @Test
    public void testExecute() {
-      assertTrue(size(strategy.execute()) > 0, "Expected one or more elements");
+      assertListsCreatedNodes(new Supplier<Iterable<? extends Node>>() {
+         @Override
+         public Iterable<? extends Node> get() {
+            return strategy.execute();
+         }
+      });
    }
 
    public void testExecuteConcurrentlyWithExecutorService() {
-      assertTrue(size(strategy.execute(testExecutorService)) > 0, "Expected one or more elements");
+      assertListsCreatedNodes(new Supplier<Iterable<? extends Node>>() {
+         @Override
+         public Iterable<? extends Node> get() {
+            return strategy.execute(testExecutorService);
+         }
+      });
    }
 
    public void testExecuteConcurrentlyWithListeningExecutorService() {
-      assertTrue(size(strategy.execute(testListeningExecutorService)) > 0, "Expected one or more elements");
+      assertListsCreatedNodes(new Supplier<Iterable<? extends Node>>() {
+         @Override
+         public Iterable<? extends Node> get() {
+            return strategy.execute(testListeningExecutorService);
+         }
+      });
+   }
+
+   private void assertListsCreatedNodes(Supplier<Iterable<? extends Node>> listing) {
+      Predicate<Supplier<Iterable<? extends Node>>> listsCreatedNodes = retry(
+            new Predicate<Supplier<Iterable<? extends Node>>>() {
+               @Override
+               public boolean apply(Supplier<Iterable<? extends Node>> input) {
+                  Set<String> names = Sets.newHashSet();
+                  for (Node node : input.get())
+                     names.add(node.getName());
+                  // The nodes are listed through the search index, which may still not be populated
+                  return names.containsAll(ImmutableSet.of(prefix, prefix + 1));
+               }
+            }, maxWaitForIndexInMs, 5000L, MILLISECONDS);
+      assertTrue(listsCreatedNodes.apply(listing), "Expected the created nodes to be listed");
    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.options.SearchOptions;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Tests behavior of {@code ListNodesImpl}
+ */
+@Test(groups = { "unit" })
+public class ListNodesImplTest {
+
+   private static Node node(String name) {
+      return Node.builder().name(name).environment("_default").build();
+   }
+
+   private static SearchOptions page(int start) {
+      return SearchOptions.Builder.query("*:*").rows(2).start(start);
+   }
+
+   public void testPagesUntilTotalEvenWhenPagesAreShort() {
+      ChefApi chef = createMock(ChefApi.class);
+      // the first page lost a row, as if it had been deleted since the server counted the total
+      expect(chef.searchNodes(page(0))).andReturn(new SearchResult<Node>(0, 5, ImmutableList.of(node("a"))));
+      expect(chef.searchNodes(page(2))).andReturn(
+            new SearchResult<Node>(2, 5, ImmutableList.of(node("b"), node("c"))));
+      expect(chef.searchNodes(page(4))).andReturn(new SearchResult<Node>(4, 5, ImmutableList.of(node("d"))));
+      replay(chef);
+
+      ListNodesImpl strategy = new ListNodesImpl(chef);
+      strategy.searchPageSize = 2;
+
+      assertEquals(ImmutableList.copyOf(strategy.execute()),
+            ImmutableList.of(node("a"), node("b"), node("c"), node("d")));
+      verify(chef);
+   }
+
+   public void testStopsOnShortPageWithoutTotal() {
+      ChefApi chef = createMock(ChefApi.class);
+      expect(chef.searchNodes(page(0))).andReturn(new SearchResult<Node>(0, ImmutableList.of(node("a"))));
+      replay(chef);
+
+      ListNodesImpl strategy = new ListNodesImpl(chef);
+      strategy.searchPageSize = 2;
+
+      assertEquals(ImmutableList.copyOf(strategy.execute()), ImmutableList.of(node("a")));
+      verify(chef);
+   }
+
+   public void testGetsEachNodeWhenSearchIsDisabled() {
+      ChefApi chef = createMock(ChefApi.class);
+      expect(chef.listNodes()).andReturn(ImmutableSet.of("a"));
+      expect(chef.getNode("a")).andReturn(node("a"));
+      replay(chef);
+
+      ListNodesImpl strategy = new ListNodesImpl(chef);
+      strategy.searchPageSize = 0;
+
+      assertEquals(ImmutableList.copyOf(strategy.execute()), ImmutableList.of(node("a")));
+      verify(chef);
+   }
+}
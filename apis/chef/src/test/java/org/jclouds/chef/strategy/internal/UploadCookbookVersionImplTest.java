@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.hash.Hashing.md5;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.domain.ChecksumStatus;
+import org.jclouds.chef.domain.CookbookVersion;
+import org.jclouds.chef.domain.Metadata;
+import org.jclouds.chef.domain.Resource;
+import org.jclouds.chef.domain.UploadSandbox;
+import org.easymock.EasyMock;
+import org.jclouds.io.Payload;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import com.google.common.primitives.Bytes;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Tests behavior of {@code UploadCookbookVersionImpl}
+ */
+@Test(groups = { "unit" })
+public class UploadCookbookVersionImplTest {
+
+   private static final URI UPLOAD_URL = URI.create("http://localhost:4000/sandboxes/sandbox/metadata");
+
+   private File cookbookDirectory;
+
+   @BeforeMethod
+   public void createCookbook() throws IOException {
+      cookbookDirectory = Files.createTempDir();
+      write("metadata.rb", "name 'test'");
+      write("recipes/default.rb", "package 'apache2'");
+      write("templates/default/httpd.conf.erb", "Listen 80");
+      // same contents as the recipe, so it shares its checksum
+      write("files/ubuntu/apache2.sh", "package 'apache2'");
+      write(".git/config", "ignored");
+      write("spec/default_spec.rb", "ignored");
+   }
+
+   @AfterMethod
+   public void deleteCookbook() {
+      delete(cookbookDirectory);
+   }
+
+   @Test
+   public void testUploadsMissingChecksumsOnceAndSavesCookbook() {
+      ChefApi chef = createMock(ChefApi.class);
+
+      byte[] metadataMd5 = checksum("name 'test'");
+      byte[] recipeMd5 = checksum("package 'apache2'");
+      byte[] templateMd5 = checksum("Listen 80");
+      List<Byte> metadataChecksum = Bytes.asList(metadataMd5);
+
+      UploadSandbox sandbox = UploadSandbox.builder().sandboxId("sandbox")
+            .uri(URI.create("http://localhost:4000/sandboxes/sandbox"))
+            .checksum(metadataChecksum, ChecksumStatus.builder().url(UPLOAD_URL).needsUpload(true).build())
+            .checksum(Bytes.asList(recipeMd5), ChecksumStatus.builder().needsUpload(false).build())
+            .checksum(Bytes.asList(templateMd5), ChecksumStatus.builder().needsUpload(false).build()).build();
+
+      Metadata metadata = Metadata.builder().name("test").version("1.0.0").build();
+      CookbookVersion cookbook = CookbookVersion.builder("test", "1.0.0").metadata(metadata)
+            .rootFile(Resource.builder().name("metadata.rb").path("metadata.rb").checksum(metadataMd5).build())
+            .recipe(Resource.builder().name("default.rb").path("recipes/default.rb").checksum(recipeMd5).build())
+            .template(Resource.builder().name("httpd.conf.erb").path("templates/default/httpd.conf.erb")
+                  .checksum(templateMd5).build())
+            .file(Resource.builder().name("apache2.sh").path("files/ubuntu/apache2.sh").specificity("ubuntu")
+                  .checksum(recipeMd5).build())
+            .build();
+
+      expect(chef.createUploadSandboxForChecksums(ImmutableSet.of(metadataChecksum, Bytes.asList(recipeMd5),
+            Bytes.asList(templateMd5)))).andReturn(sandbox);
+      chef.uploadContent(eq(UPLOAD_URL), isA(Payload.class));
+      expectLastCall();
+      expect(chef.commitSandbox("sandbox", true)).andReturn(null);
+      expect(chef.updateCookbook("test", "1.0.0", cookbook)).andReturn(cookbook);
+
+      replay(chef);
+
+      UploadCookbookVersionImpl uploader = new UploadCookbookVersionImpl(MoreExecutors.sameThreadExecutor(), chef);
+
+      assertEquals(uploader.execute(metadata, cookbookDirectory), cookbook);
+      verify(chef);
+   }
+
+   @Test(expectedExceptions = UncheckedExecutionException.class)
+   public void testAbandonsSandboxWhenUploadFails() {
+      ChefApi chef = createMock(ChefApi.class);
+
+      UploadSandbox sandbox = UploadSandbox.builder().sandboxId("sandbox")
+            .uri(URI.create("http://localhost:4000/sandboxes/sandbox"))
+            .checksum(Bytes.asList(checksum("name 'test'")),
+                  ChecksumStatus.builder().url(UPLOAD_URL).needsUpload(true).build()).build();
+
+      expect(chef.createUploadSandboxForChecksums(EasyMock.<Set<List<Byte>>> anyObject())).andReturn(sandbox);
+      chef.uploadContent(eq(UPLOAD_URL), isA(Payload.class));
+      expectLastCall().andThrow(new IllegalStateException("upload failed"));
+      expect(chef.commitSandbox("sandbox", false)).andReturn(null);
+
+      replay(chef);
+
+      UploadCookbookVersionImpl uploader = new UploadCookbookVersionImpl(MoreExecutors.sameThreadExecutor(), chef);
+
+      try {
+         uploader.execute(Metadata.builder().name("test").version("1.0.0").build(), cookbookDirectory);
+      } finally {
+         verify(chef);
+      }
+   }
+
+   private void write(String path, String contents) throws IOException {
+      File file = new File(cookbookDirectory, path);
+      Files.createParentDirs(file);
+      Files.write(contents, file, UTF_8);
+   }
+
+   private static byte[] checksum(String contents) {
+      return md5().hashString(contents, UTF_8).asBytes();
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children)
+            delete(child);
+      }
+      file.delete();
+   }
+}
@@ -23,7 +23,6 @@ import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Maps.filterValues;
 import static com.google.common.collect.Sets.newHashSet;
-import static org.jclouds.location.predicates.LocationPredicates.idEquals;
 import static org.jclouds.util.InetAddresses2.isPrivateIPAddress;
 
 import javax.inject.Inject;
@@ -53,6 +52,7 @@ import org.jclouds.compute.domain.NodeMetadata.Status;
 import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.compute.domain.Processor;
 import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.suppliers.IndexedSupplier;
 import org.jclouds.domain.Location;
 import org.jclouds.rest.ResourceNotFoundException;
 import org.jclouds.util.Throwables2;
@@ -72,8 +72,8 @@ public class VirtualMachineToNodeMetadata implements Function<VirtualMachine, No
          .put(VirtualMachine.State.SHUTDOWNED, Status.PENDING)
          .put(VirtualMachine.State.UNRECOGNIZED, Status.UNRECOGNIZED).build();
 
-   private final Supplier<Set<? extends Location>> locations;
-   private final Supplier<Set<? extends Image>> images;
+   private final IndexedSupplier<String, Location> locations;
+   private final IndexedSupplier<String, Image> images;
    private final LoadingCache<String, Set<IPForwardingRule>> getIPForwardingRulesByVirtualMachine;
    private final GroupNamingConvention nodeNamingConvention;
 
@@ -83,8 +83,8 @@ public class VirtualMachineToNodeMetadata implements Function<VirtualMachine, No
          LoadingCache<String, Set<IPForwardingRule>> getIPForwardingRulesByVirtualMachine,
          GroupNamingConvention.Factory namingConvention) {
       this.nodeNamingConvention = checkNotNull(namingConvention, "namingConvention").createWithoutPrefix();
-      this.locations = checkNotNull(locations, "locations");
-      this.images = checkNotNull(images, "images");
+      this.locations = IndexedSupplier.locationsById(checkNotNull(locations, "locations"));
+      this.images = IndexedSupplier.byProviderId(checkNotNull(images, "images"));
       this.getIPForwardingRulesByVirtualMachine = checkNotNull(getIPForwardingRulesByVirtualMachine,
             "getIPForwardingRulesByVirtualMachine");
    }
@@ -102,18 +102,17 @@ public class VirtualMachineToNodeMetadata implements Function<VirtualMachine, No
       // we set displayName to the same value as name, but this could be wrong
       // on hosts not started with jclouds
       builder.hostname(from.getDisplayName());
-      builder.location(FluentIterable.from(locations.get()).firstMatch(idEquals(from.getZoneId())).orNull());
+      builder.location(locations.first(from.getZoneId()));
       if (from.getGroup() != null) {
          builder.group(from.getGroup());
       } else if (from.getDisplayName() != null) {
          builder.group(nodeNamingConvention.groupInUniqueNameOrNull(from.getDisplayName()));
       }
-      Image image = FluentIterable.from(images.get()).firstMatch(new Predicate<Image>() {
+      Image image = FluentIterable.from(images.all(from.getTemplateId() + "")).firstMatch(new Predicate<Image>() {
          @Override
          public boolean apply(Image input) {
-            return input.getProviderId().equals(from.getTemplateId() + "")
             // either location free image (location is null) or in the same zone as the VM
-                  && (input.getLocation() == null || input.getId().equals(from.getZoneId() + ""));
+            return input.getLocation() == null || input.getId().equals(from.getZoneId() + "");
          }
       }).orNull();
       if (image != null) {
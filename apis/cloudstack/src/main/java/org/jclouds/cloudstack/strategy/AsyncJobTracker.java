@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudstack.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Predicates.in;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.jclouds.cloudstack.options.ListAsyncJobsOptions.Builder.startDate;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.cloudstack.AsyncJobException;
+import org.jclouds.cloudstack.CloudStackApi;
+import org.jclouds.cloudstack.domain.AsyncJob;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.reference.ComputeServiceConstants.PollPeriod;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Waits for asynchronous jobs, polling the status of all the jobs waited for together.
+ * <p/>
+ * Each job waited for gets a future, completed with the job once it succeeded or failed. There is no polling thread:
+ * one of the waiting threads polls on behalf of all of them, at most once per poll period. When more than
+ * {@link #MAX_QUERIES_PER_POLL} jobs are waited for, a poll is a single {@code listAsyncJobs} call, followed by
+ * {@code queryAsyncJobResult} calls only for the jobs it did not list; otherwise it queries each job. Either way, the
+ * number of calls per period does not grow with the number of jobs.
+ */
+@Singleton
+public class AsyncJobTracker {
+
+   /**
+    * The most {@code queryAsyncJobResult} calls in one poll.
+    */
+   public static final int MAX_QUERIES_PER_POLL = 5;
+
+   /**
+    * How far before the first job was waited for {@code listAsyncJobs} looks, to allow for clock skew.
+    */
+   private static final long START_DATE_MARGIN_MILLIS = MINUTES.toMillis(5);
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final CloudStackApi client;
+   private final long periodNanos;
+   private final ConcurrentMap<String, Tracked> tracked = Maps.newConcurrentMap();
+   private final ReentrantLock polling = new ReentrantLock();
+   private long lastPollNanos; // guarded by polling
+
+   @Inject
+   AsyncJobTracker(CloudStackApi client, PollPeriod pollPeriod) {
+      this(client, pollPeriod.pollMaxPeriod, MILLISECONDS);
+   }
+
+   @VisibleForTesting
+   AsyncJobTracker(CloudStackApi client, long period, TimeUnit unit) {
+      this.client = checkNotNull(client, "client");
+      this.periodNanos = unit.toNanos(period);
+      this.lastPollNanos = System.nanoTime() - periodNanos;
+   }
+
+   private static final class Tracked {
+      private final String jobId;
+      private final SettableFuture<AsyncJob<?>> future = SettableFuture.create();
+      private final long sinceMillis = System.currentTimeMillis();
+      private volatile long lastQueriedNanos = Long.MIN_VALUE;
+
+      private Tracked(String jobId) {
+         this.jobId = jobId;
+      }
+   }
+
+   private static final Ordering<Tracked> LEAST_RECENTLY_QUERIED = new Ordering<Tracked>() {
+      @Override
+      public int compare(Tracked left, Tracked right) {
+         return Longs.compare(left.lastQueriedNanos, right.lastQueriedNanos);
+      }
+   };
+
+   /**
+    * Waits until the job succeeds or fails.
+    * 
+    * @return the finished job, or null if it did not finish in time
+    */
+   public AsyncJob<?> await(String jobId, long timeout, TimeUnit unit) throws InterruptedException {
+      checkNotNull(jobId, "jobId");
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      Tracked job = track(jobId);
+      while (true) {
+         // re-registers the job, if a waiter that timed out removed it
+         tracked.putIfAbsent(jobId, job);
+         if (polling.tryLock()) {
+            try {
+               if (System.nanoTime() - lastPollNanos >= periodNanos) {
+                  poll();
+                  lastPollNanos = System.nanoTime();
+               }
+            } finally {
+               polling.unlock();
+            }
+         }
+         long remaining = deadline - System.nanoTime();
+         try {
+            return job.future.get(Math.max(0, Math.min(remaining, periodNanos)), NANOSECONDS);
+         } catch (TimeoutException e) {
+            if (remaining <= periodNanos) {
+               tracked.remove(jobId, job);
+               return null;
+            }
+         } catch (ExecutionException e) {
+            throw new AssertionError(e); // futures are only ever set with a job
+         }
+      }
+   }
+
+   private Tracked track(String jobId) {
+      Tracked job = new Tracked(jobId);
+      Tracked existing = tracked.putIfAbsent(jobId, job);
+      return existing != null ? existing : job;
+   }
+
+   /**
+    * Returns a predicate which waits for a job to finish, like {@link org.jclouds.cloudstack.predicates.JobComplete}
+    * retried: it returns true if the job succeeded, false if it did not finish in time, and throws an
+    * {@link AsyncJobException} if it failed.
+    */
+   public Predicate<String> jobComplete(final long timeout, final TimeUnit unit) {
+      return new Predicate<String>() {
+         @Override
+         public boolean apply(String jobId) {
+            AsyncJob<?> job;
+            try {
+               job = await(jobId, timeout, unit);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               return false;
+            }
+            if (job == null)
+               return false;
+            if (job.hasFailed())
+               throw new AsyncJobException(String.format("job %s failed with exception %s", job.toString(),
+                     job.getError()));
+            return true;
+         }
+
+         @Override
+         public String toString() {
+            return "jobComplete(" + timeout + " " + unit + ")";
+         }
+      };
+   }
+
+   @VisibleForTesting
+   void poll() {
+      Map<String, Tracked> toPoll = ImmutableMap.copyOf(tracked);
+      if (toPoll.isEmpty())
+         return;
+      logger.trace(">> polling %d jobs", toPoll.size());
+      Set<String> toQuery = toPoll.keySet();
+      try {
+         if (toPoll.size() > MAX_QUERIES_PER_POLL) {
+            long since = Long.MAX_VALUE;
+            for (Tracked job : toPoll.values())
+               since = Math.min(since, job.sinceMillis);
+            Set<String> listed = Sets.newHashSet();
+            for (AsyncJob<?> job : client.getAsyncJobApi().listAsyncJobs(
+                  startDate(new Date(since - START_DATE_MARGIN_MILLIS)))) {
+               if (toPoll.containsKey(job.getId())) {
+                  listed.add(job.getId());
+                  complete(job);
+               }
+            }
+            toQuery = Sets.difference(toQuery, listed);
+         }
+         // jobs listAsyncJobs does not return, for example of other accounts, take turns
+         for (Tracked next : LEAST_RECENTLY_QUERIED.leastOf(Maps.filterKeys(toPoll, in(toQuery)).values(),
+               MAX_QUERIES_PER_POLL)) {
+            next.lastQueriedNanos = System.nanoTime();
+            AsyncJob<?> job = client.getAsyncJobApi().getAsyncJob(next.jobId);
+            if (job != null)
+               complete(job);
+         }
+      } catch (RuntimeException e) {
+         logger.warn(e, "<< error polling jobs; will try again in %d ms", NANOSECONDS.toMillis(periodNanos));
+      }
+   }
+
+   private void complete(AsyncJob<?> job) {
+      logger.trace("%s: job status %s", job.getId(), job.getStatus());
+      if (!job.hasFailed() && !job.hasSucceed())
+         return;
+      Tracked done = tracked.remove(job.getId());
+      if (done != null)
+         done.future.set(job);
+   }
+
+   /**
+    * The number of jobs waited for.
+    */
+   @VisibleForTesting
+   int trackedCount() {
+      return tracked.size();
+   }
+}
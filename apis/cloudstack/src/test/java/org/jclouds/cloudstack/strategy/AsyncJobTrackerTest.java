@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudstack.strategy;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.easymock.IAnswer;
+import org.jclouds.cloudstack.AsyncJobException;
+import org.jclouds.cloudstack.CloudStackApi;
+import org.jclouds.cloudstack.domain.AsyncJob;
+import org.jclouds.cloudstack.domain.AsyncJob.ResultCode;
+import org.jclouds.cloudstack.domain.AsyncJob.Status;
+import org.jclouds.cloudstack.domain.AsyncJobError;
+import org.jclouds.cloudstack.domain.AsyncJobError.ErrorCode;
+import org.jclouds.cloudstack.features.AsyncJobApi;
+import org.jclouds.cloudstack.options.ListAsyncJobsOptions;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+@Test(groups = "unit", testName = "AsyncJobTrackerTest", singleThreaded = true)
+public class AsyncJobTrackerTest {
+
+   private CloudStackApi client;
+   private AsyncJobApi jobClient;
+   private AsyncJobTracker tracker;
+   /** Jobs that have finished, by id; the others are in progress. */
+   private Map<String, AsyncJob<?>> finished;
+
+   @BeforeMethod
+   public void setUp() {
+      client = createMock(CloudStackApi.class);
+      jobClient = createMock(AsyncJobApi.class);
+      expect(client.getAsyncJobApi()).andReturn(jobClient).anyTimes();
+      finished = Maps.newConcurrentMap();
+      tracker = new AsyncJobTracker(client, 20, MILLISECONDS);
+   }
+
+   private static AsyncJob<?> succeeded(String id) {
+      return AsyncJob.builder().id(id).status(Status.SUCCEEDED).resultCode(ResultCode.SUCCESS).build();
+   }
+
+   private static AsyncJob<?> failed(String id) {
+      return AsyncJob.builder().id(id).status(Status.FAILED).resultCode(ResultCode.FAIL)
+            .error(AsyncJobError.builder().errorCode(ErrorCode.INTERNAL_ERROR).errorText("boom").build()).build();
+   }
+
+   private static AsyncJob<?> pending(String id) {
+      return AsyncJob.builder().id(id).status(Status.IN_PROGRESS).resultCode(ResultCode.UNKNOWN).build();
+   }
+
+   /**
+    * Answers a query with the job if it finished, or as in progress.
+    */
+   private final IAnswer<Object> query = new IAnswer<Object>() {
+      @Override
+      public Object answer() {
+         String id = (String) getCurrentArguments()[0];
+         return finished.containsKey(id) ? finished.get(id) : pending(id);
+      }
+   };
+
+   /**
+    * Answers a list with the jobs that finished.
+    */
+   private final IAnswer<Set<AsyncJob<?>>> list = new IAnswer<Set<AsyncJob<?>>>() {
+      @Override
+      public Set<AsyncJob<?>> answer() {
+         return ImmutableSet.copyOf(finished.values());
+      }
+   };
+
+   public void testFewJobsAreQueried() throws InterruptedException {
+      expect((Object) jobClient.getAsyncJob("1")).andReturn(succeeded("1"));
+      replay(client, jobClient);
+
+      AsyncJob<?> job = tracker.await("1", 1, SECONDS);
+      assertEquals(job.getId(), "1");
+      assertEquals(tracker.trackedCount(), 0);
+      verify(client, jobClient);
+   }
+
+   public void testTimesOutWhenJobDoesNotFinish() throws InterruptedException {
+      expect((Object) jobClient.getAsyncJob("1")).andReturn(pending("1")).atLeastOnce();
+      replay(client, jobClient);
+
+      assertNull(tracker.await("1", 100, MILLISECONDS));
+      assertEquals(tracker.trackedCount(), 0);
+      verify(client, jobClient);
+   }
+
+   public void testJobCompleteThrowsOnFailure() {
+      expect((Object) jobClient.getAsyncJob("1")).andReturn(failed("1"));
+      expect((Object) jobClient.getAsyncJob("2")).andReturn(pending("2")).atLeastOnce();
+      replay(client, jobClient);
+
+      try {
+         tracker.jobComplete(1, SECONDS).apply("1");
+         fail("expected the job failure");
+      } catch (AsyncJobException e) {
+         assertTrue(e.getMessage().contains("boom"), e.getMessage());
+      }
+      assertFalse(tracker.jobComplete(50, MILLISECONDS).apply("2"));
+      verify(client, jobClient);
+   }
+
+   public void testManyJobsArePolledWithOneListPerPeriod() throws Exception {
+      // about one list per period whatever the number of jobs, and at most a few queries after each
+      expect(jobClient.listAsyncJobs(anyObject(ListAsyncJobsOptions.class))).andAnswer(list).times(1, 99);
+      expect((Object) jobClient.getAsyncJob(anyString())).andAnswer(query)
+            .times(0, 100 * AsyncJobTracker.MAX_QUERIES_PER_POLL);
+      replay(client, jobClient);
+
+      final int jobs = 50;
+      ExecutorService executor = Executors.newFixedThreadPool(jobs);
+      try {
+         List<Future<AsyncJob<?>>> results = Lists.newArrayList();
+         for (int i = 0; i < jobs; i++) {
+            final String id = String.valueOf(i);
+            results.add(executor.submit(new Callable<AsyncJob<?>>() {
+               public AsyncJob<?> call() throws InterruptedException {
+                  return tracker.await(id, 10, SECONDS);
+               }
+            }));
+         }
+         Thread.sleep(200);
+         for (int i = 0; i < jobs; i++)
+            finished.put(String.valueOf(i), succeeded(String.valueOf(i)));
+         for (int i = 0; i < jobs; i++)
+            assertEquals(results.get(i).get().getId(), String.valueOf(i));
+      } finally {
+         executor.shutdownNow();
+      }
+      verify(client, jobClient);
+   }
+
+   public void testJobsNotListedAreQueriedInTurn() throws Exception {
+      final int jobs = 12;
+      expect(jobClient.listAsyncJobs(anyObject(ListAsyncJobsOptions.class))).andReturn(
+            ImmutableSet.<AsyncJob<?>> of()).anyTimes();
+      expect((Object) jobClient.getAsyncJob(anyString())).andAnswer(query).times(jobs, Integer.MAX_VALUE);
+      replay(client, jobClient);
+
+      ExecutorService executor = Executors.newFixedThreadPool(jobs);
+      try {
+         for (int i = 0; i < jobs; i++)
+            finished.put(String.valueOf(i), succeeded(String.valueOf(i)));
+         List<Future<AsyncJob<?>>> results = Lists.newArrayList();
+         for (int i = 0; i < jobs; i++) {
+            final String id = String.valueOf(i);
+            results.add(executor.submit(new Callable<AsyncJob<?>>() {
+               public AsyncJob<?> call() throws InterruptedException {
+                  return tracker.await(id, 10, SECONDS);
+               }
+            }));
+         }
+         for (Future<AsyncJob<?>> result : results)
+            assertTrue(result.get().hasSucceed());
+      } finally {
+         executor.shutdownNow();
+      }
+      verify(client, jobClient);
+   }
+}
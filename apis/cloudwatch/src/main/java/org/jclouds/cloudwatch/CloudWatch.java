@@ -77,6 +77,8 @@ public class CloudWatch {
     * @param region the region to put the metrics in
     * @param metrics the metrics to publish
     * @param namespace the namespace to publish the metrics in
+    *
+    * @see MetricPublisher
     */
    public static void putMetricData(CloudWatchApi cloudWatchApi, String region, Iterable<MetricDatum> metrics,
             String namespace) {
@@ -0,0 +1,448 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudwatch;
+
+import static com.google.common.base.Objects.equal;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.Closeable;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jclouds.cloudwatch.domain.Dimension;
+import org.jclouds.cloudwatch.domain.MetricDatum;
+import org.jclouds.cloudwatch.domain.StatisticValues;
+import org.jclouds.cloudwatch.domain.Unit;
+import org.jclouds.cloudwatch.features.MetricApi;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+
+/**
+ * Publishes metrics to CloudWatch in the background, without blocking the threads that record them.
+ * <p/>
+ * Samples are aggregated into a {@link StatisticValues} per metric name, unit, set of dimensions and period, so
+ * recording a sample costs a map lookup and does no I/O. On every flush, the aggregates are sent with
+ * {@code PutMetricData}, in requests of {@link #MAX_DATA_PER_REQUEST} data, by up to {@code concurrency} requests at a
+ * time on the executor. CloudWatch merges the statistics sent for the same period, so a period may be flushed more
+ * than once.
+ * <p/>
+ * Nothing here grows without bound. Samples of a new series are dropped once {@code maxSeries} series are waiting for
+ * the next flush, and requests are dropped when {@code maxPendingRequests} are already waiting to be sent. Dropped
+ * samples and data, as well as failed requests, are counted rather than thrown at the caller.
+ * 
+ * <h4>Example usage</h4>
+ * 
+ * <pre>
+ * MetricPublisher publisher = MetricPublisher.builder(cloudWatchApi.getMetricApiForRegion(region), "MyApp", scheduler)
+ *                                            .flushInterval(30, TimeUnit.SECONDS)
+ *                                            .build();
+ * publisher.record("Latency", Unit.MILLISECONDS, elapsed, new Dimension("Operation", "GetObject"));
+ * ...
+ * publisher.close();
+ * </pre>
+ */
+@Beta
+public class MetricPublisher implements Closeable {
+
+   /**
+    * The most data sent in one {@code PutMetricData} request.
+    */
+   public static final int MAX_DATA_PER_REQUEST = 10;
+
+   public static Builder builder(MetricApi api, String namespace, ScheduledExecutorService executor) {
+      return new Builder(api, namespace, executor);
+   }
+
+   public static class Builder {
+      private final MetricApi api;
+      private final String namespace;
+      private final ScheduledExecutorService executor;
+      private long periodMillis = 60000;
+      private long flushIntervalMillis = 60000;
+      private int maxSeries = 10000;
+      private int maxPendingRequests = 1000;
+      private int concurrency = 4;
+
+      private Builder(MetricApi api, String namespace, ScheduledExecutorService executor) {
+         this.api = checkNotNull(api, "api");
+         this.namespace = checkNotNull(namespace, "namespace");
+         this.executor = checkNotNull(executor, "executor");
+      }
+
+      /**
+       * The period samples are aggregated over; each aggregate is timestamped with the start of its period. Default
+       * one minute.
+       */
+      public Builder period(long period, TimeUnit unit) {
+         checkArgument(period > 0, "period must be positive");
+         this.periodMillis = unit.toMillis(period);
+         return this;
+      }
+
+      /**
+       * How often the aggregates are sent. Default one minute.
+       */
+      public Builder flushInterval(long flushInterval, TimeUnit unit) {
+         checkArgument(flushInterval > 0, "flushInterval must be positive");
+         this.flushIntervalMillis = unit.toMillis(flushInterval);
+         return this;
+      }
+
+      /**
+       * The most series aggregated between two flushes. Default 10000.
+       */
+      public Builder maxSeries(int maxSeries) {
+         checkArgument(maxSeries > 0, "maxSeries must be positive");
+         this.maxSeries = maxSeries;
+         return this;
+      }
+
+      /**
+       * The most requests waiting to be sent. Default 1000.
+       */
+      public Builder maxPendingRequests(int maxPendingRequests) {
+         checkArgument(maxPendingRequests > 0, "maxPendingRequests must be positive");
+         this.maxPendingRequests = maxPendingRequests;
+         return this;
+      }
+
+      /**
+       * The most requests sent at the same time. Default 4.
+       */
+      public Builder concurrency(int concurrency) {
+         checkArgument(concurrency > 0, "concurrency must be positive");
+         this.concurrency = concurrency;
+         return this;
+      }
+
+      public MetricPublisher build() {
+         MetricPublisher publisher = new MetricPublisher(api, namespace, executor, periodMillis, maxSeries,
+               maxPendingRequests, concurrency);
+         publisher.start(flushIntervalMillis);
+         return publisher;
+      }
+   }
+
+   private final MetricApi api;
+   private final String namespace;
+   private final ScheduledExecutorService executor;
+   private final long periodMillis;
+   private final int maxSeries;
+   private final int concurrency;
+   private final ConcurrentMap<Series, Aggregate> aggregates = Maps.newConcurrentMap();
+   private final AtomicInteger seriesCount = new AtomicInteger();
+   private final BlockingQueue<List<MetricDatum>> pending;
+   private final AtomicInteger senders = new AtomicInteger();
+   private volatile ScheduledFuture<?> flushing;
+   private volatile boolean closed;
+
+   private final AtomicLong recordedSamples = new AtomicLong();
+   private final AtomicLong droppedSamples = new AtomicLong();
+   private final AtomicLong publishedData = new AtomicLong();
+   private final AtomicLong droppedData = new AtomicLong();
+   private final AtomicLong failedRequests = new AtomicLong();
+
+   @VisibleForTesting
+   MetricPublisher(MetricApi api, String namespace, ScheduledExecutorService executor, long periodMillis,
+         int maxSeries, int maxPendingRequests, int concurrency) {
+      this.api = checkNotNull(api, "api");
+      this.namespace = checkNotNull(namespace, "namespace");
+      this.executor = checkNotNull(executor, "executor");
+      this.periodMillis = periodMillis;
+      this.maxSeries = maxSeries;
+      this.pending = new ArrayBlockingQueue<List<MetricDatum>>(maxPendingRequests);
+      this.concurrency = concurrency;
+   }
+
+   private void start(long flushIntervalMillis) {
+      flushing = executor.scheduleAtFixedRate(new Runnable() {
+         @Override
+         public void run() {
+            flush();
+         }
+
+         @Override
+         public String toString() {
+            return "flush(" + namespace + ")";
+         }
+      }, flushIntervalMillis, flushIntervalMillis, MILLISECONDS);
+   }
+
+   /**
+    * Records a sample of a metric, without dimensions.
+    * 
+    * @return false if the sample was dropped
+    */
+   public boolean record(String metricName, Unit unit, double value) {
+      return record(metricName, unit, value, ImmutableSet.<Dimension> of());
+   }
+
+   /**
+    * Records a sample of a metric.
+    * 
+    * @return false if the sample was dropped
+    */
+   public boolean record(String metricName, Unit unit, double value, Dimension... dimensions) {
+      return record(metricName, unit, value, ImmutableSet.copyOf(dimensions));
+   }
+
+   /**
+    * Records a sample of a metric.
+    * 
+    * @return false if the sample was dropped
+    */
+   public boolean record(String metricName, Unit unit, double value, Iterable<Dimension> dimensions) {
+      if (closed) {
+         droppedSamples.incrementAndGet();
+         return false;
+      }
+      long now = currentTimeMillis();
+      Series series = new Series(metricName, unit, ImmutableSet.copyOf(dimensions), now - now % periodMillis);
+      while (true) {
+         Aggregate aggregate = aggregates.get(series);
+         if (aggregate == null) {
+            if (seriesCount.get() >= maxSeries) {
+               droppedSamples.incrementAndGet();
+               return false;
+            }
+            Aggregate created = new Aggregate();
+            aggregate = aggregates.putIfAbsent(series, created);
+            if (aggregate == null) {
+               seriesCount.incrementAndGet();
+               aggregate = created;
+            }
+         }
+         if (aggregate.add(value)) {
+            recordedSamples.incrementAndGet();
+            return true;
+         }
+         // flushed since we looked it up, and so removed from the map
+      }
+   }
+
+   /**
+    * Sends the samples recorded so far. The requests are sent on the executor; this method does not wait for them.
+    */
+   public void flush() {
+      List<MetricDatum> data = newArrayList();
+      for (Map.Entry<Series, Aggregate> entry : aggregates.entrySet()) {
+         if (aggregates.remove(entry.getKey(), entry.getValue())) {
+            seriesCount.decrementAndGet();
+            StatisticValues statisticValues = entry.getValue().flush();
+            if (statisticValues != null)
+               data.add(entry.getKey().toDatum(statisticValues));
+         }
+      }
+      for (List<MetricDatum> request : Iterables.partition(data, MAX_DATA_PER_REQUEST)) {
+         if (!pending.offer(request))
+            droppedData.addAndGet(request.size());
+      }
+      startSenders();
+   }
+
+   private void startSenders() {
+      while (!pending.isEmpty()) {
+         int running = senders.get();
+         if (running >= concurrency)
+            return;
+         if (senders.compareAndSet(running, running + 1)) {
+            try {
+               executor.execute(sender);
+            } catch (RejectedExecutionException e) {
+               senders.decrementAndGet();
+               return;
+            }
+         }
+      }
+   }
+
+   private final Runnable sender = new Runnable() {
+      @Override
+      public void run() {
+         try {
+            List<MetricDatum> request;
+            while ((request = pending.poll()) != null)
+               send(request);
+         } finally {
+            senders.decrementAndGet();
+         }
+         // a flush may have queued a request after our last poll, and seen us still running
+         if (!closed)
+            startSenders();
+      }
+
+      @Override
+      public String toString() {
+         return "putMetricsInNamespace(" + namespace + ")";
+      }
+   };
+
+   private void send(List<MetricDatum> request) {
+      try {
+         api.putMetricsInNamespace(request, namespace);
+         publishedData.addAndGet(request.size());
+      } catch (RuntimeException e) {
+         failedRequests.incrementAndGet();
+         droppedData.addAndGet(request.size());
+      }
+   }
+
+   /**
+    * Stops the scheduled flushes, and sends the samples recorded so far. Requests not yet taken by the executor are
+    * sent on the calling thread. Samples recorded afterwards are dropped.
+    */
+   @Override
+   public void close() {
+      closed = true;
+      if (flushing != null)
+         flushing.cancel(false);
+      flush();
+      List<MetricDatum> request;
+      while ((request = pending.poll()) != null)
+         send(request);
+   }
+
+   /**
+    * The number of samples aggregated so far.
+    */
+   public long recordedSampleCount() {
+      return recordedSamples.get();
+   }
+
+   /**
+    * The number of samples dropped, because too many series were waiting for a flush or because this is closed.
+    */
+   public long droppedSampleCount() {
+      return droppedSamples.get();
+   }
+
+   /**
+    * The number of data CloudWatch accepted.
+    */
+   public long publishedDatumCount() {
+      return publishedData.get();
+   }
+
+   /**
+    * The number of data dropped, because too many requests were waiting to be sent or because their request failed.
+    */
+   public long droppedDatumCount() {
+      return droppedData.get();
+   }
+
+   /**
+    * The number of {@code PutMetricData} requests that failed.
+    */
+   public long failedRequestCount() {
+      return failedRequests.get();
+   }
+
+   /**
+    * The number of requests waiting to be sent.
+    */
+   public int pendingRequestCount() {
+      return pending.size();
+   }
+
+   @VisibleForTesting
+   long currentTimeMillis() {
+      return System.currentTimeMillis();
+   }
+
+   private static final class Series {
+      private final String metricName;
+      private final Unit unit;
+      private final ImmutableSet<Dimension> dimensions;
+      private final long periodStart;
+      private final int hashCode;
+
+      private Series(String metricName, Unit unit, ImmutableSet<Dimension> dimensions, long periodStart) {
+         this.metricName = checkNotNull(metricName, "metricName");
+         this.unit = checkNotNull(unit, "unit");
+         this.dimensions = dimensions;
+         this.periodStart = periodStart;
+         this.hashCode = Objects.hashCode(metricName, unit, dimensions, periodStart);
+      }
+
+      private MetricDatum toDatum(StatisticValues statisticValues) {
+         return MetricDatum.builder().metricName(metricName).unit(unit).dimensions(dimensions)
+               .timestamp(new Date(periodStart)).statisticValues(statisticValues).build();
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o)
+            return true;
+         if (!(o instanceof Series))
+            return false;
+         Series that = Series.class.cast(o);
+         return periodStart == that.periodStart && equal(metricName, that.metricName) && unit == that.unit
+               && equal(dimensions, that.dimensions);
+      }
+
+      @Override
+      public int hashCode() {
+         return hashCode;
+      }
+   }
+
+   private static final class Aggregate {
+      private double minimum = Double.POSITIVE_INFINITY;
+      private double maximum = Double.NEGATIVE_INFINITY;
+      private double sum;
+      private long sampleCount;
+      private boolean flushed;
+
+      private synchronized boolean add(double value) {
+         if (flushed)
+            return false;
+         minimum = Math.min(minimum, value);
+         maximum = Math.max(maximum, value);
+         sum += value;
+         sampleCount++;
+         return true;
+      }
+
+      /**
+       * @return null if no sample was added, which happens when the aggregate is flushed right after it is created
+       */
+      private synchronized StatisticValues flush() {
+         flushed = true;
+         if (sampleCount == 0)
+            return null;
+         return new StatisticValues(maximum, minimum, sampleCount, sum);
+      }
+   }
+}
@@ -16,6 +16,8 @@
  */
 package org.jclouds.cloudwatch.config;
 
+import java.util.Set;
+
 import org.jclouds.aws.config.FormSigningHttpApiModule;
 import org.jclouds.cloudwatch.CloudWatchApi;
 import org.jclouds.cloudwatch.handlers.CloudWatchErrorHandler;
@@ -24,6 +26,8 @@ import org.jclouds.http.annotation.ClientError;
 import org.jclouds.http.annotation.ServerError;
 import org.jclouds.rest.ConfiguresHttpApi;
 
+import com.google.common.collect.ImmutableSet;
+
 
 
 /**
@@ -35,6 +39,14 @@ public class CloudWatchHttpApiModule extends FormSigningHttpApiModule<CloudWatch
       super(CloudWatchApi.class);
    }
 
+   /**
+    * CloudWatch rejects requests over its rate with a 400 {@code Throttling} error.
+    */
+   @Override
+   protected Set<String> provideRetryableCodes() {
+      return ImmutableSet.<String> builder().addAll(super.provideRetryableCodes()).add("Throttling").build();
+   }
+
    @Override
    protected void bindErrorHandlers() {
       bind(HttpErrorHandler.class).annotatedWith(ClientError.class).to(CloudWatchErrorHandler.class);
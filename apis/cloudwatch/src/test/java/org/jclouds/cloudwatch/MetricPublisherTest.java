@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudwatch;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.jclouds.cloudwatch.domain.Dimension;
+import org.jclouds.cloudwatch.domain.MetricDatum;
+import org.jclouds.cloudwatch.domain.StatisticValues;
+import org.jclouds.cloudwatch.domain.Unit;
+import org.jclouds.cloudwatch.features.MetricApi;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+
+/**
+ * Tests behavior of {@code MetricPublisher}.
+ */
+@Test(groups = "unit", testName = "MetricPublisherTest")
+public class MetricPublisherTest {
+
+   private MetricApi api;
+   private Capture<Iterable<MetricDatum>> requests;
+   private ScheduledExecutorService executor;
+   private long now;
+
+   @BeforeMethod
+   public void setUp() {
+      api = createMock(MetricApi.class);
+      requests = new Capture<Iterable<MetricDatum>>(CaptureType.ALL);
+      executor = Executors.newScheduledThreadPool(2);
+      now = 120000;
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      executor.shutdownNow();
+   }
+
+   private void expectRequests(int count) {
+      api.putMetricsInNamespace(capture(requests), eq("JCLOUDS/Test"));
+      expectLastCall().times(count);
+      replay(api);
+   }
+
+   private Iterable<MetricDatum> data() {
+      return Iterables.concat(requests.getValues());
+   }
+
+   private Map<String, MetricDatum> byName() {
+      Map<String, MetricDatum> byName = Maps.newHashMap();
+      for (MetricDatum datum : data())
+         byName.put(datum.getMetricName() + datum.getDimensions() + datum.getTimestamp().get().getTime(), datum);
+      return byName;
+   }
+
+   private MetricPublisher publisher(int maxSeries, int maxPendingRequests, int concurrency) {
+      return new MetricPublisher(api, "JCLOUDS/Test", executor, 60000, maxSeries, maxPendingRequests,
+            concurrency) {
+         @Override
+         long currentTimeMillis() {
+            return now;
+         }
+      };
+   }
+
+   public void testAggregatesPerMetricDimensionsAndPeriod() {
+      expectRequests(1);
+      MetricPublisher publisher = publisher(100, 10, 1);
+      Dimension get = new Dimension("Operation", "GetObject");
+      publisher.record("Latency", Unit.MILLISECONDS, 3, get);
+      now += 1000;
+      publisher.record("Latency", Unit.MILLISECONDS, 1, get);
+      publisher.record("Latency", Unit.MILLISECONDS, 8, get);
+      publisher.record("Latency", Unit.MILLISECONDS, 5, new Dimension("Operation", "PutObject"));
+      now += 60000;
+      publisher.record("Latency", Unit.MILLISECONDS, 2, get);
+      publisher.close();
+
+      verify(api);
+      Map<String, MetricDatum> data = byName();
+      assertEquals(data.size(), 3);
+
+      MetricDatum first = data.get("Latency[" + get + "]120000");
+      assertEquals(first.getUnit(), Unit.MILLISECONDS);
+      assertFalse(first.getValue().isPresent());
+      StatisticValues values = first.getStatisticValues().get();
+      assertEquals(values.getSampleCount(), 3.0);
+      assertEquals(values.getMinimum(), 1.0);
+      assertEquals(values.getMaximum(), 8.0);
+      assertEquals(values.getSum(), 12.0);
+
+      assertEquals(data.get("Latency[" + get + "]180000").getStatisticValues().get().getSum(), 2.0);
+      assertEquals(publisher.recordedSampleCount(), 5);
+      assertEquals(publisher.publishedDatumCount(), 3);
+   }
+
+   public void testFlushStartsOverAfterEachFlush() throws InterruptedException {
+      expectRequests(2);
+      MetricPublisher publisher = publisher(100, 10, 1);
+      publisher.record("Requests", Unit.COUNT, 1);
+      publisher.flush();
+      publisher.record("Requests", Unit.COUNT, 1);
+      publisher.record("Requests", Unit.COUNT, 1);
+      publisher.close();
+
+      verify(api);
+      double sampleCount = 0;
+      for (MetricDatum datum : data())
+         sampleCount += datum.getStatisticValues().get().getSampleCount();
+      assertEquals(sampleCount, 3.0);
+   }
+
+   public void testSendsRequestsOfAtMostTenData() {
+      expectRequests(3);
+      MetricPublisher publisher = publisher(100, 10, 2);
+      for (int i = 0; i < 25; i++)
+         publisher.record("Metric" + i, Unit.COUNT, i);
+      publisher.close();
+
+      verify(api);
+      for (Iterable<MetricDatum> request : requests.getValues())
+         assertTrue(Iterables.size(request) <= MetricPublisher.MAX_DATA_PER_REQUEST, request.toString());
+      assertEquals(publisher.publishedDatumCount(), 25);
+   }
+
+   public void testDropsSamplesOfNewSeriesBeyondMaxSeries() {
+      expectRequests(2);
+      MetricPublisher publisher = publisher(2, 10, 1);
+      assertTrue(publisher.record("a", Unit.COUNT, 1));
+      assertTrue(publisher.record("b", Unit.COUNT, 1));
+      assertFalse(publisher.record("c", Unit.COUNT, 1));
+      assertTrue(publisher.record("a", Unit.COUNT, 1));
+      publisher.flush();
+      assertTrue(publisher.record("c", Unit.COUNT, 1));
+      publisher.close();
+
+      verify(api);
+      assertEquals(publisher.recordedSampleCount(), 4);
+      assertEquals(publisher.droppedSampleCount(), 1);
+      assertEquals(publisher.publishedDatumCount(), 3);
+   }
+
+   public void testDropsRequestsBeyondMaxPendingRequests() throws InterruptedException {
+      expectRequests(1);
+      final CountDownLatch blocked = new CountDownLatch(2);
+      final CountDownLatch release = new CountDownLatch(1);
+      for (int i = 0; i < 2; i++) {
+         executor.execute(new Runnable() {
+            @Override
+            public void run() {
+               blocked.countDown();
+               try {
+                  release.await();
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+               }
+            }
+         });
+      }
+      assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+      MetricPublisher publisher = publisher(100, 1, 1);
+      for (int i = 0; i < 30; i++)
+         publisher.record("Metric" + i, Unit.COUNT, i);
+      publisher.flush();
+      assertEquals(publisher.pendingRequestCount(), 1);
+      assertEquals(publisher.droppedDatumCount(), 20);
+
+      release.countDown();
+      publisher.close();
+      verify(api);
+      assertEquals(publisher.publishedDatumCount(), 10);
+   }
+
+   public void testFailedRequestsAreCounted() {
+      api.putMetricsInNamespace(capture(requests), eq("JCLOUDS/Test"));
+      expectLastCall().andThrow(new IllegalStateException("Throttling"));
+      replay(api);
+      MetricPublisher publisher = publisher(100, 10, 1);
+      publisher.record("Requests", Unit.COUNT, 1);
+      publisher.close();
+
+      verify(api);
+      assertEquals(publisher.failedRequestCount(), 1);
+      assertEquals(publisher.droppedDatumCount(), 1);
+      assertEquals(publisher.publishedDatumCount(), 0);
+   }
+
+   public void testRecordAfterCloseIsDropped() {
+      replay(api);
+      MetricPublisher publisher = publisher(100, 10, 1);
+      publisher.close();
+      assertFalse(publisher.record("Requests", Unit.COUNT, 1));
+      assertEquals(publisher.droppedSampleCount(), 1);
+      verify(api);
+   }
+
+   public void testConcurrentRecordingLosesNoSamples() throws InterruptedException {
+      api.putMetricsInNamespace(capture(requests), eq("JCLOUDS/Test"));
+      expectLastCall().atLeastOnce();
+      replay(api);
+      final MetricPublisher publisher = publisher(100, 1000, 2);
+      ScheduledExecutorService recorders = Executors.newScheduledThreadPool(4);
+      final CountDownLatch done = new CountDownLatch(4);
+      for (int t = 0; t < 4; t++) {
+         recorders.execute(new Runnable() {
+            @Override
+            public void run() {
+               for (int i = 0; i < 10000; i++) {
+                  publisher.record("Requests", Unit.COUNT, 1);
+                  if (i % 1000 == 0)
+                     publisher.flush();
+               }
+               done.countDown();
+            }
+         });
+      }
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+      recorders.shutdown();
+      publisher.close();
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+      verify(api);
+      double sampleCount = 0;
+      for (MetricDatum datum : data())
+         sampleCount += datum.getStatisticValues().get().getSampleCount();
+      assertEquals(sampleCount, 40000.0);
+      assertEquals(publisher.recordedSampleCount(), 40000);
+   }
+}
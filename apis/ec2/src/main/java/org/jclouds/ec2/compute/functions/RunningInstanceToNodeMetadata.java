@@ -41,6 +41,7 @@ import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.compute.domain.Volume;
 import org.jclouds.compute.domain.internal.VolumeImpl;
 import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.suppliers.IndexedSupplier;
 import org.jclouds.domain.Credentials;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LoginCredentials;
@@ -78,6 +79,8 @@ public class RunningInstanceToNodeMetadata implements Function<RunningInstance,
    protected final Map<String, Credentials> credentialStore;
    protected final Map<InstanceState, Status> instanceToNodeStatus;
    protected final GroupNamingConvention.Factory namingConvention;
+   protected final IndexedSupplier<String, Location> locationsById;
+   protected final IndexedSupplier<String, Hardware> hardwareById;
 
    @Inject
    protected RunningInstanceToNodeMetadata(Map<InstanceState, Status> instanceToNodeStatus,
@@ -90,6 +93,8 @@ public class RunningInstanceToNodeMetadata implements Function<RunningInstance,
       this.instanceToNodeStatus = checkNotNull(instanceToNodeStatus, "instanceToNodeStatus");
       this.credentialStore = checkNotNull(credentialStore, "credentialStore");
       this.namingConvention = checkNotNull(namingConvention, "namingConvention");
+      this.locationsById = IndexedSupplier.locationsById(locations);
+      this.hardwareById = IndexedSupplier.byId(hardware);
    }
 
    @Override
@@ -208,20 +213,11 @@ public class RunningInstanceToNodeMetadata implements Function<RunningInstance,
    }
 
    @VisibleForTesting
-   Hardware getHardwareForInstance(final RunningInstance instance) {
-      try {
-         return Iterables.find(hardware.get(), new Predicate<Hardware>() {
-
-            @Override
-            public boolean apply(Hardware input) {
-               return input.getId().equals(instance.getInstanceType());
-            }
-
-         });
-      } catch (NoSuchElementException e) {
+   Hardware getHardwareForInstance(RunningInstance instance) {
+      Hardware found = instance.getInstanceType() != null ? hardwareById.first(instance.getInstanceType()) : null;
+      if (found == null)
          logger.debug("couldn't match instance type %s in: %s", instance.getInstanceType(), hardware.get());
-         return null;
-      }
+      return found;
    }
 
    private Location getLocationForAvailabilityZoneOrRegion(final RunningInstance instance) {
@@ -231,24 +227,13 @@ public class RunningInstanceToNodeMetadata implements Function<RunningInstance,
       return location;
    }
 
-   private Location findLocationWithId(final String locationId) {
+   private Location findLocationWithId(String locationId) {
       if (locationId == null)
          return null;
-      try {
-         Location location = Iterables.find(locations.get(), new Predicate<Location>() {
-
-            @Override
-            public boolean apply(Location input) {
-               return input.getId().equals(locationId);
-            }
-
-         });
-         return location;
-
-      } catch (NoSuchElementException e) {
+      Location location = locationsById.first(locationId);
+      if (location == null)
          logger.debug("couldn't match instance location %s in: %s", locationId, locations.get());
-         return null;
-      }
+      return location;
    }
 
 }
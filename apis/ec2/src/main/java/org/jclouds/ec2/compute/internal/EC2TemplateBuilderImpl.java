@@ -17,6 +17,7 @@
 package org.jclouds.ec2.compute.internal;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Iterables.tryFind;
 
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -38,6 +39,8 @@ import org.jclouds.domain.Location;
 import org.jclouds.ec2.compute.domain.RegionAndName;
 import org.jclouds.util.Throwables2;
 
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -103,6 +106,19 @@ public class EC2TemplateBuilderImpl extends TemplateBuilderImpl {
       }
    }
 
+   /**
+    * The images are resolved lazily when an image id is set, so search the resolved images instead of the image cache.
+    */
+   @Override
+   protected Optional<? extends Image> findImageWithIdInCache(Set<? extends Image> images) {
+      return tryFind(images, new Predicate<Image>() {
+         @Override
+         public boolean apply(Image input) {
+            return input.getId().equals(imageId);
+         }
+      });
+   }
+
    @SuppressWarnings("unchecked")
    @Override
    protected Set<? extends Image> getImages() {
@@ -27,8 +27,13 @@ import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Multimaps.filterKeys;
 import static com.google.common.collect.Multimaps.index;
 import static com.google.common.collect.Multimaps.transformValues;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -38,9 +43,11 @@ import org.jclouds.Constants;
 import org.jclouds.aws.util.AWSUtils;
 import org.jclouds.compute.domain.ComputeMetadata;
 import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.compute.predicates.NodePredicates;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.compute.strategy.impl.GroupNodeNameAllocator.InGroup;
 import org.jclouds.ec2.EC2Api;
 import org.jclouds.ec2.domain.Reservation;
 import org.jclouds.ec2.domain.RunningInstance;
@@ -50,8 +57,13 @@ import org.jclouds.logging.Logger;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 
@@ -70,8 +82,25 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
    protected final Supplier<Set<String>> regions;
    protected final Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata;
    protected final ListeningExecutorService userExecutor;
+   protected final GroupNamingConvention.Factory namingConvention;
 
    @Inject
+   protected EC2ListNodesStrategy(EC2Api client, @Region Supplier<Set<String>> regions,
+            Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata,
+            @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+            GroupNamingConvention.Factory namingConvention) {
+      this.client =  checkNotNull(client, "client");
+      this.regions =  checkNotNull(regions, "regions");
+      this.runningInstanceToNodeMetadata = checkNotNull(runningInstanceToNodeMetadata, "runningInstanceToNodeMetadata");
+      this.userExecutor =  checkNotNull(userExecutor, "userExecutor");
+      this.namingConvention = checkNotNull(namingConvention, "namingConvention");
+   }
+
+   /**
+    * @deprecated without a {@link GroupNamingConvention.Factory}, listing a group lists every instance. This
+    *             constructor will be removed in jclouds 2.0.
+    */
+   @Deprecated
    protected EC2ListNodesStrategy(EC2Api client, @Region Supplier<Set<String>> regions,
             Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata,
             @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
@@ -79,6 +108,7 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
       this.regions =  checkNotNull(regions, "regions");
       this.runningInstanceToNodeMetadata = checkNotNull(runningInstanceToNodeMetadata, "runningInstanceToNodeMetadata");
       this.userExecutor =  checkNotNull(userExecutor, "userExecutor");
+      this.namingConvention = null;
    }
 
    @Override
@@ -104,7 +134,8 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
 
    @Override
    public Set<? extends NodeMetadata> listDetailsOnNodesMatching(Predicate<ComputeMetadata> filter) {
-      Iterable<? extends RunningInstance> instances = pollRunningInstances();
+      Iterable<? extends RunningInstance> instances = filter instanceof InGroup ? pollRunningInstancesInGroup(InGroup.class
+               .cast(filter).getGroup()) : pollRunningInstances();
       Iterable<? extends NodeMetadata> nodes = filter(transform(filter(instances, notNull()),
                runningInstanceToNodeMetadata), and(notNull(), filter));
       return ImmutableSet.copyOf(nodes);
@@ -117,6 +148,45 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
       return concat(concat(reservations));
    }
 
+   /**
+    * Lists the instances that may belong to {@code group}, by asking each region only for the instances whose
+    * security group, key pair or name refers to it. Instances of other groups can match too, so the result still
+    * has to be filtered.
+    */
+   protected Iterable<? extends RunningInstance> pollRunningInstancesInGroup(String group) {
+      if (namingConvention == null)
+         return pollRunningInstances();
+      String sharedName = namingConvention.create().sharedNameForGroup(group);
+      // filters with different names are and-ed, so each one is a request of its own, sent in parallel
+      List<Multimap<String, String>> filters = ImmutableList.<Multimap<String, String>> of(
+               ImmutableMultimap.of("group-name", sharedName),
+               ImmutableMultimap.of("instance.group-name", sharedName),
+               ImmutableMultimap.of("key-name", sharedName + "*"),
+               ImmutableMultimap.of("tag:Name", "*" + group + "*"));
+      List<ListenableFuture<Set<? extends Reservation<? extends RunningInstance>>>> responses = Lists.newArrayList();
+      for (final String region : regions.get()) {
+         for (final Multimap<String, String> filter : filters) {
+            responses.add(userExecutor.submit(new Callable<Set<? extends Reservation<? extends RunningInstance>>>() {
+               @Override
+               public Set<? extends Reservation<? extends RunningInstance>> call() {
+                  return client.getInstanceApi().get().describeInstancesInRegionWithFilter(region, filter);
+               }
+
+               @Override
+               public String toString() {
+                  return "describeInstancesInRegionWithFilter(" + region + ", " + filter + ")";
+               }
+            }));
+         }
+      }
+      Map<String, RunningInstance> instances = Maps.newLinkedHashMap();
+      for (Set<? extends Reservation<? extends RunningInstance>> reservations : getUnchecked(allAsList(responses))) {
+         for (RunningInstance instance : concat(reservations))
+            instances.put(instance.getRegion() + "/" + instance.getId(), instance);
+      }
+      return instances.values();
+   }
+
    protected Iterable<? extends RunningInstance> pollRunningInstancesByRegionsAndIds(final Multimap<String, String> idsByRegions) {
       Iterable<? extends Set<? extends Reservation<? extends RunningInstance>>> reservations
          = transform(idsByRegions.keySet(), instancesByIdInRegion(idsByRegions));
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.ec2.compute.strategy;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Set;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.strategy.impl.GroupNodeNameAllocator.InGroup;
+import org.jclouds.ec2.EC2Api;
+import org.jclouds.ec2.domain.InstanceState;
+import org.jclouds.ec2.domain.Reservation;
+import org.jclouds.ec2.domain.RunningInstance;
+import org.jclouds.ec2.features.InstanceApi;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicates;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "EC2ListNodesStrategyTest")
+public class EC2ListNodesStrategyTest {
+
+   private final Supplier<Set<String>> regions = Suppliers.<Set<String>> ofInstance(ImmutableSet.of("us-east-1"));
+
+   @SuppressWarnings("unchecked")
+   public void testListsGroupWithFilters() {
+      EC2Api client = createMock(EC2Api.class);
+      InstanceApi instanceApi = createMock(InstanceApi.class);
+      GroupNamingConvention.Factory namingConvention = createMock(GroupNamingConvention.Factory.class);
+      GroupNamingConvention convention = createMock(GroupNamingConvention.class);
+
+      RunningInstance bySecurityGroup = instance("i-1");
+      RunningInstance byKeyPair = instance("i-2");
+      RunningInstance otherGroup = instance("i-3");
+
+      expect(client.getInstanceApi()).andReturn((Optional) Optional.of(instanceApi)).atLeastOnce();
+      expect(namingConvention.create()).andReturn(convention);
+      expect(convention.sharedNameForGroup("test")).andReturn("jclouds#test");
+      expect(instanceApi.describeInstancesInRegionWithFilter("us-east-1",
+               ImmutableMultimap.of("group-name", "jclouds#test"))).andReturn((Set) reservation(bySecurityGroup));
+      expect(instanceApi.describeInstancesInRegionWithFilter("us-east-1",
+               ImmutableMultimap.of("instance.group-name", "jclouds#test"))).andReturn((Set) reservation(bySecurityGroup));
+      expect(instanceApi.describeInstancesInRegionWithFilter("us-east-1",
+               ImmutableMultimap.of("key-name", "jclouds#test*"))).andReturn((Set) reservation(byKeyPair));
+      expect(instanceApi.describeInstancesInRegionWithFilter("us-east-1",
+               ImmutableMultimap.of("tag:Name", "*test*"))).andReturn((Set) reservation(otherGroup));
+      replay(client, instanceApi, namingConvention, convention);
+
+      EC2ListNodesStrategy strategy = new EC2ListNodesStrategy(client, regions, toNode(),
+               MoreExecutors.sameThreadExecutor(), namingConvention);
+      Set<? extends NodeMetadata> nodes = strategy.listDetailsOnNodesMatching(new InGroup("test", Predicates
+               .<String> alwaysFalse()));
+
+      // the instance listed by two filters is returned once, and other groups are filtered out
+      assertEquals(nodes, ImmutableSet.of(node("i-1"), node("i-2")));
+      verify(client, instanceApi, namingConvention, convention);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testListsAllInstancesForOtherFilters() {
+      EC2Api client = createMock(EC2Api.class);
+      InstanceApi instanceApi = createMock(InstanceApi.class);
+      GroupNamingConvention.Factory namingConvention = createMock(GroupNamingConvention.Factory.class);
+
+      expect(client.getInstanceApi()).andReturn((Optional) Optional.of(instanceApi)).atLeastOnce();
+      expect(instanceApi.describeInstancesInRegion("us-east-1")).andReturn((Set) reservation(instance("i-1")));
+      replay(client, instanceApi, namingConvention);
+
+      EC2ListNodesStrategy strategy = new EC2ListNodesStrategy(client, regions, toNode(),
+               MoreExecutors.sameThreadExecutor(), namingConvention);
+
+      assertEquals(strategy.listNodes(), ImmutableSet.of(node("i-1")));
+      verify(client, instanceApi, namingConvention);
+   }
+
+   @SuppressWarnings({ "unchecked", "deprecation" })
+   public void testListsAllInstancesForGroupWithoutNamingConvention() {
+      EC2Api client = createMock(EC2Api.class);
+      InstanceApi instanceApi = createMock(InstanceApi.class);
+
+      expect(client.getInstanceApi()).andReturn((Optional) Optional.of(instanceApi)).atLeastOnce();
+      expect(instanceApi.describeInstancesInRegion("us-east-1")).andReturn((Set) reservation(instance("i-1")));
+      replay(client, instanceApi);
+
+      EC2ListNodesStrategy strategy = new EC2ListNodesStrategy(client, regions, toNode(),
+               MoreExecutors.sameThreadExecutor());
+
+      assertEquals(strategy.listDetailsOnNodesMatching(new InGroup("test", Predicates.<String> alwaysFalse())),
+               ImmutableSet.of(node("i-1")));
+      verify(client, instanceApi);
+   }
+
+   private static RunningInstance instance(String id) {
+      return RunningInstance.builder().instanceId(id).imageId("image").instanceType("m1.small")
+               .instanceState(InstanceState.RUNNING).rawState("running").region("us-east-1").build();
+   }
+
+   private static Set<Reservation<RunningInstance>> reservation(RunningInstance instance) {
+      return ImmutableSet.of(Reservation.<RunningInstance> builder().region("us-east-1").instance(instance).build());
+   }
+
+   private static NodeMetadata node(String id) {
+      return new NodeMetadataBuilder().id("us-east-1/" + id).providerId(id).group(id.equals("i-3") ? "other" : "test")
+               .status(NodeMetadata.Status.RUNNING).build();
+   }
+
+   private static Function<RunningInstance, NodeMetadata> toNode() {
+      return new Function<RunningInstance, NodeMetadata>() {
+         @Override
+         public NodeMetadata apply(RunningInstance input) {
+            return node(input.getId());
+         }
+      };
+   }
+}
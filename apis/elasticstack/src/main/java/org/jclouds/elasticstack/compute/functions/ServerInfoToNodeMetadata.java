@@ -17,7 +17,6 @@
 package org.jclouds.elasticstack.compute.functions;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static org.jclouds.compute.predicates.ImagePredicates.idEquals;
 import static org.jclouds.compute.util.ComputeServiceUtils.groupFromMapOrName;
 
 import java.util.Map;
@@ -37,6 +36,7 @@ import org.jclouds.compute.domain.Processor;
 import org.jclouds.compute.domain.Volume;
 import org.jclouds.compute.domain.VolumeBuilder;
 import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.suppliers.IndexedSupplier;
 import org.jclouds.domain.Location;
 import org.jclouds.elasticstack.domain.Device;
 import org.jclouds.elasticstack.domain.DriveInfo;
@@ -46,10 +46,8 @@ import org.jclouds.elasticstack.domain.ServerStatus;
 import org.jclouds.logging.Logger;
 
 import com.google.common.base.Function;
-import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
 import com.google.common.cache.LoadingCache;
-import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -68,7 +66,7 @@ public class ServerInfoToNodeMetadata implements Function<ServerInfo, NodeMetada
          .build();
 
    private final Function<Server, String> getImageIdFromServer;
-   private final Supplier<Set<? extends Image>> images;
+   private final IndexedSupplier<String, Image> images;
    private final Supplier<Location> locationSupplier;
    private final Function<Device, Volume> deviceToVolume;
    private final GroupNamingConvention nodeNamingConvention;
@@ -80,7 +78,7 @@ public class ServerInfoToNodeMetadata implements Function<ServerInfo, NodeMetada
       this.nodeNamingConvention = checkNotNull(namingConvention, "namingConvention").createWithoutPrefix();
       this.locationSupplier = checkNotNull(locationSupplier, "locationSupplier");
       this.deviceToVolume = checkNotNull(deviceToVolume, "deviceToVolume");
-      this.images = checkNotNull(images, "images");
+      this.images = IndexedSupplier.byId(checkNotNull(images, "images"));
       this.getImageIdFromServer = checkNotNull(getImageIdFromServer, "getImageIdFromServer");
    }
 
@@ -95,9 +93,9 @@ public class ServerInfoToNodeMetadata implements Function<ServerInfo, NodeMetada
       builder.userMetadata(from.getUserMetadata());
       String imageId = getImageIdFromServer.apply(from);
       if (imageId != null) {
-         Optional<? extends Image> image = FluentIterable.from(images.get()).firstMatch(idEquals(imageId));
-         if (image.isPresent()) {
-            builder.operatingSystem(image.get().getOperatingSystem());
+         Image image = images.first(imageId);
+         if (image != null) {
+            builder.operatingSystem(image.getOperatingSystem());
          }
       }
       builder.hardware(new HardwareBuilder().ids(from.getUuid()).hypervisor("kvm")
@@ -17,9 +17,12 @@
 package org.jclouds.openstack.keystone.v2_0.config;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.concurrent.config.ScheduledExecutorServiceModule.getScheduledExecutorIfInstalled;
 import static org.jclouds.util.Suppliers2.getLastValueInMap;
 
 import java.net.URI;
+import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -28,6 +31,7 @@ import java.util.concurrent.TimeoutException;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.concurrent.RefreshAheadCache;
 import org.jclouds.domain.Credentials;
 import org.jclouds.http.HttpRetryHandler;
 import org.jclouds.http.annotation.ClientError;
@@ -58,11 +62,11 @@ import org.jclouds.rest.annotations.ApiVersion;
 
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSet.Builder;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.AbstractModule;
 import com.google.inject.Injector;
 import com.google.inject.Provides;
@@ -214,14 +218,40 @@ public class KeystoneAuthenticationModule extends AbstractModule {
       return authenticationMethods.get(credentialType);
    }
 
-   // TODO: what is the timeout of the session token? modify default accordingly
-   // PROPERTY_SESSION_INTERVAL is default to 60 seconds, but we have this here at 11 hours for now.
+   /**
+    * Keeps the access of each credential until its token expires, and authenticates again before that. Tokens which
+    * do not say when they expire are kept for 11 hours. Authentication ahead of expiry runs on the scheduler, if one
+    * is installed, or on the user executor.
+    * <p/>
+    * Besides {@link LoadingCache#stats()}, the bound instance counts refreshes ahead of expiry and their failures.
+    */
+   @Provides
+   @Singleton
+   protected RefreshAheadCache<Credentials, Access> provideRefreshAheadAccessCache(
+         Function<Credentials, Access> getAccess, @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         Injector injector) {
+      return RefreshAheadCache.builder(CacheLoader.from(getAccess)).expiresAt(TOKEN_EXPIRES)
+            .defaultLifetime(11, TimeUnit.HOURS).scheduler(getScheduledExecutorIfInstalled(injector).orNull())
+            .executor(userExecutor).build();
+   }
+
    @Provides
    @Singleton
-   public LoadingCache<Credentials, Access> provideAccessCache(Function<Credentials, Access> getAccess) {
-      return CacheBuilder.newBuilder().expireAfterWrite(11, TimeUnit.HOURS).build(CacheLoader.from(getAccess));
+   public LoadingCache<Credentials, Access> provideAccessCache(RefreshAheadCache<Credentials, Access> cache) {
+      return cache;
    }
 
+   private static final Function<Access, Date> TOKEN_EXPIRES = new Function<Access, Date>() {
+      public Date apply(Access in) {
+         return in.getToken().getExpires();
+      }
+
+      @Override
+      public String toString() {
+         return "tokenExpires()";
+      }
+   };
+
    // Temporary conversion of a cache to a supplier until there is a single-element cache
    // http://code.google.com/p/guava-libraries/issues/detail?id=872
    @Provides
@@ -18,12 +18,16 @@ package org.jclouds.openstack.nova.v2_0.compute;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
-import static com.google.common.collect.Iterables.contains;
+import static com.google.common.base.Predicates.notNull;
+import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.compute.util.ComputeServiceUtils.metadataAndTagsAsCommaDelimitedValue;
+import static org.jclouds.concurrent.FutureIterables.transformParallel;
 
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -40,6 +44,8 @@ import org.jclouds.openstack.nova.v2_0.NovaApi;
 import org.jclouds.openstack.nova.v2_0.compute.functions.RemoveFloatingIpFromNodeAndDeallocate;
 import org.jclouds.openstack.nova.v2_0.compute.options.NovaTemplateOptions;
 import org.jclouds.openstack.nova.v2_0.compute.strategy.ApplyNovaTemplateOptionsCreateNodesWithGroupEncodedIntoNameThenAddToSet;
+import org.jclouds.openstack.nova.v2_0.compute.strategy.IncrementalServerListing;
+import org.jclouds.openstack.nova.v2_0.config.NovaProperties;
 import org.jclouds.openstack.nova.v2_0.domain.Flavor;
 import org.jclouds.openstack.nova.v2_0.domain.Image;
 import org.jclouds.openstack.nova.v2_0.domain.KeyPair;
@@ -62,6 +68,10 @@ import com.google.common.base.Supplier;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSet.Builder;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 /**
  * The adapter used by the NovaComputeServiceContextModule to interface the nova-specific domain
@@ -78,16 +88,31 @@ public class NovaComputeServiceAdapter implements
    protected final Supplier<Set<String>> regionIds;
    protected final RemoveFloatingIpFromNodeAndDeallocate removeFloatingIpFromNodeAndDeallocate;
    protected final LoadingCache<RegionAndName, KeyPair> keyPairCache;
+   protected final ListeningExecutorService userExecutor;
+   protected final IncrementalServerListing incrementalServerListing;
+
+   /**
+    * Up to this many servers, {@link #listNodesByIds} gets each server instead of listing their regions.
+    */
+   protected static final int MAX_SERVER_GETS = 20;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(NovaProperties.INCREMENTAL_SERVER_LISTING)
+   protected boolean incremental = false;
 
    @Inject
    public NovaComputeServiceAdapter(NovaApi novaApi, @Region Supplier<Set<String>> regionIds,
             RemoveFloatingIpFromNodeAndDeallocate removeFloatingIpFromNodeAndDeallocate,
-            LoadingCache<RegionAndName, KeyPair> keyPairCache) {
+            LoadingCache<RegionAndName, KeyPair> keyPairCache,
+            @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+            IncrementalServerListing incrementalServerListing) {
       this.novaApi = checkNotNull(novaApi, "novaApi");
       this.regionIds = checkNotNull(regionIds, "regionIds");
       this.removeFloatingIpFromNodeAndDeallocate = checkNotNull(removeFloatingIpFromNodeAndDeallocate,
                "removeFloatingIpFromNodeAndDeallocate");
       this.keyPairCache = checkNotNull(keyPairCache, "keyPairCache");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.incrementalServerListing = checkNotNull(incrementalServerListing, "incrementalServerListing");
    }
 
    /**
@@ -200,30 +225,82 @@ public class NovaComputeServiceAdapter implements
 
    @Override
    public Iterable<ServerInRegion> listNodes() {
-      Builder<ServerInRegion> builder = ImmutableSet.builder();
-      for (final String regionId : regionIds.get()) {
-         builder.addAll(novaApi.getServerApi(regionId).listInDetail().concat()
-                  .transform(new Function<Server, ServerInRegion>() {
+      return listNodesInRegions(regionIds.get());
+   }
+
+   /**
+    * Small id sets are looked up with a get per server, unless {@link NovaProperties#INCREMENTAL_SERVER_LISTING} is
+    * enabled. Otherwise only the regions of the ids are listed, each concurrently.
+    */
+   @Override
+   public Iterable<ServerInRegion> listNodesByIds(Iterable<String> ids) {
+      ImmutableSetMultimap.Builder<String, String> builder = ImmutableSetMultimap.builder();
+      for (String id : ids) {
+         RegionAndId regionAndId = RegionAndId.fromSlashEncoded(id);
+         builder.put(regionAndId.getRegion(), regionAndId.getId());
+      }
+      final SetMultimap<String, String> idsByRegion = builder.build();
+      if (!incremental && idsByRegion.size() <= MAX_SERVER_GETS) {
+         return ImmutableSet.copyOf(filter(transformParallel(ImmutableSet.copyOf(ids),
+               new Function<String, ListenableFuture<? extends ServerInRegion>>() {
+
+                  @Override
+                  public ListenableFuture<? extends ServerInRegion> apply(final String id) {
+                     return userExecutor.submit(new Callable<ServerInRegion>() {
+                        @Override
+                        public ServerInRegion call() {
+                           return getNode(id);
+                        }
+                     });
+                  }
+
+                  @Override
+                  public String toString() {
+                     return "getNode()";
+                  }
+               }, userExecutor, null, logger, "servers"), notNull()));
+      }
+      return filter(listNodesInRegions(idsByRegion.keySet()), new Predicate<ServerInRegion>() {
 
+         @Override
+         public boolean apply(ServerInRegion server) {
+            return idsByRegion.containsEntry(server.getRegion(), server.getServer().getId());
+         }
+      });
+   }
+
+   private Iterable<ServerInRegion> listNodesInRegions(Iterable<String> regions) {
+      return ImmutableSet.copyOf(concat(transformParallel(regions,
+            new Function<String, ListenableFuture<? extends Iterable<ServerInRegion>>>() {
+
+               @Override
+               public ListenableFuture<? extends Iterable<ServerInRegion>> apply(final String regionId) {
+                  return userExecutor.submit(new Callable<Iterable<ServerInRegion>>() {
                      @Override
-                     public ServerInRegion apply(Server arg0) {
-                        return new ServerInRegion(arg0, regionId);
+                     public Iterable<ServerInRegion> call() {
+                        return listNodesInRegion(regionId);
                      }
-
-                  }));
-      }
-      return builder.build();
+                  });
+               }
+
+               @Override
+               public String toString() {
+                  return "listNodesInRegion()";
+               }
+            }, userExecutor, null, logger, "servers")));
    }
 
-   @Override
-   public Iterable<ServerInRegion> listNodesByIds(final Iterable<String> ids) {
-      return filter(listNodes(), new Predicate<ServerInRegion>() {
+   private Iterable<ServerInRegion> listNodesInRegion(final String regionId) {
+      Iterable<Server> servers = incremental ? incrementalServerListing.listInDetail(regionId).values()
+            : novaApi.getServerApi(regionId).listInDetail().concat();
+      return ImmutableSet.copyOf(transform(servers, new Function<Server, ServerInRegion>() {
 
-            @Override
-            public boolean apply(ServerInRegion server) {
-               return contains(ids, server.slashEncode());
-            }
-         });
+         @Override
+         public ServerInRegion apply(Server arg0) {
+            return new ServerInRegion(arg0, regionId);
+         }
+
+      }));
    }
 
    @Override
@@ -20,7 +20,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.Iterables.filter;
-import static com.google.common.collect.Iterables.find;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Sets.newHashSet;
 import static org.jclouds.compute.util.ComputeServiceUtils.addMetadataAndParseTagsFromCommaDelimitedValue;
@@ -30,7 +29,6 @@ import static org.jclouds.openstack.nova.v2_0.domain.Address.createV6;
 
 import java.net.Inet4Address;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Set;
 
 import javax.annotation.Resource;
@@ -46,6 +44,7 @@ import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.compute.domain.OperatingSystem;
 import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.suppliers.IndexedSupplier;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LocationBuilder;
 import org.jclouds.domain.LocationScope;
@@ -77,6 +76,8 @@ public class ServerInRegionToNodeMetadata implements Function<ServerInRegion, No
    protected final Supplier<Set<? extends Image>> images;
    protected final Supplier<Set<? extends Hardware>> hardwares;
    protected final GroupNamingConvention nodeNamingConvention;
+   protected final IndexedSupplier<String, Image> imagesById;
+   protected final IndexedSupplier<String, Hardware> hardwaresById;
 
    @Inject
    public ServerInRegionToNodeMetadata(Map<Server.Status, NodeMetadata.Status> toPortableNodeStatus,
@@ -87,6 +88,8 @@ public class ServerInRegionToNodeMetadata implements Function<ServerInRegion, No
       this.locationIndex = checkNotNull(locationIndex, "locationIndex");
       this.images = checkNotNull(images, "images");
       this.hardwares = checkNotNull(hardwares, "hardwares");
+      this.imagesById = IndexedSupplier.byId(images);
+      this.hardwaresById = IndexedSupplier.byId(hardwares);
    }
 
    @Override
@@ -173,14 +176,14 @@ public class ServerInRegionToNodeMetadata implements Function<ServerInRegion, No
    }
 
    protected Hardware findHardwareForServerOrNull(ServerInRegion serverInRegion) {
-      return findObjectOfTypeForServerOrNull(hardwares.get(), "hardware", serverInRegion.getServer().getFlavor().getId(),
+      return findObjectOfTypeForServerOrNull(hardwaresById, "hardware", serverInRegion.getServer().getFlavor().getId(),
             serverInRegion);
    }
 
    protected OperatingSystem findOperatingSystemForServerOrNull(ServerInRegion serverInRegion) {
       if (serverInRegion.getServer().getImage() != null) {
          Image image = findObjectOfTypeForServerOrNull(
-               images.get(), "image", serverInRegion.getServer().getImage().getId(), serverInRegion);
+               imagesById, "image", serverInRegion.getServer().getImage().getId(), serverInRegion);
 
          return (image != null) ? image.getOperatingSystem() : null;
       } else {
@@ -189,19 +192,12 @@ public class ServerInRegionToNodeMetadata implements Function<ServerInRegion, No
 
    }
 
-   public <T extends ComputeMetadata> T findObjectOfTypeForServerOrNull(Set<? extends T> supply, String type,
-         final String objectId, final RegionAndId serverInRegion) {
-      try {
-         return find(supply, new Predicate<T>() {
-            @Override
-            public boolean apply(T input) {
-               return input.getId().equals(RegionAndId.fromRegionAndId(serverInRegion.getRegion(), objectId).slashEncode());
-            }
-         });
-      } catch (NoSuchElementException e) {
+   protected <T extends ComputeMetadata> T findObjectOfTypeForServerOrNull(IndexedSupplier<String, T> index,
+         String type, String objectId, RegionAndId serverInRegion) {
+      T found = index.first(RegionAndId.fromRegionAndId(serverInRegion.getRegion(), objectId).slashEncode());
+      if (found == null)
          logger.trace("could not find %s with id(%s) for server(%s)", type, objectId, serverInRegion);
-      }
-      return null;
+      return found;
    }
 
 }
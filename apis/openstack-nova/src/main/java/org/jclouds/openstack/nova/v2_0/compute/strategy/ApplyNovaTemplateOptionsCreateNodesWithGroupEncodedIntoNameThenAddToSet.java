@@ -40,6 +40,7 @@ import org.jclouds.compute.strategy.CreateNodeWithGroupEncodedIntoName;
 import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
 import org.jclouds.compute.strategy.ListNodesStrategy;
 import org.jclouds.compute.strategy.impl.CreateNodesWithGroupEncodedIntoNameThenAddToSet;
+import org.jclouds.compute.strategy.impl.GroupNodeNameAllocator;
 import org.jclouds.openstack.nova.v2_0.NovaApi;
 import org.jclouds.openstack.nova.v2_0.compute.functions.AllocateAndAddFloatingIpToNode;
 import org.jclouds.openstack.nova.v2_0.compute.options.NodeAndNovaTemplateOptions;
@@ -77,9 +78,9 @@ public class ApplyNovaTemplateOptionsCreateNodesWithGroupEncodedIntoNameThenAddT
             @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
             AllocateAndAddFloatingIpToNode createAndAddFloatingIpToNode,
             LoadingCache<RegionAndName, SecurityGroupInRegion> securityGroupCache,
-            LoadingCache<RegionAndName, KeyPair> keyPairCache, NovaApi novaApi) {
+            LoadingCache<RegionAndName, KeyPair> keyPairCache, NovaApi novaApi, GroupNodeNameAllocator nameAllocator) {
       super(addNodeWithTagStrategy, listNodesStrategy, namingConvention, userExecutor,
-               customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory);
+               customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory, nameAllocator);
       this.securityGroupCache = checkNotNull(securityGroupCache, "securityGroupCache");
       this.keyPairCache = checkNotNull(keyPairCache, "keyPairCache");
       this.createAndAddFloatingIpToNode = checkNotNull(createAndAddFloatingIpToNode,
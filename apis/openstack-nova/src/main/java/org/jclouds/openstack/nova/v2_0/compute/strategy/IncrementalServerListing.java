@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.nova.v2_0.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.jclouds.openstack.nova.v2_0.config.NovaProperties.INCREMENTAL_SERVER_LISTING_FULL_INTERVAL;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+import org.jclouds.openstack.nova.v2_0.NovaApi;
+import org.jclouds.openstack.nova.v2_0.domain.Server;
+import org.jclouds.openstack.nova.v2_0.options.ListOptions;
+import org.jclouds.openstack.v2_0.domain.PaginatedCollection;
+import org.jclouds.openstack.v2_0.options.PaginationOptions;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Keeps an index of the servers of each region, and brings it up to date with the {@code changes-since} query, so
+ * that listing the servers of a large region again only transfers the servers that changed.
+ * <p/>
+ * The first listing of a region, and one every {@code INCREMENTAL_SERVER_LISTING_FULL_INTERVAL} seconds afterwards,
+ * lists every server. In between, servers reported as {@code DELETED} are dropped from the index and the
+ * others replace their previous version. The next query starts from the latest {@code updated} time Nova reported,
+ * less the time the listing took, so the watermark follows Nova's clock rather than ours.
+ */
+@Beta
+@Singleton
+public class IncrementalServerListing {
+
+   /**
+    * Extra overlap between consecutive queries, as {@code changes-since} has a resolution of one second.
+    */
+   private static final long OVERLAP_MS = 1000;
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(INCREMENTAL_SERVER_LISTING_FULL_INTERVAL)
+   @VisibleForTesting
+   long fullIntervalSeconds = 3600;
+
+   private final NovaApi novaApi;
+   private final Ticker ticker;
+   private final ConcurrentMap<String, RegionIndex> regions = Maps.newConcurrentMap();
+
+   @Inject
+   IncrementalServerListing(NovaApi novaApi) {
+      this(novaApi, Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   IncrementalServerListing(NovaApi novaApi, Ticker ticker) {
+      this.novaApi = checkNotNull(novaApi, "novaApi");
+      this.ticker = checkNotNull(ticker, "ticker");
+   }
+
+   /**
+    * Brings the index of the region up to date and returns the servers in it, in detail.
+    */
+   public Map<String, Server> listInDetail(String regionId) {
+      RegionIndex index = regions.get(checkNotNull(regionId, "regionId"));
+      if (index == null) {
+         RegionIndex newIndex = new RegionIndex(regionId);
+         index = regions.putIfAbsent(regionId, newIndex);
+         if (index == null)
+            index = newIndex;
+      }
+      return index.refresh(ticker.read());
+   }
+
+   /**
+    * Forgets every index, so that the next listing of each region is a full one.
+    */
+   public void invalidateAll() {
+      regions.clear();
+   }
+
+   private final class RegionIndex {
+      private final String regionId;
+      private Map<String, Server> servers = ImmutableMap.of();
+      private Date changesSince;
+      private long lastRefreshStarted = Long.MIN_VALUE;
+      private long lastFullRefreshStarted;
+
+      private RegionIndex(String regionId) {
+         this.regionId = regionId;
+      }
+
+      /**
+       * Callers that were waiting while another one refreshed the index share its result.
+       */
+      private synchronized Map<String, Server> refresh(long requested) {
+         if (lastRefreshStarted != Long.MIN_VALUE && lastRefreshStarted - requested >= 0)
+            return servers;
+         long started = ticker.read();
+         boolean full = changesSince == null
+               || NANOSECONDS.toSeconds(started - lastFullRefreshStarted) >= fullIntervalSeconds;
+         Map<String, Server> updated = full ? Maps.<String, Server> newHashMap() : Maps.newHashMap(servers);
+         PaginationOptions options = full ? new ListOptions() : ListOptions.Builder.changesSince(changesSince);
+         Date latest = null;
+         int changes = 0;
+         while (options != null) {
+            PaginatedCollection<Server> page = novaApi.getServerApi(regionId).listInDetail(options);
+            for (Server server : page) {
+               changes++;
+               if (server.getStatus() == Server.Status.DELETED)
+                  updated.remove(server.getId());
+               else
+                  updated.put(server.getId(), server);
+               if (server.getUpdated() != null && (latest == null || server.getUpdated().after(latest)))
+                  latest = server.getUpdated();
+            }
+            Optional<Object> next = page.nextMarker();
+            options = next.isPresent() ? page.nextPaginationOptions() : null;
+         }
+         long elapsedMs = NANOSECONDS.toMillis(ticker.read() - started);
+         if (latest != null)
+            changesSince = new Date(latest.getTime() - elapsedMs - OVERLAP_MS);
+         else if (full)
+            changesSince = null;
+         if (full)
+            lastFullRefreshStarted = started;
+         lastRefreshStarted = started;
+         servers = ImmutableMap.copyOf(updated);
+         logger.debug("<< %s listing of region(%s): %d servers, %d changes in %dms", full ? "full" : "incremental",
+               regionId, servers.size(), changes, elapsedMs);
+         return servers;
+      }
+   }
+}
@@ -38,4 +38,17 @@ public class NovaProperties {
     */
    public static final String AUTO_GENERATE_KEYPAIRS = "jclouds.openstack-nova.auto-generate-keypairs";
 
+   /**
+    * When true, servers are listed from a local index per region, which is brought up to date with the
+    * {@code changes-since} query instead of listing every server again. Defaults to false.
+    */
+   public static final String INCREMENTAL_SERVER_LISTING = "jclouds.openstack-nova.incremental-server-listing";
+
+   /**
+    * How often (in seconds) the incremental server index of a region is rebuilt from a full listing, so that changes
+    * the {@code changes-since} query no longer reports are not missed forever. Defaults to 3600.
+    */
+   public static final String INCREMENTAL_SERVER_LISTING_FULL_INTERVAL =
+         "jclouds.openstack-nova.incremental-server-listing.full-interval";
+
 }
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.nova.v2_0.compute.strategy;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.net.URI;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.easymock.IAnswer;
+import org.jclouds.openstack.nova.v2_0.NovaApi;
+import org.jclouds.openstack.nova.v2_0.domain.Server;
+import org.jclouds.openstack.nova.v2_0.domain.Server.Status;
+import org.jclouds.openstack.nova.v2_0.features.ServerApi;
+import org.jclouds.openstack.v2_0.domain.Link;
+import org.jclouds.openstack.v2_0.domain.Link.Relation;
+import org.jclouds.openstack.v2_0.domain.PaginatedCollection;
+import org.jclouds.openstack.v2_0.domain.Resource;
+import org.jclouds.openstack.v2_0.options.PaginationOptions;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "IncrementalServerListingTest")
+public class IncrementalServerListingTest {
+
+   private static final long NOW = 1400000000000L;
+
+   private NovaApi novaApi;
+   private ServerApi serverApi;
+   private Capture<PaginationOptions> requests;
+   private long nanos;
+   private IncrementalServerListing listing;
+
+   @BeforeMethod
+   public void setUp() {
+      novaApi = createMock(NovaApi.class);
+      serverApi = createMock(ServerApi.class);
+      requests = new Capture<PaginationOptions>(CaptureType.ALL);
+      nanos = 0;
+      listing = new IncrementalServerListing(novaApi, new Ticker() {
+         @Override
+         public long read() {
+            return nanos;
+         }
+      });
+   }
+
+   /**
+    * Expects a listing of the region, which takes 500ms and returns the page.
+    */
+   private void expectListing(String region, final PaginatedCollection<Server> page) {
+      expect(novaApi.getServerApi(region)).andReturn(serverApi);
+      expect(serverApi.listInDetail(capture(requests))).andAnswer(new IAnswer<PaginatedCollection<Server>>() {
+         @Override
+         public PaginatedCollection<Server> answer() {
+            nanos += MILLISECONDS.toNanos(500);
+            return page;
+         }
+      });
+   }
+
+   private void expectListing(PaginatedCollection<Server> page) {
+      expectListing("region", page);
+   }
+
+   private PaginationOptions request(int index) {
+      return requests.getValues().get(index);
+   }
+
+   public void testFirstListingIsFullAndFollowsPages() {
+      expectListing(page(ImmutableList.of(server("1", Status.ACTIVE, 10)), "http://nova/servers/detail?marker=1"));
+      expectListing(page(ImmutableList.of(server("2", Status.BUILD, 20))));
+      replay(novaApi, serverApi);
+
+      Map<String, Server> servers = listing.listInDetail("region");
+
+      verify(novaApi, serverApi);
+      assertEquals(servers.keySet(), ImmutableSet.of("1", "2"));
+      assertFalse(request(0).buildQueryParameters().containsKey("changes-since"));
+      assertEquals(ImmutableList.copyOf(request(1).buildQueryParameters().get("marker")), ImmutableList.of("1"));
+   }
+
+   public void testNextListingAppliesChangesSinceLatestUpdate() {
+      expectListing(page(ImmutableList.of(server("1", Status.ACTIVE, 10), server("2", Status.BUILD, 20))));
+      expectListing(page(ImmutableList.of(server("2", Status.ACTIVE, 30), server("1", Status.DELETED, 31),
+            server("3", Status.BUILD, 32))));
+      replay(novaApi, serverApi);
+
+      listing.listInDetail("region");
+      nanos += SECONDS.toNanos(5);
+      Map<String, Server> servers = listing.listInDetail("region");
+
+      verify(novaApi, serverApi);
+      assertEquals(servers.keySet(), ImmutableSet.of("2", "3"));
+      assertEquals(servers.get("2").getStatus(), Status.ACTIVE);
+      // latest update less the 500ms the listing took and one second of overlap
+      long since = (NOW + SECONDS.toMillis(20) - 500 - 1000) / 1000;
+      assertEquals(ImmutableList.copyOf(request(1).buildQueryParameters().get("changes-since")),
+            ImmutableList.of(since + ""));
+   }
+
+   public void testNoChangesKeepsWatermark() {
+      expectListing(page(ImmutableList.of(server("1", Status.ACTIVE, 10))));
+      expectListing(page(ImmutableList.<Server> of()));
+      expectListing(page(ImmutableList.<Server> of()));
+      replay(novaApi, serverApi);
+
+      listing.listInDetail("region");
+      nanos += SECONDS.toNanos(5);
+      listing.listInDetail("region");
+      nanos += SECONDS.toNanos(5);
+      Map<String, Server> servers = listing.listInDetail("region");
+
+      verify(novaApi, serverApi);
+      assertEquals(servers.keySet(), ImmutableSet.of("1"));
+      assertEquals(ImmutableList.copyOf(request(2).buildQueryParameters().get("changes-since")),
+            ImmutableList.copyOf(request(1).buildQueryParameters().get("changes-since")));
+   }
+
+   public void testFullListingAfterInterval() {
+      listing.fullIntervalSeconds = 60;
+      expectListing(page(ImmutableList.of(server("1", Status.ACTIVE, 10))));
+      expectListing(page(ImmutableList.of(server("2", Status.ACTIVE, 70))));
+      replay(novaApi, serverApi);
+
+      listing.listInDetail("region");
+      nanos += SECONDS.toNanos(61);
+      Map<String, Server> servers = listing.listInDetail("region");
+
+      verify(novaApi, serverApi);
+      assertEquals(servers.keySet(), ImmutableSet.of("2"));
+      assertFalse(request(1).buildQueryParameters().containsKey("changes-since"));
+   }
+
+   public void testRegionsAreIndexedSeparately() {
+      expectListing("a", page(ImmutableList.of(server("1", Status.ACTIVE, 10))));
+      expectListing("b", page(ImmutableList.of(server("2", Status.ACTIVE, 10))));
+      replay(novaApi, serverApi);
+
+      assertEquals(listing.listInDetail("a").keySet(), ImmutableSet.of("1"));
+      assertEquals(listing.listInDetail("b").keySet(), ImmutableSet.of("2"));
+      verify(novaApi, serverApi);
+      assertFalse(request(1).buildQueryParameters().containsKey("changes-since"));
+   }
+
+   private static Server server(String id, Status status, int updatedSeconds) {
+      return Server.builder().id(id).name("server-" + id).tenantId("tenant").userId("user").status(status)
+            .created(new Date(NOW)).updated(new Date(NOW + SECONDS.toMillis(updatedSeconds)))
+            .flavor(Resource.builder().id("1").build()).build();
+   }
+
+   private static PaginatedCollection<Server> page(List<Server> servers) {
+      return new PaginatedCollection<Server>(servers, ImmutableSet.<Link> of()) {
+      };
+   }
+
+   private static PaginatedCollection<Server> page(List<Server> servers, String next) {
+      return new PaginatedCollection<Server>(servers, ImmutableSet.of(Link.create(Relation.NEXT, URI.create(next)))) {
+      };
+   }
+}
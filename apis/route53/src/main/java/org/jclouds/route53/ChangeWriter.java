@@ -0,0 +1,472 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.route53;
+
+import static com.google.common.base.Objects.equal;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.route53.domain.Change;
+import org.jclouds.route53.domain.Change.Status;
+import org.jclouds.route53.domain.ChangeBatch;
+import org.jclouds.route53.domain.ResourceRecordSet;
+import org.jclouds.route53.domain.ResourceRecordSet.RecordSubset;
+import org.jclouds.route53.domain.ResourceRecordSet.RecordSubset.Latency;
+import org.jclouds.route53.domain.ResourceRecordSet.RecordSubset.Weighted;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Queues changes to resource record sets, and applies them to each hosted zone in as few change batches as possible.
+ * <p/>
+ * Changes queued for the same name, type and set identifier are merged before they are sent: a later create replaces
+ * an earlier one, and a create followed by a delete of the same record cancels out. On every flush, the changes of
+ * each hosted zone are sent in batches within the limits of {@code ChangeResourceRecordSets}. When Route53 rejects a
+ * batch as invalid, it is split and resent, so that only the operations on the invalid records fail.
+ * <p/>
+ * Each operation returns a future that completes with the {@link Change} once Route53 reports it {@link Status#INSYNC
+ * INSYNC}. All changes waiting to be in sync are polled by a single task, with one {@code GetChange} per batch. When
+ * the changes of an operation cancel out, its future completes with null.
+ * 
+ * <h4>Example usage</h4>
+ * 
+ * <pre>
+ * ChangeWriter writer = ChangeWriter.builder(route53Api, scheduler).build();
+ * writer.create(zoneId, rrs);
+ * writer.replace(zoneId, current, replacement);
+ * ListenableFuture&lt;Change&gt; inSync = writer.delete(zoneId, stale);
+ * </pre>
+ */
+@Beta
+public class ChangeWriter implements Closeable {
+
+   /**
+    * The most changes Route53 accepts in one batch.
+    */
+   public static final int MAX_CHANGES = 100;
+
+   /**
+    * The most resource record values Route53 accepts in one batch.
+    */
+   public static final int MAX_VALUES = 1000;
+
+   /**
+    * The most characters of resource record values Route53 accepts in one batch.
+    */
+   public static final int MAX_VALUE_CHARACTERS = 32000;
+
+   public static Builder builder(Route53Api api, ScheduledExecutorService executor) {
+      return new Builder(api, executor);
+   }
+
+   public static class Builder {
+      private final Route53Api api;
+      private final ScheduledExecutorService executor;
+      private long flushIntervalMillis = 1000;
+      private long pollIntervalMillis = 10000;
+
+      private Builder(Route53Api api, ScheduledExecutorService executor) {
+         this.api = checkNotNull(api, "api");
+         this.executor = checkNotNull(executor, "executor");
+      }
+
+      /**
+       * How often queued changes are sent. Default one second.
+       */
+      public Builder flushInterval(long flushInterval, TimeUnit unit) {
+         checkArgument(flushInterval > 0, "flushInterval must be positive");
+         this.flushIntervalMillis = unit.toMillis(flushInterval);
+         return this;
+      }
+
+      /**
+       * How often the status of changes not yet in sync is checked. Default ten seconds.
+       */
+      public Builder pollInterval(long pollInterval, TimeUnit unit) {
+         checkArgument(pollInterval > 0, "pollInterval must be positive");
+         this.pollIntervalMillis = unit.toMillis(pollInterval);
+         return this;
+      }
+
+      public ChangeWriter build() {
+         ChangeWriter writer = new ChangeWriter(api);
+         writer.start(executor, flushIntervalMillis, pollIntervalMillis);
+         return writer;
+      }
+   }
+
+   private final Route53Api api;
+   /** keeps flushes in order, so that changes to a record are applied in the order they were queued */
+   private final Object flushLock = new Object();
+   /** hosted zone id to the changes queued for it, by record */
+   private Map<String, Map<RecordKey, PendingRecord>> queued = Maps.newLinkedHashMap();
+   /** changes submitted but not yet in sync, by id */
+   private final Map<String, Change> submitted = Maps.newLinkedHashMap();
+   private final ListMultimap<String, SettableFuture<Change>> awaitingSync = ArrayListMultimap.create();
+   private volatile ScheduledFuture<?> flushing;
+   private volatile ScheduledFuture<?> polling;
+
+   @VisibleForTesting
+   ChangeWriter(Route53Api api) {
+      this.api = checkNotNull(api, "api");
+   }
+
+   private void start(ScheduledExecutorService executor, long flushIntervalMillis, long pollIntervalMillis) {
+      flushing = executor.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run() {
+            flush();
+         }
+
+         @Override
+         public String toString() {
+            return "flushRoute53Changes()";
+         }
+      }, flushIntervalMillis, flushIntervalMillis, MILLISECONDS);
+      polling = executor.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run() {
+            poll();
+         }
+
+         @Override
+         public String toString() {
+            return "pollRoute53Changes()";
+         }
+      }, pollIntervalMillis, pollIntervalMillis, MILLISECONDS);
+   }
+
+   /**
+    * Queues the creation of {@code rrs}.
+    */
+   public ListenableFuture<Change> create(String zoneId, ResourceRecordSet rrs) {
+      SettableFuture<Change> future = SettableFuture.create();
+      synchronized (this) {
+         pending(zoneId, rrs, future).create(rrs);
+      }
+      return future;
+   }
+
+   /**
+    * Queues the deletion of {@code rrs}.
+    */
+   public ListenableFuture<Change> delete(String zoneId, ResourceRecordSet rrs) {
+      SettableFuture<Change> future = SettableFuture.create();
+      synchronized (this) {
+         pending(zoneId, rrs, future).delete(rrs);
+      }
+      return future;
+   }
+
+   /**
+    * Queues replacing {@code current} with {@code replacement}, which share name, type and set identifier. Both
+    * changes are sent in the same batch, so that the replacement is atomic.
+    */
+   public ListenableFuture<Change> replace(String zoneId, ResourceRecordSet current, ResourceRecordSet replacement) {
+      checkArgument(RecordKey.of(current).equals(RecordKey.of(replacement)),
+            "%s and %s differ in name, type or set identifier", current, replacement);
+      SettableFuture<Change> future = SettableFuture.create();
+      synchronized (this) {
+         PendingRecord pending = pending(zoneId, current, future);
+         pending.delete(current);
+         pending.create(replacement);
+      }
+      return future;
+   }
+
+   private PendingRecord pending(String zoneId, ResourceRecordSet rrs, SettableFuture<Change> future) {
+      Map<RecordKey, PendingRecord> zone = queued.get(checkNotNull(zoneId, "zoneId"));
+      if (zone == null) {
+         zone = Maps.newLinkedHashMap();
+         queued.put(zoneId, zone);
+      }
+      RecordKey key = RecordKey.of(checkNotNull(rrs, "rrs"));
+      PendingRecord pending = zone.get(key);
+      if (pending == null) {
+         pending = new PendingRecord();
+         zone.put(key, pending);
+      }
+      pending.futures.add(future);
+      return pending;
+   }
+
+   /**
+    * Sends the changes queued so far, on the calling thread.
+    */
+   public void flush() {
+      synchronized (flushLock) {
+         Map<String, Map<RecordKey, PendingRecord>> toSend;
+         synchronized (this) {
+            if (queued.isEmpty())
+               return;
+            toSend = queued;
+            queued = Maps.newLinkedHashMap();
+         }
+         send(toSend);
+      }
+   }
+
+   private void send(Map<String, Map<RecordKey, PendingRecord>> toSend) {
+      for (Map.Entry<String, Map<RecordKey, PendingRecord>> zone : toSend.entrySet()) {
+         List<PendingRecord> batch = newArrayList();
+         int changes = 0;
+         int values = 0;
+         int characters = 0;
+         for (PendingRecord pending : zone.getValue().values()) {
+            if (pending.changes() == 0) {
+               for (SettableFuture<Change> future : pending.futures)
+                  future.set(null);
+               continue;
+            }
+            if (!batch.isEmpty()
+                  && (changes + pending.changes() > MAX_CHANGES || values + pending.values() > MAX_VALUES
+                        || characters + pending.characters() > MAX_VALUE_CHARACTERS)) {
+               apply(zone.getKey(), batch);
+               batch = newArrayList();
+               changes = values = characters = 0;
+            }
+            batch.add(pending);
+            changes += pending.changes();
+            values += pending.values();
+            characters += pending.characters();
+         }
+         if (!batch.isEmpty())
+            apply(zone.getKey(), batch);
+      }
+   }
+
+   private void apply(String zoneId, List<PendingRecord> batch) {
+      ChangeBatch.Builder changes = ChangeBatch.builder();
+      for (PendingRecord pending : batch) {
+         // Route53 requires the delete of a record before its replacement
+         if (pending.delete != null)
+            changes.delete(pending.delete);
+         if (pending.create != null)
+            changes.create(pending.create);
+      }
+      Change change;
+      try {
+         change = api.getResourceRecordSetApiForHostedZone(zoneId).apply(changes.build());
+      } catch (InvalidChangeBatchException e) {
+         if (batch.size() > 1) {
+            // one invalid record rejects the whole batch, so split it until only that record fails
+            int half = batch.size() / 2;
+            apply(zoneId, batch.subList(0, half));
+            apply(zoneId, batch.subList(half, batch.size()));
+            return;
+         }
+         for (SettableFuture<Change> future : batch.get(0).futures)
+            future.setException(e);
+         return;
+      } catch (RuntimeException e) {
+         for (PendingRecord pending : batch)
+            for (SettableFuture<Change> future : pending.futures)
+               future.setException(e);
+         return;
+      }
+      if (change.getStatus() == Status.INSYNC) {
+         for (PendingRecord pending : batch)
+            for (SettableFuture<Change> future : pending.futures)
+               future.set(change);
+         return;
+      }
+      synchronized (this) {
+         submitted.put(change.getId(), change);
+         for (PendingRecord pending : batch)
+            awaitingSync.putAll(change.getId(), pending.futures);
+      }
+   }
+
+   /**
+    * Checks the status of each change not yet in sync, and completes the futures of those now in sync.
+    */
+   @VisibleForTesting
+   void poll() {
+      List<String> ids;
+      synchronized (this) {
+         ids = ImmutableList.copyOf(submitted.keySet());
+      }
+      for (String id : ids) {
+         Change change;
+         try {
+            change = api.getChange(id);
+         } catch (RuntimeException e) {
+            continue; // try again on the next poll
+         }
+         if (change != null && change.getStatus() == Status.PENDING)
+            continue;
+         List<SettableFuture<Change>> futures;
+         synchronized (this) {
+            submitted.remove(id);
+            futures = awaitingSync.removeAll(id);
+         }
+         for (SettableFuture<Change> future : futures) {
+            if (change == null)
+               future.setException(new IllegalStateException("change " + id + " no longer exists"));
+            else
+               future.set(change);
+         }
+      }
+   }
+
+   /**
+    * The number of submitted changes not yet in sync.
+    */
+   public synchronized int awaitingSyncCount() {
+      return submitted.size();
+   }
+
+   /**
+    * Stops the scheduled flushes and polls, and sends the changes queued so far. Futures of changes not yet in sync
+    * complete with the change as it was submitted.
+    */
+   @Override
+   public void close() {
+      if (flushing != null)
+         flushing.cancel(false);
+      if (polling != null)
+         polling.cancel(false);
+      flush();
+      Map<String, Change> changes;
+      ListMultimap<String, SettableFuture<Change>> futures;
+      synchronized (this) {
+         changes = ImmutableMap.copyOf(submitted);
+         futures = ArrayListMultimap.create(awaitingSync);
+         submitted.clear();
+         awaitingSync.clear();
+      }
+      for (Map.Entry<String, SettableFuture<Change>> entry : futures.entries())
+         entry.getValue().set(changes.get(entry.getKey()));
+   }
+
+   /**
+    * The changes queued for one record. At most one delete and one create remain after merging.
+    */
+   private static final class PendingRecord {
+      private ResourceRecordSet delete;
+      private ResourceRecordSet create;
+      private final List<SettableFuture<Change>> futures = newArrayList();
+
+      private void create(ResourceRecordSet rrs) {
+         if (create == null && sameRecord(rrs, delete))
+            delete = null; // recreating what was to be deleted
+         else
+            create = rrs;
+      }
+
+      private void delete(ResourceRecordSet rrs) {
+         if (create != null) {
+            boolean deletesTheCreated = sameRecord(rrs, create);
+            create = null;
+            if (deletesTheCreated)
+               return;
+         }
+         if (delete == null)
+            delete = rrs;
+      }
+
+      /**
+       * {@link ResourceRecordSet#equals} only compares name and type, but a delete must match the record exactly.
+       */
+      private static boolean sameRecord(ResourceRecordSet a, ResourceRecordSet b) {
+         if (b == null || !a.equals(b) || !RecordKey.of(a).equals(RecordKey.of(b)))
+            return false;
+         if (!equal(a.getTTL(), b.getTTL()) || !equal(a.getValues(), b.getValues())
+               || !equal(a.getAliasTarget(), b.getAliasTarget()))
+            return false;
+         if (a instanceof Weighted)
+            return Weighted.class.cast(a).getWeight() == Weighted.class.cast(b).getWeight();
+         if (a instanceof Latency)
+            return Latency.class.cast(a).getRegion().equals(Latency.class.cast(b).getRegion());
+         return true;
+      }
+
+      private int changes() {
+         return (delete != null ? 1 : 0) + (create != null ? 1 : 0);
+      }
+
+      private int values() {
+         return (delete != null ? delete.getValues().size() : 0) + (create != null ? create.getValues().size() : 0);
+      }
+
+      private int characters() {
+         return characters(delete) + characters(create);
+      }
+
+      private static int characters(ResourceRecordSet rrs) {
+         if (rrs == null)
+            return 0;
+         int characters = 0;
+         for (String value : rrs.getValues())
+            characters += value.length();
+         return characters;
+      }
+   }
+
+   /**
+    * What Route53 identifies a resource record set by: its name, type and, for a subset, its set identifier.
+    */
+   private static final class RecordKey {
+      private final String name;
+      private final String type;
+      private final String id;
+
+      private static RecordKey of(ResourceRecordSet rrs) {
+         return new RecordKey(rrs.getName(), rrs.getType(),
+               rrs instanceof RecordSubset ? RecordSubset.class.cast(rrs).getId() : null);
+      }
+
+      private RecordKey(String name, String type, String id) {
+         this.name = name;
+         this.type = type;
+         this.id = id;
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(name, type, id);
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof RecordKey))
+            return false;
+         RecordKey that = RecordKey.class.cast(obj);
+         return equal(this.name, that.name) && equal(this.type, that.type) && equal(this.id, that.id);
+      }
+   }
+}
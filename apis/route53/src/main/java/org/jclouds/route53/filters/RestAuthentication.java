@@ -22,15 +22,13 @@ import static com.google.common.io.BaseEncoding.base64;
 import static com.google.common.net.HttpHeaders.DATE;
 
 import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.jclouds.aws.domain.SessionCredentials;
+import org.jclouds.crypto.Crypto;
 import org.jclouds.date.TimeStamp;
 import org.jclouds.domain.Credentials;
 import org.jclouds.http.HttpException;
@@ -52,12 +50,14 @@ public class RestAuthentication implements HttpRequestFilter, RequestSigner {
 
    private final Supplier<Credentials> creds;
    private final Provider<String> timeStampProvider;
+   private final Crypto crypto;
 
    @Inject
    public RestAuthentication(@org.jclouds.location.Provider Supplier<Credentials> creds,
-         @TimeStamp Provider<String> timeStampProvider) {
+         @TimeStamp Provider<String> timeStampProvider, Crypto crypto) {
       this.creds = creds;
       this.timeStampProvider = timeStampProvider;
+      this.crypto = crypto;
    }
 
    public HttpRequest filter(HttpRequest request) throws HttpException {
@@ -96,15 +96,10 @@ public class RestAuthentication implements HttpRequestFilter, RequestSigner {
    @Override
    public String sign(String toSign) {
       try {
-         SecretKeySpec keySpec = new SecretKeySpec(creds.get().credential.getBytes(UTF_8), "HmacSHA256");
-         Mac mac = Mac.getInstance("HmacSHA256");
-         mac.init(keySpec);
-         byte[] result = mac.doFinal(toSign.getBytes(UTF_8));
+         byte[] result = crypto.hmacSHA256(creds.get().credential.getBytes(UTF_8)).doFinal(toSign.getBytes(UTF_8));
          return base64().encode(result);
       } catch (InvalidKeyException e) {
          throw propagate(e);
-      } catch (NoSuchAlgorithmException e) {
-         throw propagate(e);
       }
    }
 
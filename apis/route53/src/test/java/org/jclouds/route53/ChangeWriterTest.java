@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.route53;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.jclouds.route53.domain.Change;
+import org.jclouds.route53.domain.Change.Status;
+import org.jclouds.route53.domain.ChangeBatch;
+import org.jclouds.route53.domain.ChangeBatch.Action;
+import org.jclouds.route53.domain.ResourceRecordSet;
+import org.jclouds.route53.features.ResourceRecordSetApi;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+
+@Test(groups = "unit", testName = "ChangeWriterTest")
+public class ChangeWriterTest {
+
+   private Route53Api route53;
+   private ResourceRecordSetApi zone1;
+   private ResourceRecordSetApi zone2;
+   private Capture<ChangeBatch> batches;
+   private ChangeWriter writer;
+
+   @BeforeMethod
+   public void setUp() {
+      route53 = createMock(Route53Api.class);
+      zone1 = createMock(ResourceRecordSetApi.class);
+      zone2 = createMock(ResourceRecordSetApi.class);
+      batches = new Capture<ChangeBatch>(CaptureType.ALL);
+      expect(route53.getResourceRecordSetApiForHostedZone("Z1")).andReturn(zone1).anyTimes();
+      expect(route53.getResourceRecordSetApiForHostedZone("Z2")).andReturn(zone2).anyTimes();
+      writer = new ChangeWriter(route53);
+   }
+
+   private void replayAll() {
+      replay(route53, zone1, zone2);
+   }
+
+   private void verifyAll() {
+      verify(route53, zone1, zone2);
+   }
+
+   private static ResourceRecordSet a(String name, String... values) {
+      return ResourceRecordSet.builder().name(name).type("A").ttl(300).values(Lists.newArrayList(values)).build();
+   }
+
+   private static Change change(String id, Status status) {
+      return Change.create(id, status, new Date());
+   }
+
+   public void testLaterCreateReplacesEarlierOne() {
+      expect(zone1.apply(capture(batches))).andReturn(change("C1", Status.PENDING));
+      replayAll();
+
+      writer.create("Z1", a("www.foo.com.", "1.1.1.1"));
+      writer.create("Z1", a("www.foo.com.", "2.2.2.2"));
+      writer.flush();
+
+      verifyAll();
+      ChangeBatch batch = batches.getValue();
+      assertEquals(batch.size(), 1);
+      assertEquals(batch.get(0).getAction(), Action.CREATE);
+      assertEquals(batch.get(0).getRRS().getValues(), Lists.newArrayList("2.2.2.2"));
+   }
+
+   public void testCreateThenDeleteCancelsOut() throws Exception {
+      replayAll();
+
+      ListenableFuture<Change> create = writer.create("Z1", a("www.foo.com.", "1.1.1.1"));
+      ListenableFuture<Change> delete = writer.delete("Z1", a("www.foo.com.", "1.1.1.1"));
+      writer.flush();
+
+      verifyAll();
+      assertNull(create.get());
+      assertNull(delete.get());
+   }
+
+   public void testReplaceDeletesBeforeCreating() {
+      expect(zone1.apply(capture(batches))).andReturn(change("C1", Status.PENDING));
+      replayAll();
+
+      writer.replace("Z1", a("www.foo.com.", "1.1.1.1"), a("www.foo.com.", "2.2.2.2"));
+      writer.flush();
+
+      verifyAll();
+      ChangeBatch batch = batches.getValue();
+      assertEquals(batch.size(), 2);
+      assertEquals(batch.get(0).getAction(), Action.DELETE);
+      assertEquals(batch.get(1).getAction(), Action.CREATE);
+      assertEquals(batch.get(0).getRRS().getValues(), Lists.newArrayList("1.1.1.1"));
+      assertEquals(batch.get(1).getRRS().getValues(), Lists.newArrayList("2.2.2.2"));
+   }
+
+   public void testReplaceThenDeleteOnlyDeletesTheOriginal() {
+      expect(zone1.apply(capture(batches))).andReturn(change("C1", Status.PENDING));
+      replayAll();
+
+      writer.replace("Z1", a("www.foo.com.", "1.1.1.1"), a("www.foo.com.", "2.2.2.2"));
+      writer.delete("Z1", a("www.foo.com.", "2.2.2.2"));
+      writer.flush();
+
+      verifyAll();
+      ChangeBatch batch = batches.getValue();
+      assertEquals(batch.size(), 1);
+      assertEquals(batch.get(0).getAction(), Action.DELETE);
+      assertEquals(batch.get(0).getRRS().getValues(), Lists.newArrayList("1.1.1.1"));
+   }
+
+   public void testBatchesPerZoneWithinMaxChanges() {
+      expect(zone1.apply(capture(batches))).andReturn(change("C1", Status.PENDING)).times(2);
+      expect(zone2.apply(capture(batches))).andReturn(change("C2", Status.PENDING));
+      replayAll();
+
+      for (int i = 0; i < 150; i++)
+         writer.create("Z1", a("host" + i + ".foo.com.", "1.1.1.1"));
+      writer.create("Z2", a("www.bar.com.", "1.1.1.1"));
+      writer.flush();
+
+      verifyAll();
+      List<ChangeBatch> sent = batches.getValues();
+      assertEquals(sent.size(), 3);
+      assertEquals(sent.get(0).size(), ChangeWriter.MAX_CHANGES);
+      assertEquals(sent.get(1).size(), 50);
+      assertEquals(sent.get(2).size(), 1);
+   }
+
+   public void testBatchesWithinMaxValues() {
+      expect(zone1.apply(capture(batches))).andReturn(change("C1", Status.PENDING)).times(2);
+      replayAll();
+
+      String[] values = new String[600];
+      for (int i = 0; i < values.length; i++)
+         values[i] = "10.0." + i / 256 + "." + i % 256;
+      writer.create("Z1", a("one.foo.com.", values));
+      writer.create("Z1", a("two.foo.com.", values));
+      writer.flush();
+
+      verifyAll();
+      assertEquals(batches.getValues().size(), 2);
+   }
+
+   public void testPollsOncePerBatchUntilInSync() throws Exception {
+      expect(zone1.apply(anyObject(ChangeBatch.class))).andReturn(change("C1", Status.PENDING));
+      expect(route53.getChange("C1")).andReturn(change("C1", Status.PENDING)).andReturn(change("C1", Status.INSYNC));
+      replayAll();
+
+      ListenableFuture<Change> one = writer.create("Z1", a("one.foo.com.", "1.1.1.1"));
+      ListenableFuture<Change> two = writer.create("Z1", a("two.foo.com.", "1.1.1.1"));
+      writer.flush();
+      assertEquals(writer.awaitingSyncCount(), 1);
+
+      writer.poll();
+      assertFalse(one.isDone());
+
+      writer.poll();
+      verifyAll();
+      assertEquals(one.get().getStatus(), Status.INSYNC);
+      assertSame(one.get(), two.get());
+      assertEquals(writer.awaitingSyncCount(), 0);
+   }
+
+   public void testFailedBatchFailsItsFutures() throws InterruptedException {
+      IllegalStateException failure = new IllegalStateException("ServiceUnavailable");
+      expect(zone1.apply(anyObject(ChangeBatch.class))).andThrow(failure);
+      replayAll();
+
+      ListenableFuture<Change> create = writer.create("Z1", a("www.foo.com.", "1.1.1.1"));
+      writer.flush();
+
+      verifyAll();
+      try {
+         create.get();
+         fail("expected the failure of the batch");
+      } catch (ExecutionException e) {
+         assertSame(e.getCause(), failure);
+      }
+   }
+
+   public void testInvalidBatchIsSplitSoOnlyTheInvalidRecordFails() throws Exception {
+      InvalidChangeBatchException invalid = new InvalidChangeBatchException(
+            ImmutableList.of("Tried to create resource record set duplicate.foo.com. type A, but it already exists"), null);
+      Capture<ChangeBatch> batches = new Capture<ChangeBatch>(CaptureType.ALL);
+      expect(zone1.apply(capture(batches))).andThrow(invalid).times(2);
+      expect(zone1.apply(capture(batches))).andReturn(change("C1", Status.INSYNC));
+      replayAll();
+
+      ListenableFuture<Change> first = writer.create("Z1", a("www.foo.com.", "1.1.1.1"));
+      ListenableFuture<Change> second = writer.create("Z1", a("api.foo.com.", "2.2.2.2"));
+      writer.flush();
+
+      verifyAll();
+      assertEquals(batches.getValues().size(), 3);
+      assertEquals(batches.getValues().get(0).size(), 2);
+      assertEquals(batches.getValues().get(1).size(), 1);
+      assertEquals(batches.getValues().get(2).size(), 1);
+      // the first half of the split is the invalid record
+      ListenableFuture<Change> failed = batches.getValues().get(1).get(0).getRRS().getName().equals("www.foo.com.")
+            ? first : second;
+      ListenableFuture<Change> applied = failed == first ? second : first;
+      try {
+         failed.get();
+         fail("expected the invalid record to fail");
+      } catch (ExecutionException e) {
+         assertSame(e.getCause(), invalid);
+      }
+      assertEquals(applied.get().getId(), "C1");
+   }
+
+   public void testCloseFlushesAndCompletesPendingChanges() throws Exception {
+      expect(zone1.apply(anyObject(ChangeBatch.class))).andReturn(change("C1", Status.PENDING));
+      replayAll();
+
+      ListenableFuture<Change> create = writer.create("Z1", a("www.foo.com.", "1.1.1.1"));
+      writer.close();
+
+      verifyAll();
+      assertTrue(create.isDone());
+      assertEquals(create.get().getStatus(), Status.PENDING);
+   }
+}
@@ -57,6 +57,7 @@ import com.google.common.base.Suppliers;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
@@ -188,6 +189,14 @@ public class S3HttpApiModule<S extends S3Client> extends AWSHttpApiModule<S> {
       bind(HttpRetryHandler.class).annotatedWith(ServerError.class).to(AWSServerErrorRetryHandler.class);
    }
 
+   /**
+    * S3 asks clients to reduce their request rate with a 503 {@code SlowDown} error.
+    */
+   @Override
+   protected Set<String> provideRetryableServerCodes() {
+      return ImmutableSet.<String> builder().addAll(super.provideRetryableServerCodes()).add("SlowDown").build();
+   }
+
    @Provides
    @TimeStamp
    protected String provideTimeStamp(@TimeStamp Supplier<String> cache) {
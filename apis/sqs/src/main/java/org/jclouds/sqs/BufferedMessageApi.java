@@ -0,0 +1,581 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sqs;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jclouds.logging.Logger;
+import org.jclouds.sqs.domain.BatchError;
+import org.jclouds.sqs.domain.BatchResult;
+import org.jclouds.sqs.domain.Message;
+import org.jclouds.sqs.domain.MessageIdAndMD5;
+import org.jclouds.sqs.features.MessageApi;
+import org.jclouds.sqs.options.ReceiveMessageOptions;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Utf8;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Sends, deletes and changes the visibility of messages one at a time, and sends them to SQS in batches.
+ * <p/>
+ * Each operation is queued and returns a future. A batch is sent when it has {@link #MAX_BATCH_ENTRIES} entries, or
+ * when the first entry has waited for the linger time, whichever comes first.
+ * <p/>
+ * When {@link #receive} is first called, {@link Builder#receivers receivers} loops start long polling the queue into a
+ * bounded local buffer. Messages are kept invisible from the moment they are received until they are deleted or their
+ * visibility is changed, by extending the visibility timeout before it expires, for at most
+ * {@link Builder#maxVisibility max visibility} since they were received. Messages that reach it, don't fit in the
+ * buffer, or arrive after {@link #close}, are made visible again. Each loop blocks a thread of the executor while it polls, so
+ * the executor needs more threads than receivers.
+ * 
+ * <h4>Example usage</h4>
+ * 
+ * <pre>
+ * BufferedMessageApi buffered = BufferedMessageApi.builder(sqsApi.getMessageApiForQueue(queue), scheduler)
+ *                                                 .linger(20, TimeUnit.MILLISECONDS)
+ *                                                 .prefetch(100)
+ *                                                 .build();
+ * buffered.send("hello");
+ * Message message = buffered.receive(1, TimeUnit.SECONDS);
+ * ...
+ * buffered.delete(message.getReceiptHandle());
+ * </pre>
+ */
+@Beta
+public class BufferedMessageApi implements Closeable {
+
+   /**
+    * The most entries SQS accepts in one batch request.
+    */
+   public static final int MAX_BATCH_ENTRIES = 10;
+
+   /**
+    * The most bytes of message bodies SQS accepts in one {@code SendMessageBatch} request.
+    */
+   public static final int MAX_BATCH_BYTES = 64 * 1024;
+
+   /**
+    * The longest SQS keeps a message invisible after it is received.
+    */
+   public static final long MAX_VISIBILITY_MILLIS = HOURS.toMillis(12);
+
+   private static final int MAX_WAIT_TIME_SECONDS = 20;
+   private static final long RECEIVE_ERROR_DELAY_MILLIS = 1000;
+   private static final long BUFFER_FULL_DELAY_MILLIS = 50;
+
+   public static Builder builder(MessageApi api, ScheduledExecutorService executor) {
+      return new Builder(api, executor);
+   }
+
+   public static class Builder {
+      private final MessageApi api;
+      private final ScheduledExecutorService executor;
+      private long lingerMillis = 20;
+      private int prefetch = 100;
+      private int visibilityTimeout = 30;
+      private long maxVisibilityMillis = MAX_VISIBILITY_MILLIS;
+      private int receivers = 1;
+      private Logger logger = Logger.NULL;
+
+      private Builder(MessageApi api, ScheduledExecutorService executor) {
+         this.api = checkNotNull(api, "api");
+         this.executor = checkNotNull(executor, "executor");
+      }
+
+      /**
+       * How long the first entry of a batch waits for more entries. Default 20 milliseconds.
+       */
+      public Builder linger(long linger, TimeUnit unit) {
+         checkArgument(linger >= 0, "linger must be non-negative");
+         this.lingerMillis = unit.toMillis(linger);
+         return this;
+      }
+
+      /**
+       * The most messages received ahead of {@link BufferedMessageApi#receive}. Default 100.
+       */
+      public Builder prefetch(int prefetch) {
+         checkArgument(prefetch > 0, "prefetch must be positive");
+         this.prefetch = prefetch;
+         return this;
+      }
+
+      /**
+       * Visibility timeout, in seconds, of the messages received; it is extended by the same amount while they are
+       * processed. Default 30.
+       */
+      public Builder visibilityTimeout(int visibilityTimeout) {
+         checkArgument(visibilityTimeout > 1, "visibilityTimeout must be more than a second");
+         this.visibilityTimeout = visibilityTimeout;
+         return this;
+      }
+
+      /**
+       * How long after it is received a message is kept invisible at most; it is then made visible again, even if it
+       * was returned by {@link BufferedMessageApi#receive} and not deleted yet. Default 12 hours, the most SQS allows.
+       */
+      public Builder maxVisibility(long maxVisibility, TimeUnit unit) {
+         long millis = unit.toMillis(maxVisibility);
+         checkArgument(millis > 0 && millis <= MAX_VISIBILITY_MILLIS,
+               "maxVisibility must be positive and at most 12 hours");
+         this.maxVisibilityMillis = millis;
+         return this;
+      }
+
+      /**
+       * How many receive requests are long polling the queue at the same time. Default 1.
+       */
+      public Builder receivers(int receivers) {
+         checkArgument(receivers > 0, "receivers must be positive");
+         this.receivers = receivers;
+         return this;
+      }
+
+      /**
+       * Where failed receive requests are logged. Default {@link Logger#NULL}.
+       */
+      public Builder logger(Logger logger) {
+         this.logger = checkNotNull(logger, "logger");
+         return this;
+      }
+
+      public BufferedMessageApi build() {
+         BufferedMessageApi buffered = new BufferedMessageApi(api, executor, lingerMillis, prefetch, visibilityTimeout,
+               maxVisibilityMillis, receivers);
+         buffered.logger = logger;
+         return buffered;
+      }
+   }
+
+   /**
+    * The error SQS reported for one entry of a batch.
+    */
+   public static class BatchEntryException extends RuntimeException {
+      private static final long serialVersionUID = 1L;
+
+      private final BatchError error;
+
+      public BatchEntryException(BatchError error) {
+         super(error.getCode() + ": " + error.getMessage());
+         this.error = error;
+      }
+
+      public BatchError getError() {
+         return error;
+      }
+   }
+
+   @VisibleForTesting
+   Logger logger = Logger.NULL;
+
+   private final MessageApi api;
+   private final ScheduledExecutorService executor;
+   private final long lingerMillis;
+   private final int visibilityTimeout;
+   private final long maxVisibilityNanos;
+   private final int receivers;
+   private final BlockingQueue<Message> prefetched;
+   /** Receipt handles of messages kept invisible, to when they were received and when their visibility expires. */
+   private final ConcurrentMap<String, Lease> expiries = Maps.newConcurrentMap();
+   private final AtomicBoolean receiving = new AtomicBoolean();
+   private volatile ScheduledFuture<?> extending;
+   private volatile boolean closed;
+
+   private final Batcher<String> sends = new Batcher<String>() {
+      @Override
+      BatchResult<?> invoke(Map<String, String> idMessageBody) {
+         return api.send(idMessageBody);
+      }
+
+      @Override
+      int bytes(String body) {
+         return Utf8.encodedLength(body);
+      }
+
+      @Override
+      Object value(Object result) {
+         return result;
+      }
+   };
+
+   private final Batcher<String> deletes = new Batcher<String>() {
+      @Override
+      BatchResult<?> invoke(Map<String, String> idReceiptHandle) {
+         return api.delete(idReceiptHandle);
+      }
+   };
+
+   private final Batcher<Map.Entry<String, Integer>> visibilityChanges = new Batcher<Map.Entry<String, Integer>>() {
+      @Override
+      BatchResult<?> invoke(Map<String, Map.Entry<String, Integer>> entries) {
+         ImmutableTable.Builder<String, String, Integer> idReceiptHandleVisibilityTimeout = ImmutableTable.builder();
+         for (Map.Entry<String, Map.Entry<String, Integer>> entry : entries.entrySet())
+            idReceiptHandleVisibilityTimeout.put(entry.getKey(), entry.getValue().getKey(), entry.getValue()
+                  .getValue());
+         return api.changeVisibility(idReceiptHandleVisibilityTimeout.build());
+      }
+   };
+
+   private final Runnable receiveLoop = new Runnable() {
+      @Override
+      public void run() {
+         if (closed)
+            return;
+         int capacity = Math.min(prefetched.remainingCapacity(), MAX_BATCH_ENTRIES);
+         if (capacity == 0) {
+            executor.schedule(this, BUFFER_FULL_DELAY_MILLIS, MILLISECONDS);
+            return;
+         }
+         List<Message> received;
+         try {
+            received = ImmutableList.copyOf(api.receive(capacity, new ReceiveMessageOptions().visibilityTimeout(
+                  visibilityTimeout).waitTimeSeconds(MAX_WAIT_TIME_SECONDS)));
+         } catch (RuntimeException e) {
+            logger.warn(e, "could not receive messages; retrying in %sms", RECEIVE_ERROR_DELAY_MILLIS);
+            executor.schedule(this, RECEIVE_ERROR_DELAY_MILLIS, MILLISECONDS);
+            return;
+         }
+         boolean released = false;
+         for (Message message : received) {
+            if (!buffer(message)) {
+               visibilityChanges.add(Maps.immutableEntry(message.getReceiptHandle(), 0));
+               released = true;
+            }
+         }
+         if (closed) {
+            if (released)
+               visibilityChanges.flush();
+            return;
+         }
+         executor.execute(this);
+      }
+   };
+
+   /**
+    * Extends the visibility of messages that have used half of their visibility timeout, and releases those that
+    * would be kept invisible longer than the max visibility.
+    */
+   private final Runnable extendVisibility = new Runnable() {
+      @Override
+      public void run() {
+         long now = System.nanoTime();
+         long timeout = SECONDS.toNanos(visibilityTimeout);
+         for (Map.Entry<String, Lease> expiry : expiries.entrySet()) {
+            Lease lease = expiry.getValue();
+            if (lease.expiry - now >= timeout / 2)
+               continue;
+            if (now + timeout - lease.received > maxVisibilityNanos) {
+               if (expiries.remove(expiry.getKey(), lease))
+                  release(expiry.getKey());
+            } else if (expiries.replace(expiry.getKey(), lease, new Lease(lease.received, now + timeout))) {
+               visibilityChanges.add(Maps.immutableEntry(expiry.getKey(), visibilityTimeout));
+            }
+         }
+      }
+   };
+
+   /**
+    * When a message was received, and when its visibility expires, in nanos.
+    */
+   private static class Lease {
+      private final long received;
+      private final long expiry;
+
+      private Lease(long received, long expiry) {
+         this.received = received;
+         this.expiry = expiry;
+      }
+   }
+
+   @VisibleForTesting
+   BufferedMessageApi(MessageApi api, ScheduledExecutorService executor, long lingerMillis, int prefetch,
+         int visibilityTimeout, int receivers) {
+      this(api, executor, lingerMillis, prefetch, visibilityTimeout, MAX_VISIBILITY_MILLIS, receivers);
+   }
+
+   @VisibleForTesting
+   BufferedMessageApi(MessageApi api, ScheduledExecutorService executor, long lingerMillis, int prefetch,
+         int visibilityTimeout, long maxVisibilityMillis, int receivers) {
+      this.api = checkNotNull(api, "api");
+      this.executor = checkNotNull(executor, "executor");
+      this.lingerMillis = lingerMillis;
+      this.prefetched = new LinkedBlockingQueue<Message>(prefetch);
+      this.visibilityTimeout = visibilityTimeout;
+      this.maxVisibilityNanos = MILLISECONDS.toNanos(maxVisibilityMillis);
+      this.receivers = receivers;
+   }
+
+   /**
+    * Adds a received message to the local buffer, unless it is full or {@link #close} has drained it already.
+    */
+   private boolean buffer(Message message) {
+      synchronized (prefetched) {
+         if (closed)
+            return false;
+         long now = System.nanoTime();
+         expiries.put(message.getReceiptHandle(), new Lease(now, now + SECONDS.toNanos(visibilityTimeout)));
+         if (prefetched.offer(message))
+            return true;
+         expiries.remove(message.getReceiptHandle());
+         return false;
+      }
+   }
+
+   /**
+    * Makes a message that reached the max visibility visible again, taking it out of the local buffer if it is still
+    * there.
+    */
+   private void release(String receiptHandle) {
+      synchronized (prefetched) {
+         for (Message message : prefetched) {
+            if (message.getReceiptHandle().equals(receiptHandle)) {
+               prefetched.remove(message);
+               break;
+            }
+         }
+      }
+      logger.warn("message %s reached the max visibility of %sms; making it visible again", receiptHandle,
+            NANOSECONDS.toMillis(maxVisibilityNanos));
+      visibilityChanges.add(Maps.immutableEntry(receiptHandle, 0));
+   }
+
+   /**
+    * Queues a message to send in the next batch.
+    * 
+    * @return the id and MD5 that SQS returned for the message, or a {@link BatchEntryException}
+    */
+   public ListenableFuture<MessageIdAndMD5> send(String message) {
+      checkArgument(Utf8.encodedLength(checkNotNull(message, "message")) <= MAX_BATCH_BYTES,
+            "message is larger than %s bytes", MAX_BATCH_BYTES);
+      return sends.add(message);
+   }
+
+   /**
+    * Queues the deletion of a message, and stops extending its visibility.
+    */
+   public ListenableFuture<Void> delete(String receiptHandle) {
+      expiries.remove(checkNotNull(receiptHandle, "receiptHandle"));
+      return deletes.add(receiptHandle);
+   }
+
+   /**
+    * Queues a change of the visibility of a message, and stops extending its visibility. Use {@code 0} to make
+    * the message visible to other consumers right away.
+    */
+   public ListenableFuture<Void> changeVisibility(String receiptHandle, int visibilityTimeout) {
+      expiries.remove(checkNotNull(receiptHandle, "receiptHandle"));
+      return visibilityChanges.add(Maps.immutableEntry(receiptHandle, visibilityTimeout));
+   }
+
+   /**
+    * Returns the next prefetched message, waiting up to {@code timeout} for one.
+    * 
+    * @return the message, or null if none arrived in time
+    */
+   public Message receive(long timeout, TimeUnit unit) throws InterruptedException {
+      checkState(!closed, "closed");
+      if (receiving.compareAndSet(false, true)) {
+         for (int i = 0; i < receivers; i++)
+            executor.execute(receiveLoop);
+         long period = SECONDS.toMillis(visibilityTimeout) / 4;
+         extending = executor.scheduleWithFixedDelay(extendVisibility, period, period, MILLISECONDS);
+      }
+      return prefetched.poll(timeout, unit);
+   }
+
+   @VisibleForTesting
+   int prefetchedCount() {
+      return prefetched.size();
+   }
+
+   /**
+    * Stops receiving, makes the messages still in the local buffer visible again, and sends the pending batches,
+    * waiting for every batch in flight to complete. Messages already returned by {@link #receive} are no longer
+    * extended; those a receive request still in progress returns are made visible again when it completes.
+    */
+   @Override
+   public void close() {
+      List<Message> unprocessed = newArrayList();
+      synchronized (prefetched) {
+         closed = true;
+         prefetched.drainTo(unprocessed);
+      }
+      if (extending != null)
+         extending.cancel(false);
+      expiries.clear();
+      for (Message message : unprocessed)
+         visibilityChanges.add(Maps.immutableEntry(message.getReceiptHandle(), 0));
+      List<ListenableFuture<?>> pending = newArrayList();
+      pending.addAll(sends.flush());
+      pending.addAll(deletes.flush());
+      pending.addAll(visibilityChanges.flush());
+      try {
+         Futures.successfulAsList(pending).get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+         throw propagate(e.getCause());
+      }
+   }
+
+   /**
+    * Collects entries of one kind of batch request, and sends them when the batch is full or has lingered.
+    */
+   private abstract class Batcher<E> {
+      private List<E> entries = newArrayList();
+      private List<SettableFuture<Object>> futures = newArrayList();
+      /** Futures of the entries not sent yet or still in flight. */
+      private final Set<ListenableFuture<?>> pending = Sets.newConcurrentHashSet();
+      private int bytes;
+      private long generation;
+
+      abstract BatchResult<?> invoke(Map<String, E> idEntry);
+
+      int bytes(E entry) {
+         return 0;
+      }
+
+      /**
+       * Returns what the future of an entry is set to, given its result in the batch response.
+       */
+      Object value(Object result) {
+         return null;
+      }
+
+      @SuppressWarnings("unchecked")
+      <R> ListenableFuture<R> add(E entry) {
+         final SettableFuture<Object> future = SettableFuture.create();
+         pending.add(future);
+         future.addListener(new Runnable() {
+            @Override
+            public void run() {
+               pending.remove(future);
+            }
+         }, sameThreadExecutor());
+         int size = bytes(entry);
+         synchronized (this) {
+            if (!entries.isEmpty() && bytes + size > MAX_BATCH_BYTES)
+               sendPending();
+            entries.add(entry);
+            futures.add(future);
+            bytes += size;
+            if (entries.size() == MAX_BATCH_ENTRIES) {
+               sendPending();
+            } else if (entries.size() == 1) {
+               final long lingering = generation;
+               executor.schedule(new Runnable() {
+                  @Override
+                  public void run() {
+                     synchronized (Batcher.this) {
+                        if (generation == lingering)
+                           sendPending();
+                     }
+                  }
+               }, lingerMillis, MILLISECONDS);
+            }
+         }
+         return (ListenableFuture<R>) future;
+      }
+
+      /**
+       * Sends the entries collected so far, and returns the futures of all entries not completed yet.
+       */
+      synchronized List<ListenableFuture<?>> flush() {
+         if (!entries.isEmpty())
+            sendPending();
+         return ImmutableList.copyOf(pending);
+      }
+
+      private void sendPending() {
+         final List<E> batch = entries;
+         final List<SettableFuture<Object>> batchFutures = futures;
+         entries = newArrayList();
+         futures = newArrayList();
+         bytes = 0;
+         generation++;
+         try {
+            executor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  send(batch, batchFutures);
+               }
+            });
+         } catch (RejectedExecutionException e) {
+            for (SettableFuture<Object> future : batchFutures)
+               future.setException(e);
+         }
+      }
+
+      private void send(List<E> batch, List<SettableFuture<Object>> batchFutures) {
+         ImmutableMap.Builder<String, E> idEntry = ImmutableMap.builder();
+         for (int i = 0; i < batch.size(); i++)
+            idEntry.put(String.valueOf(i), batch.get(i));
+         BatchResult<?> result;
+         try {
+            result = invoke(idEntry.build());
+         } catch (RuntimeException e) {
+            for (SettableFuture<Object> future : batchFutures)
+               future.setException(e);
+            return;
+         }
+         Map<String, BatchError> errors = result.getErrors();
+         for (int i = 0; i < batch.size(); i++) {
+            String id = String.valueOf(i);
+            if (result.containsKey(id)) {
+               batchFutures.get(i).set(value(result.get(id)));
+            } else if (errors.containsKey(id)) {
+               batchFutures.get(i).setException(new BatchEntryException(errors.get(id)));
+            } else {
+               batchFutures.get(i).setException(new IllegalStateException("no result for entry " + id + " in "
+                     + result));
+            }
+         }
+      }
+   }
+}
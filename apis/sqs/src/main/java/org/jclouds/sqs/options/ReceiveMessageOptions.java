@@ -32,6 +32,7 @@ import com.google.common.collect.Multimap;
 public class ReceiveMessageOptions extends BaseHttpRequestOptions implements Cloneable {
 
    private Integer visibilityTimeout;
+   private Integer waitTimeSeconds;
    private ImmutableSet.Builder<String> attributes = ImmutableSet.<String> builder();
 
    /**
@@ -49,6 +50,21 @@ public class ReceiveMessageOptions extends BaseHttpRequestOptions implements Clo
       return this;
    }
 
+   /**
+    * The duration (in seconds) for which the call waits for a message to arrive
+    * in the queue before returning. If a message is available, the call returns
+    * sooner. Waiting avoids empty responses while the queue is empty.
+    *
+    * @param waitTimeSeconds
+    *           Constraints: 0 to 20
+    *
+    *           Default: The receive message wait time of the queue
+    */
+   public ReceiveMessageOptions waitTimeSeconds(Integer waitTimeSeconds) {
+      this.waitTimeSeconds = waitTimeSeconds;
+      return this;
+   }
+
    /**
     * The attribute you want to get.
     *
@@ -88,6 +104,13 @@ public class ReceiveMessageOptions extends BaseHttpRequestOptions implements Clo
          return new ReceiveMessageOptions().visibilityTimeout(visibilityTimeout);
       }
 
+      /**
+       * @see ReceiveMessageOptions#waitTimeSeconds
+       */
+      public static ReceiveMessageOptions waitTimeSeconds(Integer waitTimeSeconds) {
+         return new ReceiveMessageOptions().waitTimeSeconds(waitTimeSeconds);
+      }
+
       /**
        * @see ReceiveMessageOptions#attribute
        */
@@ -108,6 +131,8 @@ public class ReceiveMessageOptions extends BaseHttpRequestOptions implements Clo
       Multimap<String, String> params = super.buildFormParameters();
       if (visibilityTimeout != null)
          params.put("VisibilityTimeout", visibilityTimeout.toString());
+      if (waitTimeSeconds != null)
+         params.put("WaitTimeSeconds", waitTimeSeconds.toString());
       ImmutableSet<String> attributes = this.attributes.build();
       if (!attributes.isEmpty()) {
          int nameIndex = 1;
@@ -124,12 +149,13 @@ public class ReceiveMessageOptions extends BaseHttpRequestOptions implements Clo
     */
    @Override
    public int hashCode() {
-      return Objects.hashCode(visibilityTimeout, attributes.build());
+      return Objects.hashCode(visibilityTimeout, waitTimeSeconds, attributes.build());
    }
 
    @Override
    public ReceiveMessageOptions clone() {
-      return new ReceiveMessageOptions().visibilityTimeout(visibilityTimeout).attributes(attributes.build());
+      return new ReceiveMessageOptions().visibilityTimeout(visibilityTimeout).waitTimeSeconds(waitTimeSeconds)
+            .attributes(attributes.build());
    }
 
    /**
@@ -145,6 +171,7 @@ public class ReceiveMessageOptions extends BaseHttpRequestOptions implements Clo
          return false;
       ReceiveMessageOptions other = ReceiveMessageOptions.class.cast(obj);
       return Objects.equal(this.visibilityTimeout, other.visibilityTimeout)
+            && Objects.equal(this.waitTimeSeconds, other.waitTimeSeconds)
             && Objects.equal(this.attributes.build(), other.attributes.build());
    }
 
@@ -155,6 +182,7 @@ public class ReceiveMessageOptions extends BaseHttpRequestOptions implements Clo
    public String toString() {
       ImmutableSet<String> attributes = this.attributes.build();
       return Objects.toStringHelper(this).omitNullValues().add("visibilityTimeout", visibilityTimeout)
+            .add("waitTimeSeconds", waitTimeSeconds)
             .add("attributes", !attributes.isEmpty() ? attributes : null).toString();
    }
 }
@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sqs;
+
+import static com.google.common.hash.Hashing.md5;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.easymock.EasyMock.anyInt;
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.makeThreadSafe;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+
+import org.easymock.Capture;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.jclouds.logging.NullLogger;
+import org.jclouds.sqs.BufferedMessageApi.BatchEntryException;
+import org.jclouds.sqs.domain.BatchError;
+import org.jclouds.sqs.domain.BatchResult;
+import org.jclouds.sqs.domain.Message;
+import org.jclouds.sqs.domain.MessageIdAndMD5;
+import org.jclouds.sqs.features.MessageApi;
+import org.jclouds.sqs.options.ReceiveMessageOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Tests behavior of {@code BufferedMessageApi}
+ */
+@Test(groups = "unit", testName = "BufferedMessageApiTest", singleThreaded = true)
+public class BufferedMessageApiTest {
+
+   /**
+    * Answers a batch send with an id per body; bodies starting with {@code fail} are rejected.
+    */
+   private static final IAnswer<BatchResult<MessageIdAndMD5>> SEND = new IAnswer<BatchResult<MessageIdAndMD5>>() {
+      @SuppressWarnings("unchecked")
+      @Override
+      public BatchResult<MessageIdAndMD5> answer() {
+         BatchResult.Builder<MessageIdAndMD5> result = BatchResult.builder();
+         for (Map.Entry<String, String> entry : ((Map<String, String>) getCurrentArguments()[0]).entrySet()) {
+            if (entry.getValue().startsWith("fail"))
+               result.addError(BatchError.builder().id(entry.getKey()).senderFault(true).code("InvalidMessage")
+                     .message("rejected").build());
+            else
+               result.put(entry.getKey(), MessageIdAndMD5.builder().id("id-" + entry.getValue())
+                     .md5(md5().hashString(entry.getValue(), Charsets.UTF_8)).build());
+         }
+         return result.build();
+      }
+   };
+
+   /**
+    * Answers a batch delete as successful for every entry.
+    */
+   private static final IAnswer<BatchResult<String>> DELETE = new IAnswer<BatchResult<String>>() {
+      @SuppressWarnings("unchecked")
+      @Override
+      public BatchResult<String> answer() {
+         return succeeded(((Map<String, String>) getCurrentArguments()[0]).keySet());
+      }
+   };
+
+   private static BatchResult<String> succeeded(Iterable<String> ids) {
+      BatchResult.Builder<String> result = BatchResult.builder();
+      for (String id : ids)
+         result.put(id, id);
+      return result.build();
+   }
+
+   private ScheduledExecutorService executor;
+   private MessageApi api;
+   /** Visibility changes, in the order they were sent. */
+   private BlockingQueue<Table<String, String, Integer>> visibilityChanges;
+   /** Messages the next receive requests return. */
+   private BlockingQueue<Message> queue;
+   private Semaphore receiveCalls;
+   private volatile CountDownLatch receiveGate;
+
+   @BeforeMethod
+   public void setUp() {
+      executor = Executors.newScheduledThreadPool(4);
+      api = createMock(MessageApi.class);
+      visibilityChanges = new LinkedBlockingQueue<Table<String, String, Integer>>();
+      queue = new LinkedBlockingQueue<Message>();
+      receiveCalls = new Semaphore(0);
+      receiveGate = new CountDownLatch(0);
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      executor.shutdownNow();
+   }
+
+   /**
+    * Makes receive requests wait for {@link #receiveGate} and return the queued messages, up to the requested maximum,
+    * and records the visibility changes. The receive loops block in the mock, so it is not made thread safe.
+    */
+   private void expectReceives() {
+      makeThreadSafe(api, false);
+      expect(api.receive(anyInt(), anyObject(ReceiveMessageOptions.class))).andAnswer(
+            new IAnswer<FluentIterable<Message>>() {
+               @Override
+               public FluentIterable<Message> answer() throws InterruptedException {
+                  receiveCalls.release();
+                  receiveGate.await();
+                  List<Message> received = Lists.newArrayList();
+                  Message message = queue.poll(50, MILLISECONDS);
+                  if (message != null) {
+                     received.add(message);
+                     queue.drainTo(received, (Integer) getCurrentArguments()[0] - 1);
+                  }
+                  return FluentIterable.from(received);
+               }
+            }).anyTimes();
+      expect(api.changeVisibility(anyObject(Table.class))).andAnswer(new IAnswer<BatchResult<String>>() {
+         @SuppressWarnings("unchecked")
+         @Override
+         public BatchResult<String> answer() {
+            Table<String, String, Integer> table = (Table<String, String, Integer>) getCurrentArguments()[0];
+            visibilityChanges.add(table);
+            return succeeded(table.rowKeySet());
+         }
+      }).anyTimes();
+   }
+
+   private static Message message(String id) {
+      return Message.builder().id(id).body("body-" + id).receiptHandle("handle-" + id)
+            .md5(md5().hashString("body-" + id, Charsets.UTF_8)).build();
+   }
+
+   public void testFullBatchIsSentWithoutLinger() throws Exception {
+      Capture<Map<String, String>> sends = new Capture<Map<String, String>>();
+      EasyMock.<BatchResult<? extends MessageIdAndMD5>> expect(api.send(capture(sends))).andAnswer(SEND);
+      replay(api);
+
+      BufferedMessageApi buffered = new BufferedMessageApi(api, executor, SECONDS.toMillis(60), 10, 30, 1);
+      List<ListenableFuture<MessageIdAndMD5>> futures = Lists.newArrayList();
+      for (int i = 0; i < 10; i++)
+         futures.add(buffered.send("message " + i));
+
+      for (int i = 0; i < 10; i++)
+         assertEquals(futures.get(i).get(5, SECONDS).getId(), "id-message " + i);
+      verify(api);
+      assertEquals(sends.getValue().size(), 10);
+   }
+
+   public void testPartialBatchIsSentAfterLinger() throws Exception {
+      expect(api.send(anyObject(Map.class))).andAnswer(SEND);
+      replay(api);
+
+      BufferedMessageApi buffered = new BufferedMessageApi(api, executor, 20, 10, 30, 1);
+      ListenableFuture<MessageIdAndMD5> first = buffered.send("first");
+      ListenableFuture<MessageIdAndMD5> second = buffered.send("second");
+
+      assertEquals(first.get(5, SECONDS).getId(), "id-first");
+      assertEquals(second.get(5, SECONDS).getId(), "id-second");
+      verify(api);
+   }
+
+   public void testBatchIsSplitByBytes() throws Exception {
+      expect(api.send(anyObject(Map.class))).andAnswer(SEND).times(2);
+      replay(api);
+
+      BufferedMessageApi buffered = new BufferedMessageApi(api, executor, 20, 10, 30, 1);
+      char[] half = new char[BufferedMessageApi.MAX_BATCH_BYTES / 2 + 1];
+      Arrays.fill(half, 'a');
+      ListenableFuture<MessageIdAndMD5> first = buffered.send(new String(half));
+      ListenableFuture<MessageIdAndMD5> second = buffered.send(new String(half));
+
+      first.get(5, SECONDS);
+      second.get(5, SECONDS);
+      verify(api);
+   }
+
+   public void testEntryErrorFailsOnlyThatEntry() throws Exception {
+      expect(api.send(anyObject(Map.class))).andAnswer(SEND);
+      replay(api);
+
+      BufferedMessageApi buffered = new BufferedMessageApi(api, executor, 20, 10, 30, 1);
+      ListenableFuture<MessageIdAndMD5> ok = buffered.send("ok");
+      ListenableFuture<MessageIdAndMD5> rejected = buffered.send("fail");
+
+      assertEquals(ok.get(5, SECONDS).getId(), "id-ok");
+      try {
+         rejected.get(5, SECONDS);
+         fail("expected the entry to fail");
+      } catch (ExecutionException e) {
+         assertEquals(((BatchEntryException) e.getCause()).getError().getCode(), "InvalidMessage");
+      }
+   }
+
+   public void testDeletesAreBatched() throws Exception {
+      Capture<Map<String, String>> deletes = new Capture<Map<String, String>>();
+      expect(api.delete(capture(deletes))).andAnswer(DELETE);
+      replay(api);
+
+      BufferedMessageApi buffered = new BufferedMessageApi(api, executor, 20, 10, 30, 1);
+      ListenableFuture<Void> first = buffered.delete("handle-1");
+      ListenableFuture<Void> second = buffered.delete("handle-2");
+
+      assertNull(first.get(5, SECONDS));
+      assertNull(second.get(5, SECONDS));
+      verify(api);
+      assertEquals(ImmutableList.copyOf(deletes.getValue().values()), ImmutableList.of("handle-1", "handle-2"));
+   }
+
+   public void testReceivePrefetchesAndExtendsVisibilityUntilDeleted() throws Exception {
+      expectReceives();
+      expect(api.delete(anyObject(Map.class))).andAnswer(DELETE);
+      replay(api);
+      queue.add(message("1"));
+      queue.add(message("2"));
+
+      BufferedMessageApi buffered = new BufferedMessageApi(api, executor, 20, 10, 2, 1);
+      Message received = buffered.receive(5, SECONDS);
+      assertEquals(received.getReceiptHandle(), "handle-1");
+      buffered.delete("handle-1").get(5, SECONDS);
+
+      // visibility of 2 seconds is extended after 1 second for the message still in flight
+      Table<String, String, Integer> change = visibilityChanges.poll(5, SECONDS);
+      assertNotNull(change, "visibility was not extended");
+      assertEquals(change.columnKeySet(), ImmutableSet.of("handle-2"));
+      assertEquals(change.values().iterator().next(), Integer.valueOf(2));
+      verify(api);
+   }
+
+   public void testMessagesAreReleasedAtMaxVisibility() throws Exception {
+      expectReceives();
+      replay(api);
+      queue.add(message("1"));
+      queue.add(message("2"));
+
+      BufferedMessageApi buffered = new BufferedMessageApi(api, executor, 20, 10, 2, 1000, 1);
+      assertEquals(buffered.receive(5, SECONDS).getReceiptHandle(), "handle-1");
+
+      // a visibility of 2 seconds can't be extended within 1 second, so both messages are made visible again
+      Set<String> released = Sets.newHashSet();
+      while (released.size() < 2) {
+         Table<String, String, Integer> change = visibilityChanges.poll(5, SECONDS);
+         assertNotNull(change, "messages were not released");
+         assertEquals(ImmutableSet.copyOf(change.values()), ImmutableSet.of(0));
+         released.addAll(change.columnKeySet());
+      }
+      assertEquals(released, ImmutableSet.of("handle-1", "handle-2"));
+      assertEquals(buffered.prefetchedCount(), 0);
+   }
+
+   public void testCloseReleasesPrefetchedMessages() throws Exception {
+      expectReceives();
+      replay(api);
+      queue.add(message("1"));
+      queue.add(message("2"));
+
+      BufferedMessageApi buffered = new BufferedMessageApi(api, executor, 20, 10, 30, 1);
+      assertEquals(buffered.receive(5, SECONDS).getReceiptHandle(), "handle-1");
+      // the loop only polls again once both messages of the first response are buffered
+      assertTrue(receiveCalls.tryAcquire(2, 5, SECONDS), "receive loop did not poll again");
+      buffered.close();
+
+      Table<String, String, Integer> change = visibilityChanges.poll();
+      assertNotNull(change, "close did not wait for the visibility change");
+      assertEquals(change.columnKeySet(), ImmutableSet.of("handle-2"));
+      assertEquals(change.values().iterator().next(), Integer.valueOf(0));
+   }
+
+   public void testMessagesReceivedAfterCloseAreReleased() throws Exception {
+      expectReceives();
+      replay(api);
+      receiveGate = new CountDownLatch(1);
+      queue.add(message("1"));
+
+      BufferedMessageApi buffered = new BufferedMessageApi(api, executor, SECONDS.toMillis(60), 10, 30, 1);
+      assertNull(buffered.receive(0, SECONDS));
+      assertTrue(receiveCalls.tryAcquire(1, 5, SECONDS), "receive loop did not start");
+      buffered.close();
+      receiveGate.countDown();
+
+      Table<String, String, Integer> change = visibilityChanges.poll(5, SECONDS);
+      assertNotNull(change, "late message was not released");
+      assertEquals(change.columnKeySet(), ImmutableSet.of("handle-1"));
+      assertEquals(change.values().iterator().next(), Integer.valueOf(0));
+   }
+
+   public void testCloseWaitsForPendingBatches() throws Exception {
+      expect(api.send(anyObject(Map.class))).andAnswer(SEND);
+      expect(api.delete(anyObject(Map.class))).andAnswer(DELETE);
+      replay(api);
+
+      BufferedMessageApi buffered = new BufferedMessageApi(api, executor, SECONDS.toMillis(60), 10, 30, 1);
+      ListenableFuture<MessageIdAndMD5> sent = buffered.send("lingering");
+      ListenableFuture<Void> deleted = buffered.delete("handle-1");
+
+      buffered.close();
+
+      assertTrue(sent.isDone(), "send was not completed by close");
+      assertTrue(deleted.isDone(), "delete was not completed by close");
+      assertEquals(sent.get().getId(), "id-lingering");
+      verify(api);
+   }
+
+   public void testReceiversPollConcurrently() throws Exception {
+      expectReceives();
+      replay(api);
+      receiveGate = new CountDownLatch(1);
+
+      BufferedMessageApi buffered = BufferedMessageApi.builder(api, executor).receivers(3).build();
+      try {
+         assertNull(buffered.receive(0, SECONDS));
+         assertTrue(receiveCalls.tryAcquire(3, 5, SECONDS), "receivers did not poll concurrently");
+      } finally {
+         buffered.close();
+         receiveGate.countDown();
+      }
+   }
+
+   public void testReceiveErrorsAreLogged() throws Exception {
+      expect(api.receive(anyInt(), anyObject(ReceiveMessageOptions.class))).andThrow(
+            new IllegalStateException("unavailable")).anyTimes();
+      replay(api);
+
+      final CountDownLatch logged = new CountDownLatch(1);
+      BufferedMessageApi buffered = new BufferedMessageApi(api, executor, 20, 10, 30, 1);
+      buffered.logger = new NullLogger() {
+         @Override
+         public void warn(Throwable throwable, String message, Object... args) {
+            if (throwable instanceof IllegalStateException)
+               logged.countDown();
+         }
+      };
+      try {
+         assertNull(buffered.receive(0, SECONDS));
+         assertTrue(logged.await(5, SECONDS), "receive error was not logged");
+      } finally {
+         buffered.close();
+      }
+   }
+}
@@ -18,6 +18,7 @@ package org.jclouds.sqs.options;
 
 import static org.jclouds.sqs.options.ReceiveMessageOptions.Builder.attribute;
 import static org.jclouds.sqs.options.ReceiveMessageOptions.Builder.visibilityTimeout;
+import static org.jclouds.sqs.options.ReceiveMessageOptions.Builder.waitTimeSeconds;
 import static org.testng.Assert.assertEquals;
 
 import org.testng.annotations.Test;
@@ -40,6 +41,16 @@ public class ReceiveMessageOptionsTest {
       assertEquals(ImmutableSet.of("2"), options.buildFormParameters().get("VisibilityTimeout"));
    }
 
+   public void testWaitTimeSeconds() {
+      ReceiveMessageOptions options = new ReceiveMessageOptions().waitTimeSeconds(20);
+      assertEquals(ImmutableSet.of("20"), options.buildFormParameters().get("WaitTimeSeconds"));
+   }
+
+   public void testWaitTimeSecondsStatic() {
+      ReceiveMessageOptions options = waitTimeSeconds(20);
+      assertEquals(ImmutableSet.of("20"), options.buildFormParameters().get("WaitTimeSeconds"));
+   }
+
    public void testAttribute() {
       ReceiveMessageOptions options = new ReceiveMessageOptions().attribute("All");
       assertEquals(ImmutableSet.of("All"), options.buildFormParameters().get("AttributeName.1"));
@@ -25,18 +25,17 @@ import static com.google.common.net.HttpHeaders.AUTHORIZATION;
 import static com.google.common.net.HttpHeaders.HOST;
 import static org.jclouds.aws.reference.FormParameters.ACTION;
 import static org.jclouds.aws.reference.FormParameters.VERSION;
-import static org.jclouds.http.utils.Queries.queryParser;
 
 import java.net.URI;
-import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
 import java.util.List;
 import java.util.Map;
 
 import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import javax.inject.Inject;
 
 import org.jclouds.aws.domain.SessionCredentials;
+import org.jclouds.crypto.Crypto;
 import org.jclouds.date.TimeStamp;
 import org.jclouds.domain.Credentials;
 import org.jclouds.http.HttpException;
@@ -45,11 +44,14 @@ import org.jclouds.location.Provider;
 import org.jclouds.providers.ProviderMetadata;
 import org.jclouds.rest.annotations.ApiVersion;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Multimap;
 import com.google.inject.ImplementedBy;
 
 public final class FormSignerV4 implements FormSigner {
@@ -88,32 +90,45 @@ public final class FormSignerV4 implements FormSigner {
       }
    }
 
+   /** Up to a few credentials, regions and services per context; entries for past days are evicted by size. */
+   private static final int MAX_SIGNING_KEYS = 32;
+
+   /** Keeps the buffer for canonicalization from one request to the next on the same thread. */
+   private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+      @Override protected StringBuilder initialValue() {
+         return new StringBuilder(512);
+      }
+   };
+
    private final String apiVersion;
    private final Supplier<Credentials> creds;
    private final javax.inject.Provider<String> iso8601Timestamp;
    private final ServiceAndRegion serviceAndRegion;
+   private final Crypto crypto;
+   private final Cache<List<String>, byte[]> signingKeys = CacheBuilder.newBuilder().maximumSize(MAX_SIGNING_KEYS)
+         .build();
 
    @Inject FormSignerV4(@ApiVersion String apiVersion, @Provider Supplier<Credentials> creds,
-         @TimeStamp javax.inject.Provider<String> iso8601Timestamp, ServiceAndRegion serviceAndRegion) {
+         @TimeStamp javax.inject.Provider<String> iso8601Timestamp, ServiceAndRegion serviceAndRegion, Crypto crypto) {
       this.apiVersion = apiVersion;
       this.creds = creds;
       this.iso8601Timestamp = iso8601Timestamp;
       this.serviceAndRegion = serviceAndRegion;
+      this.crypto = crypto;
    }
 
    @Override public HttpRequest filter(HttpRequest request) throws HttpException {
       checkArgument(request.getHeaders().containsKey(HOST), "request is not ready to sign; host not present");
       String host = request.getFirstHeaderOrNull(HOST);
       String form = request.getPayload().getRawContent().toString();
-      Multimap<String, String> decodedParams = queryParser().apply(form);
-      checkArgument(decodedParams.containsKey(ACTION), "request is not ready to sign; Action not present %s", form);
+      checkArgument(hasFormParam(form, ACTION), "request is not ready to sign; Action not present %s", form);
 
       String timestamp = iso8601Timestamp.get();
       String datestamp = timestamp.substring(0, 8);
 
       String service = serviceAndRegion.service();
       String region = serviceAndRegion.region(host);
-      String credentialScope = Joiner.on('/').join(datestamp, region, service, "aws4_request");
+      String credentialScope = datestamp + '/' + region + '/' + service + "/aws4_request";
 
       // content-type is not a required signing param. However, examples use this, so we include it to ease testing.
       ImmutableMap.Builder<String, String> signedHeadersBuilder = ImmutableMap.<String, String> builder() //
@@ -125,7 +140,7 @@ public final class FormSignerV4 implements FormSigner {
             .removeHeader(AUTHORIZATION) //
             .replaceHeader("X-Amz-Date", timestamp);
 
-      if (!decodedParams.containsKey(VERSION)) {
+      if (!hasFormParam(form, VERSION)) {
          requestBuilder.addFormParam(VERSION, apiVersion);
       }
 
@@ -138,20 +153,64 @@ public final class FormSignerV4 implements FormSigner {
       }
 
       ImmutableMap<String, String> signedHeaders = signedHeadersBuilder.build();
+      String signedHeaderNames = Joiner.on(';').join(signedHeaders.keySet());
 
-      String stringToSign = createStringToSign(requestBuilder.build(), signedHeaders, credentialScope);
-      byte[] signatureKey = signatureKey(credentials.credential, datestamp, region, service);
-      String signature = base16().lowerCase().encode(hmacSHA256(stringToSign, signatureKey));
+      String stringToSign = createStringToSign(requestBuilder.build(), signedHeaders, signedHeaderNames,
+            credentialScope);
+      Mac mac = signingMac(credentials.credential, datestamp, region, service);
+      String signature = base16().lowerCase().encode(mac.doFinal(stringToSign.getBytes(UTF_8)));
 
       StringBuilder authorization = new StringBuilder("AWS4-HMAC-SHA256 ");
       authorization.append("Credential=").append(credentials.identity).append('/').append(credentialScope).append(", ");
-      authorization.append("SignedHeaders=").append(Joiner.on(';').join(signedHeaders.keySet())).append(", ");
+      authorization.append("SignedHeaders=").append(signedHeaderNames).append(", ");
       authorization.append("Signature=").append(signature);
 
       return requestBuilder.addHeader(AUTHORIZATION, authorization.toString()).build();
    }
 
-   static byte[] signatureKey(String secretKey, String datestamp, String region, String service) {
+   /**
+    * Returns a {@code HmacSHA256} initialized with the signing key for the scope. Deriving the key takes four chained
+    * HMACs, so the key is cached per credential and scope. As the scope includes the date, a new key is derived after
+    * UTC midnight.
+    */
+   Mac signingMac(String secretKey, String datestamp, String region, String service) {
+      List<String> scope = ImmutableList.of(secretKey, datestamp, region, service);
+      byte[] signingKey = signingKeys.getIfPresent(scope);
+      if (signingKey == null) {
+         signingKey = signatureKey(secretKey, datestamp, region, service);
+         signingKeys.put(scope, signingKey);
+      }
+      try {
+         return crypto.hmacSHA256(signingKey);
+      } catch (InvalidKeyException e) {
+         throw new HttpException(e);
+      }
+   }
+
+   @VisibleForTesting
+   long signingKeyCount() {
+      return signingKeys.size();
+   }
+
+   /**
+    * Checks for a form parameter without decoding the whole form; names of the parameters checked are never
+    * encoded.
+    */
+   private static boolean hasFormParam(String form, String name) {
+      int start = 0;
+      while (true) {
+         if (form.startsWith(name, start)) {
+            int end = start + name.length();
+            if (end == form.length() || form.charAt(end) == '=' || form.charAt(end) == '&')
+               return true;
+         }
+         start = form.indexOf('&', start) + 1;
+         if (start == 0)
+            return false;
+      }
+   }
+
+   byte[] signatureKey(String secretKey, String datestamp, String region, String service) {
       byte[] kSecret = ("AWS4" + secretKey).getBytes(UTF_8);
       byte[] kDate = hmacSHA256(datestamp, kSecret);
       byte[] kRegion = hmacSHA256(region, kDate);
@@ -160,49 +219,51 @@ public final class FormSignerV4 implements FormSigner {
       return kSigning;
    }
 
-   static byte[] hmacSHA256(String data, byte[] key) {
+   byte[] hmacSHA256(String data, byte[] key) {
       try {
-         String algorithm = "HmacSHA256";
-         Mac mac = Mac.getInstance(algorithm);
-         mac.init(new SecretKeySpec(key, algorithm));
-         return mac.doFinal(data.getBytes(UTF_8));
-      } catch (GeneralSecurityException e) {
+         return crypto.hmacSHA256(key).doFinal(data.getBytes(UTF_8));
+      } catch (InvalidKeyException e) {
          throw new HttpException(e);
       }
    }
 
-   static String createStringToSign(HttpRequest request, Map<String, String> signedHeaders, String credentialScope) {
-      StringBuilder canonicalRequest = new StringBuilder();
+   static String createStringToSign(HttpRequest request, Map<String, String> signedHeaders, String signedHeaderNames,
+         String credentialScope) {
+      checkArgument(request.getEndpoint().getQuery() == null, "Query parameters not yet supported %s", request);
+      // the canonical request and then the string to sign are built in the same buffer
+      StringBuilder buffer = BUFFER.get();
+      buffer.setLength(0);
       // HTTPRequestMethod + '\n' +
-      canonicalRequest.append(request.getMethod()).append("\n");
+      buffer.append(request.getMethod()).append('\n');
       // CanonicalURI + '\n' +
-      canonicalRequest.append(request.getEndpoint().getPath()).append("\n");
+      buffer.append(request.getEndpoint().getPath()).append('\n');
       // CanonicalQueryString + '\n' +
-      checkArgument(request.getEndpoint().getQuery() == null, "Query parameters not yet supported %s", request);
-      canonicalRequest.append("\n");
+      buffer.append('\n');
       // CanonicalHeaders + '\n' +
       for (Map.Entry<String, String> entry : signedHeaders.entrySet()) {
-         canonicalRequest.append(entry.getKey()).append(':').append(entry.getValue()).append('\n');
+         buffer.append(entry.getKey()).append(':').append(entry.getValue()).append('\n');
       }
-      canonicalRequest.append("\n");
+      buffer.append('\n');
 
       // SignedHeaders + '\n' +
-      canonicalRequest.append(Joiner.on(';').join(signedHeaders.keySet())).append('\n');
+      buffer.append(signedHeaderNames).append('\n');
 
       // HexEncode(Hash(Payload))
       String payload = request.getPayload().getRawContent().toString();
-      canonicalRequest.append(base16().lowerCase().encode(sha256().hashString(payload, UTF_8).asBytes()));
+      buffer.append(base16().lowerCase().encode(sha256().hashString(payload, UTF_8).asBytes()));
+
+      String canonicalRequestHash = base16().lowerCase().encode(sha256().hashString(buffer, UTF_8).asBytes());
 
-      StringBuilder toSign = new StringBuilder();
+      buffer.setLength(0);
       // Algorithm + '\n' +
-      toSign.append("AWS4-HMAC-SHA256").append('\n');
+      buffer.append("AWS4-HMAC-SHA256").append('\n');
       // RequestDate + '\n' +
-      toSign.append(signedHeaders.get("x-amz-date")).append('\n');
+      buffer.append(signedHeaders.get("x-amz-date")).append('\n');
       // CredentialScope + '\n' +
-      toSign.append(credentialScope).append('\n');
+      buffer.append(credentialScope).append('\n');
       // HexEncode(Hash(CanonicalRequest))
-      toSign.append(base16().lowerCase().encode(sha256().hashString(canonicalRequest.toString(), UTF_8).asBytes()));
+      buffer.append(canonicalRequestHash);
 
-      return toSign.toString();
+      return buffer.toString();
    }
 }
@@ -23,10 +23,13 @@ import java.util.Set;
 import org.jclouds.aws.domain.AWSError;
 import org.jclouds.aws.util.AWSUtils;
 import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpRetryHandler;
 import org.jclouds.http.annotation.ClientError;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
+import org.jclouds.http.ratelimit.HttpRateLimiter;
+import org.jclouds.http.ratelimit.internal.NullHttpRateLimiter;
 
 import com.google.inject.Inject;
 
@@ -39,6 +42,9 @@ public class AWSClientErrorRetryHandler implements HttpRetryHandler {
    private final BackoffLimitedRetryHandler backoffLimitedRetryHandler;
    private final Set<String> retryableCodes;
 
+   @Inject
+   protected HttpRateLimiter rateLimiter = NullHttpRateLimiter.INSTANCE;
+
    @Inject
    public AWSClientErrorRetryHandler(AWSUtils utils, BackoffLimitedRetryHandler backoffLimitedRetryHandler,
          @ClientError Set<String> retryableCodes) {
@@ -53,8 +59,11 @@ public class AWSClientErrorRetryHandler implements HttpRetryHandler {
          // Content can be null in the case of HEAD requests
          if (response.getPayload() != null) {
             closeClientButKeepContentStream(response);
-            AWSError error = utils.parseAWSErrorFromContent(command.getCurrentRequest(), response);
+            HttpRequest request = command.getCurrentRequest();
+            AWSError error = utils.parseAWSErrorFromContent(request, response);
             if (error != null) {
+               if (AWSUtils.isThrottling(error))
+                  rateLimiter.throttled(request);
                return shouldRetryRequestOnError(command, response, error);
             }
          }
@@ -23,9 +23,12 @@ import java.util.Set;
 import org.jclouds.aws.domain.AWSError;
 import org.jclouds.aws.util.AWSUtils;
 import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.annotation.ServerError;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
+import org.jclouds.http.ratelimit.HttpRateLimiter;
+import org.jclouds.http.ratelimit.internal.NullHttpRateLimiter;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -39,6 +42,9 @@ public class AWSServerErrorRetryHandler extends BackoffLimitedRetryHandler {
    private final AWSUtils utils;
    private final Set<String> retryableServerCodes;
 
+   @Inject
+   protected HttpRateLimiter rateLimiter = NullHttpRateLimiter.INSTANCE;
+
    @Inject
    public AWSServerErrorRetryHandler(AWSUtils utils,
          @ServerError Set<String> retryableServerCodes) {
@@ -53,8 +59,11 @@ public class AWSServerErrorRetryHandler extends BackoffLimitedRetryHandler {
          // Content can be null in the case of HEAD requests
          if (response.getPayload() != null) {
             closeClientButKeepContentStream(response);
-            AWSError error = utils.parseAWSErrorFromContent(command.getCurrentRequest(), response);
+            HttpRequest request = command.getCurrentRequest();
+            AWSError error = utils.parseAWSErrorFromContent(request, response);
             if (error != null) {
+               if (AWSUtils.isThrottling(error))
+                  rateLimiter.throttled(request);
                return shouldRetryRequestOnError(command, response, error);
             }
          }
@@ -71,8 +80,9 @@ public class AWSServerErrorRetryHandler extends BackoffLimitedRetryHandler {
       return false;
    }
 
-   public void imposeBackoffExponentialDelay(long period, int pow, int failureCount, int max, String commandDescription) {
-      imposeBackoffExponentialDelay(period, period * 100l, pow, failureCount, max, commandDescription);
+   public void imposeBackoffExponentialDelay(HttpCommand command, long period, int pow, int failureCount, int max,
+         String commandDescription) {
+      imposeBackoffExponentialDelay(command, period, period * 100l, pow, failureCount, max, commandDescription);
    }
 
    
@@ -22,6 +22,7 @@ import static org.jclouds.aws.reference.AWSConstants.PROPERTY_HEADER_TAG;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -45,6 +46,7 @@ import org.jclouds.rest.internal.GeneratedHttpRequest;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableMultimap.Builder;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 
@@ -115,6 +117,16 @@ public class AWSUtils {
       return forms.size() == 0 ? request : (R) request.toBuilder().replaceFormParams(forms).build();
    }
 
+   private static final Set<String> THROTTLING_CODES = ImmutableSet.of("Throttling", "ThrottlingException",
+         "RequestLimitExceeded", "RequestThrottled", "SlowDown");
+
+   /**
+    * Returns true if {@code error} asks the client to slow down, as opposed to rejecting the request itself.
+    */
+   public static boolean isThrottling(AWSError error) {
+      return THROTTLING_CODES.contains(error.getCode());
+   }
+
    // TODO: make this more dynamic
    public static boolean isRegion(String regionName) {
       return Region.DEFAULT_REGIONS.contains(regionName);
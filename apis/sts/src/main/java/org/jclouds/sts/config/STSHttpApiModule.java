@@ -16,14 +16,25 @@
  */
 package org.jclouds.sts.config;
 
+import java.util.Set;
+
 import org.jclouds.aws.config.FormSigningHttpApiModule;
 import org.jclouds.rest.ConfiguresHttpApi;
 import org.jclouds.sts.STSApi;
 
+import com.google.common.collect.ImmutableSet;
+
 /**
  * Configures the STS connection.
  */
 @ConfiguresHttpApi
 public class STSHttpApiModule extends FormSigningHttpApiModule<STSApi> {
 
+   /**
+    * STS rejects requests over its rate with a 400 {@code Throttling} error.
+    */
+   @Override
+   protected Set<String> provideRetryableCodes() {
+      return ImmutableSet.<String> builder().addAll(super.provideRetryableCodes()).add("Throttling").build();
+   }
 }
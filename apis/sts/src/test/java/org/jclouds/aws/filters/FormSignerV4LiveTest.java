@@ -71,7 +71,8 @@ public class FormSignerV4LiveTest extends BaseApiLiveTest<ApiContext<STSApi>> {
    public void signatureV4() {
       Supplier<Credentials> accessAndSecretKey = Suppliers.ofInstance(new Credentials(identity, credential));
 
-      FormSignerV4 filter = new FormSignerV4(apiVersion, accessAndSecretKey, timestamp, serviceAndRegion);
+      FormSignerV4 filter = new FormSignerV4(apiVersion, accessAndSecretKey, timestamp, serviceAndRegion,
+            api.utils().crypto());
 
       HttpRequest request = filter.filter(sampleRequest);
 
@@ -82,7 +83,8 @@ public class FormSignerV4LiveTest extends BaseApiLiveTest<ApiContext<STSApi>> {
       SessionCredentials creds = api.getApi().createTemporaryCredentials(durationSeconds(MINUTES.toSeconds(15)));
       Supplier<Credentials> sessionToken = Suppliers.<Credentials>ofInstance(creds);
 
-      FormSignerV4 filter = new FormSignerV4(apiVersion, sessionToken, timestamp, serviceAndRegion);
+      FormSignerV4 filter = new FormSignerV4(apiVersion, sessionToken, timestamp, serviceAndRegion,
+            api.utils().crypto());
 
       HttpRequest request = filter.filter(sampleRequest);
 
@@ -17,15 +17,21 @@
 package org.jclouds.aws.filters;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static com.google.common.base.Charsets.UTF_8;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
+import javax.crypto.Mac;
 import javax.inject.Provider;
 
 import org.jclouds.aws.domain.SessionCredentials;
 import org.jclouds.aws.filters.FormSignerV4.ServiceAndRegion;
 import org.jclouds.aws.xml.SessionCredentialsHandlerTest;
+import org.jclouds.crypto.Crypto;
 import org.jclouds.domain.Credentials;
+import org.jclouds.encryption.internal.JCECrypto;
 import org.jclouds.http.HttpRequest;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Supplier;
@@ -59,6 +65,13 @@ public class FormSignerV4Test {
       }
    };
 
+   Crypto crypto;
+
+   @BeforeClass
+   public void setUpCrypto() throws Exception {
+      crypto = new JCECrypto();
+   }
+
    public void signSampleRequest() {
       HttpRequest request = HttpRequest.builder() //
             .method("POST") //
@@ -69,7 +82,7 @@ public class FormSignerV4Test {
 
       request.getPayload().getContentMetadata().setContentType("application/x-www-form-urlencoded; charset=utf-8");
 
-      FormSignerV4 filter = new FormSignerV4(apiVersion, accessAndSecretKey, timestamp, serviceAndRegion);
+      FormSignerV4 filter = new FormSignerV4(apiVersion, accessAndSecretKey, timestamp, serviceAndRegion, crypto);
 
       HttpRequest filtered = filter.filter(request);
 
@@ -90,7 +103,7 @@ public class FormSignerV4Test {
 
       request.getPayload().getContentMetadata().setContentType("application/x-www-form-urlencoded; charset=utf-8");
 
-      FormSignerV4 filter = new FormSignerV4(apiVersion, accessAndSecretKey, timestamp, serviceAndRegion);
+      FormSignerV4 filter = new FormSignerV4(apiVersion, accessAndSecretKey, timestamp, serviceAndRegion, crypto);
 
       HttpRequest filtered = filter.filter(request);
 
@@ -111,11 +124,62 @@ public class FormSignerV4Test {
       SessionCredentials sessionCredentials = new SessionCredentialsHandlerTest().expected();
 
       FormSignerV4 filter = new FormSignerV4(apiVersion, Suppliers.<Credentials>ofInstance(sessionCredentials),
-            timestamp, serviceAndRegion);
+            timestamp, serviceAndRegion, crypto);
 
       HttpRequest filtered = filter.filter(request);
 
       assertEquals(filtered.getFirstHeaderOrNull("X-Amz-Date"), timestamp.get());
       assertEquals(filtered.getFirstHeaderOrNull("X-Amz-Security-Token"), sessionCredentials.getSessionToken());
    }
+
+   public void signingKeyIsReusedWithinTheDay() {
+      final String[] now = { "20110909T233600Z" };
+      Provider<String> clock = new Provider<String>() {
+         @Override public String get() {
+            return now[0];
+         }
+      };
+      FormSignerV4 filter = new FormSignerV4(apiVersion, accessAndSecretKey, clock, serviceAndRegion, crypto);
+
+      filter.filter(sampleRequest());
+      now[0] = "20110909T235900Z";
+      filter.filter(sampleRequest());
+      assertEquals(filter.signingKeyCount(), 1);
+
+      now[0] = "20110910T000100Z";
+      HttpRequest filtered = filter.filter(sampleRequest());
+      assertEquals(filter.signingKeyCount(), 2);
+      assertTrue(filtered.getFirstHeaderOrNull("Authorization").contains("/20110910/us-east-1/iam/aws4_request"));
+   }
+
+   public void cachedSigningKeyMatchesDerivedKey() throws Exception {
+      FormSignerV4 filter = new FormSignerV4(apiVersion, accessAndSecretKey, timestamp, serviceAndRegion, crypto);
+      byte[] data = "AWS4-HMAC-SHA256".getBytes(UTF_8);
+      byte[] expected = filter.hmacSHA256("AWS4-HMAC-SHA256",
+            filter.signatureKey(accessAndSecretKey.get().credential, "20110909", "us-east-1", "iam"));
+
+      for (int i = 0; i < 2; i++) {
+         Mac mac = filter.signingMac(accessAndSecretKey.get().credential, "20110909", "us-east-1", "iam");
+         assertEquals(mac.doFinal(data), expected);
+      }
+   }
+
+   public void versionIsNotAddedTwice() {
+      FormSignerV4 filter = new FormSignerV4(apiVersion, accessAndSecretKey, timestamp, serviceAndRegion, crypto);
+
+      HttpRequest filtered = filter.filter(sampleRequest());
+
+      assertEquals(filtered.getPayload().getRawContent().toString(), "Action=ListUsers&Version=2010-05-08");
+   }
+
+   private static HttpRequest sampleRequest() {
+      HttpRequest request = HttpRequest.builder() //
+            .method("POST") //
+            .endpoint("https://iam.amazonaws.com/") //
+            .addHeader("Host", "iam.amazonaws.com") //
+            .payload("Action=ListUsers&Version=2010-05-08")
+            .build();
+      request.getPayload().getContentMetadata().setContentType("application/x-www-form-urlencoded; charset=utf-8");
+      return request;
+   }
 }
@@ -34,6 +34,7 @@ import org.jclouds.aws.util.AWSUtils;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
+import org.jclouds.http.ratelimit.HttpRateLimiter;
 import org.jclouds.io.Payloads;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -64,7 +65,7 @@ public class AWSServerErrorRetryHandlerTest {
 
    @DataProvider(name = "codes")
    public Object[][] createData() {
-      return new Object[][] { { "RequestLimitExceeded" } };
+      return new Object[][] { { "RequestLimitExceeded" }, { "SlowDown" } };
    }
 
    @Test(dataProvider = "codes")
@@ -103,7 +104,7 @@ public class AWSServerErrorRetryHandlerTest {
       replay(utils, command);
 
       AWSServerErrorRetryHandler retry = new AWSServerErrorRetryHandler(utils,
-            ImmutableSet.<String> of("RequestLimitExceeded"));
+            ImmutableSet.<String> of("RequestLimitExceeded", "SlowDown"));
 
       assert retry.shouldRetryRequest(command, limitExceeded);
 
@@ -111,6 +112,38 @@ public class AWSServerErrorRetryHandlerTest {
 
    }
 
+   @Test(dataProvider = "codes")
+   public void test503SignalsThrottlingToRateLimiter(String code) {
+
+      AWSUtils utils = createMock(AWSUtils.class);
+      HttpCommand command = createMock(HttpCommand.class);
+      HttpRateLimiter rateLimiter = createMock(HttpRateLimiter.class);
+
+      HttpRequest putBucket = HttpRequest.builder().method(PUT)
+            .endpoint("https://adriancole-blobstore113.s3.amazonaws.com/").build();
+
+      HttpResponse limitExceeded = HttpResponse.builder().statusCode(SERVICE_UNAVAILABLE.getStatusCode())
+            .payload(Payloads.newStringPayload(String.format("<Error><Code>%s</Code></Error>", code))).build();
+
+      expect(command.getCurrentRequest()).andReturn(putBucket);
+
+      AWSError error = new AWSError();
+      error.setCode(code);
+
+      expect(utils.parseAWSErrorFromContent(putBucket, limitExceeded)).andReturn(error);
+      rateLimiter.throttled(putBucket);
+
+      replay(utils, command, rateLimiter);
+
+      AWSServerErrorRetryHandler retry = new AWSServerErrorRetryHandler(utils, ImmutableSet.<String> of());
+      retry.rateLimiter = rateLimiter;
+
+      assertFalse(retry.shouldRetryRequest(command, limitExceeded));
+
+      verify(utils, command, rateLimiter);
+
+   }
+
    @Test
    public void test504DoesRetry() {
       AWSUtils utils = createMock(AWSUtils.class);
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares two JMH result files written with {@code -rf json}, typically one run on the baseline and one on a change.
+ * For each benchmark present in both, prints the scores, their relative change and whether the difference is larger
+ * than the error margins JMH reported. When the runs used {@code -prof gc}, normalized allocation is compared as well.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar org.jclouds.benchmarks.CompareResults before.json after.json
+ * </pre>
+ */
+public final class CompareResults {
+
+   private static final String ALLOCATION = "\u00b7gc.alloc.rate.norm";
+
+   public static void main(String[] args) throws IOException {
+      if (args.length != 2) {
+         System.err.println("usage: CompareResults <baseline.json> <candidate.json>");
+         System.exit(1);
+      }
+      Map<String, JsonObject> baseline = read(new File(args[0]));
+      Map<String, JsonObject> candidate = read(new File(args[1]));
+
+      System.out.printf("%-90s %24s %24s %8s%n", "Benchmark", "Baseline", "Candidate", "Change");
+      for (Entry<String, JsonObject> entry : baseline.entrySet()) {
+         JsonObject after = candidate.get(entry.getKey());
+         if (after == null)
+            continue;
+         JsonObject before = entry.getValue();
+         String mode = before.get("mode").getAsString();
+         print(entry.getKey(), before.getAsJsonObject("primaryMetric"), after.getAsJsonObject("primaryMetric"),
+               !"thrpt".equals(mode));
+         JsonObject beforeAllocation = secondary(before, ALLOCATION);
+         JsonObject afterAllocation = secondary(after, ALLOCATION);
+         if (beforeAllocation != null && afterAllocation != null)
+            print("  " + ALLOCATION, beforeAllocation, afterAllocation, true);
+      }
+   }
+
+   private static void print(String name, JsonObject before, JsonObject after, boolean lowerIsBetter) {
+      double beforeScore = before.get("score").getAsDouble();
+      double afterScore = after.get("score").getAsDouble();
+      double beforeError = error(before);
+      double afterError = error(after);
+      String unit = before.get("scoreUnit").getAsString();
+
+      String verdict;
+      if (Math.abs(afterScore - beforeScore) <= beforeError + afterError)
+         verdict = "within error";
+      else if (afterScore < beforeScore == lowerIsBetter)
+         verdict = "better";
+      else
+         verdict = "worse";
+
+      double change = beforeScore == 0 ? 0 : (afterScore - beforeScore) * 100 / beforeScore;
+      System.out.printf("%-90s %24s %24s %+7.1f%%  %s%n", name, format(beforeScore, beforeError, unit),
+            format(afterScore, afterError, unit), change, verdict);
+   }
+
+   private static String format(double score, double error, String unit) {
+      return String.format("%.3f \u00b1 %.3f %s", score, error, unit);
+   }
+
+   private static double error(JsonObject metric) {
+      JsonElement error = metric.get("scoreError");
+      // JMH writes "NaN" when there were too few iterations to estimate the error
+      if (error == null || !error.isJsonPrimitive() || !error.getAsJsonPrimitive().isNumber())
+         return 0;
+      return error.getAsDouble();
+   }
+
+   private static JsonObject secondary(JsonObject result, String name) {
+      JsonObject secondaries = result.getAsJsonObject("secondaryMetrics");
+      return secondaries != null && secondaries.has(name) ? secondaries.getAsJsonObject(name) : null;
+   }
+
+   /**
+    * Indexes results by benchmark name, mode and parameters, so parameterized runs line up.
+    */
+   private static Map<String, JsonObject> read(File file) throws IOException {
+      Map<String, JsonObject> results = Maps.newLinkedHashMap();
+      Reader reader = Files.newReader(file, UTF_8);
+      try {
+         for (JsonElement element : new JsonParser().parse(reader).getAsJsonArray()) {
+            JsonObject result = element.getAsJsonObject();
+            StringBuilder key = new StringBuilder(result.get("benchmark").getAsString());
+            key.append(" (").append(result.get("mode").getAsString()).append(')');
+            JsonObject params = result.getAsJsonObject("params");
+            if (params != null) {
+               key.append(params.entrySet().toString());
+            }
+            results.put(key.toString(), result);
+         }
+      } finally {
+         reader.close();
+      }
+      return results;
+   }
+
+   private CompareResults() {
+   }
+}
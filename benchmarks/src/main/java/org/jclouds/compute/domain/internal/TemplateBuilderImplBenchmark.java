@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.domain.internal;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Provider;
+
+import org.jclouds.compute.config.BaseComputeServiceContextModule;
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.domain.TemplateBuilder;
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.strategy.GetImageStrategy;
+import org.jclouds.compute.suppliers.ImageCacheSupplier;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.jclouds.ec2.compute.config.EC2ComputeServiceDependenciesModule;
+import org.jclouds.ec2.compute.functions.EC2ImageParser;
+import org.jclouds.ec2.compute.strategy.EC2PopulateDefaultLoginCredentialsForImageStrategy;
+import org.jclouds.ec2.compute.strategy.ReviseParsedImage;
+import org.jclouds.ec2.compute.suppliers.EC2HardwareSupplier;
+import org.jclouds.ec2.xml.DescribeImagesResponseHandler;
+import org.jclouds.http.functions.ParseSax;
+import org.jclouds.http.functions.config.SaxParserModule;
+import org.jclouds.json.Json;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.location.Region;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Measures {@link TemplateBuilderImpl#build()} against an image catalog grown from the recorded EC2
+ * {@code DescribeImages} responses, the way a large public region looks to a template search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class TemplateBuilderImplBenchmark {
+
+   private static final String[] RESOURCES = { "/amzn_images.xml", "/describe_images.xml",
+         "/describe_images_ebs.xml", "/describe_images_windows.xml" };
+
+   @Param({ "100", "1000", "10000" })
+   public int imageCount;
+
+   private final Location region = new LocationBuilder().scope(LocationScope.REGION).id("us-east-1")
+         .description("us-east-1").build();
+
+   private Supplier<Set<? extends Location>> locations;
+   private ImageCacheSupplier images;
+   private Supplier<Set<? extends Hardware>> hardwares;
+   private String lastImageId;
+
+   @Setup
+   public void setup() {
+      locations = Suppliers.<Set<? extends Location>> ofInstance(ImmutableSet.of(region));
+      hardwares = Suppliers.<Set<? extends Hardware>> ofInstance(new EC2HardwareSupplier().get());
+
+      List<Image> recorded = recordedImages();
+      List<Image> catalog = Lists.newArrayListWithCapacity(imageCount);
+      for (int i = 0; i < imageCount; i++) {
+         Image image = recorded.get(i % recorded.size());
+         String providerId = String.format("ami-%08x", i);
+         catalog.add(ImageBuilder.fromImage(image).providerId(providerId).id(region.getId() + "/" + providerId)
+               .build());
+      }
+      lastImageId = Iterables.getLast(catalog).getId();
+      images = new ImageCacheSupplier(Suppliers.<Set<? extends Image>> ofInstance(ImmutableSet.copyOf(catalog)), 60);
+   }
+
+   @Benchmark
+   public Template osFamilyAndMinRam() {
+      return newTemplateBuilder().osFamily(OsFamily.AMZN_LINUX).os64Bit(true).minRam(1024).build();
+   }
+
+   @Benchmark
+   public Template imageId() {
+      return newTemplateBuilder().imageId(lastImageId).build();
+   }
+
+   private TemplateBuilder newTemplateBuilder() {
+      return new TemplateBuilderImpl(locations, images, hardwares, Suppliers.ofInstance(region),
+            new Provider<TemplateOptions>() {
+               @Override
+               public TemplateOptions get() {
+                  return new TemplateOptions();
+               }
+            }, new Provider<TemplateBuilder>() {
+               @Override
+               public TemplateBuilder get() {
+                  return newTemplateBuilder().osFamily(OsFamily.AMZN_LINUX);
+               }
+            }, new GetImageStrategy() {
+               @Override
+               public Image getImage(String id) {
+                  return null;
+               }
+            });
+   }
+
+   private List<Image> recordedImages() {
+      Injector injector = Guice.createInjector(new SaxParserModule(), new GsonModule(), new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(new TypeLiteral<Supplier<String>>() {
+            }).annotatedWith(Region.class).toInstance(Suppliers.ofInstance(region.getId()));
+         }
+      });
+      Map<OsFamily, Map<String, String>> osVersions = new BaseComputeServiceContextModule() {
+      }.provideOsVersionMap(new ComputeServiceConstants.ReferenceData(), injector.getInstance(Json.class));
+      EC2ImageParser parser = new EC2ImageParser(EC2ComputeServiceDependenciesModule.toPortableImageStatus,
+            new EC2PopulateDefaultLoginCredentialsForImageStrategy(), osVersions, locations,
+            Suppliers.ofInstance(region), new ReviseParsedImage.NoopReviseParsedImage());
+
+      ParseSax.Factory factory = injector.getInstance(ParseSax.Factory.class);
+      List<Image> images = Lists.newArrayList();
+      for (String resource : RESOURCES) {
+         Set<org.jclouds.ec2.domain.Image> parsed = factory.create(
+               injector.getInstance(DescribeImagesResponseHandler.class)).parse(
+               getClass().getResourceAsStream(resource));
+         for (org.jclouds.ec2.domain.Image image : parsed) {
+            Image converted = parser.apply(image);
+            if (converted != null)
+               images.add(converted);
+         }
+      }
+      return images;
+   }
+}
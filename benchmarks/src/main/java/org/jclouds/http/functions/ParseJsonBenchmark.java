@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.Payloads;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.json.internal.GsonWrapper;
+import org.jclouds.openstack.nova.v2_0.config.NovaParserModule;
+import org.jclouds.openstack.nova.v2_0.domain.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.Resources;
+import com.google.inject.Guice;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Measures parsing a recorded Nova server listing, both as a whole document with {@link ParseJson} and as the
+ * {@code @SelectJson("servers")} path taken by {@link ParseFirstJsonValueNamed}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ParseJsonBenchmark {
+
+   private ParseJson<Map<String, Set<Server>>> parseJson;
+   private ParseFirstJsonValueNamed<Set<Server>> selectJson;
+
+   private byte[] servers;
+
+   @Setup
+   public void setup() throws IOException {
+      GsonWrapper json = Guice.createInjector(new NovaParserModule(), new GsonModule())
+            .getInstance(GsonWrapper.class);
+      parseJson = new ParseJson<Map<String, Set<Server>>>(json, new TypeLiteral<Map<String, Set<Server>>>() {
+      });
+      selectJson = new ParseFirstJsonValueNamed<Set<Server>>(json, new TypeLiteral<Set<Server>>() {
+      }, "servers");
+
+      servers = Resources.toByteArray(Resources.getResource(getClass(), "/server_list_details_states.json"));
+   }
+
+   @Benchmark
+   public Map<String, Set<Server>> parseJson() {
+      return parseJson.apply(response());
+   }
+
+   @Benchmark
+   public Set<Server> selectJson() {
+      return selectJson.apply(response());
+   }
+
+   private HttpResponse response() {
+      return HttpResponse.builder().statusCode(200).message("ok").payload(Payloads.newByteArrayPayload(servers))
+            .build();
+   }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.ec2.domain.Image;
+import org.jclouds.ec2.xml.DescribeImagesResponseHandler;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.functions.config.SaxParserModule;
+import org.jclouds.location.Region;
+import org.jclouds.s3.domain.ListBucketResponse;
+import org.jclouds.s3.xml.ListBucketHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.io.Resources;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Measures {@link ParseSax} over recorded EC2 and S3 responses. Each invocation creates its handler and parser the
+ * same way {@code TransformerForRequest} does for a live request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ParseSaxBenchmark {
+
+   private Injector injector;
+   private ParseSax.Factory factory;
+   private HttpRequest listBucketRequest;
+
+   private byte[] describeImages;
+   private byte[] listBucket;
+
+   @Setup
+   public void setup() throws IOException {
+      injector = Guice.createInjector(new SaxParserModule(), new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(new TypeLiteral<Supplier<String>>() {
+            }).annotatedWith(Region.class).toInstance(Suppliers.ofInstance("us-east-1"));
+         }
+      });
+      factory = injector.getInstance(ParseSax.Factory.class);
+      listBucketRequest = HttpRequest.builder().method("GET").endpoint("http://bucket.com").build();
+
+      describeImages = Resources.toByteArray(Resources.getResource(getClass(), "/amzn_images.xml"));
+      listBucket = Resources.toByteArray(Resources.getResource(getClass(), "/list_bucket.xml"));
+   }
+
+   @Benchmark
+   public Set<Image> describeImages() {
+      return factory.create(injector.getInstance(DescribeImagesResponseHandler.class))
+            .parse(new ByteArrayInputStream(describeImages));
+   }
+
+   @Benchmark
+   public ListBucketResponse listBucket() {
+      return factory.create(injector.getInstance(ListBucketHandler.class)).setContext(listBucketRequest)
+            .parse(new ByteArrayInputStream(listBucket));
+   }
+}
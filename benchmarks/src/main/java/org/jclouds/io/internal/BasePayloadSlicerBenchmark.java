@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.io.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteSource;
+
+/**
+ * Measures slicing a payload into multipart upload parts and reading every part, for a repeatable
+ * {@link ByteSource} payload and for a one-shot {@link InputStream} payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class BasePayloadSlicerBenchmark {
+
+   @Param({ "16777216" })
+   public long payloadSize;
+
+   @Param({ "65536", "5242880" })
+   public long partSize;
+
+   private final BasePayloadSlicer slicer = new BasePayloadSlicer();
+   private final byte[] buffer = new byte[8192];
+   private byte[] content;
+
+   @Setup
+   public void setup() {
+      content = new byte[(int) payloadSize];
+      new Random(0).nextBytes(content);
+   }
+
+   @Benchmark
+   public long sliceByteSource() throws IOException {
+      Payload payload = Payloads.newByteSourcePayload(ByteSource.wrap(content));
+      payload.getContentMetadata().setContentLength(payloadSize);
+      return readParts(payload);
+   }
+
+   @Benchmark
+   public long sliceInputStream() throws IOException {
+      Payload payload = Payloads.newInputStreamPayload(new ByteArrayInputStream(content));
+      payload.getContentMetadata().setContentLength(payloadSize);
+      return readParts(payload);
+   }
+
+   private long readParts(Payload payload) throws IOException {
+      long read = 0;
+      for (Payload part : slicer.slice(payload, partSize)) {
+         InputStream in = part.openStream();
+         try {
+            for (int n = in.read(buffer); n != -1; n = in.read(buffer))
+               read += n;
+         } finally {
+            in.close();
+         }
+      }
+      return read;
+   }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.jclouds.reflect.Reflection2.method;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.http.options.GetOptions;
+import org.jclouds.logging.config.NullLoggingModule;
+import org.jclouds.s3.S3Client;
+import org.jclouds.s3.options.ListBucketOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.Invokable;
+import com.google.inject.Module;
+
+/**
+ * Measures turning an annotated {@link S3Client} call into a {@link GeneratedHttpRequest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class RestAnnotationProcessorBenchmark {
+
+   private RestAnnotationProcessor processor;
+
+   private Invokable<?, ?> getObject;
+   private List<Object> getObjectArgs;
+
+   private Invokable<?, ?> listBucket;
+   private List<Object> listBucketArgs;
+
+   @Setup
+   public void setup() {
+      processor = ContextBuilder.newBuilder("s3")
+            .credentials("identity", "credential")
+            .modules(ImmutableSet.<Module> of(new NullLoggingModule()))
+            .buildInjector().getInstance(RestAnnotationProcessor.class);
+
+      getObject = method(S3Client.class, "getObject", String.class, String.class, GetOptions[].class);
+      getObjectArgs = ImmutableList.<Object> of("bucket", "apps/0", GetOptions.Builder.range(0, 1023));
+
+      listBucket = method(S3Client.class, "listBucket", String.class, ListBucketOptions[].class);
+      listBucketArgs = ImmutableList.<Object> of("bucket",
+            ListBucketOptions.Builder.withPrefix("apps/").delimiter("/").maxResults(1000));
+   }
+
+   @Benchmark
+   public GeneratedHttpRequest getObject() {
+      return processor.createRequest(getObject, getObjectArgs);
+   }
+
+   @Benchmark
+   public GeneratedHttpRequest listBucket() {
+      return processor.createRequest(listBucket, listBucketArgs);
+   }
+}
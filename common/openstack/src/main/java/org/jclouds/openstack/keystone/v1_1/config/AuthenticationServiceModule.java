@@ -18,7 +18,10 @@ package org.jclouds.openstack.keystone.v1_1.config;
 
 import static org.jclouds.rest.config.BinderUtils.bindHttpApi;
 import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.concurrent.config.ScheduledExecutorServiceModule.getScheduledExecutorIfInstalled;
 
+import java.util.Date;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -26,6 +29,7 @@ import java.util.concurrent.TimeoutException;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.jclouds.concurrent.RefreshAheadCache;
 import org.jclouds.domain.Credentials;
 import org.jclouds.http.HttpRetryHandler;
 import org.jclouds.http.annotation.ClientError;
@@ -39,11 +43,13 @@ import org.jclouds.openstack.keystone.v1_1.handlers.RetryOnRenew;
 import org.jclouds.openstack.keystone.v1_1.suppliers.RegionIdToURIFromAuthForServiceSupplier;
 import org.jclouds.openstack.keystone.v1_1.suppliers.V1DefaultRegionIdSupplier;
 
+import com.google.common.base.Function;
 import com.google.common.base.Supplier;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.AbstractModule;
+import com.google.inject.Injector;
 import com.google.inject.name.Named;
 import com.google.inject.Provides;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
@@ -97,13 +103,39 @@ public class AuthenticationServiceModule extends AbstractModule {
       }
    }
 
+   /**
+    * Keeps the auth of each credential until its token expires, or for the session interval if that is shorter, and
+    * authenticates again before that. Authentication ahead of expiry runs on the scheduler, if one is installed, or on
+    * the user executor.
+    * <p/>
+    * Besides {@link LoadingCache#stats()}, the bound instance counts refreshes ahead of expiry and their failures.
+    */
+   @Provides
+   @Singleton
+   protected RefreshAheadCache<Credentials, Auth> provideRefreshAheadAuthCache(GetAuth getAuth,
+         @Named(PROPERTY_SESSION_INTERVAL) long sessionInterval,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, Injector injector) {
+      return RefreshAheadCache.builder(getAuth).expiresAt(TOKEN_EXPIRES).maxLifetime(sessionInterval, TimeUnit.SECONDS)
+            .scheduler(getScheduledExecutorIfInstalled(injector).orNull()).executor(userExecutor).build();
+   }
+
    @Provides
    @Singleton
-   protected LoadingCache<Credentials, Auth> provideAuthCache(GetAuth getAuth,
-         @Named(PROPERTY_SESSION_INTERVAL) long sessionInterval) {
-      return CacheBuilder.newBuilder().expireAfterWrite(sessionInterval, TimeUnit.SECONDS).build(getAuth);
+   protected LoadingCache<Credentials, Auth> provideAuthCache(RefreshAheadCache<Credentials, Auth> cache) {
+      return cache;
    }
 
+   private static final Function<Auth, Date> TOKEN_EXPIRES = new Function<Auth, Date>() {
+      public Date apply(Auth in) {
+         return in.getToken().getExpires();
+      }
+
+      @Override
+      public String toString() {
+         return "tokenExpires()";
+      }
+   };
+
    @Provides
    @Singleton
    protected Supplier<Auth> provideAuthSupplier(final LoadingCache<Credentials, Auth> cache,
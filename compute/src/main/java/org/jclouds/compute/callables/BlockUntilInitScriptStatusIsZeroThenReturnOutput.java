@@ -20,7 +20,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.jclouds.util.Predicates2.retry;
 
+import java.util.List;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -28,6 +30,7 @@ import java.util.concurrent.TimeoutException;
 import javax.annotation.Resource;
 
 import org.jclouds.Constants;
+import org.jclouds.compute.callables.SudoAwareInitManager.OutputTail;
 import org.jclouds.compute.domain.ExecResponse;
 import org.jclouds.compute.events.StatementOnNodeCompletion;
 import org.jclouds.compute.events.StatementOnNodeFailure;
@@ -35,6 +38,7 @@ import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.logging.Logger;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
@@ -62,6 +66,13 @@ public class BlockUntilInitScriptStatusIsZeroThenReturnOutput extends AbstractFu
    private final ListeningExecutorService userExecutor;
    private final EventBus eventBus;
    private final SudoAwareInitManager commandRunner;
+   private final List<ScriptOutputListener> outputListeners = new CopyOnWriteArrayList<ScriptOutputListener>();
+
+   /**
+    * bytes of stdout and stderr already passed to {@link #outputListeners}; only touched by {@link #poll()}
+    */
+   private int stdoutOffset;
+   private int stderrOffset;
 
    public SudoAwareInitManager getCommandRunner() {
       return commandRunner;
@@ -127,6 +138,74 @@ public class BlockUntilInitScriptStatusIsZeroThenReturnOutput extends AbstractFu
       return this;
    }
 
+   /**
+    * Streams the output of the script to {@code listener} while it is being {@link #poll() polled}.
+    */
+   public BlockUntilInitScriptStatusIsZeroThenReturnOutput addOutputListener(ScriptOutputListener listener) {
+      outputListeners.add(checkNotNull(listener, "listener"));
+      return this;
+   }
+
+   /**
+    * Checks the status of the script once, over a single connection, instead of looping like {@link #run()}. While
+    * the script runs, any new output is passed to the output listeners; once it stops, the result is set on this
+    * future.
+    * 
+    * @return true if there is no need to poll again
+    */
+   boolean poll() {
+      if (isDone())
+         return true;
+      try {
+         ExecResponse exec = commandRunner.refreshAndRun(new Function<SudoAwareInitManager, ExecResponse>() {
+            @Override
+            public ExecResponse apply(SudoAwareInitManager runner) {
+               if (runner.runAction("status").getExitStatus() <= 0) {
+                  if (!outputListeners.isEmpty())
+                     publishOutput(runner.runOutputAction("stdout", stdoutOffset),
+                           runner.runOutputAction("stderr", stderrOffset), -1);
+                  return null;
+               }
+               String stdout = runner.runAction("stdout").getOutput();
+               String stderr = runner.runAction("stderr").getOutput();
+               Integer exitStatus = Ints.tryParse(runner.runAction("exitstatus").getOutput().trim());
+               if (exitStatus != null && exitStatus != -1 && !outputListeners.isEmpty())
+                  publishOutput(runner.runOutputAction("stdout", stdoutOffset),
+                        runner.runOutputAction("stderr", stderrOffset), exitStatus);
+               return new ExecResponse(stdout, stderr, exitStatus == null ? -1 : exitStatus);
+            }
+         });
+         if (exec == null || exec.getExitStatus() == -1)
+            return isDone();
+         logger.debug("<< complete(%s) status(%s)", commandRunner.getStatement().getInstanceName(), exec
+                  .getExitStatus());
+         set(exec);
+      } catch (Exception e) {
+         setException(e);
+      }
+      return true;
+   }
+
+   private void publishOutput(OutputTail stdout, OutputTail stderr, int exitStatus) {
+      stdoutOffset += stdout.getBytes();
+      stderrOffset += stderr.getBytes();
+      if (stdout.getOutput().isEmpty() && stderr.getOutput().isEmpty() && exitStatus == -1)
+         return;
+      ExecResponse output = new ExecResponse(stdout.getOutput(), stderr.getOutput(), exitStatus);
+      for (ScriptOutputListener listener : outputListeners) {
+         try {
+            listener.onOutput(commandRunner.getNode(), output);
+         } catch (RuntimeException e) {
+            logger.warn(e, "<< error passing output of %s to %s", commandRunner.getStatement().getInstanceName(),
+                  listener);
+         }
+      }
+   }
+
+   void fail(Throwable t) {
+      setException(t);
+   }
+
    @Override
    public void run() {
       try {
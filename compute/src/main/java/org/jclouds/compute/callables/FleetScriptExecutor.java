@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.callables;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.compute.config.ComputeServiceProperties.RUN_SCRIPT_MAX_CONCURRENCY;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.domain.ExecResponse;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.events.StatementOnNodeFailure;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.reference.ComputeServiceConstants.Timeouts;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
+
+/**
+ * Runs a script on many nodes without holding a thread per node for the duration of the script.
+ * <p>
+ * At most {@code jclouds.compute.run-script.max-concurrency} scripts are being uploaded and started at any time. Once
+ * an init script is started, waiting for it to complete is left to the {@link InitScriptStatusPoller}, so the launch
+ * slot is free for the next node. Completion is published on the {@link EventBus} as for a single node, and
+ * failures, including timeouts, as {@link StatementOnNodeFailure}.
+ */
+@Singleton
+public class FleetScriptExecutor {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(RUN_SCRIPT_MAX_CONCURRENCY)
+   @VisibleForTesting
+   int maxConcurrency = 50;
+
+   private final ListeningExecutorService userExecutor;
+   private final InitScriptStatusPoller poller;
+   private final EventBus eventBus;
+   private final Timeouts timeouts;
+
+   @Inject
+   FleetScriptExecutor(@Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         InitScriptStatusPoller poller, EventBus eventBus, Timeouts timeouts) {
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.poller = checkNotNull(poller, "poller");
+      this.eventBus = checkNotNull(eventBus, "eventBus");
+      this.timeouts = checkNotNull(timeouts, "timeouts");
+   }
+
+   /**
+    * @see #submit(Iterable, Iterable)
+    */
+   public Map<NodeMetadata, ListenableFuture<ExecResponse>> submit(Iterable<? extends RunScriptOnNode> runners) {
+      return submit(runners, ImmutableList.<ScriptOutputListener> of());
+   }
+
+   /**
+    * Starts each of the initialized {@code runners}, returning straight away with a future per node. Init scripts
+    * stream their output to the {@code listeners} while they run.
+    */
+   public Map<NodeMetadata, ListenableFuture<ExecResponse>> submit(Iterable<? extends RunScriptOnNode> runners,
+         Iterable<? extends ScriptOutputListener> listeners) {
+      checkNotNull(runners, "runners");
+      checkNotNull(listeners, "listeners");
+      Map<NodeMetadata, ListenableFuture<ExecResponse>> responses = newLinkedHashMap();
+      Queue<Launch> launches = new ConcurrentLinkedQueue<Launch>();
+      for (RunScriptOnNode runner : runners) {
+         Launch launch = new Launch(runner, listeners);
+         responses.put(runner.getNode(), launch.result);
+         launches.add(launch);
+      }
+      int launchers = Math.min(Math.max(1, maxConcurrency), launches.size());
+      for (int i = 0; i < launchers; i++) {
+         try {
+            userExecutor.execute(new Launcher(launches));
+         } catch (RejectedExecutionException e) {
+            if (i == 0)
+               failAll(launches, e);
+            break;
+         }
+      }
+      return ImmutableMap.copyOf(responses);
+   }
+
+   private static void failAll(Queue<Launch> launches, Throwable t) {
+      for (Launch launch = launches.poll(); launch != null; launch = launches.poll())
+         launch.result.setException(t);
+   }
+
+   /**
+    * Launches queued scripts one after the other until there are none left.
+    */
+   private static class Launcher implements Runnable {
+      private final Queue<Launch> launches;
+
+      private Launcher(Queue<Launch> launches) {
+         this.launches = launches;
+      }
+
+      @Override
+      public void run() {
+         for (Launch launch = launches.poll(); launch != null; launch = launches.poll())
+            launch.run();
+      }
+   }
+
+   private class Launch implements Runnable {
+      private final RunScriptOnNode runner;
+      private final Iterable<? extends ScriptOutputListener> listeners;
+      private final SettableFuture<ExecResponse> result = SettableFuture.create();
+
+      private Launch(RunScriptOnNode runner, Iterable<? extends ScriptOutputListener> listeners) {
+         this.runner = runner;
+         this.listeners = listeners;
+      }
+
+      @Override
+      public void run() {
+         if (result.isDone())
+            return;
+         try {
+            if (runner instanceof RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete)
+               monitor(RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete.class.cast(runner).submit(poller,
+                     listeners));
+            else
+               result.set(runner.call());
+         } catch (Exception e) {
+            logger.debug("<< problem starting script on node(%s): %s", runner.getNode().getId(), e.getMessage());
+            result.setException(e);
+         }
+      }
+
+      private void monitor(final BlockUntilInitScriptStatusIsZeroThenReturnOutput status) {
+         final Future<?> timeout = poller.schedule(new Runnable() {
+            @Override
+            public void run() {
+               if (status.isDone())
+                  return;
+               // the script is left running and polled, so the caller can keep waiting on the exception's future
+               ScriptStillRunningException e = new ScriptStillRunningException(timeouts.scriptComplete, MILLISECONDS,
+                     status);
+               if (result.setException(e))
+                  eventBus.post(new StatementOnNodeFailure(status.getCommandRunner().getStatement(), runner
+                        .getNode(), e));
+            }
+         }, timeouts.scriptComplete, MILLISECONDS);
+         Futures.addCallback(status, new FutureCallback<ExecResponse>() {
+            @Override
+            public void onSuccess(ExecResponse exec) {
+               timeout.cancel(false);
+               result.set(exec);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+               timeout.cancel(false);
+               if (result.setException(t))
+                  eventBus.post(new StatementOnNodeFailure(status.getCommandRunner().getStatement(), runner
+                        .getNode(), t));
+            }
+         }, sameThreadExecutor());
+         result.addListener(new Runnable() {
+            @Override
+            public void run() {
+               if (result.isCancelled())
+                  status.cancel(false);
+            }
+         }, sameThreadExecutor());
+      }
+   }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.callables;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.reference.ComputeServiceConstants.InitStatusProperties;
+import org.jclouds.logging.Logger;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Drives {@link BlockUntilInitScriptStatusIsZeroThenReturnOutput} futures from a single scheduler thread, so that
+ * waiting for init scripts to complete doesn't hold a thread per node.
+ * <p>
+ * Each monitored script is checked with an increasing period, from the {@code initStatusInitialPeriod} up to the
+ * {@code initStatusMaxPeriod}. Due checks run on the user executor, with at most
+ * {@code initStatusMaxConcurrentChecks} of them in flight at once; the rest wait their turn in a queue.
+ */
+@Singleton
+public class InitScriptStatusPoller {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final ListeningExecutorService userExecutor;
+   private final long initialPeriod;
+   private final long maxPeriod;
+   private final int maxConcurrentChecks;
+
+   private final Queue<StatusCheck> due = new ConcurrentLinkedQueue<StatusCheck>();
+   private final AtomicInteger inFlight = new AtomicInteger();
+
+   private ScheduledExecutorService scheduler;
+   private volatile boolean closed;
+
+   @Inject
+   InitScriptStatusPoller(@Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         InitStatusProperties properties) {
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.initialPeriod = properties.initStatusInitialPeriod;
+      this.maxPeriod = Math.max(properties.initStatusInitialPeriod, properties.initStatusMaxPeriod);
+      checkArgument(properties.initStatusMaxConcurrentChecks > 0, "initStatusMaxConcurrentChecks must be positive");
+      this.maxConcurrentChecks = properties.initStatusMaxConcurrentChecks;
+   }
+
+   /**
+    * Checks the status of the script behind {@code future} until it completes, fails or is cancelled.
+    */
+   public BlockUntilInitScriptStatusIsZeroThenReturnOutput monitor(
+         BlockUntilInitScriptStatusIsZeroThenReturnOutput future) {
+      schedule(new StatusCheck(checkNotNull(future, "future")), initialPeriod);
+      return future;
+   }
+
+   /**
+    * Runs {@code task} on the user executor after the given delay, without holding a thread while waiting.
+    */
+   public ScheduledFuture<?> schedule(final Runnable task, long delay, TimeUnit unit) {
+      checkNotNull(task, "task");
+      return scheduler().schedule(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               userExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+               logger.warn(e, "<< could not run scheduled task %s", task);
+            }
+         }
+      }, delay, unit);
+   }
+
+   /**
+    * Stops the scheduler thread. Scripts still being monitored are left running on their nodes.
+    */
+   @PreDestroy
+   public synchronized void close() {
+      closed = true;
+      if (scheduler != null)
+         scheduler.shutdownNow();
+      due.clear();
+   }
+
+   private void schedule(final StatusCheck check, long delayMillis) {
+      scheduler().schedule(new Runnable() {
+         @Override
+         public void run() {
+            due.add(check);
+            dispatch();
+         }
+      }, delayMillis, MILLISECONDS);
+   }
+
+   private synchronized ScheduledExecutorService scheduler() {
+      checkState(!closed, "poller is closed");
+      if (scheduler == null) {
+         scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+               .setNameFormat("init script status poller").setDaemon(true).build());
+      }
+      return scheduler;
+   }
+
+   /**
+    * Hands due checks to the user executor while there is room for them.
+    */
+   private void dispatch() {
+      while (!closed && !due.isEmpty()) {
+         int current = inFlight.get();
+         if (current >= maxConcurrentChecks)
+            return;
+         if (!inFlight.compareAndSet(current, current + 1))
+            continue;
+         final StatusCheck check = due.poll();
+         if (check == null) {
+            inFlight.decrementAndGet();
+            continue;
+         }
+         try {
+            userExecutor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  try {
+                     check.run();
+                  } finally {
+                     inFlight.decrementAndGet();
+                     dispatch();
+                  }
+               }
+            });
+         } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            check.future.fail(e);
+         }
+      }
+   }
+
+   private class StatusCheck implements Runnable {
+      private final BlockUntilInitScriptStatusIsZeroThenReturnOutput future;
+      private long period = initialPeriod;
+
+      private StatusCheck(BlockUntilInitScriptStatusIsZeroThenReturnOutput future) {
+         this.future = future;
+      }
+
+      @Override
+      public void run() {
+         if (future.poll() || closed)
+            return;
+         period = Math.min(maxPeriod, period + period / 2 + 1);
+         try {
+            schedule(this, period);
+         } catch (IllegalStateException e) {
+            logger.debug("<< stopped monitoring %s as the poller is closed", future);
+         }
+      }
+
+      @Override
+      public String toString() {
+         return future.toString();
+      }
+   }
+}
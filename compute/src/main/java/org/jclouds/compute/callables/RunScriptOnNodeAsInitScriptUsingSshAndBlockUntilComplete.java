@@ -17,6 +17,7 @@
 package org.jclouds.compute.callables;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 import java.util.concurrent.TimeUnit;
 
@@ -61,6 +62,33 @@ public class RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete extends Ru
    }
 
    public BlockUntilInitScriptStatusIsZeroThenReturnOutput future() {
+      return start().init();
+   }
+
+   /**
+    * Starts the script over a short-lived connection and leaves the status checks to the {@code poller}, so that no
+    * thread is held while the script runs on the node. {@code listeners} receive the output as it is polled.
+    */
+   public BlockUntilInitScriptStatusIsZeroThenReturnOutput submit(InitScriptStatusPoller poller,
+         Iterable<? extends ScriptOutputListener> listeners) {
+      checkState(ssh != null, "please call init() before invoking call");
+      BlockUntilInitScriptStatusIsZeroThenReturnOutput status;
+      try {
+         ssh.connect();
+         status = start();
+      } finally {
+         if (ssh != null)
+            ssh.disconnect();
+      }
+      for (ScriptOutputListener listener : listeners)
+         status.addOutputListener(listener);
+      return poller.monitor(status);
+   }
+
+   /**
+    * Uploads and starts the init script, returning a status future that isn't polled yet.
+    */
+   protected BlockUntilInitScriptStatusIsZeroThenReturnOutput start() {
       ExecResponse returnVal = super.doCall();
       if (returnVal.getExitStatus() != 0) {
          IllegalStateException e = new IllegalStateException(String.format(
@@ -69,7 +97,7 @@ public class RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete extends Ru
          eventBus.post(new StatementOnNodeFailure(init, node, e));
          throw e;
       }
-      return statusFactory.create(this).init();
+      return statusFactory.create(this);
    }
 
    @Override
@@ -16,8 +16,10 @@
  */
 package org.jclouds.compute.callables;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Iterables.getLast;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -33,7 +35,9 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicates;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
 
 public class SudoAwareInitManager {
    @Resource
@@ -79,6 +83,64 @@ public class SudoAwareInitManager {
       }
    }
 
+   /**
+    * Runs {@code actions} over a fresh connection, which is closed afterwards.
+    */
+   public <T> T refreshAndRun(Function<? super SudoAwareInitManager, T> actions) {
+      checkState(ssh != null, "please call init() before invoking call");
+      try {
+         ssh.connect();
+         return actions.apply(this);
+      } finally {
+         if (ssh != null)
+            ssh.disconnect();
+      }
+   }
+
+   /**
+    * Returns the output of the {@code stdout} or {@code stderr} action, skipping the first {@code offset} bytes.
+    */
+   public OutputTail runOutputAction(String action, int offset) {
+      checkArgument(ImmutableSet.of("stdout", "stderr").contains(action), "%s is not an output action", action);
+      // count the bytes on the node, as the decoded output doesn't always re-encode to the same length
+      ExecResponse returnVal = runCommand(String.format("(%s | tail -c +%d | tee /dev/fd/3 | wc -c) 3>&1 1>&2",
+            execScriptAsDefaultUser(action), offset + 1));
+      Integer bytes = Ints.tryParse(getLast(Splitter.on('\n').trimResults().omitEmptyStrings()
+            .split(returnVal.getError()), ""));
+      checkState(bytes != null, "could not read the size of %s from %s", action, returnVal);
+      logger.trace("<< %s(%d) from byte %d", action, bytes, offset);
+      return new OutputTail(returnVal.getOutput(), bytes);
+   }
+
+   /**
+    * Output of a {@code stdout} or {@code stderr} action, along with the number of bytes it was read from.
+    */
+   public static class OutputTail {
+      private final String output;
+      private final int bytes;
+
+      public OutputTail(String output, int bytes) {
+         this.output = checkNotNull(output, "output");
+         this.bytes = bytes;
+      }
+
+      public String getOutput() {
+         return output;
+      }
+
+      /**
+       * @return the number of bytes read on the node, to add to the offset of the next read
+       */
+      public int getBytes() {
+         return bytes;
+      }
+
+      @Override
+      public String toString() {
+         return Objects.toStringHelper(this).add("output", output).add("bytes", bytes).toString();
+      }
+   }
+
    public ExecResponse runAction(String action) {
       ExecResponse returnVal;
       String command = (runAsRoot && Predicates.in(ImmutableSet.of("start", "stop", "run")).apply(action)) ? execScriptAsRoot(action)
@@ -97,7 +159,8 @@ public class SudoAwareInitManager {
       String statement = String.format("[%s] as %s@%s", command.replace(
             node.getCredentials().getOptionalPassword().isPresent() ? node.getCredentials().getOptionalPassword().get() : "XXXXX", "XXXXX"), ssh
             .getUsername(), ssh.getHostAddress());
-      if (command.endsWith("status") || command.endsWith("stdout") || command.endsWith("stderr"))
+      if (command.endsWith("status") || command.endsWith("stdout") || command.endsWith("stderr")
+            || command.contains(" | tail -c +"))
          logger.trace(">> running %s", statement);
       else 
          computeLogger.debug(">> running " + statement);
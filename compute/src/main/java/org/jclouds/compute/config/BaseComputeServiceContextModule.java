@@ -213,22 +213,16 @@ public abstract class BaseComputeServiceContextModule extends AbstractModule {
 
    @Provides
    @Singleton
-   protected Supplier<Map<String, ? extends Image>> provideImageMap(@Memoized Supplier<Set<? extends Image>> images) {
-      return Suppliers.compose(new Function<Set<? extends Image>, Map<String, ? extends Image>>() {
+   protected Supplier<Map<String, ? extends Image>> provideImageMap(final ImageCacheSupplier images) {
+      // the image cache already keeps an id index of its current snapshot, so reuse it instead of re-indexing
+      return new Supplier<Map<String, ? extends Image>>() {
 
          @Override
-         public Map<String, ? extends Image> apply(Set<? extends Image> from) {
-            return Maps.uniqueIndex(from, new Function<Image, String>() {
-
-               @Override
-               public String apply(Image from) {
-                  return from.getId();
-               }
-
-            });
+         public Map<String, ? extends Image> get() {
+            return images.getImageMap();
          }
 
-      }, images);
+      };
    }
 
    @Provides
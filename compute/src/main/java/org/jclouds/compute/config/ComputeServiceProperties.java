@@ -30,6 +30,23 @@ public final class ComputeServiceProperties {
    public static final String INIT_STATUS_INITIAL_PERIOD = "jclouds.compute.init-status.initial-period";
    public static final String INIT_STATUS_MAX_PERIOD = "jclouds.compute.init-status.max-period";
 
+   /**
+    * Maximum number of init script status checks that run at the same time, across all the nodes being polled.
+    */
+   public static final String INIT_STATUS_MAX_CONCURRENT_CHECKS = "jclouds.compute.init-status.max-concurrent-checks";
+
+   /**
+    * Maximum number of nodes on which {@code runScriptOnNodesMatching} uploads and starts the script at the same time.
+    * Once started, init scripts are polled by a shared scheduler and no longer count towards this limit.
+    */
+   public static final String RUN_SCRIPT_MAX_CONCURRENCY = "jclouds.compute.run-script.max-concurrency";
+
+   /**
+    * How long the names of the nodes in a group are remembered after listing them, so that back-to-back
+    * {@code createNodesInGroup} calls don't list the group again. The unit is milliseconds; 0 disables the cache.
+    */
+   public static final String NODE_NAMES_CACHE_PERIOD = "jclouds.compute.node-names.cache-period";
+
    /**
     * Initial period between the ComputeService's node polls. Subsequent periods increase exponentially
     * (based on the backoff factor) and become constant when the maximum period is reached.
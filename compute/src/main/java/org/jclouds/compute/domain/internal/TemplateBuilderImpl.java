@@ -730,7 +730,7 @@ public class TemplateBuilderImpl implements TemplateBuilder {
    private Image findImageWithId(Set<? extends Image> images) {
       // Try to find the image in the cache and fallback to the GetImageStrategy
       // see https://issues.apache.org/jira/browse/JCLOUDS-570
-      Optional<? extends Image> image = tryFind(images, idPredicate);
+      Optional<? extends Image> image = findImageWithIdInCache(images);
       if (image.isPresent()) {
          return image.get();
       }
@@ -750,6 +750,14 @@ public class TemplateBuilderImpl implements TemplateBuilder {
       return imageFromProvider;
    }
 
+   /**
+    * Looks up the image with the configured id in the images returned by {@link #getImages()}. The default
+    * implementation uses the id index of the image cache instead of scanning the whole image list.
+    */
+   protected Optional<? extends Image> findImageWithIdInCache(Set<? extends Image> images) {
+      return Optional.fromNullable(this.images.getImage(imageId));
+   }
+
    private Hardware findHardwareWithId(Set<? extends Hardware> hardwaresToSearch) {
       Hardware hardware;
       // TODO: switch to GetHardwareStrategy in version 1.5
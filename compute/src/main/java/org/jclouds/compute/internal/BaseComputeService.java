@@ -19,10 +19,15 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.and;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.base.Predicates.notNull;
+import static com.google.common.base.Throwables.getRootCause;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Maps.newLinkedHashMap;
 import static com.google.common.collect.Sets.newLinkedHashSet;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transform;
+import static com.google.common.util.concurrent.Futures.withFallback;
+import static java.util.Collections.synchronizedMap;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_SUSPENDED;
@@ -38,6 +43,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -53,6 +59,7 @@ import org.jclouds.compute.ComputeService;
 import org.jclouds.compute.ComputeServiceContext;
 import org.jclouds.compute.RunNodesException;
 import org.jclouds.compute.RunScriptOnNodesException;
+import org.jclouds.compute.callables.FleetScriptExecutor;
 import org.jclouds.compute.callables.RunScriptOnNode;
 import org.jclouds.compute.config.CustomizationResponse;
 import org.jclouds.compute.domain.ComputeMetadata;
@@ -78,7 +85,6 @@ import org.jclouds.compute.strategy.InitializeRunScriptOnNodeOrPlaceInBadMap;
 import org.jclouds.compute.strategy.ListNodesStrategy;
 import org.jclouds.compute.strategy.RebootNodeStrategy;
 import org.jclouds.compute.strategy.ResumeNodeStrategy;
-import org.jclouds.compute.strategy.RunScriptOnNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
 import org.jclouds.compute.strategy.SuspendNodeStrategy;
 import org.jclouds.domain.Credentials;
 import org.jclouds.domain.Location;
@@ -99,8 +105,10 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.Atomics;
+import com.google.common.util.concurrent.FutureFallback;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 
@@ -135,6 +143,7 @@ public class BaseComputeService implements ComputeService {
    private final InitAdminAccess initAdminAccess;
    private final PersistNodeCredentials persistNodeCredentials;
    private final RunScriptOnNode.Factory runScriptOnNodeFactory;
+   private final FleetScriptExecutor fleetScriptExecutor;
    private final ListeningExecutorService userExecutor;
    private final Optional<ImageExtension> imageExtension;
    private final Optional<SecurityGroupExtension> securityGroupExtension;
@@ -153,8 +162,9 @@ public class BaseComputeService implements ComputeService {
             @Named(TIMEOUT_NODE_TERMINATED) Predicate<AtomicReference<NodeMetadata>> nodeTerminated,
             @Named(TIMEOUT_NODE_SUSPENDED) Predicate<AtomicReference<NodeMetadata>> nodeSuspended,
             InitializeRunScriptOnNodeOrPlaceInBadMap.Factory initScriptRunnerFactory, InitAdminAccess initAdminAccess,
-            RunScriptOnNode.Factory runScriptOnNodeFactory, PersistNodeCredentials persistNodeCredentials,
-            Timeouts timeouts, @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+            RunScriptOnNode.Factory runScriptOnNodeFactory, FleetScriptExecutor fleetScriptExecutor,
+            PersistNodeCredentials persistNodeCredentials, Timeouts timeouts,
+            @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
             Optional<ImageExtension> imageExtension, Optional<SecurityGroupExtension> securityGroupExtension) {
       this.context = checkNotNull(context, "context");
       this.credentialStore = checkNotNull(credentialStore, "credentialStore");
@@ -178,6 +188,7 @@ public class BaseComputeService implements ComputeService {
       this.timeouts = checkNotNull(timeouts, "timeouts");
       this.initAdminAccess = checkNotNull(initAdminAccess, "initAdminAccess");
       this.runScriptOnNodeFactory = checkNotNull(runScriptOnNodeFactory, "runScriptOnNodeFactory");
+      this.fleetScriptExecutor = checkNotNull(fleetScriptExecutor, "fleetScriptExecutor");
       this.persistNodeCredentials = checkNotNull(persistNodeCredentials, "persistNodeCredentials");
       this.userExecutor = checkNotNull(userExecutor, "userExecutor");
       this.imageExtension = checkNotNull(imageExtension, "imageExtension");
@@ -569,8 +580,8 @@ public class BaseComputeService implements ComputeService {
       checkNotNull(runScript, "runScript");
       checkNotNull(options, "options");
 
-      Map<NodeMetadata, ExecResponse> goodNodes = newLinkedHashMap();
-      Map<NodeMetadata, Exception> badNodes = newLinkedHashMap();
+      Map<NodeMetadata, ExecResponse> goodNodes = synchronizedMap(Maps.<NodeMetadata, ExecResponse> newLinkedHashMap());
+      Map<NodeMetadata, Exception> badNodes = synchronizedMap(Maps.<NodeMetadata, Exception> newLinkedHashMap());
       Map<NodeMetadata, ListenableFuture<ExecResponse>> responses = newLinkedHashMap();
       Map<?, Exception> exceptions = ImmutableMap.<Object, Exception> of();
 
@@ -579,9 +590,11 @@ public class BaseComputeService implements ComputeService {
       Iterable<? extends RunScriptOnNode> scriptRunners = transformNodesIntoInitializedScriptRunners(
             nodesMatchingFilterAndNotTerminatedExceptionIfNotFound(filter), runScript, options, badNodes);
       if (!Iterables.isEmpty(scriptRunners)) {
-         for (RunScriptOnNode runner : scriptRunners) {
-            responses.put(runner.getNode(), userExecutor.submit(new RunScriptOnNodeAndAddToGoodMapOrPutExceptionIntoBadMap(
-                  runner, goodNodes, badNodes)));
+         // scripts are started with bounded concurrency and polled from a scheduler, rather than a thread per node
+         for (Map.Entry<NodeMetadata, ListenableFuture<ExecResponse>> response : fleetScriptExecutor.submit(
+               scriptRunners, options.getOutputListeners()).entrySet()) {
+            responses.put(response.getKey(),
+                  addToGoodMapOrPutExceptionIntoBadMap(response.getKey(), response.getValue(), goodNodes, badNodes));
          }
          try {
             exceptions = awaitCompletion(responses, userExecutor, null, logger, "runScriptOnNodesMatching(" + filter + ")");
@@ -600,6 +613,29 @@ public class BaseComputeService implements ComputeService {
       return goodNodes;
    }
 
+   /**
+    * records the outcome of the script on {@code node}; the returned future never fails, so that failures are only
+    * reported through {@code badNodes}.
+    */
+   private ListenableFuture<ExecResponse> addToGoodMapOrPutExceptionIntoBadMap(final NodeMetadata node,
+         ListenableFuture<ExecResponse> response, final Map<NodeMetadata, ExecResponse> goodNodes,
+         final Map<NodeMetadata, Exception> badNodes) {
+      return withFallback(transform(response, new Function<ExecResponse, ExecResponse>() {
+         public ExecResponse apply(ExecResponse exec) {
+            logger.debug("<< options applied node(%s)", node.getId());
+            logger.trace("<< script output for node(%s): %s", node.getId(), exec);
+            goodNodes.put(node, exec);
+            return exec;
+         }
+      }), new FutureFallback<ExecResponse>() {
+         public ListenableFuture<ExecResponse> create(Throwable t) {
+            logger.error(t, "<< problem applying options to node(%s): %s", node.getId(), getRootCause(t).getMessage());
+            badNodes.put(node, t instanceof Exception ? Exception.class.cast(t) : new ExecutionException(t));
+            return immediateFuture(null);
+         }
+      });
+   }
+
    /**
     * {@inheritDoc}
     */
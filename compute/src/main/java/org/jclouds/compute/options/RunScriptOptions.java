@@ -20,12 +20,16 @@ import static com.google.common.base.Objects.equal;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.List;
+
+import org.jclouds.compute.callables.ScriptOutputListener;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.javax.annotation.Nullable;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.base.Objects.ToStringHelper;
+import com.google.common.collect.ImmutableList;
 
 /**
  * Enables additional options for running a script.
@@ -155,6 +159,16 @@ public class RunScriptOptions {
       public int getSeconds() {
          return delegate.getSeconds();
       }
+
+      @Override
+      public RunScriptOptions outputListener(ScriptOutputListener listener) {
+         throw new IllegalArgumentException("outputListeners are immutable");
+      }
+
+      @Override
+      public List<ScriptOutputListener> getOutputListeners() {
+         return delegate.getOutputListeners();
+      }
    }
 
    protected int port = -1;
@@ -168,6 +182,7 @@ public class RunScriptOptions {
    protected Boolean authenticateSudo;
    protected Optional<String> loginPassword;
    protected Optional<String> loginPrivateKey;
+   protected ImmutableList<ScriptOutputListener> outputListeners = ImmutableList.of();
 
    public RunScriptOptions overrideLoginCredentials(LoginCredentials overridingCredentials) {
       checkNotNull(overridingCredentials, "overridingCredentials");
@@ -258,10 +273,28 @@ public class RunScriptOptions {
       return this;
    }
 
+   /**
+    * Streams the output of the script to {@code listener} while it runs, when it is run with
+    * {@link org.jclouds.compute.ComputeService#runScriptOnNodesMatching} and wrapped in an init script.
+    */
+   public RunScriptOptions outputListener(ScriptOutputListener listener) {
+      checkNotNull(listener, "listener");
+      this.outputListeners = ImmutableList.<ScriptOutputListener> builder().addAll(outputListeners).add(listener)
+            .build();
+      return this;
+   }
+
    public String getTaskName() {
       return taskName;
    }
 
+   /**
+    * @see #outputListener(ScriptOutputListener)
+    */
+   public List<ScriptOutputListener> getOutputListeners() {
+      return outputListeners;
+   }
+
    public int getPort() {
       return port;
    }
@@ -423,6 +456,14 @@ public class RunScriptOptions {
          return options.blockOnPort(port, seconds);
       }
 
+      /**
+       * @see RunScriptOptions#outputListener(ScriptOutputListener)
+       */
+      public static RunScriptOptions outputListener(ScriptOutputListener listener) {
+         RunScriptOptions options = new RunScriptOptions();
+         return options.outputListener(listener);
+      }
+
    }
 
    @Override
@@ -21,9 +21,11 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.jclouds.compute.callables.ScriptOutputListener;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.scriptbuilder.domain.Statement;
 import org.jclouds.scriptbuilder.domain.Statements;
@@ -113,6 +115,11 @@ public class TemplateOptions extends RunScriptOptions implements Cloneable {
          return delegate.getTaskName();
       }
 
+      @Override
+      public List<ScriptOutputListener> getOutputListeners() {
+         return delegate.getOutputListeners();
+      }
+
       @Override
       public int getPort() {
          return delegate.getPort();
@@ -175,6 +182,11 @@ public class TemplateOptions extends RunScriptOptions implements Cloneable {
          throw new IllegalArgumentException("task name is immutable");
       }
 
+      @Override
+      public TemplateOptions outputListener(ScriptOutputListener listener) {
+         throw new IllegalArgumentException("outputListeners are immutable");
+      }
+
       @Override
       public TemplateOptions runAsRoot(boolean runAsRoot) {
          throw new IllegalArgumentException("runAsRoot is immutable");
@@ -793,6 +805,11 @@ public class TemplateOptions extends RunScriptOptions implements Cloneable {
       return TemplateOptions.class.cast(super.nameTask(name));
    }
 
+   @Override
+   public TemplateOptions outputListener(ScriptOutputListener listener) {
+      return TemplateOptions.class.cast(super.outputListener(listener));
+   }
+
    @Override
    public TemplateOptions runAsRoot(boolean runAsRoot) {
       return TemplateOptions.class.cast(super.runAsRoot(runAsRoot));
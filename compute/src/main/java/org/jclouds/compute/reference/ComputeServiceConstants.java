@@ -16,6 +16,7 @@
  */
 package org.jclouds.compute.reference;
 import static org.jclouds.compute.config.ComputeServiceProperties.INIT_STATUS_INITIAL_PERIOD;
+import static org.jclouds.compute.config.ComputeServiceProperties.INIT_STATUS_MAX_CONCURRENT_CHECKS;
 import static org.jclouds.compute.config.ComputeServiceProperties.INIT_STATUS_MAX_PERIOD;
 import static org.jclouds.compute.config.ComputeServiceProperties.OS_VERSION_MAP_JSON;
 import static org.jclouds.compute.config.ComputeServiceProperties.POLL_INITIAL_PERIOD;
@@ -67,6 +68,10 @@ public final class ComputeServiceConstants {
       @Inject(optional = true)
       @Named(INIT_STATUS_MAX_PERIOD)
       public long initStatusMaxPeriod = 5000;
+
+      @Inject(optional = true)
+      @Named(INIT_STATUS_MAX_CONCURRENT_CHECKS)
+      public int initStatusMaxConcurrentChecks = 20;
    }
 
    @Singleton
@@ -26,6 +26,7 @@ import java.util.concurrent.Callable;
 import javax.annotation.Resource;
 import javax.inject.Named;
 
+import org.jclouds.compute.callables.FleetScriptExecutor;
 import org.jclouds.compute.callables.RunScriptOnNode;
 import org.jclouds.compute.domain.ExecResponse;
 import org.jclouds.compute.domain.NodeMetadata;
@@ -33,8 +34,17 @@ import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.logging.Logger;
 
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.assistedinject.AssistedInject;
 
+/**
+ * Runs a script on a node, holding the calling thread until it completes.
+ * 
+ * @deprecated use {@link FleetScriptExecutor}, which leaves waiting for init scripts to the
+ *             {@link org.jclouds.compute.callables.InitScriptStatusPoller}. This will be removed in jclouds 2.0.
+ */
+@Deprecated
 public class RunScriptOnNodeAndAddToGoodMapOrPutExceptionIntoBadMap implements Callable<ExecResponse> {
 
    @Resource
@@ -43,12 +53,31 @@ public class RunScriptOnNodeAndAddToGoodMapOrPutExceptionIntoBadMap implements C
    private final RunScriptOnNode runScriptOnNode;
    private final Map<NodeMetadata, Exception> badNodes;
    private final Map<NodeMetadata, ExecResponse> goodNodes;
+   private final Optional<FleetScriptExecutor> fleetScriptExecutor;
 
    private transient boolean tainted;
 
    @AssistedInject
    public RunScriptOnNodeAndAddToGoodMapOrPutExceptionIntoBadMap(RunScriptOnNode runScriptOnNode,
             Map<NodeMetadata, ExecResponse> goodNodes, Map<NodeMetadata, Exception> badNodes) {
+      this(Optional.<FleetScriptExecutor> absent(), runScriptOnNode, goodNodes, badNodes);
+   }
+
+   /**
+    * Runs the script through the {@code fleetScriptExecutor}, so init scripts are polled instead of blocking a
+    * thread of the executor while they run.
+    */
+   public RunScriptOnNodeAndAddToGoodMapOrPutExceptionIntoBadMap(FleetScriptExecutor fleetScriptExecutor,
+            RunScriptOnNode runScriptOnNode, Map<NodeMetadata, ExecResponse> goodNodes,
+            Map<NodeMetadata, Exception> badNodes) {
+      this(Optional.of(checkNotNull(fleetScriptExecutor, "fleetScriptExecutor")), runScriptOnNode, goodNodes,
+               badNodes);
+   }
+
+   private RunScriptOnNodeAndAddToGoodMapOrPutExceptionIntoBadMap(Optional<FleetScriptExecutor> fleetScriptExecutor,
+            RunScriptOnNode runScriptOnNode, Map<NodeMetadata, ExecResponse> goodNodes,
+            Map<NodeMetadata, Exception> badNodes) {
+      this.fleetScriptExecutor = fleetScriptExecutor;
       this.runScriptOnNode = checkNotNull(runScriptOnNode, "runScriptOnNode");
       this.badNodes = checkNotNull(badNodes, "badNodes");
       this.goodNodes = checkNotNull(goodNodes, "goodNodes");
@@ -60,7 +89,9 @@ public class RunScriptOnNodeAndAddToGoodMapOrPutExceptionIntoBadMap implements C
       checkState(!tainted, "this object is not designed to be reused: %s", toString());
       tainted = true;
       try {
-         ExecResponse exec = runScriptOnNode.call();
+         ExecResponse exec = fleetScriptExecutor.isPresent() ? fleetScriptExecutor.get()
+                  .submit(ImmutableSet.of(runScriptOnNode)).get(runScriptOnNode.getNode()).get() : runScriptOnNode
+                  .call();
          logger.debug("<< options applied node(%s)", runScriptOnNode.getNode().getId());
          logger.trace("<< script output for node(%s): %s", runScriptOnNode.getNode().getId(), exec);
          goodNodes.put(runScriptOnNode.getNode(), exec);
@@ -18,7 +18,6 @@ package org.jclouds.compute.strategy.impl;
 
 import static com.google.common.base.Objects.toStringHelper;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Iterables.any;
 import static com.google.common.collect.Maps.newLinkedHashMap;
 import static com.google.common.collect.Sets.newLinkedHashSet;
 import static org.jclouds.compute.util.ComputeServiceUtils.formatStatus;
@@ -35,7 +34,6 @@ import javax.inject.Singleton;
 
 import org.jclouds.Constants;
 import org.jclouds.compute.config.CustomizationResponse;
-import org.jclouds.compute.domain.ComputeMetadata;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.functions.GroupNamingConvention;
@@ -46,7 +44,6 @@ import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIn
 import org.jclouds.compute.strategy.ListNodesStrategy;
 import org.jclouds.logging.Logger;
 
-import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
@@ -95,6 +92,7 @@ public class CreateNodesWithGroupEncodedIntoNameThenAddToSet implements CreateNo
    protected final GroupNamingConvention.Factory namingConvention;
    protected final ListeningExecutorService userExecutor;
    protected final CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory;
+   protected final GroupNodeNameAllocator nameAllocator;
 
    @Inject
    protected CreateNodesWithGroupEncodedIntoNameThenAddToSet(
@@ -102,12 +100,14 @@ public class CreateNodesWithGroupEncodedIntoNameThenAddToSet implements CreateNo
             ListNodesStrategy listNodesStrategy,
             GroupNamingConvention.Factory namingConvention,
             @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
-            CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory) {
+            CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory,
+            GroupNodeNameAllocator nameAllocator) {
       this.addNodeWithGroupStrategy = addNodeWithGroupStrategy;
       this.listNodesStrategy = listNodesStrategy;
       this.namingConvention = namingConvention;
       this.userExecutor = userExecutor;
       this.customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory = customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory;
+      this.nameAllocator = nameAllocator;
    }
 
    /**
@@ -171,8 +171,8 @@ public class CreateNodesWithGroupEncodedIntoNameThenAddToSet implements CreateNo
     * Find the next node names that can be used. If the nodeNames template option is not specified
     * or is empty, these will be derived from the group and the template. We will pre-allocate a
     * specified quantity, and attempt to verify that there is no name conflict with the current
-    * service. If the nodeNames option is specified, names from that will be used instead, without
-    * any check for name conflicts.
+    * service, listing only the nodes in the group. If the nodeNames option is specified, names from
+    * that will be used instead, without any check for name conflicts.
     * If there are insufficient names in nodeNames, subsequent names will be generated in the
     * default format.
     * 
@@ -189,22 +189,7 @@ public class CreateNodesWithGroupEncodedIntoNameThenAddToSet implements CreateNo
       } else {
          names.addAll(nodeNames);
       }
-      Iterable<? extends ComputeMetadata> currentNodes = listNodesStrategy.listNodes();
-      int maxTries = 100;
-      int currentTries = 0;
-      while (names.size() < count && currentTries++ < maxTries) {
-         final String name = namingConvention.createWithoutPrefix().uniqueNameForGroup(group);
-         if (!any(currentNodes, new Predicate<ComputeMetadata>() {
-
-            @Override
-            public boolean apply(ComputeMetadata input) {
-               return name.equals(input.getName());
-            }
-
-         })) {
-            names.add(name);
-         }
-      }
+      names.addAll(nameAllocator.allocate(group, count - names.size()));
       return names;
    }
 
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.strategy.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.emptyToNull;
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.collect.Sets.newLinkedHashSet;
+import static org.jclouds.compute.config.ComputeServiceProperties.NODE_NAMES_CACHE_PERIOD;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Predicate;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+
+/**
+ * Hands out unique node names for a group.
+ * <p>
+ * The group is listed with an {@link InGroup} filter. A {@link ListNodesStrategy} can recognize it to ask the
+ * provider for the group only, as the EC2 one does; others list every node and filter them. The names in use are
+ * kept in a hash set per group, together with the names handed out since, for
+ * {@code jclouds.compute.node-names.cache-period}; allocations in that window don't list the group again.
+ */
+@Singleton
+public class GroupNodeNameAllocator {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(NODE_NAMES_CACHE_PERIOD)
+   @VisibleForTesting
+   long cachePeriod = 60000;
+
+   @VisibleForTesting
+   Ticker ticker = Ticker.systemTicker();
+
+   private final ListNodesStrategy listNodesStrategy;
+   private final GroupNamingConvention.Factory namingConvention;
+   private final ConcurrentMap<String, TakenNames> takenNamesByGroup = Maps.newConcurrentMap();
+
+   @Inject
+   GroupNodeNameAllocator(ListNodesStrategy listNodesStrategy, GroupNamingConvention.Factory namingConvention) {
+      this.listNodesStrategy = checkNotNull(listNodesStrategy, "listNodesStrategy");
+      this.namingConvention = checkNotNull(namingConvention, "namingConvention");
+   }
+
+   /**
+    * Returns up to {@code count} names for new nodes in {@code group}, none of them in use or handed out before.
+    * Fewer names are returned if unique ones can't be generated after a number of attempts.
+    */
+   public Set<String> allocate(String group, int count) {
+      checkNotNull(emptyToNull(group), "group must be defined");
+      checkArgument(count >= 0, "count must be positive");
+      Set<String> names = newLinkedHashSet();
+      if (count == 0)
+         return names;
+      TakenNames taken = takenNames(group);
+      GroupNamingConvention convention = namingConvention.createWithoutPrefix();
+      int maxTries = count + 100;
+      int currentTries = 0;
+      synchronized (taken) {
+         while (names.size() < count && currentTries++ < maxTries) {
+            String name = convention.uniqueNameForGroup(group);
+            if (taken.names.add(name))
+               names.add(name);
+         }
+      }
+      if (names.size() < count)
+         logger.warn("<< only found %d unique names out of %d for group(%s)", names.size(), count, group);
+      return names;
+   }
+
+   /**
+    * Forgets the names remembered for {@code group}, so that the next allocation lists the group again.
+    */
+   public void invalidate(String group) {
+      takenNamesByGroup.remove(checkNotNull(group, "group"));
+   }
+
+   private TakenNames takenNames(String group) {
+      long now = ticker.read();
+      TakenNames taken = takenNamesByGroup.get(group);
+      if (taken != null && now < taken.expiresAt)
+         return taken;
+      Set<String> names = newHashSet();
+      for (ComputeMetadata node : listNodesStrategy.listDetailsOnNodesMatching(new InGroup(group, namingConvention
+            .create().containsGroup(group)))) {
+         if (node.getName() != null)
+            names.add(node.getName());
+      }
+      logger.trace("<< %d names in use in group(%s)", names.size(), group);
+      taken = new TakenNames(names, now + TimeUnit.MILLISECONDS.toNanos(cachePeriod));
+      if (cachePeriod > 0)
+         takenNamesByGroup.put(group, taken);
+      return taken;
+   }
+
+   private static class TakenNames {
+      private final Set<String> names;
+      private final long expiresAt;
+
+      private TakenNames(Set<String> names, long expiresAt) {
+         this.names = names;
+         this.expiresAt = expiresAt;
+      }
+   }
+
+   /**
+    * Matches the nodes of a group, or whose name has the group encoded into it.
+    */
+   public static class InGroup implements Predicate<ComputeMetadata> {
+      private final String group;
+      private final Predicate<String> nameContainsGroup;
+
+      public InGroup(String group, Predicate<String> nameContainsGroup) {
+         this.group = checkNotNull(group, "group");
+         this.nameContainsGroup = checkNotNull(nameContainsGroup, "nameContainsGroup");
+      }
+
+      public String getGroup() {
+         return group;
+      }
+
+      @Override
+      public boolean apply(ComputeMetadata input) {
+         if (input instanceof NodeMetadata && group.equals(NodeMetadata.class.cast(input).getGroup()))
+            return true;
+         return input.getName() != null && nameContainsGroup.apply(input.getName());
+      }
+
+      @Override
+      public String toString() {
+         return "inGroup(" + group + ")";
+      }
+   }
+}
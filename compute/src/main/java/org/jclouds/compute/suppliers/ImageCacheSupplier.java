@@ -20,8 +20,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.concat;
 import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -31,6 +33,8 @@ import org.jclouds.compute.domain.Image;
 import com.google.common.base.Supplier;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 
@@ -41,6 +45,10 @@ import com.google.inject.Inject;
  * needed. Once a new image is created by the {@link org.jclouds.compute.extensions.ImageExtension}, or discovered by
  * other means (see https://issues.apache.org/jira/browse/JCLOUDS-570) this supplier will allow the image to be appended
  * to the cached list, so it can be properly used normally.
+ * <p>
+ * The merged view is kept as an immutable snapshot that is only rebuilt when the memoized image cache reloads or when
+ * the set of registered images changes. Callers of {@link #get()} therefore share the same instance instead of copying
+ * the whole image list on every call, and the {@link IndexedSupplier} by image id is only rebuilt along with it.
  */
 @Singleton
 public class ImageCacheSupplier implements Supplier<Set<? extends Image>> {
@@ -49,6 +57,15 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>> {
 
    private final Cache<String, Image> uncachedImages;
 
+   /**
+    * Incremented each time the registered images change, so the snapshot knows when it must be rebuilt.
+    */
+   private final AtomicLong registeredVersion = new AtomicLong();
+
+   private volatile Snapshot snapshot;
+
+   private final IndexedSupplier<String, Image> imagesById = IndexedSupplier.byId(this);
+
    @Inject
    public ImageCacheSupplier(@Named("imageCache") Supplier<Set<? extends Image>> imageCache,
          @Named(PROPERTY_SESSION_INTERVAL) long sessionIntervalSeconds) {
@@ -56,12 +73,36 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>> {
       // We use a cache to let the entries in the "uncached" set expire as soon as the image cache expires. We want the
       // uncached set to be regenerated when the original cache is also regenerated.
       this.uncachedImages = CacheBuilder.newBuilder().expireAfterWrite(sessionIntervalSeconds, TimeUnit.SECONDS)
-            .build();
+            .removalListener(new RemovalListener<String, Image>() {
+               @Override
+               public void onRemoval(RemovalNotification<String, Image> notification) {
+                  registeredVersion.incrementAndGet();
+               }
+            }).build();
    }
 
    @Override
    public Set<? extends Image> get() {
-      return ImmutableSet.copyOf(concat(imageCache.get(), uncachedImages.asMap().values()));
+      return currentSnapshot().images;
+   }
+
+   /**
+    * Returns the cached images indexed by id. The returned map is an immutable snapshot that is shared between callers
+    * until the image cache reloads or a new image is registered.
+    */
+   public Map<String, ? extends Image> getImageMap() {
+      return imagesById.firstByKey();
+   }
+
+   /**
+    * Looks up an image by id in the cached images, without calling the provider.
+    *
+    * @param id The id of the image.
+    * @return The cached image, or null if no image with the given id is cached.
+    */
+   public Image getImage(String id) {
+      // memoized images take precedence over registered ones, as they come first
+      return imagesById.first(checkNotNull(id, "id"));
    }
 
    /**
@@ -79,6 +120,37 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>> {
    public void registerImage(Image image) {
       checkNotNull(image, "image");
       uncachedImages.put(image.getId(), image);
+      registeredVersion.incrementAndGet();
+   }
+
+   private Snapshot currentSnapshot() {
+      Set<? extends Image> cached = imageCache.get();
+      // expired registrations are only evicted during cache maintenance; run it so the removal listener bumps the
+      // version before we decide whether the current snapshot is still valid
+      uncachedImages.cleanUp();
+      long version = registeredVersion.get();
+      Snapshot current = snapshot;
+      if (current != null && current.source == cached && current.version == version) {
+         return current;
+      }
+      current = new Snapshot(cached, version, uncachedImages.asMap().values());
+      snapshot = current;
+      return current;
+   }
+
+   /**
+    * Immutable view of the memoized images merged with the registered ones.
+    */
+   private static final class Snapshot {
+      private final Set<? extends Image> source;
+      private final long version;
+      private final Set<Image> images;
+
+      private Snapshot(Set<? extends Image> source, long version, Iterable<Image> registered) {
+         this.source = source;
+         this.version = version;
+         this.images = ImmutableSet.<Image> copyOf(concat(source, registered));
+      }
    }
 
 }
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.domain.Location;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Maps;
+
+/**
+ * An index over the elements of a memoized supplier, such as the {@code @Memoized} images, hardware or locations,
+ * so that converting a node looks its image up by key instead of scanning every image. {@link ImageCacheSupplier}
+ * keeps its images by id in one as well.
+ * <p>
+ * The index is rebuilt only when the supplier returns a different collection than it did last time, which is what
+ * memoized suppliers do when they refresh. Elements with the same key keep the order of the supplier, and elements
+ * without a key are left out.
+ */
+@Beta
+public final class IndexedSupplier<K, V> implements Supplier<ImmutableListMultimap<K, V>> {
+
+   /**
+    * Indexes the elements by {@link ComputeMetadata#getId() id}.
+    */
+   public static <V extends ComputeMetadata> IndexedSupplier<String, V> byId(
+         Supplier<? extends Iterable<? extends V>> source) {
+      return create(source, new Function<V, String>() {
+         @Override
+         public String apply(V input) {
+            return input.getId();
+         }
+
+         @Override
+         public String toString() {
+            return "id";
+         }
+      });
+   }
+
+   /**
+    * Indexes the elements by {@link ComputeMetadata#getProviderId() provider id}. Several elements may share a
+    * provider id, for example the same image in different regions.
+    */
+   public static <V extends ComputeMetadata> IndexedSupplier<String, V> byProviderId(
+         Supplier<? extends Iterable<? extends V>> source) {
+      return create(source, new Function<V, String>() {
+         @Override
+         public String apply(V input) {
+            return input.getProviderId();
+         }
+
+         @Override
+         public String toString() {
+            return "providerId";
+         }
+      });
+   }
+
+   /**
+    * Indexes the locations by {@link Location#getId() id}.
+    */
+   public static IndexedSupplier<String, Location> locationsById(Supplier<? extends Iterable<? extends Location>> source) {
+      return create(source, new Function<Location, String>() {
+         @Override
+         public String apply(Location input) {
+            return input.getId();
+         }
+
+         @Override
+         public String toString() {
+            return "id";
+         }
+      });
+   }
+
+   public static <K, V> IndexedSupplier<K, V> create(Supplier<? extends Iterable<? extends V>> source,
+         Function<? super V, K> keyFunction) {
+      return new IndexedSupplier<K, V>(source, keyFunction);
+   }
+
+   private final Supplier<? extends Iterable<? extends V>> source;
+   private final Function<? super V, K> keyFunction;
+   private volatile Snapshot<K, V> snapshot;
+
+   private IndexedSupplier(Supplier<? extends Iterable<? extends V>> source, Function<? super V, K> keyFunction) {
+      this.source = checkNotNull(source, "source");
+      this.keyFunction = checkNotNull(keyFunction, "keyFunction");
+   }
+
+   @Override
+   public ImmutableListMultimap<K, V> get() {
+      Iterable<? extends V> current = source.get();
+      Snapshot<K, V> last = snapshot;
+      if (last != null && last.source == current)
+         return last.index;
+      // concurrent callers may both build the index, which is harmless as either result is correct
+      ImmutableListMultimap.Builder<K, V> index = ImmutableListMultimap.builder();
+      for (V value : current) {
+         K key = keyFunction.apply(value);
+         if (key != null)
+            index.put(key, value);
+      }
+      last = new Snapshot<K, V>(current, index.build());
+      snapshot = last;
+      return last.index;
+   }
+
+   /**
+    * @return the first element with the key, or null if there is none
+    */
+   @Nullable
+   public V first(K key) {
+      List<V> matches = get().get(key);
+      return matches.isEmpty() ? null : matches.get(0);
+   }
+
+   /**
+    * @return the elements with the key, in the order of the supplier
+    */
+   public List<V> all(K key) {
+      return get().get(key);
+   }
+
+   /**
+    * @return a view of the current index, from each key to the first element with it
+    */
+   @SuppressWarnings("unchecked")
+   public Map<K, V> firstByKey() {
+      return Maps.transformValues(get().asMap(), (Function<Collection<V>, V>) (Function<?, ?>) FIRST);
+   }
+
+   private static final Function<Collection<Object>, Object> FIRST = new Function<Collection<Object>, Object>() {
+      @Override
+      public Object apply(Collection<Object> input) {
+         return input.iterator().next();
+      }
+   };
+
+   @Override
+   public String toString() {
+      return "indexBy(" + keyFunction + ", " + source + ")";
+   }
+
+   private static final class Snapshot<K, V> {
+      private final Iterable<? extends V> source;
+      private final ImmutableListMultimap<K, V> index;
+
+      private Snapshot(Iterable<? extends V> source, ImmutableListMultimap<K, V> index) {
+         this.source = source;
+         this.index = index;
+      }
+   }
+}
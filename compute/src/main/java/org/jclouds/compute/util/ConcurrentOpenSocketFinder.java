@@ -30,6 +30,7 @@ import static org.jclouds.util.Predicates2.retry;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Resource;
@@ -39,6 +40,7 @@ import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.logging.Logger;
 import org.jclouds.predicates.SocketOpen;
+import org.jclouds.predicates.SocketProbe;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
@@ -62,19 +64,31 @@ public class ConcurrentOpenSocketFinder implements OpenSocketFinder {
    private final SocketOpen socketTester;
    private final Predicate<AtomicReference<NodeMetadata>> nodeRunning;
    private final ListeningExecutorService userExecutor;
+   private final SocketProbe socketProbe;
 
    @Inject(optional = true)
    @Named(SOCKET_FINDER_ALLOWED_INTERFACES)
    private AllowedInterfaces allowedInterfaces = AllowedInterfaces.ALL;
 
    @Inject
-   @VisibleForTesting
    ConcurrentOpenSocketFinder(SocketOpen socketTester,
          @Named(TIMEOUT_NODE_RUNNING) Predicate<AtomicReference<NodeMetadata>> nodeRunning,
-         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, SocketProbe socketProbe) {
       this.socketTester = checkNotNull(socketTester, "socketTester");
       this.nodeRunning = checkNotNull(nodeRunning, "nodeRunning");
       this.userExecutor = listeningDecorator(checkNotNull(userExecutor, "userExecutor"));
+      this.socketProbe = socketProbe;
+   }
+
+   /**
+    * Tests the sockets with one blocking {@link SocketOpen} task per socket and retry round, instead of the shared
+    * {@link SocketProbe}.
+    */
+   @VisibleForTesting
+   ConcurrentOpenSocketFinder(SocketOpen socketTester,
+         @Named(TIMEOUT_NODE_RUNNING) Predicate<AtomicReference<NodeMetadata>> nodeRunning,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this(socketTester, nodeRunning, userExecutor, null);
    }
 
    @Override
@@ -87,6 +101,56 @@ public class ConcurrentOpenSocketFinder implements OpenSocketFinder {
          }
       }).toSet();
 
+      logger.debug(">> blocking on sockets %s for %d %s", sockets, timeout, timeUnits);
+      HostAndPort result = socketProbe != null ? probeSockets(node, sockets, timeout, timeUnits) : retrySockets(node,
+            sockets, timeout, timeUnits);
+
+      if (result != null) {
+         logger.debug("<< socket %s opened", result);
+         return result;
+      } else {
+         logger.warn("<< sockets %s didn't open after %d %s", sockets, timeout, timeUnits);
+         throw new NoSuchElementException(format("could not connect to any ip address port %d on node %s", port, node));
+      }
+
+   }
+
+   /**
+    * Registers the sockets with the {@link SocketProbe} and waits for one of them to open, checking every second that
+    * the node is still running.
+    * 
+    * @return the socket found open, or null if none opened before the timeout
+    */
+   private HostAndPort probeSockets(NodeMetadata node, ImmutableSet<HostAndPort> sockets, long timeout,
+         TimeUnit timeUnits) {
+      ListenableFuture<HostAndPort> found = socketProbe.findFirstOpen(sockets, timeout, timeUnits);
+      try {
+         while (true) {
+            try {
+               return found.get(1, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+               throwISEIfNoLongerRunning(node).apply(sockets);
+            }
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof NoSuchElementException)
+            return null;
+         throw propagate(e.getCause());
+      } finally {
+         found.cancel(false);
+      }
+   }
+
+   /**
+    * Tests all the sockets concurrently on the user executor, once per second, until one of them opens.
+    * 
+    * @return the socket found open, or null if none opened before the timeout
+    */
+   private HostAndPort retrySockets(NodeMetadata node, ImmutableSet<HostAndPort> sockets, long timeout,
+         TimeUnit timeUnits) {
       // Specify a retry period of 1s, expressed in the same time units.
       long period = timeUnits.convert(1, TimeUnit.SECONDS);
 
@@ -95,18 +159,9 @@ public class ConcurrentOpenSocketFinder implements OpenSocketFinder {
 
       Predicate<Iterable<HostAndPort>> findOrBreak = or(updateRefOnSocketOpen(result), throwISEIfNoLongerRunning(node));
 
-      logger.debug(">> blocking on sockets %s for %d %s", sockets, timeout, timeUnits);
       boolean passed = retryPredicate(findOrBreak, timeout, period,  timeUnits).apply(sockets);
-
-      if (passed) {
-         logger.debug("<< socket %s opened", result);
-         assert result.get() != null;
-         return result.get();
-      } else {
-         logger.warn("<< sockets %s didn't open after %d %s", sockets, timeout, timeUnits);
-         throw new NoSuchElementException(format("could not connect to any ip address port %d on node %s", port, node));
-      }
-
+      assert !passed || result.get() != null;
+      return passed ? result.get() : null;
    }
 
    @VisibleForTesting
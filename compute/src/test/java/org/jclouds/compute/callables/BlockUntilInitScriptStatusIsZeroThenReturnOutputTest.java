@@ -15,27 +15,38 @@
  * limitations under the License.
  */
 package org.jclouds.compute.callables;
+import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.createMockBuilder;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.jclouds.compute.callables.BlockUntilInitScriptStatusIsZeroThenReturnOutput.loopUntilTrueOrThrowCancellationException;
+import static org.jclouds.scriptbuilder.domain.Statements.exec;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.easymock.IAnswer;
 import org.jclouds.compute.callables.BlockUntilInitScriptStatusIsZeroThenReturnOutput.ExitStatusOfCommandGreaterThanZero;
+import org.jclouds.compute.callables.SudoAwareInitManager.OutputTail;
 import org.jclouds.compute.domain.ExecResponse;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.scriptbuilder.InitScript;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.eventbus.EventBus;
 import com.google.common.util.concurrent.AbstractFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
@@ -272,6 +283,60 @@ public class BlockUntilInitScriptStatusIsZeroThenReturnOutputTest {
 
    }
 
+   @SuppressWarnings("unchecked")
+   public void testPollStreamsOutputUntilScriptCompletes() throws InterruptedException, ExecutionException {
+      ListeningExecutorService userExecutor = MoreExecutors.sameThreadExecutor();
+      final SudoAwareInitManager commandRunner = createMockBuilder(SudoAwareInitManager.class)
+               .addMockedMethod("refreshAndRun").addMockedMethod("runAction").addMockedMethod("runOutputAction")
+               .addMockedMethod("getStatement").addMockedMethod("getNode").createMock();
+      NodeMetadata node = new NodeMetadataBuilder().ids("id").status(NodeMetadata.Status.RUNNING).build();
+      InitScript initScript = InitScript.builder().name("init-script").run(exec("echo hello")).build();
+
+      expect(commandRunner.refreshAndRun(anyObject(Function.class))).andAnswer(new IAnswer<Object>() {
+         @Override
+         public Object answer() throws Throwable {
+            return Function.class.cast(getCurrentArguments()[0]).apply(commandRunner);
+         }
+      }).times(2);
+      expect(commandRunner.getStatement()).andReturn(initScript).anyTimes();
+      expect(commandRunner.getNode()).andReturn(node).anyTimes();
+
+      // first time around, the script is still running
+      expect(commandRunner.runAction("status")).andReturn(new ExecResponse("8001", "", 0));
+      // the first byte isn't valid utf-8, so the decoded output is longer than what was read
+      expect(commandRunner.runOutputAction("stdout", 0)).andReturn(new OutputTail("\ufffdhello", 6));
+      expect(commandRunner.runOutputAction("stderr", 0)).andReturn(new OutputTail("", 0));
+
+      // second time around, it did stop
+      expect(commandRunner.runAction("status")).andReturn(new ExecResponse("", "", 1));
+      expect(commandRunner.runAction("stdout")).andReturn(new ExecResponse("\ufffdhello world", "", 0));
+      expect(commandRunner.runAction("stderr")).andReturn(new ExecResponse("oops", "", 0));
+      expect(commandRunner.runAction("exitstatus")).andReturn(new ExecResponse("0\n", "", 0));
+      expect(commandRunner.runOutputAction("stdout", 6)).andReturn(new OutputTail(" world", 6));
+      expect(commandRunner.runOutputAction("stderr", 0)).andReturn(new OutputTail("oops", 4));
+
+      replay(commandRunner);
+
+      final List<ExecResponse> chunks = Lists.newArrayList();
+      BlockUntilInitScriptStatusIsZeroThenReturnOutput future = new BlockUntilInitScriptStatusIsZeroThenReturnOutput(
+               userExecutor, eventBus, Predicates.<String> alwaysTrue(), commandRunner)
+               .addOutputListener(new ScriptOutputListener() {
+                  @Override
+                  public void onOutput(NodeMetadata node, ExecResponse output) {
+                     chunks.add(output);
+                  }
+               });
+
+      assertFalse(future.poll());
+      assertFalse(future.isDone());
+      assertTrue(future.poll());
+
+      assertEquals(future.get(), new ExecResponse("\ufffdhello world", "oops", 0));
+      assertEquals(chunks, ImmutableList.of(new ExecResponse("\ufffdhello", "", -1), new ExecResponse(" world", "oops", 0)));
+
+      verify(commandRunner);
+   }
+
    private void toStringAndEventBusExpectations(SudoAwareInitManager commandRunner, InitScript initScript) {
       toStringExpectations(commandRunner, initScript);
       expect(commandRunner.getStatement()).andReturn(initScript);
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.callables;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createMockBuilder;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.jclouds.scriptbuilder.domain.Statements.exec;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easymock.IAnswer;
+import org.jclouds.compute.domain.ExecResponse;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.events.StatementOnNodeFailure;
+import org.jclouds.compute.reference.ComputeServiceConstants.InitStatusProperties;
+import org.jclouds.compute.reference.ComputeServiceConstants.Timeouts;
+import org.jclouds.scriptbuilder.InitScript;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "FleetScriptExecutorTest")
+public class FleetScriptExecutorTest {
+
+   ListeningExecutorService userExecutor = MoreExecutors.sameThreadExecutor();
+
+   public void testReturnsFuturePerNode() throws Exception {
+      NodeMetadata good = new NodeMetadataBuilder().ids("good").status(NodeMetadata.Status.RUNNING).build();
+      NodeMetadata bad = new NodeMetadataBuilder().ids("bad").status(NodeMetadata.Status.RUNNING).build();
+      RunScriptOnNode goodRunner = createMock(RunScriptOnNode.class);
+      RunScriptOnNode badRunner = createMock(RunScriptOnNode.class);
+
+      expect(goodRunner.getNode()).andReturn(good).anyTimes();
+      expect(goodRunner.call()).andReturn(new ExecResponse("ok", "", 0));
+      expect(badRunner.getNode()).andReturn(bad).anyTimes();
+      expect(badRunner.call()).andThrow(new IllegalStateException("boom"));
+      replay(goodRunner, badRunner);
+
+      Map<NodeMetadata, ListenableFuture<ExecResponse>> responses = executor(1).submit(
+            ImmutableList.of(goodRunner, badRunner));
+
+      assertEquals(responses.keySet(), ImmutableSet.of(good, bad));
+      assertEquals(responses.get(good).get(), new ExecResponse("ok", "", 0));
+      try {
+         responses.get(bad).get();
+         fail();
+      } catch (ExecutionException e) {
+         assertEquals(e.getCause().getMessage(), "boom");
+      }
+      verify(goodRunner, badRunner);
+   }
+
+   public void testNoRunnersReturnsEmptyMap() {
+      assertEquals(executor(10).submit(ImmutableList.<RunScriptOnNode> of()).size(), 0);
+   }
+
+   public void testInitScriptCompletesFromStatus() throws Exception {
+      NodeMetadata node = new NodeMetadataBuilder().ids("node").status(NodeMetadata.Status.RUNNING).build();
+      ScriptOutputListener listener = createMock(ScriptOutputListener.class);
+      BlockUntilInitScriptStatusIsZeroThenReturnOutput status = status(node);
+      RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete runner = initScriptRunner(node);
+      expect(runner.submit(anyObject(InitScriptStatusPoller.class), eq(ImmutableList.of(listener)))).andReturn(status);
+      replay(runner, listener);
+
+      ListenableFuture<ExecResponse> response = executor(1).submit(ImmutableList.of(runner),
+            ImmutableList.of(listener)).get(node);
+      // the launch returned without waiting for the script
+      assertFalse(response.isDone());
+
+      status.set(new ExecResponse("done", "", 0));
+      assertEquals(response.get(10, SECONDS), new ExecResponse("done", "", 0));
+      verify(runner, listener);
+   }
+
+   public void testInitScriptStillRunningAfterTimeout() throws Exception {
+      NodeMetadata node = new NodeMetadataBuilder().ids("node").status(NodeMetadata.Status.RUNNING).build();
+      BlockUntilInitScriptStatusIsZeroThenReturnOutput status = status(node);
+      RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete runner = initScriptRunner(node);
+      expect(runner.submit(anyObject(InitScriptStatusPoller.class), eq(ImmutableList.<ScriptOutputListener> of())))
+            .andReturn(status);
+      replay(runner);
+
+      final List<StatementOnNodeFailure> failures = Lists.newArrayList();
+      EventBus eventBus = new EventBus();
+      eventBus.register(new Object() {
+         @Subscribe
+         public void onFailure(StatementOnNodeFailure failure) {
+            failures.add(failure);
+         }
+      });
+      Timeouts timeouts = new Timeouts();
+      timeouts.scriptComplete = 10;
+
+      ListenableFuture<ExecResponse> response = executor(1, eventBus, timeouts).submit(ImmutableList.of(runner))
+            .get(node);
+      try {
+         response.get(10, SECONDS);
+         fail();
+      } catch (ExecutionException e) {
+         ScriptStillRunningException stillRunning = ScriptStillRunningException.class.cast(e.getCause());
+         // the script is left running, and can still be waited on
+         assertSame(stillRunning.get(), status);
+         assertFalse(status.isDone());
+      }
+      assertEquals(failures.size(), 1);
+      assertEquals(failures.get(0).getNode(), node);
+      verify(runner);
+   }
+
+   public void testLimitsConcurrentLaunches() throws Exception {
+      final int maxConcurrency = 2;
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicInteger maxRunning = new AtomicInteger();
+      final CountDownLatch limitReached = new CountDownLatch(maxConcurrency);
+      List<RunScriptOnNode> runners = Lists.newArrayList();
+      for (int i = 0; i < 6; i++) {
+         RunScriptOnNode runner = createMock(RunScriptOnNode.class);
+         expect(runner.getNode()).andReturn(
+               new NodeMetadataBuilder().ids("node" + i).status(NodeMetadata.Status.RUNNING).build()).anyTimes();
+         expect(runner.call()).andAnswer(new IAnswer<ExecResponse>() {
+            @Override
+            public ExecResponse answer() throws Exception {
+               int current = running.incrementAndGet();
+               synchronized (maxRunning) {
+                  maxRunning.set(Math.max(maxRunning.get(), current));
+               }
+               limitReached.countDown();
+               // hold the launch slot until as many launches as allowed have started
+               limitReached.await(10, SECONDS);
+               running.decrementAndGet();
+               return new ExecResponse("ok", "", 0);
+            }
+         });
+         replay(runner);
+         runners.add(runner);
+      }
+
+      ListeningExecutorService threads = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+      try {
+         FleetScriptExecutor executor = new FleetScriptExecutor(threads, new InitScriptStatusPoller(threads,
+               new InitStatusProperties()), new EventBus(), new Timeouts());
+         executor.maxConcurrency = maxConcurrency;
+         for (ListenableFuture<ExecResponse> response : executor.submit(runners).values()) {
+            assertEquals(response.get(10, SECONDS), new ExecResponse("ok", "", 0));
+         }
+      } finally {
+         threads.shutdownNow();
+      }
+      assertEquals(maxRunning.get(), maxConcurrency);
+   }
+
+   private BlockUntilInitScriptStatusIsZeroThenReturnOutput status(NodeMetadata node) {
+      SudoAwareInitManager commandRunner = createMockBuilder(SudoAwareInitManager.class)
+            .addMockedMethod("getStatement").addMockedMethod("getNode").createMock();
+      expect(commandRunner.getStatement()).andReturn(
+            InitScript.builder().name("init-script").run(exec("echo hello")).build()).anyTimes();
+      expect(commandRunner.getNode()).andReturn(node).anyTimes();
+      replay(commandRunner);
+      return new BlockUntilInitScriptStatusIsZeroThenReturnOutput(userExecutor, new EventBus(),
+            Predicates.<String> alwaysTrue(), commandRunner);
+   }
+
+   private RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete initScriptRunner(NodeMetadata node) {
+      RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete runner = createMockBuilder(
+            RunScriptOnNodeAsInitScriptUsingSshAndBlockUntilComplete.class).addMockedMethod("getNode")
+            .addMockedMethod("submit").createMock();
+      expect(runner.getNode()).andReturn(node).anyTimes();
+      return runner;
+   }
+
+   private FleetScriptExecutor executor(int maxConcurrency) {
+      return executor(maxConcurrency, new EventBus(), new Timeouts());
+   }
+
+   private FleetScriptExecutor executor(int maxConcurrency, EventBus eventBus, Timeouts timeouts) {
+      FleetScriptExecutor executor = new FleetScriptExecutor(userExecutor, new InitScriptStatusPoller(userExecutor,
+            new InitStatusProperties()), eventBus, timeouts);
+      executor.maxConcurrency = maxConcurrency;
+      return executor;
+   }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.callables;
+
+import static org.easymock.EasyMock.createMockBuilder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.compute.reference.ComputeServiceConstants.InitStatusProperties;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicates;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", singleThreaded = true, testName = "InitScriptStatusPollerTest")
+public class InitScriptStatusPollerTest {
+
+   private ListeningExecutorService userExecutor;
+   private InitScriptStatusPoller poller;
+
+   @BeforeMethod
+   public void setUp() {
+      userExecutor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+      InitStatusProperties properties = new InitStatusProperties();
+      properties.initStatusInitialPeriod = 1;
+      properties.initStatusMaxPeriod = 5;
+      properties.initStatusMaxConcurrentChecks = 2;
+      poller = new InitScriptStatusPoller(userExecutor, properties);
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      poller.close();
+      userExecutor.shutdownNow();
+   }
+
+   public void testPollsUntilDone() throws InterruptedException {
+      CountingStatus status = new CountingStatus(3, new AtomicInteger(), new AtomicInteger());
+      poller.monitor(status);
+
+      assertTrue(status.done.await(5, TimeUnit.SECONDS));
+      // give a stray reschedule the chance to show up
+      Thread.sleep(50);
+      assertEquals(status.polls.get(), 3);
+   }
+
+   public void testConcurrentChecksAreBounded() throws InterruptedException {
+      AtomicInteger inFlight = new AtomicInteger();
+      AtomicInteger maxInFlight = new AtomicInteger();
+      CountingStatus[] statuses = new CountingStatus[10];
+      for (int i = 0; i < statuses.length; i++) {
+         statuses[i] = new CountingStatus(2, inFlight, maxInFlight);
+         poller.monitor(statuses[i]);
+      }
+      for (CountingStatus status : statuses)
+         assertTrue(status.done.await(5, TimeUnit.SECONDS));
+      assertTrue(maxInFlight.get() <= 2, "max in flight: " + maxInFlight.get());
+   }
+
+   public void testScheduleRunsTaskOnUserExecutor() throws InterruptedException {
+      final CountDownLatch ran = new CountDownLatch(1);
+      poller.schedule(new Runnable() {
+         @Override
+         public void run() {
+            ran.countDown();
+         }
+      }, 1, TimeUnit.MILLISECONDS);
+      assertTrue(ran.await(5, TimeUnit.SECONDS));
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testCannotMonitorOnceClosed() {
+      poller.close();
+      poller.monitor(new CountingStatus(1, new AtomicInteger(), new AtomicInteger()));
+   }
+
+   private static class CountingStatus extends BlockUntilInitScriptStatusIsZeroThenReturnOutput {
+      private final int pollsUntilDone;
+      private final AtomicInteger inFlight;
+      private final AtomicInteger maxInFlight;
+      private final AtomicInteger polls = new AtomicInteger();
+      private final CountDownLatch done = new CountDownLatch(1);
+
+      private CountingStatus(int pollsUntilDone, AtomicInteger inFlight, AtomicInteger maxInFlight) {
+         super(MoreExecutors.sameThreadExecutor(), new EventBus(), Predicates.<String> alwaysTrue(),
+               createMockBuilder(SudoAwareInitManager.class).createMock());
+         this.pollsUntilDone = pollsUntilDone;
+         this.inFlight = inFlight;
+         this.maxInFlight = maxInFlight;
+      }
+
+      @Override
+      boolean poll() {
+         int current = inFlight.incrementAndGet();
+         synchronized (maxInFlight) {
+            maxInFlight.set(Math.max(maxInFlight.get(), current));
+         }
+         try {
+            Thread.sleep(2);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         } finally {
+            inFlight.decrementAndGet();
+         }
+         if (polls.incrementAndGet() < pollsUntilDone)
+            return false;
+         done.countDown();
+         return true;
+      }
+   }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.strategy.impl;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.compute.strategy.impl.GroupNodeNameAllocator.InGroup;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "GroupNodeNameAllocatorTest")
+public class GroupNodeNameAllocatorTest {
+
+   NodeMetadata web1 = new NodeMetadataBuilder().ids("1").name("web-1").group("web").status(NodeMetadata.Status.RUNNING)
+         .build();
+
+   @SuppressWarnings("unchecked")
+   public void testSkipsNamesInUseAndReusesListingWithinCachePeriod() {
+      ListNodesStrategy listNodes = createMock(ListNodesStrategy.class);
+      GroupNamingConvention.Factory namingConvention = createMock(GroupNamingConvention.Factory.class);
+      GroupNamingConvention convention = createMock(GroupNamingConvention.class);
+
+      expect(namingConvention.create()).andReturn(convention).anyTimes();
+      expect(namingConvention.createWithoutPrefix()).andReturn(convention).anyTimes();
+      expect(convention.containsGroup("web")).andReturn(Predicates.<String> alwaysTrue()).anyTimes();
+      // the group is listed only once
+      expect(listNodes.listDetailsOnNodesMatching(anyObject(Predicate.class))).andReturn(
+            (Iterable) ImmutableSet.of(web1)).once();
+      expect(convention.uniqueNameForGroup("web")).andReturn("web-1");
+      expect(convention.uniqueNameForGroup("web")).andReturn("web-2");
+      expect(convention.uniqueNameForGroup("web")).andReturn("web-2");
+      expect(convention.uniqueNameForGroup("web")).andReturn("web-3");
+      replay(listNodes, namingConvention, convention);
+
+      GroupNodeNameAllocator allocator = new GroupNodeNameAllocator(listNodes, namingConvention);
+      assertEquals(allocator.allocate("web", 1), ImmutableSet.of("web-2"));
+      assertEquals(allocator.allocate("web", 1), ImmutableSet.of("web-3"));
+
+      verify(listNodes, namingConvention, convention);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testListsAgainOnceCachePeriodExpires() {
+      ListNodesStrategy listNodes = createMock(ListNodesStrategy.class);
+      GroupNamingConvention.Factory namingConvention = createMock(GroupNamingConvention.Factory.class);
+      GroupNamingConvention convention = createMock(GroupNamingConvention.class);
+
+      expect(namingConvention.create()).andReturn(convention).anyTimes();
+      expect(namingConvention.createWithoutPrefix()).andReturn(convention).anyTimes();
+      expect(convention.containsGroup("web")).andReturn(Predicates.<String> alwaysTrue()).anyTimes();
+      expect(listNodes.listDetailsOnNodesMatching(anyObject(Predicate.class))).andReturn(
+            (Iterable) ImmutableSet.of(web1)).times(2);
+      expect(convention.uniqueNameForGroup("web")).andReturn("web-2").times(2);
+      replay(listNodes, namingConvention, convention);
+
+      final long[] now = { 0 };
+      GroupNodeNameAllocator allocator = new GroupNodeNameAllocator(listNodes, namingConvention);
+      allocator.ticker = new Ticker() {
+         @Override
+         public long read() {
+            return now[0];
+         }
+      };
+      assertEquals(allocator.allocate("web", 1), ImmutableSet.of("web-2"));
+      now[0] += TimeUnit.MILLISECONDS.toNanos(allocator.cachePeriod);
+      // web-2 wasn't created after all, so it is free again
+      assertEquals(allocator.allocate("web", 1), ImmutableSet.of("web-2"));
+
+      verify(listNodes, namingConvention, convention);
+   }
+
+   public void testZeroCountDoesntList() {
+      ListNodesStrategy listNodes = createMock(ListNodesStrategy.class);
+      GroupNamingConvention.Factory namingConvention = createMock(GroupNamingConvention.Factory.class);
+      replay(listNodes, namingConvention);
+
+      Set<String> names = new GroupNodeNameAllocator(listNodes, namingConvention).allocate("web", 0);
+      assertTrue(names.isEmpty());
+
+      verify(listNodes, namingConvention);
+   }
+
+   public void testInGroupMatchesGroupOrEncodedName() {
+      InGroup inGroup = new InGroup("web", new Predicate<String>() {
+         @Override
+         public boolean apply(String input) {
+            return input.startsWith("web-");
+         }
+      });
+      ComputeMetadata otherGroupNamedLikeWeb = new NodeMetadataBuilder().ids("2").name("web-9").group("db")
+            .status(NodeMetadata.Status.RUNNING).build();
+      ComputeMetadata other = new NodeMetadataBuilder().ids("3").name("db-1").group("db")
+            .status(NodeMetadata.Status.RUNNING).build();
+
+      assertTrue(inGroup.apply(web1));
+      assertTrue(inGroup.apply(otherGroupNamedLikeWeb));
+      assertFalse(inGroup.apply(other));
+      assertEquals(inGroup.getGroup(), "web");
+   }
+}
@@ -17,6 +17,8 @@
 package org.jclouds.compute.suppliers;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 
 import java.util.Set;
 
@@ -74,4 +76,29 @@ public class ImageCacheSupplierTest {
 
       assertEquals(imageCache.get().size(), 2);
    }
+
+   @Test
+   public void testSnapshotIsReusedUntilImagesChange() {
+      ImageCacheSupplier imageCache = new ImageCacheSupplier(Suppliers.<Set<? extends Image>> ofInstance(images), 60);
+      Set<? extends Image> snapshot = imageCache.get();
+      assertSame(imageCache.get(), snapshot);
+
+      imageCache.registerImage(ImageBuilder.fromImage(image).id("newimage").build());
+
+      assertEquals(imageCache.get().size(), 2);
+      assertSame(imageCache.get(), imageCache.get());
+   }
+
+   @Test
+   public void testGetImageById() {
+      ImageCacheSupplier imageCache = new ImageCacheSupplier(Suppliers.<Set<? extends Image>> ofInstance(images), 60);
+      assertSame(imageCache.getImage("imageId"), image);
+      assertNull(imageCache.getImage("newimage"));
+
+      Image newImage = ImageBuilder.fromImage(image).id("newimage").build();
+      imageCache.registerImage(newImage);
+
+      assertSame(imageCache.getImage("newimage"), newImage);
+      assertEquals(imageCache.getImageMap().keySet(), ImmutableSet.of("imageId", "newimage"));
+   }
 }
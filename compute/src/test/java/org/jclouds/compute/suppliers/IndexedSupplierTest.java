@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.HardwareBuilder;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "IndexedSupplierTest")
+public class IndexedSupplierTest {
+
+   private final Location region = new LocationBuilder().scope(LocationScope.REGION).id("region").description("region")
+         .build();
+   private final Hardware small = new HardwareBuilder().ids("region/small").providerId("small").location(region)
+         .build();
+   private final Hardware large = new HardwareBuilder().ids("region/large").providerId("large").location(region)
+         .build();
+   private final Hardware otherSmall = new HardwareBuilder().ids("other/small").providerId("small").build();
+
+   public void testById() {
+      IndexedSupplier<String, Hardware> index = IndexedSupplier.byId(supplierOf(ImmutableSet.of(small, large)));
+
+      assertSame(index.first("region/large"), large);
+      assertNull(index.first("large"));
+   }
+
+   public void testByProviderIdKeepsOrder() {
+      IndexedSupplier<String, Hardware> index = IndexedSupplier.byProviderId(supplierOf(ImmutableSet.of(otherSmall,
+            large, small)));
+
+      assertEquals(index.all("small"), ImmutableList.of(otherSmall, small));
+      assertSame(index.first("small"), otherSmall);
+      assertEquals(index.all("medium"), ImmutableList.of());
+   }
+
+   public void testFirstByKey() {
+      IndexedSupplier<String, Hardware> index = IndexedSupplier.byProviderId(supplierOf(ImmutableSet.of(otherSmall,
+            large, small)));
+
+      assertEquals(index.firstByKey(), ImmutableMap.of("small", otherSmall, "large", large));
+   }
+
+   public void testLocationsById() {
+      IndexedSupplier<String, Location> index = IndexedSupplier.locationsById(supplierOf(ImmutableSet.of(region)));
+
+      assertSame(index.first("region"), region);
+   }
+
+   public void testRebuildsOnlyWhenTheSupplierReturnsAnotherCollection() {
+      final AtomicInteger calls = new AtomicInteger();
+      final Set<Hardware> first = ImmutableSet.of(small);
+      final Set<Hardware> second = ImmutableSet.of(large);
+      IndexedSupplier<String, Hardware> index = IndexedSupplier.byId(new Supplier<Set<Hardware>>() {
+         @Override
+         public Set<Hardware> get() {
+            return calls.incrementAndGet() <= 2 ? first : second;
+         }
+      });
+
+      ImmutableListMultimap<String, Hardware> indexed = index.get();
+      assertSame(index.get(), indexed);
+      assertSame(index.first("region/large"), large);
+      assertNull(index.first("region/small"));
+   }
+
+   private static <T> Supplier<Set<T>> supplierOf(final Set<T> values) {
+      return new Supplier<Set<T>>() {
+         @Override
+         public Set<T> get() {
+            return values;
+         }
+      };
+   }
+}
@@ -19,6 +19,8 @@ package org.jclouds.compute.util;
 import static com.google.common.base.Predicates.alwaysFalse;
 import static com.google.common.base.Predicates.alwaysTrue;
 import static com.google.common.base.Throwables.propagate;
+import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
 import static java.util.concurrent.Executors.newCachedThreadPool;
@@ -39,6 +41,7 @@ import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.compute.util.ConcurrentOpenSocketFinder.AllowedInterfaces;
 import org.jclouds.predicates.SocketOpen;
+import org.jclouds.predicates.SocketProbe;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -49,7 +52,9 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
 
 @Test(singleThreaded = true)
 public class ConcurrentOpenSocketFinderTest {
@@ -175,6 +180,59 @@ public class ConcurrentOpenSocketFinderTest {
       }
    }
 
+   @Test
+   public void testReturnsSocketFoundByProbe() throws Exception {
+      SocketProbe probe = new SocketProbe() {
+         @Override
+         public ListenableFuture<HostAndPort> findFirstOpen(Iterable<HostAndPort> sockets, long timeout,
+               TimeUnit timeUnit) {
+            assertEquals(ImmutableSet.copyOf(sockets),
+                  ImmutableSet.of(HostAndPort.fromParts(PUBLIC_IP, 22), HostAndPort.fromParts(PRIVATE_IP, 22)));
+            return immediateFuture(HostAndPort.fromParts(PRIVATE_IP, 22));
+         }
+      };
+
+      OpenSocketFinder finder = new ConcurrentOpenSocketFinder(socketAlwaysClosed, nodeRunning, userExecutor, probe);
+
+      HostAndPort result = finder.findOpenSocketOnNode(node, 22, 2000, MILLISECONDS);
+      assertEquals(result, HostAndPort.fromParts(PRIVATE_IP, 22));
+   }
+
+   @Test(expectedExceptions = NoSuchElementException.class)
+   public void testProbeTimeout() throws Exception {
+      SocketProbe probe = new SocketProbe() {
+         @Override
+         public ListenableFuture<HostAndPort> findFirstOpen(Iterable<HostAndPort> sockets, long timeout,
+               TimeUnit timeUnit) {
+            return immediateFailedFuture(new NoSuchElementException());
+         }
+      };
+
+      OpenSocketFinder finder = new ConcurrentOpenSocketFinder(socketAlwaysClosed, nodeRunning, userExecutor, probe);
+
+      finder.findOpenSocketOnNode(node, 22, 2000, MILLISECONDS);
+   }
+
+   @Test
+   public void testProbeAbortsWhenNodeNotRunning() throws Exception {
+      final SettableFuture<HostAndPort> neverOpens = SettableFuture.create();
+      SocketProbe probe = new SocketProbe() {
+         @Override
+         public ListenableFuture<HostAndPort> findFirstOpen(Iterable<HostAndPort> sockets, long timeout,
+               TimeUnit timeUnit) {
+            return neverOpens;
+         }
+      };
+
+      OpenSocketFinder finder = new ConcurrentOpenSocketFinder(socketAlwaysClosed, nodeNotRunning, userExecutor, probe);
+
+      try {
+         finder.findOpenSocketOnNode(node, 22, 5000, MILLISECONDS);
+         fail();
+      } catch (IllegalStateException e) {
+         assertTrue(neverOpens.isCancelled(), "probe should have been cancelled");
+      }
+   }
 
    @Test
    public void testSocketFinderAllowedInterfacesAll() throws Exception {
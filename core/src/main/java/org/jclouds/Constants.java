@@ -166,6 +166,130 @@ public final class Constants {
     * backoff algorithm. Default value for this property is 50 milliseconds.
     */
    public static final String PROPERTY_RETRY_DELAY_START = "jclouds.retries-delay-start";
+   /**
+    * Boolean property. default (false)
+    * <p/>
+    * When true, the delay before retrying a command is drawn uniformly between zero and the exponential backoff
+    * delay ("full jitter"), instead of adding up to a tenth to it. Commands that failed together, for example during
+    * a provider brownout, are then spread over the backoff window rather than retrying together.
+    */
+   public static final String PROPERTY_RETRY_FULL_JITTER = "jclouds.retry-full-jitter";
+   /**
+    * Boolean property. default (false)
+    * <p/>
+    * When true, synchronous api calls with a timeout are sent on the user executor and retried after their backoff
+    * delay is scheduled, instead of holding the calling thread asleep between attempts.
+    */
+   public static final String PROPERTY_SCHEDULE_RETRIES = "jclouds.schedule-retries";
+   /**
+    * Double property. default (100)
+    * <p/>
+    * When {@link org.jclouds.http.ratelimit.config.AdaptiveRateLimitModule} is installed, the number of requests per
+    * second sent to each endpoint before any throttling is seen, and the rate it ramps back up to afterwards.
+    */
+   public static final String PROPERTY_RATE_LIMIT_MAX_RATE = "jclouds.rate-limit.max-rate";
+   /**
+    * Double property. default (1)
+    * <p/>
+    * The rate, in requests per second, an endpoint is never slowed down below, however often it throttles.
+    */
+   public static final String PROPERTY_RATE_LIMIT_MIN_RATE = "jclouds.rate-limit.min-rate";
+   /**
+    * Double property. default (0.5)
+    * <p/>
+    * The rate of an endpoint is multiplied by this factor each time it responds with a throttling error.
+    */
+   public static final String PROPERTY_RATE_LIMIT_DECREASE_FACTOR = "jclouds.rate-limit.decrease-factor";
+   /**
+    * Double property. default (1)
+    * <p/>
+    * Requests per second added to the rate of an endpoint for every second without throttling, until it is back to
+    * {@link #PROPERTY_RATE_LIMIT_MAX_RATE}.
+    */
+   public static final String PROPERTY_RATE_LIMIT_INCREASE = "jclouds.rate-limit.increase";
+   /**
+    * Double properties
+    * <p/>
+    * Overrides the weight of commands against the rate limit, which is 1 by default. Here's an example of an override
+    * for a single method:
+    * <p/>
+    * <code>
+    * jclouds.rate-limit.weights.DescribeInstances=5
+    * </code>
+    * <p/>
+    * Or for all methods:
+    * <p/>
+    * <code>
+    * jclouds.rate-limit.weights.S3Client=2
+    * </code>
+    */
+   public static final String PROPERTY_RATE_LIMIT_WEIGHTS_PREFIX = "jclouds.rate-limit.weights.";
+   /**
+    * Double property. default (0, disabled)
+    * <p/>
+    * When set, idempotent commands (GET, HEAD, or methods annotated with
+    * {@link org.jclouds.rest.annotations.Idempotent}) that have not received a response after this percentile of
+    * their usual latency are sent a second time, and whichever response arrives first is used. For example, 95 sends a
+    * backup attempt for roughly one command in twenty. When set, it must be greater than 0 and at most 100.
+    */
+   public static final String PROPERTY_HEDGE_PERCENTILE = "jclouds.hedge.percentile";
+   /**
+    * Long property. default (5)
+    * <p/>
+    * The minimum delay, in milliseconds, before sending a backup attempt of a command, however fast it usually is.
+    */
+   public static final String PROPERTY_HEDGE_MIN_DELAY = "jclouds.hedge.min-delay";
+   /**
+    * Integer property. default (20)
+    * <p/>
+    * The maximum number of threads sending attempts of hedged commands. When they are all busy, commands are sent
+    * once, on the calling thread.
+    */
+   public static final String PROPERTY_HEDGE_MAX_THREADS = "jclouds.hedge.max-threads";
+   /**
+    * Long properties
+    * <p/>
+    * Caches the parsed results of GET commands for the given time, in ms. While cached, a command is sent with
+    * {@code If-None-Match} or {@code If-Modified-Since}, and the cached result is returned when the server responds
+    * {@code 304 Not Modified}. Here's an example for a single method:
+    * <p/>
+    * <code>
+    * #5 minutes <br/>
+    * jclouds.response-cache.FlavorApi.listInDetail=300000
+    * </code>
+    * <p/>
+    * Or for all methods of an api, or all methods:
+    * <p/>
+    * <code>
+    * jclouds.response-cache.FlavorApi=300000 <br/>
+    * jclouds.response-cache.default=300000
+    * </code>
+    * <p/>
+    * Only configure commands whose results are immutable, as the same result is returned to every caller.
+    */
+   public static final String PROPERTY_RESPONSE_CACHE_PREFIX = "jclouds.response-cache.";
+   /**
+    * Long property. default (1000)
+    * <p/>
+    * Maximum number of results kept by the cache configured with {@link #PROPERTY_RESPONSE_CACHE_PREFIX}. The least
+    * recently used results are evicted first.
+    */
+   public static final String PROPERTY_RESPONSE_CACHE_SIZE = "jclouds.response-cache-size";
+   /**
+    * Boolean property. default (false)
+    * <p/>
+    * When true, identical idempotent requests (GET, HEAD, or methods annotated with
+    * {@link org.jclouds.rest.annotations.Idempotent} without a payload) made concurrently share a single request to
+    * the provider. Each caller parses its own copy of the response.
+    */
+   public static final String PROPERTY_COALESCE_REQUESTS = "jclouds.coalesce-requests";
+   /**
+    * Long property. default (1048576)
+    * <p/>
+    * Largest response, in bytes, shared between callers when {@link #PROPERTY_COALESCE_REQUESTS} is set. Callers
+    * waiting for a larger response, or one of unknown length, send their own request instead.
+    */
+   public static final String PROPERTY_COALESCE_MAX_PAYLOAD = "jclouds.coalesce-max-payload";
    /**
     * Integer property.
     * <p/>
@@ -148,7 +148,7 @@ import com.google.inject.TypeLiteral;
  */
 public class ContextBuilder {
 
-   private static final Stage GUICE_STAGE = Stage.PRODUCTION;
+   static final Stage GUICE_STAGE = Stage.PRODUCTION;
 
    /**
     * looks up a provider or api with the given id
@@ -298,11 +298,6 @@ public class ContextBuilder {
 
    public Injector buildInjector() {
 
-      Properties unexpanded = currentStateToUnexpandedProperties();
-
-      Set<String> keysToResolve = ImmutableSet.of(PROPERTY_IDENTITY, PROPERTY_CREDENTIAL, PROPERTY_ENDPOINT,
-            PROPERTY_API, PROPERTY_API_VERSION, PROPERTY_BUILD_VERSION);
-
       Set<String> optionalKeys;
       if (credentialsSupplierOption.isPresent()) {
          optionalKeys = ImmutableSet.of(PROPERTY_IDENTITY, PROPERTY_CREDENTIAL);
@@ -312,9 +307,7 @@ public class ContextBuilder {
          optionalKeys = ImmutableSet.of();
       }
 
-      Properties resolved = resolveProperties(unexpanded, providerId, keysToResolve, optionalKeys);
-
-      Properties expanded = expandProperties(resolved);
+      Properties expanded = resolveAndExpandProperties(optionalKeys);
 
       Supplier<Credentials> credentialsSupplier = buildCredentialsSupplier(expanded);
 
@@ -328,6 +321,31 @@ public class ContextBuilder {
             providerMetadata, credentialsSupplier, modules);
    }
 
+   /**
+    * Resolves the properties and modules of this builder once, into a {@link ContextTemplate} that builds a context
+    * per set of credentials. Credentials set on this builder are ignored; each context built from the template is
+    * given its own.
+    */
+   public ContextTemplate buildTemplate() {
+      Properties expanded = resolveAndExpandProperties(ImmutableSet.of(PROPERTY_IDENTITY, PROPERTY_CREDENTIAL));
+      expanded.remove(PROPERTY_IDENTITY);
+      expanded.remove(PROPERTY_CREDENTIAL);
+      ProviderMetadata providerMetadata = new UpdateProviderMetadataFromProperties(apiMetadata, this.providerMetadata)
+            .apply(expanded);
+      return new ContextTemplate(providerMetadata, modules);
+   }
+
+   private Properties resolveAndExpandProperties(Set<String> optionalKeys) {
+      Properties unexpanded = currentStateToUnexpandedProperties();
+
+      Set<String> keysToResolve = ImmutableSet.of(PROPERTY_IDENTITY, PROPERTY_CREDENTIAL, PROPERTY_ENDPOINT,
+            PROPERTY_API, PROPERTY_API_VERSION, PROPERTY_BUILD_VERSION);
+
+      Properties resolved = resolveProperties(unexpanded, providerId, keysToResolve, optionalKeys);
+
+      return expandProperties(resolved);
+   }
+
    protected Supplier<Credentials> buildCredentialsSupplier(Properties expanded) {
       Credentials creds = new Credentials(getAndRemove(expanded, PROPERTY_IDENTITY), getAndRemove(expanded,
             PROPERTY_CREDENTIAL));
@@ -483,7 +501,7 @@ public class ContextBuilder {
          addClientModule(apiMetadata, modules);
       }
    }
-   private static boolean apiModulePresent(List<Module> modules) {
+   static boolean apiModulePresent(List<Module> modules) {
       return any(modules, configuresApi);
    }
 
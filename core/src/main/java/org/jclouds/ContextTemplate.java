@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Iterables.addAll;
+import static com.google.common.collect.Iterables.any;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.ContextBuilder.GUICE_STAGE;
+import static org.jclouds.ContextBuilder.addClientModuleIfNotPresent;
+import static org.jclouds.ContextBuilder.addCredentialStoreIfNotPresent;
+import static org.jclouds.ContextBuilder.addEventBusIfNotPresent;
+import static org.jclouds.ContextBuilder.addHttpModuleIfNeededAndNotPresent;
+import static org.jclouds.ContextBuilder.addRestContextBinding;
+import static org.jclouds.ContextBuilder.apiModulePresent;
+import static org.jclouds.ContextBuilder.ifSpecifiedByUserDontIncludeDefaultApiModule;
+import static org.jclouds.reflect.Reflection2.typeToken;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+
+import org.jclouds.apis.Apis;
+import org.jclouds.concurrent.SingleThreaded;
+import org.jclouds.concurrent.config.ConfiguresExecutorService;
+import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.config.BindNameToContext;
+import org.jclouds.domain.Credentials;
+import org.jclouds.lifecycle.config.LifeCycleModule;
+import org.jclouds.logging.config.LoggingModule;
+import org.jclouds.logging.jdk.config.JDKLoggingModule;
+import org.jclouds.providers.ProviderMetadata;
+import org.jclouds.providers.config.BindProviderMetadataContextAndCredentials;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.base.Supplier;
+import com.google.common.collect.Iterables;
+import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ExecutionList;
+import com.google.common.util.concurrent.ForwardingListeningExecutorService;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SimpleTimeLimiter;
+import com.google.common.util.concurrent.TimeLimiter;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+
+/**
+ * Builds contexts for many sets of credentials against the same provider, as a multi-tenant service would.
+ * <p/>
+ * Properties are resolved and expanded once, by {@link ContextBuilder#buildTemplate()}. They are bound in a parent
+ * injector with the logging module and the user executor, and each context is a child of it. Only the credentials,
+ * the provider metadata, including the endpoint, and the api modules are bound per context, so the auth caches stay
+ * per tenant.
+ * <p/>
+ * Guice creates a just-in-time binding in the parent when all of its dependencies are bound there, and every context
+ * then shares that instance. State that must stay per context, such as cached or coalesced responses, is therefore
+ * bound explicitly by the context modules, as {@link org.jclouds.rest.config.RestModule} does.
+ * <p/>
+ * Closing a context releases its own resources, but not the shared executor; {@link #close()} the template when all
+ * of its contexts are closed. If the modules configure an executor service, each context gets its own, as it would
+ * with {@link ContextBuilder}.
+ * <p/>
+ * ex. to build a compute context per tenant
+ * 
+ * <pre>
+ * template = ContextBuilder.newBuilder("aws-ec2").overrides(overrides).modules(modules).buildTemplate();
+ * context = template.build(tenantId, Suppliers.ofInstance(new Credentials(identity, credential)));
+ * </pre>
+ * 
+ * Properties that reference the identity, such as {@code http://${jclouds.identity}.example.com}, are expanded
+ * once for the template, so they cannot vary per context.
+ */
+public final class ContextTemplate implements Closeable {
+
+   private static final Predicate<Module> configuresExecutorService = new Predicate<Module>() {
+      public boolean apply(Module input) {
+         return input.getClass().isAnnotationPresent(ConfiguresExecutorService.class);
+      }
+   };
+
+   private static final Predicate<Module> singleThreaded = new Predicate<Module>() {
+      public boolean apply(Module input) {
+         return input.getClass().isAnnotationPresent(SingleThreaded.class);
+      }
+   };
+
+   /**
+    * Marks the context modules as configuring an executor, as the parent injector binds it.
+    */
+   @ConfiguresExecutorService
+   private static final class ExecutorServiceInParent extends AbstractModule {
+      @Override
+      protected void configure() {
+      }
+   }
+
+   /**
+    * The user executor as seen by contexts: closing a context shuts down its executor, and this one is shared.
+    */
+   private static final class SharedExecutor extends ForwardingListeningExecutorService {
+      private final ListeningExecutorService delegate;
+
+      private SharedExecutor(ListeningExecutorService delegate) {
+         this.delegate = delegate;
+      }
+
+      @Override
+      protected ListeningExecutorService delegate() {
+         return delegate;
+      }
+
+      @Override
+      public void shutdown() {
+      }
+
+      @Override
+      public List<Runnable> shutdownNow() {
+         return Collections.emptyList();
+      }
+   }
+
+   private final ProviderMetadata providerMetadata;
+   private final List<Module> contextModules;
+   private final Injector parent;
+   private final ListeningExecutorService userExecutor;
+
+   ContextTemplate(ProviderMetadata providerMetadata, List<Module> modules) {
+      this.providerMetadata = checkNotNull(providerMetadata, "providerMetadata");
+      final Properties properties = BindProviderMetadataContextAndCredentials.properties(providerMetadata);
+      final LoggingModule loggingModule = (LoggingModule) Iterables.find(modules,
+            Predicates.instanceOf(LoggingModule.class), new JDKLoggingModule());
+      List<Module> contextModules = newArrayList(Iterables.filter(modules,
+            Predicates.not(Predicates.<Module> equalTo(loggingModule))));
+      if (any(contextModules, configuresExecutorService)) {
+         this.userExecutor = null;
+      } else {
+         this.userExecutor = any(contextModules, singleThreaded) ? sameThreadExecutor() : ExecutorServiceModule
+               .newUserExecutor(Integer.parseInt(properties.getProperty(PROPERTY_USER_THREADS)));
+         contextModules.add(new ExecutorServiceInParent());
+      }
+      this.contextModules = contextModules;
+      final ListeningExecutorService sharedExecutor = userExecutor != null ? new SharedExecutor(userExecutor) : null;
+      this.parent = Guice.createInjector(GUICE_STAGE, loggingModule, new AbstractModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), properties);
+            if (sharedExecutor != null) {
+               bind(ListeningExecutorService.class).annotatedWith(Names.named(PROPERTY_USER_THREADS)).toInstance(
+                     sharedExecutor);
+               bind(ExecutorService.class).annotatedWith(Names.named(PROPERTY_USER_THREADS)).toInstance(
+                     sharedExecutor);
+               bind(TimeLimiter.class).toInstance(new SimpleTimeLimiter(sharedExecutor));
+            }
+         }
+      });
+   }
+
+   private ContextTemplate(ContextTemplate from, ProviderMetadata providerMetadata) {
+      this.providerMetadata = providerMetadata;
+      this.contextModules = from.contextModules;
+      this.parent = from.parent;
+      this.userExecutor = from.userExecutor;
+   }
+
+   /**
+    * Returns a template that shares this one's parent injector and executor, and builds contexts on
+    * {@code endpoint}.
+    */
+   public ContextTemplate withEndpoint(String endpoint) {
+      return new ContextTemplate(this, providerMetadata.toBuilder().endpoint(checkNotNull(endpoint, "endpoint"))
+            .build());
+   }
+
+   public ProviderMetadata getProviderMetadata() {
+      return providerMetadata;
+   }
+
+   /**
+    * Builds the injector of a context named {@code name} that signs with {@code creds}.
+    * <p/>
+    * Modules passed to the builder are shared by every context, and a Guice module cannot configure two injectors
+    * at the same time, so contexts are built one at a time.
+    */
+   public Injector buildInjector(String name, Supplier<Credentials> creds) {
+      List<Module> modules = newArrayList(contextModules);
+      boolean apiModuleSpecifiedByUser = apiModulePresent(contextModules);
+      addAll(modules, ifSpecifiedByUserDontIncludeDefaultApiModule(providerMetadata.getApiMetadata(),
+            apiModuleSpecifiedByUser));
+      addClientModuleIfNotPresent(providerMetadata.getApiMetadata(), modules);
+      addRestContextBinding(providerMetadata.getApiMetadata(), modules);
+      addHttpModuleIfNeededAndNotPresent(modules);
+      ContextBuilder.addExecutorServiceIfNotPresent(modules);
+      addEventBusIfNotPresent(modules);
+      addCredentialStoreIfNotPresent(modules);
+      modules.add(new LifeCycleModule());
+      modules.add(new BindProviderMetadataContextAndCredentials(providerMetadata, checkNotNull(creds, "creds"), false));
+      modules.add(new BindNameToContext(checkNotNull(name, "name")));
+      Injector child;
+      synchronized (parent) {
+         child = parent.createChildInjector(modules);
+      }
+      child.getInstance(ExecutionList.class).execute();
+      return child;
+   }
+
+   /**
+    * Builds the {@link org.jclouds.apis.ApiMetadata#getContext() context} of the api for {@code creds}.
+    */
+   @SuppressWarnings("unchecked")
+   public <C extends Context> C build(String name, Supplier<Credentials> creds) {
+      TypeToken<? extends Context> contextType = providerMetadata.getApiMetadata().getContext();
+      return (C) buildInjector(name, creds).getInstance(Key.get(TypeLiteral.get(contextType.getType())));
+   }
+
+   /**
+    * @see ContextBuilder#buildView(Class)
+    */
+   @SuppressWarnings("unchecked")
+   public <V extends View> V buildView(Class<V> viewType, String name, Supplier<Credentials> creds) {
+      TypeToken<V> returnType = (TypeToken<V>) Apis.findView(providerMetadata.getApiMetadata(),
+            typeToken(checkNotNull(viewType, "viewType")));
+      return (V) buildInjector(name, creds).getInstance(Key.get(TypeLiteral.get(returnType.getType())));
+   }
+
+   /**
+    * @see ContextBuilder#buildApi(Class)
+    */
+   public <A extends Closeable> A buildApi(Class<A> api, String name, Supplier<Credentials> creds) {
+      return buildInjector(name, creds).getInstance(checkNotNull(api, "api"));
+   }
+
+   @VisibleForTesting
+   Injector parent() {
+      return parent;
+   }
+
+   /**
+    * Shuts down the executor shared by the contexts of this template and of the templates
+    * {@link #withEndpoint derived} from it.
+    */
+   @Override
+   public void close() {
+      if (userExecutor != null)
+         userExecutor.shutdownNow();
+   }
+}
@@ -0,0 +1,476 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.concurrent;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.AbstractMap;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Ticker;
+import com.google.common.cache.AbstractLoadingCache;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * A cache of session tokens, or anything else that expires, which replaces each value before it expires.
+ * <p/>
+ * The lifetime of a value is read from the value itself, for example from the expiry of a token, and the value is
+ * reloaded once a fraction of that lifetime, 90% by default, has passed. When a scheduler is given, the reload runs
+ * on it at that point. Otherwise the first read past that point starts the reload on the executor, and returns the
+ * current value. Without either, that read reloads the value on its own thread while other readers keep getting the
+ * current one.
+ * <p/>
+ * Reads of a current value take no lock. Concurrent loads of the same key share a single call to the loader.
+ * Invalidations of a value loaded less than {@code minReloadInterval} ago are ignored: when a token is rejected, every
+ * request still carrying the previous token fails, and the first failure already replaced it.
+ * <p/>
+ * {@link #stats()} counts hits, misses, loads and evictions; {@link #refreshCount()}, {@link #refreshFailureCount()}
+ * and {@link #ignoredInvalidationCount()} count reloads ahead of expiry.
+ */
+@Beta
+public final class RefreshAheadCache<K, V> extends AbstractLoadingCache<K, V> {
+
+   public static <K, V> Builder<K, V> builder(CacheLoader<K, V> loader) {
+      return new Builder<K, V>(loader);
+   }
+
+   public static final class Builder<K, V> {
+      private final CacheLoader<K, V> loader;
+      private Function<? super V, Date> expiresAt;
+      private long defaultLifetimeNanos = Long.MAX_VALUE;
+      private long maxLifetimeNanos = Long.MAX_VALUE;
+      private double refreshAt = 0.9;
+      private long minReloadIntervalNanos = TimeUnit.SECONDS.toNanos(2);
+      private ScheduledExecutorService scheduler;
+      private Executor executor;
+      private Ticker ticker = Ticker.systemTicker();
+
+      private Builder(CacheLoader<K, V> loader) {
+         this.loader = checkNotNull(loader, "loader");
+      }
+
+      /**
+       * When a value expires, or null if it does not say.
+       */
+      public Builder<K, V> expiresAt(Function<? super V, Date> expiresAt) {
+         this.expiresAt = checkNotNull(expiresAt, "expiresAt");
+         return this;
+      }
+
+      /**
+       * The lifetime of values that do not say when they expire. By default they never expire.
+       */
+      public Builder<K, V> defaultLifetime(long lifetime, TimeUnit unit) {
+         checkArgument(lifetime > 0, "lifetime must be positive");
+         this.defaultLifetimeNanos = unit.toNanos(lifetime);
+         return this;
+      }
+
+      /**
+       * The longest a value is kept, whatever its expiry.
+       */
+      public Builder<K, V> maxLifetime(long lifetime, TimeUnit unit) {
+         checkArgument(lifetime > 0, "lifetime must be positive");
+         this.maxLifetimeNanos = unit.toNanos(lifetime);
+         return this;
+      }
+
+      /**
+       * The fraction of its lifetime after which a value is reloaded. Default 0.9.
+       */
+      public Builder<K, V> refreshAt(double refreshAt) {
+         checkArgument(refreshAt > 0 && refreshAt <= 1, "refreshAt must be in (0, 1]");
+         this.refreshAt = refreshAt;
+         return this;
+      }
+
+      /**
+       * How long after a load invalidations of the loaded value are ignored. Default two seconds.
+       */
+      public Builder<K, V> minReloadInterval(long interval, TimeUnit unit) {
+         checkArgument(interval >= 0, "interval must be non-negative");
+         this.minReloadIntervalNanos = unit.toNanos(interval);
+         return this;
+      }
+
+      /**
+       * Where reloads ahead of expiry run. Without one, they run on the thread of the first read that finds the value
+       * due.
+       */
+      public Builder<K, V> scheduler(@Nullable ScheduledExecutorService scheduler) {
+         this.scheduler = scheduler;
+         return this;
+      }
+
+      /**
+       * Where reloads run when there is no scheduler, or it rejects them. Without one, they run on the thread of the
+       * first read that finds the value due.
+       */
+      public Builder<K, V> executor(@Nullable Executor executor) {
+         this.executor = executor;
+         return this;
+      }
+
+      public Builder<K, V> ticker(Ticker ticker) {
+         this.ticker = checkNotNull(ticker, "ticker");
+         return this;
+      }
+
+      public RefreshAheadCache<K, V> build() {
+         return new RefreshAheadCache<K, V>(this);
+      }
+   }
+
+   private static final class Loaded<V> {
+      private final V value;
+      private final long loadedNanos;
+      private final long expiresNanos;
+      private volatile long refreshNanos;
+      private final AtomicBoolean refreshing = new AtomicBoolean();
+
+      private Loaded(V value, long loadedNanos, long refreshNanos, long expiresNanos) {
+         this.value = value;
+         this.loadedNanos = loadedNanos;
+         this.refreshNanos = refreshNanos;
+         this.expiresNanos = expiresNanos;
+      }
+   }
+
+   private final CacheLoader<K, V> loader;
+   private final Function<? super V, Date> expiresAt;
+   private final long defaultLifetimeNanos;
+   private final long maxLifetimeNanos;
+   private final double refreshAt;
+   private final long minReloadIntervalNanos;
+   private final ScheduledExecutorService scheduler;
+   private final Executor executor;
+   private final Ticker ticker;
+
+   private final ConcurrentMap<K, Loaded<V>> entries = Maps.newConcurrentMap();
+   private final ConcurrentMap<K, SettableFuture<V>> loading = Maps.newConcurrentMap();
+
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+   private final AtomicLong loadSuccesses = new AtomicLong();
+   private final AtomicLong loadFailures = new AtomicLong();
+   private final AtomicLong totalLoadNanos = new AtomicLong();
+   private final AtomicLong evictions = new AtomicLong();
+   private final AtomicLong refreshes = new AtomicLong();
+   private final AtomicLong refreshFailures = new AtomicLong();
+   private final AtomicLong ignoredInvalidations = new AtomicLong();
+
+   private RefreshAheadCache(Builder<K, V> builder) {
+      this.loader = builder.loader;
+      this.expiresAt = builder.expiresAt;
+      this.defaultLifetimeNanos = builder.defaultLifetimeNanos;
+      this.maxLifetimeNanos = builder.maxLifetimeNanos;
+      this.refreshAt = builder.refreshAt;
+      this.minReloadIntervalNanos = builder.minReloadIntervalNanos;
+      this.scheduler = builder.scheduler;
+      this.executor = builder.executor;
+      this.ticker = builder.ticker;
+   }
+
+   @Override
+   public V get(K key) throws ExecutionException {
+      Loaded<V> entry = entries.get(checkNotNull(key, "key"));
+      if (entry != null) {
+         long now = ticker.read();
+         if (now - entry.expiresNanos < 0) {
+            hits.incrementAndGet();
+            if (now - entry.refreshNanos >= 0)
+               refreshIfNotRefreshing(key, entry);
+            return entry.value;
+         }
+      }
+      misses.incrementAndGet();
+      return load(key);
+   }
+
+   @Override
+   public V getIfPresent(Object key) {
+      Loaded<V> entry = entries.get(key);
+      if (entry == null || ticker.read() - entry.expiresNanos >= 0)
+         return null;
+      return entry.value;
+   }
+
+   private V load(K key) throws ExecutionException {
+      SettableFuture<V> future = SettableFuture.create();
+      SettableFuture<V> inFlight = loading.putIfAbsent(key, future);
+      if (inFlight != null) {
+         try {
+            return Uninterruptibles.getUninterruptibly(inFlight);
+         } catch (ExecutionException e) {
+            throw failure(e.getCause());
+         }
+      }
+      long start = ticker.read();
+      try {
+         V value = checkNotNull(loader.load(key), "%s returned null for %s", loader, key);
+         totalLoadNanos.addAndGet(ticker.read() - start);
+         loadSuccesses.incrementAndGet();
+         store(key, value);
+         future.set(value);
+         return value;
+      } catch (Throwable t) {
+         totalLoadNanos.addAndGet(ticker.read() - start);
+         loadFailures.incrementAndGet();
+         future.setException(t);
+         throw failure(t);
+      } finally {
+         loading.remove(key, future);
+      }
+   }
+
+   /**
+    * Wraps {@code t} the way {@link com.google.common.cache.LoadingCache#get} does.
+    */
+   private static ExecutionException failure(Throwable t) {
+      if (t instanceof Error)
+         throw new ExecutionError((Error) t);
+      if (t instanceof RuntimeException)
+         throw new UncheckedExecutionException(t);
+      return new ExecutionException(t);
+   }
+
+   @Override
+   public void put(K key, V value) {
+      store(checkNotNull(key, "key"), checkNotNull(value, "value"));
+   }
+
+   private void store(K key, V value) {
+      long now = ticker.read();
+      long lifetime = lifetimeNanos(value);
+      Loaded<V> entry = lifetime == Long.MAX_VALUE ? new Loaded<V>(value, now, Long.MAX_VALUE, Long.MAX_VALUE)
+            : new Loaded<V>(value, now, now + (long) (lifetime * refreshAt), now + lifetime);
+      entries.put(key, entry);
+      scheduleRefresh(key, entry);
+   }
+
+   private long lifetimeNanos(V value) {
+      long lifetime = defaultLifetimeNanos;
+      Date expires = expiresAt != null ? expiresAt.apply(value) : null;
+      if (expires != null) {
+         long millis = expires.getTime() - System.currentTimeMillis();
+         // an expiry already past is clock skew, rather than a reason to load again on every read
+         if (millis > 0)
+            lifetime = TimeUnit.MILLISECONDS.toNanos(millis);
+      }
+      return Math.min(lifetime, maxLifetimeNanos);
+   }
+
+   private void scheduleRefresh(final K key, final Loaded<V> entry) {
+      if (scheduler == null || entry.refreshNanos == Long.MAX_VALUE)
+         return;
+      try {
+         scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+               refreshIfNotRefreshing(key, entry);
+            }
+
+            @Override
+            public String toString() {
+               return "refresh(" + key + ")";
+            }
+         }, entry.refreshNanos - ticker.read(), NANOSECONDS);
+      } catch (RejectedExecutionException e) {
+         // shutting down; the first read past the refresh time reloads instead
+      }
+   }
+
+   private void refreshIfNotRefreshing(final K key, final Loaded<V> entry) {
+      if (!entry.refreshing.compareAndSet(false, true))
+         return;
+      for (Executor refresher : new Executor[] { scheduler, executor }) {
+         if (refresher == null)
+            continue;
+         try {
+            refresher.execute(new Runnable() {
+               @Override
+               public void run() {
+                  refresh(key, entry);
+               }
+
+               @Override
+               public String toString() {
+                  return "refresh(" + key + ")";
+               }
+            });
+            return;
+         } catch (RejectedExecutionException e) {
+            // try the next one, or refresh on this thread
+         }
+      }
+      refresh(key, entry);
+   }
+
+   private void refresh(K key, Loaded<V> entry) {
+      if (entries.get(key) != entry)
+         return; // already replaced or invalidated
+      try {
+         load(key);
+         refreshes.incrementAndGet();
+      } catch (Exception e) {
+         refreshFailures.incrementAndGet();
+         // the current value is still good; try again halfway to its expiry
+         long now = ticker.read();
+         entry.refreshNanos = now + (entry.expiresNanos - now) / 2;
+         entry.refreshing.set(false);
+         scheduleRefresh(key, entry);
+      }
+   }
+
+   /**
+    * Discards the value of {@code key}, unless it was loaded less than {@code minReloadInterval} ago.
+    */
+   @Override
+   public void invalidate(Object key) {
+      Loaded<V> entry = entries.get(key);
+      if (entry == null)
+         return;
+      if (ticker.read() - entry.loadedNanos < minReloadIntervalNanos) {
+         ignoredInvalidations.incrementAndGet();
+         return;
+      }
+      if (entries.remove(key, entry))
+         evictions.incrementAndGet();
+   }
+
+   /**
+    * Discards all values, except those loaded less than {@code minReloadInterval} ago.
+    */
+   @Override
+   public void invalidateAll() {
+      for (K key : entries.keySet())
+         invalidate(key);
+   }
+
+   @Override
+   public long size() {
+      return entries.size();
+   }
+
+   @Override
+   public CacheStats stats() {
+      return new CacheStats(hits.get(), misses.get(), loadSuccesses.get(), loadFailures.get(), totalLoadNanos.get(),
+            evictions.get());
+   }
+
+   /**
+    * The number of values replaced ahead of their expiry.
+    */
+   public long refreshCount() {
+      return refreshes.get();
+   }
+
+   /**
+    * The number of failed attempts to replace a value ahead of its expiry.
+    */
+   public long refreshFailureCount() {
+      return refreshFailures.get();
+   }
+
+   /**
+    * The number of invalidations ignored because the value had just been loaded.
+    */
+   public long ignoredInvalidationCount() {
+      return ignoredInvalidations.get();
+   }
+
+   /**
+    * A view of the current values. Removing a key invalidates it; other changes are not supported.
+    */
+   @Override
+   public ConcurrentMap<K, V> asMap() {
+      return new AsMap();
+   }
+
+   private final class AsMap extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+      @Override
+      public Set<Map.Entry<K, V>> entrySet() {
+         ImmutableMap.Builder<K, V> current = ImmutableMap.builder();
+         long now = ticker.read();
+         for (Map.Entry<K, Loaded<V>> entry : entries.entrySet())
+            if (now - entry.getValue().expiresNanos < 0)
+               current.put(entry.getKey(), entry.getValue().value);
+         return current.build().entrySet();
+      }
+
+      @Override
+      public V get(Object key) {
+         return getIfPresent(key);
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+         return getIfPresent(key) != null;
+      }
+
+      @Override
+      public V remove(Object key) {
+         V value = getIfPresent(key);
+         invalidate(key);
+         return value;
+      }
+
+      @Override
+      public V putIfAbsent(K key, V value) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean remove(Object key, Object value) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean replace(K key, V oldValue, V newValue) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public V replace(K key, V value) {
+         throw new UnsupportedOperationException();
+      }
+   }
+}
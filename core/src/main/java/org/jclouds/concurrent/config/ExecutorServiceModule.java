@@ -122,7 +122,15 @@ public class ExecutorServiceModule extends AbstractModule {
    ListeningExecutorService provideListeningUserExecutorService(@Named(PROPERTY_USER_THREADS) int count, Closer closer) { // NO_UCD
       if (userExecutorFromConstructor != null)
          return userExecutorFromConstructor;
-      return shutdownOnClose(WithSubmissionTrace.wrap(newThreadPoolNamed("user thread %d", count)), closer);
+      return shutdownOnClose(newUserExecutor(count), closer);
+   }
+
+   /**
+    * Creates a user executor like the one this module provides, for callers that share it between injectors. The
+    * caller is responsible for shutting it down.
+    */
+   public static ListeningExecutorService newUserExecutor(int count) {
+      return WithSubmissionTrace.wrap(newThreadPoolNamed("user thread %d", count));
    }
 
    @Provides
@@ -137,19 +145,19 @@ public class ExecutorServiceModule extends AbstractModule {
       return service;
    }
 
-   private ListeningExecutorService newCachedThreadPoolNamed(String name) {
+   private static ListeningExecutorService newCachedThreadPoolNamed(String name) {
       return listeningDecorator(Executors.newCachedThreadPool(namedThreadFactory(name)));
    }
 
-   private ListeningExecutorService newThreadPoolNamed(String name, int maxCount) {
+   private static ListeningExecutorService newThreadPoolNamed(String name, int maxCount) {
       return maxCount == 0 ? newCachedThreadPoolNamed(name) : newScalingThreadPoolNamed(name, maxCount);
    }
 
-   private ListeningExecutorService newScalingThreadPoolNamed(String name, int maxCount) {
+   private static ListeningExecutorService newScalingThreadPoolNamed(String name, int maxCount) {
       return listeningDecorator(newScalingThreadPool(1, maxCount, 60L * 1000, namedThreadFactory(name)));
    }
 
-   private ThreadFactory namedThreadFactory(String name) {
+   private static ThreadFactory namedThreadFactory(String name) {
       return new ThreadFactoryBuilder().setNameFormat(name).setThreadFactory(Executors.defaultThreadFactory()).build();
    }
 
@@ -31,10 +31,15 @@ import javax.inject.Singleton;
 
 import org.jclouds.lifecycle.Closer;
 
+import com.google.common.base.Optional;
 import com.google.common.util.concurrent.ListeningScheduledExecutorService;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Provides;
+import com.google.inject.name.Names;
 
 /**
  * Provides an {@link ScheduledExecutorService} to run periodical tasks such as virtual machine monitoring, etc.
@@ -62,6 +67,17 @@ public class ScheduledExecutorServiceModule extends AbstractModule {
       return in;
    }
 
+   /**
+    * The scheduler this module provides, if it is installed in the context of {@code injector}.
+    */
+   public static Optional<ScheduledExecutorService> getScheduledExecutorIfInstalled(Injector injector) {
+      Binding<ScheduledExecutorService> binding = injector.getExistingBinding(Key.get(ScheduledExecutorService.class,
+            Names.named(PROPERTY_SCHEDULER_THREADS)));
+      if (binding == null)
+         return Optional.absent();
+      return Optional.of(binding.getProvider().get());
+   }
+
    private static ListeningScheduledExecutorService newScheduledThreadPoolNamed(String name, int maxCount) {
       ThreadFactory factory = new ThreadFactoryBuilder().setNameFormat(name).setThreadFactory(defaultThreadFactory())
             .build();
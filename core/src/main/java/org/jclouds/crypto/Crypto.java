@@ -41,6 +41,10 @@ public interface Crypto {
 
    CertificateFactory certFactory();
 
+   /**
+    * Returns a new {@link Mac} initialized with {@code key}. Implementations may copy an initialized prototype
+    * instead of looking up the provider and initializing on every call, so the result is always owned by the caller.
+    */
    Mac hmac(String algorithm, byte[] key) throws NoSuchAlgorithmException, InvalidKeyException;
 
    Mac hmacSHA256(byte[] key) throws InvalidKeyException;
@@ -23,7 +23,12 @@ import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.annotation.PreDestroy;
 import javax.crypto.Cipher;
 import javax.crypto.Mac;
 import javax.crypto.NoSuchPaddingException;
@@ -34,13 +39,32 @@ import javax.inject.Singleton;
 import org.jclouds.crypto.Crypto;
 import org.jclouds.javax.annotation.Nullable;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+
+/**
+ * {@link Crypto} backed by the JCE. Looking up a provider in {@code getInstance} is synchronized inside the JDK, so
+ * initialized {@link Mac} prototypes are kept and copied with {@code clone()}, which is what Guava's hash functions
+ * do for digests. Macs that cannot be cloned are looked up on every call. One-shot callers can also reuse ciphers,
+ * with {@link #borrowCipher} and {@link #releaseCipher}. Both caches are bounded and cleared by {@link #close}.
+ */
 @Singleton
 public class JCECrypto implements Crypto {
 
+   @VisibleForTesting
+   static final int MAX_CACHED_MACS = 100;
+
+   @VisibleForTesting
+   static final int MAX_IDLE_CIPHERS = 16;
+
    private final KeyPairGenerator rsaKeyPairGenerator;
    private final KeyFactory rsaKeyFactory;
    private final CertificateFactory certFactory;
    private final Provider provider;
+   private final Cache<MacKey, Mac> macs = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_MACS).build();
+   private final ConcurrentMap<String, Queue<Cipher>> idleCiphers = Maps.newConcurrentMap();
 
    @Inject
    public JCECrypto() throws NoSuchAlgorithmException, CertificateException {
@@ -58,6 +82,25 @@ public class JCECrypto implements Crypto {
 
    @Override
    public Mac hmac(String algorithm, byte[] key) throws NoSuchAlgorithmException, InvalidKeyException {
+      Mac prototype = macs.getIfPresent(new MacKey(algorithm, key));
+      if (prototype != null) {
+         try {
+            return (Mac) prototype.clone();
+         } catch (CloneNotSupportedException e) {
+            // cached prototypes were cloned successfully before being cached
+         }
+      }
+      Mac mac = newMac(algorithm);
+      mac.init(new SecretKeySpec(key, algorithm));
+      try {
+         macs.put(new MacKey(algorithm, key.clone()), (Mac) mac.clone());
+      } catch (CloneNotSupportedException e) {
+         // the provider cannot copy its state; fall back to a lookup per call
+      }
+      return mac;
+   }
+
+   private Mac newMac(String algorithm) throws NoSuchAlgorithmException {
       Mac mac = null;
       if (provider != null) {
           try {
@@ -70,10 +113,42 @@ public class JCECrypto implements Crypto {
       if (mac == null) {
          mac = Mac.getInstance(algorithm);
       }
-      SecretKeySpec signingKey = new SecretKeySpec(key, algorithm);
-      mac.init(signingKey);
       return mac;
+   }
 
+   @VisibleForTesting
+   long cachedMacCount() {
+      return macs.size();
+   }
+
+   /**
+    * Identifies an initialized {@link Mac} by algorithm and key contents.
+    */
+   private static final class MacKey {
+      private final String algorithm;
+      private final byte[] key;
+      private final int hashCode;
+
+      private MacKey(String algorithm, byte[] key) {
+         this.algorithm = algorithm;
+         this.key = key;
+         this.hashCode = 31 * algorithm.hashCode() + Arrays.hashCode(key);
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o)
+            return true;
+         if (!(o instanceof MacKey))
+            return false;
+         MacKey that = (MacKey) o;
+         return algorithm.equals(that.algorithm) && Arrays.equals(key, that.key);
+      }
+
+      @Override
+      public int hashCode() {
+         return hashCode;
+      }
    }
 
    @Override
@@ -81,6 +156,37 @@ public class JCECrypto implements Crypto {
       return provider == null ? Cipher.getInstance(algorithm) : Cipher.getInstance(algorithm, provider);
    }
 
+   /**
+    * Returns an idle {@link Cipher} for {@code algorithm}, or a new one if there is none. Give it back with
+    * {@link #releaseCipher} once it is finished, so that the next caller skips the provider lookup.
+    */
+   public Cipher borrowCipher(String algorithm) throws NoSuchAlgorithmException, NoSuchPaddingException {
+      Queue<Cipher> idle = idleCiphers.get(algorithm);
+      Cipher cipher = idle != null ? idle.poll() : null;
+      return cipher != null ? cipher : cipher(algorithm);
+   }
+
+   /**
+    * Gives back a cipher from {@link #borrowCipher}. It must be finished, and no longer used by the caller.
+    */
+   public void releaseCipher(Cipher cipher) {
+      Queue<Cipher> idle = idleCiphers.get(cipher.getAlgorithm());
+      if (idle == null) {
+         idleCiphers.putIfAbsent(cipher.getAlgorithm(), new ArrayBlockingQueue<Cipher>(MAX_IDLE_CIPHERS));
+         idle = idleCiphers.get(cipher.getAlgorithm());
+      }
+      idle.offer(cipher); // dropped when there are enough idle ciphers already
+   }
+
+   /**
+    * Drops the cached macs and the idle ciphers, along with the keys they were initialized with.
+    */
+   @PreDestroy
+   public void close() {
+      macs.invalidateAll();
+      idleCiphers.clear();
+   }
+
    private static final String HmacSHA256 = "HmacSHA256";
    private static final String HmacSHA1 = "HmacSHA1";
 
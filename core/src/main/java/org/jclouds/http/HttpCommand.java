@@ -18,6 +18,7 @@ package org.jclouds.http;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.rest.internal.GeneratedHttpRequest;
 
 import com.google.common.base.Objects;
@@ -28,17 +29,37 @@ import com.google.common.base.Objects;
 //TODO: get rid of all the mock tests so that this can be made final
 public class HttpCommand {
 
+   private final String commandName;
    private volatile HttpRequest request;
    private volatile int failureCount;
    private volatile int redirectCount;
    private volatile Exception exception;
+   private volatile boolean retryDelayDeferred;
+   private volatile long retryDelayMs;
 
    public HttpCommand(HttpRequest request) {
+      this(request, null);
+   }
+
+   /**
+    * @param commandName
+    *           name of the api call this command was created for, used to group its metrics
+    */
+   public HttpCommand(HttpRequest request, @Nullable String commandName) {
       this.request = checkNotNull(request, "request");
+      this.commandName = commandName;
       this.failureCount = 0;
       this.redirectCount = 0;
    }
 
+   /**
+    * The name of the api call this command was created for, or null if it wasn't created from an api.
+    */
+   @Nullable
+   public String getCommandName() {
+      return commandName;
+   }
+
    /**
     * This displays the current number of error retries for this command.
     * 
@@ -89,6 +110,39 @@ public class HttpCommand {
       return redirectCount;
    }
 
+   /**
+    * When set, retry handlers add their backoff delay to this command instead of sleeping, so that the caller can
+    * schedule the retry with {@link #takeRetryDelay()}.
+    */
+   public void setRetryDelayDeferred(boolean retryDelayDeferred) {
+      this.retryDelayDeferred = retryDelayDeferred;
+   }
+
+   /**
+    * @see #setRetryDelayDeferred
+    */
+   public boolean isRetryDelayDeferred() {
+      return retryDelayDeferred;
+   }
+
+   /**
+    * Adds to the delay, in milliseconds, to wait before retrying this command.
+    * 
+    * @see #setRetryDelayDeferred
+    */
+   public synchronized void deferRetryDelay(long delayMs) {
+      retryDelayMs += delayMs;
+   }
+
+   /**
+    * Returns the delay, in milliseconds, deferred since the last call, and resets it.
+    */
+   public synchronized long takeRetryDelay() {
+      long delayMs = retryDelayMs;
+      retryDelayMs = 0;
+      return delayMs;
+   }
+
    /**
     * Commands need to be replayed, if redirected or on a retryable error. Typically, this implies
     * the payload carried is not a streaming type.
@@ -17,6 +17,7 @@
 package org.jclouds.http.handlers;
 
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static org.jclouds.http.HttpUtils.releasePayload;
 
 import java.io.IOException;
@@ -31,8 +32,10 @@ import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpRetryHandler;
 import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.inject.Inject;
 
@@ -69,6 +72,9 @@ import com.google.inject.Inject;
  * </tr>
  * </table>
  * <p>
+ * With {@link org.jclouds.Constants#PROPERTY_RETRY_FULL_JITTER} set, the delay is instead drawn uniformly between zero
+ * and the value above, so that commands which failed together do not retry together.
+ * <p>
  * This implementation has two side-effects. It increments the command's failure count with
  * {@link TransformingHttpCommand#incrementFailureCount()}, because this failure count value is used
  * to determine how many times the command has already been tried. It also closes the response's
@@ -87,6 +93,11 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
    @Named(Constants.PROPERTY_RETRY_DELAY_START)
    private long delayStart = 50L;
 
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_RETRY_FULL_JITTER)
+   @VisibleForTesting
+   boolean fullJitter = false;
+
    @Resource
    protected Logger logger = Logger.NULL;
 
@@ -110,32 +121,53 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
                   command);
          return false;
       } else {
-         imposeBackoffExponentialDelay(command.getFailureCount(), "server error: " + command.toString());
+         imposeBackoffExponentialDelay(command, command.getFailureCount(), "server error: " + command.toString());
          return true;
       }
    }
 
    public void imposeBackoffExponentialDelay(int failureCount, String commandDescription) {
-      imposeBackoffExponentialDelay(delayStart, 2, failureCount, retryCountLimit, commandDescription);
+      imposeBackoffExponentialDelay(null, failureCount, commandDescription);
    }
 
    public void imposeBackoffExponentialDelay(long period, int pow, int failureCount, int max, String commandDescription) {
-      imposeBackoffExponentialDelay(period, period * 10l, pow, failureCount, max, commandDescription);
+      imposeBackoffExponentialDelay(null, period, pow, failureCount, max, commandDescription);
    }
 
    public void imposeBackoffExponentialDelay(long period, long maxPeriod, int pow, int failureCount, int max,
             String commandDescription) {
+      imposeBackoffExponentialDelay(null, period, maxPeriod, pow, failureCount, max, commandDescription);
+   }
+
+   /**
+    * Like {@link #imposeBackoffExponentialDelay(int, String)}, but when {@code command} defers its retry delay the
+    * delay is added to it instead of slept.
+    * 
+    * @see HttpCommand#setRetryDelayDeferred
+    */
+   public void imposeBackoffExponentialDelay(@Nullable HttpCommand command, int failureCount,
+            String commandDescription) {
+      imposeBackoffExponentialDelay(command, delayStart, 2, failureCount, retryCountLimit, commandDescription);
+   }
+
+   public void imposeBackoffExponentialDelay(@Nullable HttpCommand command, long period, int pow, int failureCount,
+            int max, String commandDescription) {
+      imposeBackoffExponentialDelay(command, period, period * 10l, pow, failureCount, max, commandDescription);
+   }
+
+   public void imposeBackoffExponentialDelay(@Nullable HttpCommand command, long period, long maxPeriod, int pow,
+            int failureCount, int max, String commandDescription) {
       if (period == 0) {
          // Essentially disables the exponential backoff
          logger.debug("Retry %d/%d: delaying for %d ms: %s", failureCount, max, 0, commandDescription);
          return;
       }
-      long delayMs = (long) (period * Math.pow(failureCount, pow));
-      // Add random delay to avoid thundering herd problem when multiple
-      // simultaneous failed requests retry after sleeping for the same delay.
-      // Throws an exception for a value of 0
-      delayMs += new Random().nextInt((int) (max(delayMs / 10, 1) ));
-      delayMs = delayMs > maxPeriod ? maxPeriod : delayMs;
+      long delayMs = backoffDelay(period, maxPeriod, pow, failureCount);
+      if (command != null && command.isRetryDelayDeferred()) {
+         logger.debug("Retry %d/%d: scheduling in %d ms: %s", failureCount, max, delayMs, commandDescription);
+         command.deferRetryDelay(delayMs);
+         return;
+      }
       logger.debug("Retry %d/%d: delaying for %d ms: %s", failureCount, max, delayMs, commandDescription);
       try {
          Thread.sleep(delayMs);
@@ -143,4 +175,22 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
          Throwables.propagate(e);
       }
    }
+
+   /**
+    * Returns the delay before retrying a command that failed {@code failureCount} times, never more than
+    * {@code maxPeriod}.
+    */
+   @VisibleForTesting
+   long backoffDelay(long period, long maxPeriod, int pow, int failureCount) {
+      long delayMs = (long) (period * Math.pow(failureCount, pow));
+      if (fullJitter) {
+         // Spread the retries of commands that failed together over the whole backoff window
+         return (long) (new Random().nextDouble() * min(delayMs, maxPeriod));
+      }
+      // Add random delay to avoid thundering herd problem when multiple
+      // simultaneous failed requests retry after sleeping for the same delay.
+      // Throws an exception for a value of 0
+      delayMs += new Random().nextInt((int) (max(delayMs / 10, 1) ));
+      return delayMs > maxPeriod ? maxPeriod : delayMs;
+   }
 }
@@ -58,6 +58,8 @@ public class RedirectionRetryHandler implements HttpRetryHandler {
 
    public boolean shouldRetryRequest(HttpCommand command, HttpResponse response) {
       closeClientButKeepContentStream(response);
+      if (response.getStatusCode() == 304) // not modified is not a redirect
+         return false;
       if (!command.isReplayable()) {
          logger.error("Cannot retry after redirect, command is not replayable: %s", command);
          return false;
@@ -81,7 +83,8 @@ public class RedirectionRetryHandler implements HttpRetryHandler {
          redirect = uriBuilder(current.getEndpoint()).path(redirect.getPath()).query(redirect.getQuery()).build();
       }
       if (redirect.equals(current.getEndpoint())) {
-         backoffHandler.imposeBackoffExponentialDelay(command.getRedirectCount(), "redirect: " + command.toString());
+         backoffHandler.imposeBackoffExponentialDelay(command, command.getRedirectCount(),
+               "redirect: " + command.toString());
       } else if (current.getFirstHeaderOrNull(HOST) != null && redirect.getHost() != null) {
          String host = redirect.getPort() > 0 ? redirect.getHost() + ":" + redirect.getPort() : redirect.getHost();
          command.setCurrentRequest(current.toBuilder().replaceHeader(HOST, host).endpoint(redirect).build());
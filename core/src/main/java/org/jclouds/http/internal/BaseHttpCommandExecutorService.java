@@ -17,8 +17,11 @@
 package org.jclouds.http.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.propagate;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.jclouds.http.HttpUtils.checkRequestHasContentLengthOrChunkedEncoding;
+import static org.jclouds.http.HttpUtils.releasePayload;
 import static org.jclouds.http.HttpUtils.wirePayloadIfEnabled;
 import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
 
@@ -31,6 +34,7 @@ import javax.inject.Named;
 import org.jclouds.Constants;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpMessage;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpRequestFilter;
 import org.jclouds.http.HttpResponse;
@@ -39,9 +43,17 @@ import org.jclouds.http.HttpUtils;
 import org.jclouds.http.IOExceptionRetryHandler;
 import org.jclouds.http.handlers.DelegatingErrorHandler;
 import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.metrics.HttpMetrics;
+import org.jclouds.http.metrics.HttpMetrics.Phase;
+import org.jclouds.http.metrics.internal.NullHttpMetrics;
+import org.jclouds.http.ratelimit.HttpRateLimiter;
+import org.jclouds.http.ratelimit.internal.NullHttpRateLimiter;
 import org.jclouds.io.ContentMetadataCodec;
 import org.jclouds.logging.Logger;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
 public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandExecutorService {
    protected final HttpUtils utils;
    protected final ContentMetadataCodec contentMetadataCodec;
@@ -58,6 +70,19 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
 
    protected final HttpWire wire;
 
+   @Inject
+   protected HttpMetrics metrics = NullHttpMetrics.INSTANCE;
+
+   @Inject
+   protected HttpRateLimiter rateLimiter = NullHttpRateLimiter.INSTANCE;
+
+   @com.google.inject.Inject(optional = true)
+   protected RetryScheduler retryScheduler;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(Constants.PROPERTY_SCHEDULE_RETRIES)
+   protected boolean scheduleRetries = false;
+
    @Inject
    protected BaseHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
          DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
@@ -72,54 +97,168 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
 
    @Override
    public HttpResponse invoke(HttpCommand command) {
-      HttpResponse response = null;
-      for (;;) {
-         HttpRequest request = command.getCurrentRequest();
-         Q nativeRequest = null;
-         try {
-            for (HttpRequestFilter filter : request.getFilters()) {
-               request = filter.filter(request);
+      String commandName = commandName(command);
+      Attempt attempt;
+      do {
+         awaitRateLimit(commandName, command);
+         attempt = sendOnce(commandName, command);
+      } while (attempt.retry);
+      return complete(commandName, command, attempt.response);
+   }
+
+   /**
+    * Returns true if {@link Constants#PROPERTY_SCHEDULE_RETRIES} is set and a {@link RetryScheduler} was injected, in
+    * which case callers may use {@link #submit(HttpCommand)} instead of {@link #invoke(HttpCommand)}.
+    */
+   public boolean canSubmit() {
+      return scheduleRetries && retryScheduler != null;
+   }
+
+   /**
+    * Invokes {@code command} like {@link #invoke(HttpCommand)}, but without holding a thread between attempts. Each
+    * attempt runs on the user executor, and when the rate limiter or the retry handlers ask for a delay the attempt
+    * is scheduled after it instead of sleeping. The returned future fails if an attempt can't be scheduled, and
+    * cancelling it stops further attempts.
+    */
+   public ListenableFuture<HttpResponse> submit(final HttpCommand command) {
+      checkState(retryScheduler != null, "submit requires a RetryScheduler to be injected");
+      final String commandName = commandName(command);
+      final SettableFuture<HttpResponse> future = SettableFuture.create();
+      command.setRetryDelayDeferred(true);
+      retryScheduler.execute(new Runnable() {
+         private boolean reserved;
+
+         @Override
+         public void run() {
+            if (future.isCancelled())
+               return;
+            if (!reserved) {
+               long waitMs = rateLimiter.reserve(commandName, command.getCurrentRequest());
+               if (waitMs > 0) {
+                  reserved = true;
+                  retryScheduler.schedule(this, waitMs, MILLISECONDS, future);
+                  return;
+               }
             }
-            checkRequestHasContentLengthOrChunkedEncoding(request,
-                  "After filtering, the request has neither chunked encoding nor content length: " + request);
-            logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
-            wirePayloadIfEnabled(wire, request);
-            utils.logRequest(headerLog, request, ">>");
-            nativeRequest = convert(request);
-            response = invoke(nativeRequest);
-
-            logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
-            utils.logResponse(headerLog, response, "<<");
-            if (response.getPayload() != null && wire.enabled())
-               wire.input(response);
-            nativeRequest = null; // response took ownership of streams
-            int statusCode = response.getStatusCode();
-            if (statusCode >= 300) {
-               if (shouldContinue(command, response))
-                  continue;
-               else
-                  break;
-            } else {
-               break;
+            reserved = false;
+            Attempt attempt;
+            try {
+               attempt = sendOnce(commandName, command);
+            } catch (RuntimeException e) {
+               future.setException(e);
+               return;
             }
-         } catch (Exception e) {
-            IOException ioe = getFirstThrowableOfType(e, IOException.class);
-            if (ioe != null && ioRetryHandler.shouldRetryRequest(command, ioe)) {
-               continue;
+            try {
+               if (attempt.retry)
+                  retryScheduler.schedule(this, command.takeRetryDelay(), MILLISECONDS, future);
+               else if (!future.set(complete(commandName, command, attempt.response)))
+                  releasePayload(attempt.response); // cancelled while the attempt was in flight
+            } catch (RuntimeException e) {
+               future.setException(e);
             }
-            command.setException(new HttpResponseException(e.getMessage() + " connecting to "
-                  + command.getCurrentRequest().getRequestLine(), command, null, e));
-            break;
+         }
+
+         @Override
+         public String toString() {
+            return "submit(" + commandName + ")";
+         }
+      }, future);
+      return future;
+   }
 
-         } finally {
-            cleanup(nativeRequest);
+   private static String commandName(HttpCommand command) {
+      return command.getCommandName() != null ? command.getCommandName() : command.getCurrentRequest().getMethod();
+   }
+
+   private void awaitRateLimit(String commandName, HttpCommand command) {
+      long waitMs = rateLimiter.reserve(commandName, command.getCurrentRequest());
+      if (waitMs > 0) {
+         logger.trace("Rate limited: delaying %s for %d ms", commandName, waitMs);
+         try {
+            Thread.sleep(waitMs);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw propagate(e);
+         }
+      }
+   }
+
+   /**
+    * The outcome of sending the current request of a command once.
+    */
+   private static final class Attempt {
+      private final HttpResponse response;
+      private final boolean retry;
+
+      private Attempt(HttpResponse response, boolean retry) {
+         this.response = response;
+         this.retry = retry;
+      }
+   }
+
+   private Attempt sendOnce(String commandName, HttpCommand command) {
+      HttpResponse response = null;
+      HttpRequest request = command.getCurrentRequest();
+      Q nativeRequest = null;
+      try {
+         long start = System.nanoTime();
+         for (HttpRequestFilter filter : request.getFilters()) {
+            request = filter.filter(request);
+         }
+         long filtered = System.nanoTime();
+         metrics.recordPhase(commandName, Phase.FILTER, filtered - start);
+         checkRequestHasContentLengthOrChunkedEncoding(request,
+               "After filtering, the request has neither chunked encoding nor content length: " + request);
+         logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
+         wirePayloadIfEnabled(wire, request);
+         utils.logRequest(headerLog, request, ">>");
+         long sending = System.nanoTime();
+         nativeRequest = convert(request);
+         long sent = System.nanoTime();
+         metrics.recordPhase(commandName, Phase.SEND, sent - sending);
+         response = invoke(nativeRequest);
+         metrics.recordPhase(commandName, Phase.FIRST_BYTE, System.nanoTime() - sent);
+         metrics.recordResponse(commandName, response.getStatusCode(), payloadLength(request),
+               payloadLength(response));
+
+         logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
+         utils.logResponse(headerLog, response, "<<");
+         if (response.getPayload() != null && wire.enabled())
+            wire.input(response);
+         nativeRequest = null; // response took ownership of streams
+         int statusCode = response.getStatusCode();
+         if (statusCode == 429)
+            rateLimiter.throttled(request);
+         if (statusCode >= 300 && shouldContinue(command, response))
+            return new Attempt(response, true);
+         return new Attempt(response, false);
+      } catch (Exception e) {
+         IOException ioe = getFirstThrowableOfType(e, IOException.class);
+         if (ioe != null && ioRetryHandler.shouldRetryRequest(command, ioe)) {
+            return new Attempt(response, true);
          }
+         command.setException(new HttpResponseException(e.getMessage() + " connecting to "
+               + command.getCurrentRequest().getRequestLine(), command, null, e));
+         return new Attempt(response, false);
+      } finally {
+         cleanup(nativeRequest);
       }
+   }
+
+   private HttpResponse complete(String commandName, HttpCommand command, HttpResponse response) {
+      metrics.recordCompletion(commandName, command.getFailureCount(), command.getException() != null);
       if (command.getException() != null)
          throw propagate(command.getException());
       return response;
    }
 
+   private static long payloadLength(HttpMessage message) {
+      if (message.getPayload() == null)
+         return 0;
+      Long length = message.getPayload().getContentMetadata().getContentLength();
+      return length != null ? length : 0;
+   }
+
    private boolean shouldContinue(HttpCommand command, HttpResponse response) {
       boolean shouldContinue = false;
       if (retryHandler.shouldRetryRequest(command, response)) {
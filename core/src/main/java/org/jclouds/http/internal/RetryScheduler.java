@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.logging.Logger;
+
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs http command attempts on the user executor, and retries after their backoff delay from a single scheduler
+ * thread, so that commands waiting to be retried don't hold a thread each.
+ * <p/>
+ * Every attempt is handed over together with the future of its command. If the attempt can't run, because an
+ * executor rejected it or dropped it on shutdown, that future fails with a {@link RejectedExecutionException} rather
+ * than staying pending.
+ */
+@Singleton
+public class RetryScheduler {
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final ListeningExecutorService userExecutor;
+
+   /**
+    * attempts handed over but not yet started
+    */
+   private final Set<Attempt> pending = Sets.newConcurrentHashSet();
+
+   private ScheduledExecutorService scheduler;
+   private boolean closed;
+
+   @Inject
+   RetryScheduler(@Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+   }
+
+   /**
+    * Runs {@code task} on the user executor, failing {@code result} if it can't.
+    */
+   public void execute(Runnable task, SettableFuture<?> result) {
+      schedule(task, 0, MILLISECONDS, result);
+   }
+
+   /**
+    * Runs {@code task} on the user executor once the delay expires, failing {@code result} if it can't.
+    * {@code task} is skipped if {@code result} is already done, for example cancelled, by then.
+    */
+   public void schedule(Runnable task, long delay, TimeUnit unit, SettableFuture<?> result) {
+      final Attempt attempt = new Attempt(checkNotNull(task, "task"), checkNotNull(result, "result"));
+      pending.add(attempt);
+      try {
+         if (delay <= 0) {
+            userExecutor.execute(attempt);
+            return;
+         }
+         scheduler().schedule(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  userExecutor.execute(attempt);
+               } catch (RejectedExecutionException e) {
+                  attempt.fail(e);
+               }
+            }
+
+            @Override
+            public String toString() {
+               return attempt.toString();
+            }
+         }, delay, unit);
+      } catch (RejectedExecutionException e) {
+         attempt.fail(e);
+      }
+   }
+
+   /**
+    * Stops the scheduler thread. The futures of attempts that have not started yet fail.
+    */
+   @PreDestroy
+   public void close() {
+      synchronized (this) {
+         closed = true;
+         if (scheduler != null)
+            scheduler.shutdownNow();
+      }
+      RejectedExecutionException e = new RejectedExecutionException("retry scheduler is closed");
+      for (Attempt attempt : pending) {
+         attempt.fail(e);
+      }
+   }
+
+   private synchronized ScheduledExecutorService scheduler() {
+      if (closed)
+         throw new RejectedExecutionException("retry scheduler is closed");
+      if (scheduler == null) {
+         scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+               .setNameFormat("http retry scheduler").setDaemon(true).build());
+      }
+      return scheduler;
+   }
+
+   /**
+    * Either runs or fails, whichever happens first.
+    */
+   private final class Attempt implements Runnable {
+      private final Runnable task;
+      private final SettableFuture<?> result;
+
+      private Attempt(Runnable task, SettableFuture<?> result) {
+         this.task = task;
+         this.result = result;
+      }
+
+      @Override
+      public void run() {
+         if (pending.remove(this) && !result.isDone())
+            task.run();
+      }
+
+      private void fail(RejectedExecutionException e) {
+         if (pending.remove(this)) {
+            logger.warn(e, "<< could not retry %s", task);
+            result.setException(e);
+         }
+      }
+
+      @Override
+      public String toString() {
+         return task.toString();
+      }
+   }
+}
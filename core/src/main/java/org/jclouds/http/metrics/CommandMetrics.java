@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jclouds.http.metrics.HttpMetrics.Phase;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Thread-safe measurements of a single command.
+ */
+public class CommandMetrics implements CommandMetricsMXBean {
+
+   private final String commandName;
+   private final Map<Phase, LatencyHistogram> latencies = new EnumMap<Phase, LatencyHistogram>(Phase.class);
+   private final ConcurrentMap<Integer, AtomicLong> statusCodeCounts = Maps.newConcurrentMap();
+   private final AtomicLong completed = new AtomicLong();
+   private final AtomicLong failed = new AtomicLong();
+   private final AtomicLong retries = new AtomicLong();
+   private final AtomicLong bytesSent = new AtomicLong();
+   private final AtomicLong bytesReceived = new AtomicLong();
+   private final AtomicLong hedges = new AtomicLong();
+   private final AtomicLong hedgeWins = new AtomicLong();
+
+   public CommandMetrics(String commandName) {
+      this.commandName = checkNotNull(commandName, "commandName");
+      // filled up front, so that the map is only read afterwards
+      for (Phase phase : Phase.values())
+         latencies.put(phase, new LatencyHistogram());
+   }
+
+   public void recordPhase(Phase phase, long nanos) {
+      latencies.get(phase).record(nanos);
+   }
+
+   public void recordResponse(int statusCode, long sent, long received) {
+      AtomicLong count = statusCodeCounts.get(statusCode);
+      if (count == null) {
+         AtomicLong newCount = new AtomicLong();
+         count = statusCodeCounts.putIfAbsent(statusCode, newCount);
+         if (count == null)
+            count = newCount;
+      }
+      count.incrementAndGet();
+      if (sent > 0)
+         bytesSent.addAndGet(sent);
+      if (received > 0)
+         bytesReceived.addAndGet(received);
+   }
+
+   public void recordCompletion(int failureCount, boolean failed) {
+      completed.incrementAndGet();
+      if (failureCount > 0)
+         retries.addAndGet(failureCount);
+      if (failed)
+         this.failed.incrementAndGet();
+   }
+
+   public void recordHedge(boolean backupWon) {
+      hedges.incrementAndGet();
+      if (backupWon)
+         hedgeWins.incrementAndGet();
+   }
+
+   public LatencyHistogram.Snapshot getLatency(Phase phase) {
+      return latencies.get(checkNotNull(phase, "phase")).snapshot();
+   }
+
+   @Override
+   public String getCommandName() {
+      return commandName;
+   }
+
+   @Override
+   public long getCompletedCount() {
+      return completed.get();
+   }
+
+   @Override
+   public long getFailedCount() {
+      return failed.get();
+   }
+
+   @Override
+   public long getRetryCount() {
+      return retries.get();
+   }
+
+   @Override
+   public long getBytesSent() {
+      return bytesSent.get();
+   }
+
+   @Override
+   public long getBytesReceived() {
+      return bytesReceived.get();
+   }
+
+   @Override
+   public long getHedgeCount() {
+      return hedges.get();
+   }
+
+   @Override
+   public long getHedgeWinCount() {
+      return hedgeWins.get();
+   }
+
+   @Override
+   public Map<Integer, Long> getStatusCodeCounts() {
+      // a TreeMap without comparator, as JMX can't convert sorted maps with one
+      Map<Integer, Long> counts = Maps.newTreeMap();
+      for (Map.Entry<Integer, AtomicLong> entry : statusCodeCounts.entrySet())
+         counts.put(entry.getKey(), entry.getValue().get());
+      return Collections.unmodifiableMap(counts);
+   }
+
+   @Override
+   public LatencyHistogram.Snapshot getFilterLatency() {
+      return getLatency(Phase.FILTER);
+   }
+
+   @Override
+   public LatencyHistogram.Snapshot getSendLatency() {
+      return getLatency(Phase.SEND);
+   }
+
+   @Override
+   public LatencyHistogram.Snapshot getFirstByteLatency() {
+      return getLatency(Phase.FIRST_BYTE);
+   }
+
+   @Override
+   public LatencyHistogram.Snapshot getParseLatency() {
+      return getLatency(Phase.PARSE);
+   }
+
+   @Override
+   public LatencyHistogram.Snapshot getTotalLatency() {
+      return getLatency(Phase.TOTAL);
+   }
+}
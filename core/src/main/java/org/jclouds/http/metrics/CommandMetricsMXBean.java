@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import java.util.Map;
+
+/**
+ * Management view of the measurements of one command, as published by
+ * {@link org.jclouds.http.metrics.internal.JmxHttpMetrics}. Latencies are in microseconds.
+ */
+public interface CommandMetricsMXBean {
+
+   String getCommandName();
+
+   /**
+    * commands completed, successfully or not.
+    */
+   long getCompletedCount();
+
+   /**
+    * commands that completed with an exception.
+    */
+   long getFailedCount();
+
+   /**
+    * attempts that were retried after a failure.
+    */
+   long getRetryCount();
+
+   long getBytesSent();
+
+   long getBytesReceived();
+
+   /**
+    * backup attempts sent because the first attempt was slow.
+    */
+   long getHedgeCount();
+
+   /**
+    * backup attempts whose response was used.
+    */
+   long getHedgeWinCount();
+
+   /**
+    * responses received, by status code.
+    */
+   Map<Integer, Long> getStatusCodeCounts();
+
+   LatencyHistogram.Snapshot getFilterLatency();
+
+   LatencyHistogram.Snapshot getSendLatency();
+
+   LatencyHistogram.Snapshot getFirstByteLatency();
+
+   LatencyHistogram.Snapshot getParseLatency();
+
+   LatencyHistogram.Snapshot getTotalLatency();
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import org.jclouds.http.metrics.internal.NullHttpMetrics;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Receives measurements of the http commands invoked by a context.
+ * <p>
+ * Measurements are keyed by command name, which is the name of the api method for commands created from an
+ * annotated interface, or the http method otherwise. Implementations are called from the threads invoking commands,
+ * so they must be thread-safe and cheap. The default implementation discards everything; bind
+ * {@link org.jclouds.http.metrics.config.JmxHttpMetricsModule} to publish the measurements through JMX.
+ */
+@ImplementedBy(NullHttpMetrics.class)
+public interface HttpMetrics {
+
+   enum Phase {
+      /**
+       * applying the request filters, such as signing.
+       */
+      FILTER,
+      /**
+       * connecting and sending the request, including its payload.
+       */
+      SEND,
+      /**
+       * waiting for the status line and headers of the response.
+       */
+      FIRST_BYTE,
+      /**
+       * parsing the response into the return value of the command.
+       */
+      PARSE,
+      /**
+       * the whole command, including retries and parsing.
+       */
+      TOTAL;
+   }
+
+   /**
+    * Records the time a single attempt of {@code command} spent in {@code phase}.
+    */
+   void recordPhase(String command, Phase phase, long nanos);
+
+   /**
+    * Records a response received for an attempt of {@code command}.
+    * 
+    * @param bytesSent
+    *           length of the request payload, or 0 if unknown
+    * @param bytesReceived
+    *           length of the response payload, or 0 if unknown
+    */
+   void recordResponse(String command, int statusCode, long bytesSent, long bytesReceived);
+
+   /**
+    * Records the end of {@code command}, once no more attempts will be made.
+    * 
+    * @param failureCount
+    *           number of failed attempts that were retried, as in {@link org.jclouds.http.HttpCommand#getFailureCount()}
+    * @param failed
+    *           true if the command ended with an exception
+    */
+   void recordCompletion(String command, int failureCount, boolean failed);
+
+   /**
+    * Records that a backup attempt of {@code command} was sent because the first one was slow to respond.
+    * 
+    * @param backupWon
+    *           true if the response of the backup attempt was used
+    * @see org.jclouds.rest.internal.HedgingPolicy
+    */
+   void recordHedge(String command, boolean backupWon);
+}
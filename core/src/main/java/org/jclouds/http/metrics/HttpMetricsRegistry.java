@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Singleton;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Keeps the measurements of each command in memory, so that they can be read from {@link #getCommandMetrics()} or
+ * exported by subclasses.
+ */
+@Singleton
+public class HttpMetricsRegistry implements HttpMetrics {
+
+   private final ConcurrentMap<String, CommandMetrics> commands = Maps.newConcurrentMap();
+
+   @Override
+   public void recordPhase(String command, Phase phase, long nanos) {
+      metricsFor(command).recordPhase(phase, nanos);
+   }
+
+   @Override
+   public void recordResponse(String command, int statusCode, long bytesSent, long bytesReceived) {
+      metricsFor(command).recordResponse(statusCode, bytesSent, bytesReceived);
+   }
+
+   @Override
+   public void recordCompletion(String command, int failureCount, boolean failed) {
+      metricsFor(command).recordCompletion(failureCount, failed);
+   }
+
+   @Override
+   public void recordHedge(String command, boolean backupWon) {
+      metricsFor(command).recordHedge(backupWon);
+   }
+
+   /**
+    * measurements of each command seen so far, by command name.
+    */
+   public Map<String, CommandMetrics> getCommandMetrics() {
+      return ImmutableSortedMap.copyOf(commands);
+   }
+
+   protected CommandMetrics metricsFor(String command) {
+      CommandMetrics metrics = commands.get(checkNotNull(command, "command"));
+      if (metrics == null) {
+         CommandMetrics newMetrics = new CommandMetrics(command);
+         metrics = commands.putIfAbsent(command, newMetrics);
+         if (metrics == null) {
+            metrics = newMetrics;
+            added(metrics);
+         }
+      }
+      return metrics;
+   }
+
+   /**
+    * called once for each command, the first time it is measured.
+    */
+   protected void added(CommandMetrics metrics) {
+   }
+
+   protected Iterable<CommandMetrics> allCommandMetrics() {
+      return commands.values();
+   }
+}
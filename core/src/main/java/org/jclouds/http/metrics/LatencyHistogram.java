@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+
+/**
+ * Lock-free histogram of latencies, with microsecond resolution and a relative error under 25%.
+ * <p>
+ * Values are counted in log-linear buckets: four per power of two. Percentiles are reported as the upper bound of
+ * the bucket they fall into, which is good enough to tell which calls dominate the tail without keeping samples.
+ */
+public class LatencyHistogram {
+
+   private static final int BUCKETS = 4 * 40;
+
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+   private final AtomicLong count = new AtomicLong();
+   private final AtomicLong sumMicros = new AtomicLong();
+   private final AtomicLong maxMicros = new AtomicLong();
+
+   public void record(long nanos) {
+      long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+      counts.incrementAndGet(bucket(micros));
+      count.incrementAndGet();
+      sumMicros.addAndGet(micros);
+      for (long max = maxMicros.get(); micros > max; max = maxMicros.get()) {
+         if (maxMicros.compareAndSet(max, micros))
+            break;
+      }
+   }
+
+   /**
+    * number of latencies recorded so far.
+    */
+   public long count() {
+      return count.get();
+   }
+
+   /**
+    * Returns the latency, in microseconds, that {@code quantile} of the recorded latencies don't exceed, or 0 if
+    * nothing was recorded.
+    */
+   public long percentileMicros(double quantile) {
+      checkArgument(quantile > 0 && quantile <= 1, "quantile must be in (0, 1] but was: %s", quantile);
+      long[] copy = new long[BUCKETS];
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         copy[i] = counts.get(i);
+         total += copy[i];
+      }
+      return percentile(copy, total, quantile);
+   }
+
+   public Snapshot snapshot() {
+      long[] copy = new long[BUCKETS];
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         copy[i] = counts.get(i);
+         total += copy[i];
+      }
+      long sum = sumMicros.get();
+      return new Snapshot(total, total == 0 ? 0 : sum / total, percentile(copy, total, 0.5), percentile(copy, total,
+            0.9), percentile(copy, total, 0.99), maxMicros.get());
+   }
+
+   @VisibleForTesting
+   static int bucket(long micros) {
+      if (micros < 4)
+         return (int) micros;
+      int log2 = 63 - Long.numberOfLeadingZeros(micros);
+      int index = 4 * (log2 - 1) + (int) ((micros >>> (log2 - 2)) & 3);
+      return Math.min(index, BUCKETS - 1);
+   }
+
+   @VisibleForTesting
+   static long upperBound(int bucket) {
+      if (bucket < 4)
+         return bucket;
+      int log2 = bucket / 4 + 1;
+      long width = 1L << (log2 - 2);
+      return (4 + bucket % 4) * width + width - 1;
+   }
+
+   private static long percentile(long[] counts, long total, double quantile) {
+      if (total == 0)
+         return 0;
+      long rank = (long) Math.ceil(quantile * total);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+         seen += counts[i];
+         if (seen >= rank)
+            return upperBound(i);
+      }
+      return upperBound(counts.length - 1);
+   }
+
+   /**
+    * Point-in-time view of a {@link LatencyHistogram}; all times are in microseconds.
+    */
+   public static class Snapshot {
+      private final long count;
+      private final long meanMicros;
+      private final long p50Micros;
+      private final long p90Micros;
+      private final long p99Micros;
+      private final long maxMicros;
+
+      @ConstructorProperties({ "count", "meanMicros", "p50Micros", "p90Micros", "p99Micros", "maxMicros" })
+      public Snapshot(long count, long meanMicros, long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+         checkArgument(count >= 0, "count must be positive");
+         this.count = count;
+         this.meanMicros = meanMicros;
+         this.p50Micros = p50Micros;
+         this.p90Micros = p90Micros;
+         this.p99Micros = p99Micros;
+         this.maxMicros = maxMicros;
+      }
+
+      public long getCount() {
+         return count;
+      }
+
+      public long getMeanMicros() {
+         return meanMicros;
+      }
+
+      public long getP50Micros() {
+         return p50Micros;
+      }
+
+      public long getP90Micros() {
+         return p90Micros;
+      }
+
+      public long getP99Micros() {
+         return p99Micros;
+      }
+
+      public long getMaxMicros() {
+         return maxMicros;
+      }
+
+      @Override
+      public String toString() {
+         return Objects.toStringHelper(this).add("count", count).add("mean", meanMicros).add("p50", p50Micros)
+               .add("p90", p90Micros).add("p99", p99Micros).add("max", maxMicros).toString();
+      }
+   }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jclouds.annotations.Name;
+import org.jclouds.http.metrics.CommandMetrics;
+import org.jclouds.http.metrics.HttpMetricsRegistry;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Sets;
+
+/**
+ * Publishes the measurements of each command as an MXBean named
+ * {@code org.jclouds:type=HttpMetrics,context=<context name>,command=<command name>}.
+ * <p>
+ * The MXBeans are unregistered when the context is closed.
+ */
+@Singleton
+public class JmxHttpMetrics extends HttpMetricsRegistry {
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final MBeanServer server;
+   private final String contextName;
+   private final Set<ObjectName> registered = Sets.newConcurrentHashSet();
+
+   @Inject
+   JmxHttpMetrics(@Name String contextName) {
+      this(ManagementFactory.getPlatformMBeanServer(), contextName);
+   }
+
+   @VisibleForTesting
+   JmxHttpMetrics(MBeanServer server, String contextName) {
+      this.server = checkNotNull(server, "server");
+      this.contextName = checkNotNull(contextName, "contextName");
+   }
+
+   @Override
+   protected void added(CommandMetrics metrics) {
+      try {
+         ObjectName name = objectName(metrics.getCommandName());
+         server.registerMBean(metrics, name);
+         registered.add(name);
+      } catch (JMException e) {
+         logger.warn(e, "could not publish metrics of %s", metrics.getCommandName());
+      }
+   }
+
+   @VisibleForTesting
+   ObjectName objectName(String commandName) throws JMException {
+      return new ObjectName(String.format("org.jclouds:type=HttpMetrics,context=%s,command=%s",
+            ObjectName.quote(contextName), ObjectName.quote(commandName)));
+   }
+
+   @PreDestroy
+   public void close() {
+      for (ObjectName name : registered) {
+         try {
+            server.unregisterMBean(name);
+         } catch (JMException e) {
+            logger.debug("could not unregister %s: %s", name, e.getMessage());
+         }
+      }
+      registered.clear();
+   }
+}
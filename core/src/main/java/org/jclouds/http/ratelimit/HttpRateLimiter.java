@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.ratelimit;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.ratelimit.internal.NullHttpRateLimiter;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Paces the http commands invoked by a context, so that when a provider starts throttling every command slows down,
+ * instead of each one retrying on its own until it runs out of retries.
+ * <p>
+ * Implementations are shared by all the threads invoking commands, so they must be thread-safe. The default
+ * implementation never delays anything; bind {@link org.jclouds.http.ratelimit.config.AdaptiveRateLimitModule} to
+ * adapt the rate of each endpoint to its throttling responses.
+ */
+@ImplementedBy(NullHttpRateLimiter.class)
+public interface HttpRateLimiter {
+
+   /**
+    * Reserves the capacity to send an attempt of {@code command}. The reservation is taken whether or not the caller
+    * waits, so the caller must send the request once the returned delay has passed.
+    * 
+    * @return the delay, in milliseconds, to wait before sending {@code request}, or 0 to send it now
+    */
+   long reserve(String command, HttpRequest request);
+
+   /**
+    * Signals that the endpoint of {@code request} responded with a throttling error, such as {@code 429 Too Many
+    * Requests} or a provider specific error code.
+    */
+   void throttled(HttpRequest request);
+}
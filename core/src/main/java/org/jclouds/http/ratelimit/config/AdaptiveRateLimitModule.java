@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.ratelimit.config;
+
+import org.jclouds.http.ratelimit.HttpRateLimiter;
+import org.jclouds.http.ratelimit.internal.AdaptiveHttpRateLimiter;
+
+import com.google.inject.AbstractModule;
+
+/**
+ * Limits the rate of requests sent to each endpoint, and adapts it to the throttling errors of the provider. Add it
+ * to the modules of the context:
+ * 
+ * <pre>
+ * ContextBuilder.newBuilder(&quot;aws-ec2&quot;).modules(ImmutableSet.of(new AdaptiveRateLimitModule()))...
+ * </pre>
+ * 
+ * @see org.jclouds.Constants#PROPERTY_RATE_LIMIT_MAX_RATE
+ */
+public class AdaptiveRateLimitModule extends AbstractModule {
+
+   @Override
+   protected void configure() {
+      bind(HttpRateLimiter.class).to(AdaptiveHttpRateLimiter.class);
+   }
+}
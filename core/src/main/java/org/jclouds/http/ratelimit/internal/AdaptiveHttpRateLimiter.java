@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.ratelimit.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.transformValues;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_DECREASE_FACTOR;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_INCREASE;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_MAX_RATE;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_MIN_RATE;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_WEIGHTS_PREFIX;
+import static org.jclouds.util.Maps2.transformKeys;
+import static org.jclouds.util.Predicates2.startsWith;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.ratelimit.HttpRateLimiter;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+
+/**
+ * Keeps a token bucket per endpoint host, whose rate is adjusted additive-increase/multiplicative-decrease: each
+ * throttling response multiplies the rate by {@link org.jclouds.Constants#PROPERTY_RATE_LIMIT_DECREASE_FACTOR}, and
+ * every second without one adds {@link org.jclouds.Constants#PROPERTY_RATE_LIMIT_INCREASE} back, up to
+ * {@link org.jclouds.Constants#PROPERTY_RATE_LIMIT_MAX_RATE}. A bucket holds at most one second worth of requests, so
+ * an idle endpoint accepts a short burst.
+ */
+@Singleton
+public class AdaptiveHttpRateLimiter implements HttpRateLimiter {
+
+   /**
+    * Throttling responses to requests that were already in flight when the rate was decreased don't decrease it
+    * again.
+    */
+   private static final long DECREASE_INTERVAL_NANOS = SECONDS.toNanos(1);
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_MAX_RATE)
+   @VisibleForTesting
+   double maxRate = 100;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_MIN_RATE)
+   @VisibleForTesting
+   double minRate = 1;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_DECREASE_FACTOR)
+   @VisibleForTesting
+   double decreaseFactor = 0.5;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_INCREASE)
+   @VisibleForTesting
+   double increase = 1;
+
+   private final Map<String, Double> weights;
+   private final Ticker ticker;
+   private final ConcurrentMap<String, Bucket> buckets = Maps.newConcurrentMap();
+
+   @Inject
+   AdaptiveHttpRateLimiter(Function<Predicate<String>, Map<String, String>> filterStringsBoundByName) {
+      this(weights(filterStringsBoundByName), Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   AdaptiveHttpRateLimiter(Map<String, Double> weights, Ticker ticker) {
+      this.weights = ImmutableMap.copyOf(checkNotNull(weights, "weights"));
+      this.ticker = checkNotNull(ticker, "ticker");
+   }
+
+   @Override
+   public long reserve(String command, HttpRequest request) {
+      long waitNanos = bucket(request).reserve(weight(command), ticker.read());
+      // round up, so that a caller sleeping for the result never sends early
+      return NANOSECONDS.toMillis(waitNanos + 999999);
+   }
+
+   @Override
+   public void throttled(HttpRequest request) {
+      String host = host(request);
+      double rate = bucket(request).decrease(ticker.read());
+      if (rate > 0)
+         logger.debug("Throttled by %s, slowing down to %.2f requests per second", host, rate);
+   }
+
+   /**
+    * The current rate of the endpoint of {@code request}, in requests per second.
+    */
+   @VisibleForTesting
+   double rate(HttpRequest request) {
+      return bucket(request).rate(ticker.read());
+   }
+
+   @VisibleForTesting
+   double weight(String command) {
+      Double weight = weights.get(command);
+      int dot = command.indexOf('.');
+      if (weight == null && dot != -1)
+         weight = weights.get(command.substring(0, dot));
+      if (weight == null)
+         weight = weights.get("default");
+      return weight != null ? weight : 1;
+   }
+
+   private Bucket bucket(HttpRequest request) {
+      String host = host(request);
+      Bucket bucket = buckets.get(host);
+      if (bucket == null) {
+         Bucket created = new Bucket(maxRate, ticker.read());
+         bucket = buckets.putIfAbsent(host, created);
+         if (bucket == null)
+            bucket = created;
+      }
+      return bucket;
+   }
+
+   private static String host(HttpRequest request) {
+      return request.getEndpoint().getHost();
+   }
+
+   private final class Bucket {
+      private double rate;
+      /**
+       * when the capacity taken so far is paid back; in the past when the bucket is not empty.
+       */
+      private long nextFreeNanos;
+      private long lastIncreaseNanos;
+      private long lastDecreaseNanos;
+
+      private Bucket(double rate, long now) {
+         this.rate = rate;
+         this.nextFreeNanos = now - SECONDS.toNanos(1);
+         this.lastIncreaseNanos = now;
+         this.lastDecreaseNanos = now - DECREASE_INTERVAL_NANOS;
+      }
+
+      synchronized long reserve(double weight, long now) {
+         increase(now);
+         long start = Math.max(nextFreeNanos, now - SECONDS.toNanos(1));
+         nextFreeNanos = start + (long) (weight * SECONDS.toNanos(1) / rate);
+         return Math.max(0, start - now);
+      }
+
+      /**
+       * @return the new rate, or 0 if the rate was decreased too recently to decrease it again
+       */
+      synchronized double decrease(long now) {
+         increase(now);
+         if (now - lastDecreaseNanos < DECREASE_INTERVAL_NANOS)
+            return 0;
+         lastDecreaseNanos = now;
+         rate = Math.max(minRate, rate * decreaseFactor);
+         return rate;
+      }
+
+      synchronized double rate(long now) {
+         increase(now);
+         return rate;
+      }
+
+      private void increase(long now) {
+         if (rate < maxRate)
+            rate = Math.min(maxRate, rate + increase * (now - lastIncreaseNanos) / SECONDS.toNanos(1));
+         lastIncreaseNanos = now;
+      }
+   }
+
+   /**
+    * weights of commands configured in properties
+    */
+   static Map<String, Double> weights(Function<Predicate<String>, Map<String, String>> filterStringsBoundByName) {
+      Map<String, String> stringBoundWithWeightPrefix = filterStringsBoundByName
+            .apply(startsWith(PROPERTY_RATE_LIMIT_WEIGHTS_PREFIX));
+      Map<String, Double> doublesByName = transformValues(stringBoundWithWeightPrefix, new Function<String, Double>() {
+         public Double apply(String input) {
+            return Double.valueOf(input);
+         }
+      });
+      return transformKeys(doublesByName, new Function<String, String>() {
+         public String apply(String input) {
+            return input.replaceFirst(PROPERTY_RATE_LIMIT_WEIGHTS_PREFIX, "");
+         }
+      });
+   }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.ratelimit.internal;
+
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.ratelimit.HttpRateLimiter;
+
+/**
+ * Sends every request immediately and ignores throttling.
+ */
+@Singleton
+public class NullHttpRateLimiter implements HttpRateLimiter {
+
+   public static final NullHttpRateLimiter INSTANCE = new NullHttpRateLimiter();
+
+   @Override
+   public long reserve(String command, HttpRequest request) {
+      return 0;
+   }
+
+   @Override
+   public void throttled(HttpRequest request) {
+   }
+}
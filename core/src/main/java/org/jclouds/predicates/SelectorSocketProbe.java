@@ -0,0 +1,417 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.predicates;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static java.lang.String.format;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.util.Closeables2.closeQuietly;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URI;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.net.HostAndPort;
+import com.google.common.net.InetAddresses;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
+
+/**
+ * {@link SocketProbe} that connects with non-blocking channels, all of them driven by a single {@link Selector} thread.
+ * <p>
+ * Each socket is retried with an exponential backoff until the probe deadline. Host names are resolved on the user
+ * executor before connecting. Sockets that must be reached through a proxy can't be connected with a
+ * {@link SocketChannel}, and a {@link SocketOpen} binding other than {@link InetSocketAddressConnect} must be honoured;
+ * those attempts are delegated to {@link SocketOpen} on the user executor, while their scheduling is still handled by
+ * the selector thread.
+ */
+@Singleton
+public class SelectorSocketProbe implements SocketProbe {
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named("org.jclouds.socket_timeout")
+   private int timeout = 2000;
+
+   @VisibleForTesting
+   long initialBackoffMillis = 1000;
+
+   @VisibleForTesting
+   long maxBackoffMillis = 5000;
+
+   private final Function<URI, Proxy> proxyForURI;
+   private final SocketOpen socketOpen;
+   private final ListeningExecutorService userExecutor;
+
+   /**
+    * Work to be run on the selector thread, such as registering new probes.
+    */
+   private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+   /**
+    * Only accessed from the selector thread.
+    */
+   private final List<Probe> probes = Lists.newLinkedList();
+
+   private Selector selector;
+   private Thread selectorThread;
+   private volatile boolean closed;
+
+   @Inject
+   SelectorSocketProbe(Function<URI, Proxy> proxyForURI, SocketOpen socketOpen,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this.proxyForURI = checkNotNull(proxyForURI, "proxyForURI");
+      this.socketOpen = checkNotNull(socketOpen, "socketOpen");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+   }
+
+   @Override
+   public ListenableFuture<HostAndPort> findFirstOpen(Iterable<HostAndPort> sockets, long timeout, TimeUnit timeUnit) {
+      ImmutableList<HostAndPort> toProbe = ImmutableList.copyOf(checkNotNull(sockets, "sockets"));
+      checkArgument(!toProbe.isEmpty(), "no sockets to probe");
+      checkNotNull(timeUnit, "timeUnit");
+
+      final Probe probe = new Probe(System.nanoTime() + timeUnit.toNanos(timeout));
+      for (HostAndPort socket : toProbe) {
+         probe.targets.add(new Target(socket, isDelegated(socket)));
+      }
+      start();
+      submit(new Runnable() {
+         @Override
+         public void run() {
+            probes.add(probe);
+         }
+      });
+      // wake up the selector so that cancelled probes are released straight away
+      probe.future.addListener(new Runnable() {
+         @Override
+         public void run() {
+            if (probe.future.isCancelled())
+               wakeup();
+         }
+      }, sameThreadExecutor());
+      return probe.future;
+   }
+
+   /**
+    * Stops the selector thread, failing any probe still in progress.
+    */
+   @PreDestroy
+   public void close() {
+      closed = true;
+      wakeup();
+   }
+
+   /**
+    * Sockets reached through a proxy, and all sockets when {@link SocketOpen} is bound to something other than
+    * {@link InetSocketAddressConnect} (for example where raw sockets aren't allowed), are tested with {@link SocketOpen}.
+    */
+   private boolean isDelegated(HostAndPort socket) {
+      if (!(socketOpen instanceof InetSocketAddressConnect))
+         return true;
+      Proxy proxy = proxyForURI.apply(URI.create("socket://" + socket.getHostText() + ":" + socket.getPort()));
+      return proxy != null && proxy.type() != Proxy.Type.DIRECT;
+   }
+
+   private synchronized void start() {
+      checkState(!closed, "socket probe is closed");
+      if (selectorThread != null)
+         return;
+      try {
+         selector = Selector.open();
+      } catch (IOException e) {
+         throw new IllegalStateException("could not open selector", e);
+      }
+      selectorThread = new Thread(new Runnable() {
+         @Override
+         public void run() {
+            loop();
+         }
+      }, "socket probe");
+      selectorThread.setDaemon(true);
+      selectorThread.start();
+   }
+
+   private void submit(Runnable task) {
+      tasks.add(task);
+      wakeup();
+   }
+
+   private synchronized void wakeup() {
+      if (selector != null)
+         selector.wakeup();
+   }
+
+   private void loop() {
+      try {
+         while (!closed) {
+            for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+               task.run();
+            }
+            long waitMillis = startAndExpireAttempts(System.nanoTime());
+            selector.select(waitMillis);
+            for (Iterator<SelectionKey> keys = selector.selectedKeys().iterator(); keys.hasNext();) {
+               SelectionKey key = keys.next();
+               keys.remove();
+               if (key.isValid() && key.isConnectable())
+                  finishConnect(key);
+            }
+         }
+      } catch (IOException e) {
+         logger.error(e, "socket probe selector failed");
+      } catch (RuntimeException e) {
+         logger.error(e, "socket probe selector failed");
+      } finally {
+         closed = true;
+         for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+            task.run();
+         }
+         for (Probe probe : probes) {
+            probe.release();
+            probe.future.setException(new IllegalStateException("socket probe is closed"));
+         }
+         probes.clear();
+         try {
+            selector.close();
+         } catch (IOException e) {
+            // no work to do
+         }
+      }
+   }
+
+   /**
+    * Starts the attempts that are due, fails the probes whose deadline passed, and returns how long the selector may
+    * sleep before something else is due.
+    */
+   private long startAndExpireAttempts(long now) {
+      long nextEvent = Long.MAX_VALUE;
+      for (Iterator<Probe> it = probes.iterator(); it.hasNext();) {
+         Probe probe = it.next();
+         if (probe.future.isDone()) {
+            probe.release();
+            it.remove();
+            continue;
+         }
+         if (now - probe.deadline >= 0) {
+            probe.release();
+            it.remove();
+            probe.future.setException(new NoSuchElementException(format("sockets %s didn't open", probe.targets)));
+            continue;
+         }
+         nextEvent = Math.min(nextEvent, probe.deadline - now);
+         for (Target target : probe.targets) {
+            if (target.channel != null && now - target.attemptDeadline >= 0) {
+               logger.trace("timed out connecting to %s", target.socket);
+               target.release();
+               target.backoff(now);
+            }
+            if (target.channel == null && !target.inFlight && now - target.nextAttempt >= 0) {
+               startAttempt(probe, target, now);
+               if (probe.future.isDone())
+                  break;
+            }
+            if (target.channel != null)
+               nextEvent = Math.min(nextEvent, target.attemptDeadline - now);
+            else if (!target.inFlight)
+               nextEvent = Math.min(nextEvent, target.nextAttempt - now);
+         }
+      }
+      if (nextEvent == Long.MAX_VALUE)
+         return 0;
+      return Math.max(1, TimeUnit.NANOSECONDS.toMillis(nextEvent) + 1);
+   }
+
+   private void startAttempt(final Probe probe, final Target target, long now) {
+      logger.trace("testing socket %s", target.socket);
+      if (target.delegated) {
+         target.inFlight = true;
+         userExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+               final boolean open = socketOpen.apply(target.socket);
+               submit(new Runnable() {
+                  @Override
+                  public void run() {
+                     target.inFlight = false;
+                     if (open)
+                        probe.future.set(target.socket);
+                     else
+                        target.backoff(System.nanoTime());
+                  }
+               });
+            }
+         });
+         return;
+      }
+      if (InetAddresses.isInetAddress(target.socket.getHostText())) {
+         connect(probe, target, resolve(target.socket), now);
+         return;
+      }
+      // name lookups block, so they mustn't hold up the selector thread
+      target.inFlight = true;
+      userExecutor.execute(new Runnable() {
+         @Override
+         public void run() {
+            final InetSocketAddress address = resolve(target.socket);
+            submit(new Runnable() {
+               @Override
+               public void run() {
+                  target.inFlight = false;
+                  connect(probe, target, address, System.nanoTime());
+               }
+            });
+         }
+      });
+   }
+
+   private static InetSocketAddress resolve(HostAndPort socket) {
+      return new InetSocketAddress(socket.getHostText(), socket.getPort());
+   }
+
+   private void connect(Probe probe, Target target, InetSocketAddress address, long now) {
+      if (closed || probe.future.isDone())
+         return;
+      if (address.isUnresolved()) {
+         logger.trace("could not resolve %s", target.socket);
+         target.backoff(now);
+         return;
+      }
+      SocketChannel channel = null;
+      try {
+         channel = SocketChannel.open();
+         channel.configureBlocking(false);
+         if (channel.connect(address)) {
+            closeQuietly(channel);
+            probe.future.set(target.socket);
+            return;
+         }
+         channel.register(selector, SelectionKey.OP_CONNECT, new Attempt(probe, target));
+         target.channel = channel;
+         target.attemptDeadline = now + TimeUnit.MILLISECONDS.toNanos(timeout);
+      } catch (IOException e) {
+         closeQuietly(channel);
+         target.backoff(now);
+      }
+   }
+
+   private void finishConnect(SelectionKey key) {
+      Attempt attempt = (Attempt) key.attachment();
+      Target target = attempt.target;
+      boolean connected = false;
+      try {
+         connected = target.channel.finishConnect();
+      } catch (IOException e) {
+         logger.trace("could not connect to %s: %s", target.socket, e.getMessage());
+      }
+      if (connected) {
+         target.release();
+         attempt.probe.future.set(target.socket);
+      } else if (!target.channel.isConnectionPending()) {
+         target.release();
+         target.backoff(System.nanoTime());
+      }
+   }
+
+   private final class Probe {
+      private final SettableFuture<HostAndPort> future = SettableFuture.create();
+      private final long deadline;
+      private final List<Target> targets = Lists.newArrayList();
+
+      private Probe(long deadline) {
+         this.deadline = deadline;
+      }
+
+      private void release() {
+         for (Target target : targets) {
+            target.release();
+         }
+      }
+   }
+
+   private final class Target {
+      private final HostAndPort socket;
+      private final boolean delegated;
+      private SocketChannel channel;
+      private boolean inFlight;
+      private long attemptDeadline;
+      private long nextAttempt = System.nanoTime();
+      private long backoffMillis = initialBackoffMillis;
+
+      private Target(HostAndPort socket, boolean delegated) {
+         this.socket = socket;
+         this.delegated = delegated;
+      }
+
+      private void backoff(long now) {
+         nextAttempt = now + TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+         backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+      }
+
+      private void release() {
+         if (channel != null) {
+            SelectionKey key = channel.keyFor(selector);
+            if (key != null)
+               key.cancel();
+            closeQuietly(channel);
+            channel = null;
+         }
+      }
+
+      @Override
+      public String toString() {
+         return socket.toString();
+      }
+   }
+
+   private static final class Attempt {
+      private final Probe probe;
+      private final Target target;
+
+      private Attempt(Probe probe, Target target) {
+         this.probe = probe;
+         this.target = target;
+      }
+   }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.predicates;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.inject.ImplementedBy;
+
+/**
+ * Waits for sockets to open without holding a thread per socket.
+ */
+@ImplementedBy(SelectorSocketProbe.class)
+public interface SocketProbe {
+
+   /**
+    * Repeatedly tries to connect to the given sockets, backing off between attempts, until one of them accepts a
+    * connection or the timeout expires.
+    * 
+    * @return the first socket found open. The future fails with a {@link java.util.NoSuchElementException} if none of
+    *         the sockets opened before the timeout. Cancelling it stops probing.
+    */
+   ListenableFuture<HostAndPort> findFirstOpen(Iterable<HostAndPort> sockets, long timeout, TimeUnit timeUnit);
+
+}
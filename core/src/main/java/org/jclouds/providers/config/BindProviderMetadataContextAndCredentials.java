@@ -51,19 +51,39 @@ public class BindProviderMetadataContextAndCredentials extends AbstractModule {
 
    private final ProviderMetadata providerMetadata;
    private final Supplier<Credentials> creds;
+   private final boolean bindProperties;
 
    public BindProviderMetadataContextAndCredentials(ProviderMetadata providerMetadata, Supplier<Credentials> creds) {
+      this(providerMetadata, creds, true);
+   }
+
+   /**
+    * @param bindProperties
+    *           false when the properties are already bound by a parent injector, as they are for contexts built
+    *           from a {@link org.jclouds.ContextTemplate}
+    */
+   public BindProviderMetadataContextAndCredentials(ProviderMetadata providerMetadata, Supplier<Credentials> creds,
+         boolean bindProperties) {
       this.providerMetadata = checkNotNull(providerMetadata, "providerMetadata");
       this.creds = checkNotNull(creds, "creds");
+      this.bindProperties = bindProperties;
    }
 
-   @Override
-   protected void configure() {
-      bind(ProviderMetadata.class).toInstance(providerMetadata);
+   /**
+    * Returns the properties bound with {@link Names#bindProperties}.
+    */
+   public static Properties properties(ProviderMetadata providerMetadata) {
       Properties toBind = new Properties();
       toBind.putAll(providerMetadata.getApiMetadata().getDefaultProperties());
       toBind.putAll(providerMetadata.getDefaultProperties());
-      Names.bindProperties(binder(), toBind);
+      return toBind;
+   }
+
+   @Override
+   protected void configure() {
+      bind(ProviderMetadata.class).toInstance(providerMetadata);
+      if (bindProperties)
+         Names.bindProperties(binder(), properties(providerMetadata));
       bind(new TypeLiteral<Supplier<Credentials>>(){}).annotatedWith(Provider.class).toInstance(creds);
       bindConstant().annotatedWith(Provider.class).to(providerMetadata.getId());
       bind(new TypeLiteral<Set<String>>() {
@@ -35,6 +35,9 @@ import org.jclouds.proxy.ProxyForURI;
 import org.jclouds.reflect.Invocation;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.binders.BindToJsonPayloadWrappedWith;
+import org.jclouds.rest.internal.ConditionalGetCache;
+import org.jclouds.rest.internal.HedgingPolicy;
+import org.jclouds.rest.internal.RequestCoalescer;
 import org.jclouds.rest.internal.RestAnnotationProcessor;
 import org.jclouds.rest.internal.TransformerForRequest;
 
@@ -71,6 +74,11 @@ public class RestModule extends AbstractModule {
       }).to(FilterStringsBoundToInjectorByName.class);
       bind(new TypeLiteral<Function<URI, Proxy>>() {
       }).to(ProxyForURI.class);
+      // these hold responses and timings of this context, so bind them here rather than let a parent injector, such
+      // as the one of a ContextTemplate, share them between contexts
+      bind(RequestCoalescer.class);
+      bind(ConditionalGetCache.class);
+      bind(HedgingPolicy.class);
       installLocations();
    }
 }
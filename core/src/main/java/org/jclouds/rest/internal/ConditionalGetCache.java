@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.transformValues;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_MATCH;
+import static com.google.common.net.HttpHeaders.IF_MODIFIED_SINCE;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+import static com.google.common.net.HttpHeaders.IF_UNMODIFIED_SINCE;
+import static com.google.common.net.HttpHeaders.LAST_MODIFIED;
+import static com.google.common.net.HttpHeaders.RANGE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jclouds.Constants.PROPERTY_RESPONSE_CACHE_PREFIX;
+import static org.jclouds.Constants.PROPERTY_RESPONSE_CACHE_SIZE;
+import static org.jclouds.util.Maps2.transformKeys;
+import static org.jclouds.util.Predicates2.startsWith;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.io.PayloadEnclosing;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Keeps the parsed results of GET commands, so that they can be revalidated with {@code If-None-Match} or
+ * {@code If-Modified-Since} and reused when the server responds {@code 304 Not Modified}, saving both the transfer and
+ * the parsing of the response.
+ * <p>
+ * Only commands configured with a time to live, as in {@link org.jclouds.Constants#PROPERTY_RESPONSE_CACHE_PREFIX},
+ * are cached, and only when the response has an {@code ETag} or {@code Last-Modified} header. The same result is
+ * returned to every caller, so only configure commands whose results are immutable. Results that hold a stream or a
+ * payload are never cached.
+ */
+@Singleton
+public class ConditionalGetCache {
+
+   /**
+    * A result and the validators of the response it was parsed from.
+    */
+   public static final class Entry {
+      private final Object result;
+      private final String etag;
+      private final String lastModified;
+      private final long expiresNanos;
+
+      private Entry(Object result, String etag, String lastModified, long expiresNanos) {
+         this.result = result;
+         this.etag = etag;
+         this.lastModified = lastModified;
+         this.expiresNanos = expiresNanos;
+      }
+
+      public Object getResult() {
+         return result;
+      }
+
+      /**
+       * Returns {@code request} made conditional on the response this entry was parsed from.
+       */
+      public HttpRequest revalidate(HttpRequest request) {
+         HttpRequest.Builder<?> builder = request.toBuilder();
+         if (etag != null)
+            builder.replaceHeader(IF_NONE_MATCH, etag);
+         if (lastModified != null)
+            builder.replaceHeader(IF_MODIFIED_SINCE, lastModified);
+         return builder.build();
+      }
+   }
+
+   private final Map<String, Long> ttls;
+   private final Ticker ticker;
+   private final Cache<String, Entry> entries;
+
+   @Inject
+   ConditionalGetCache(Function<Predicate<String>, Map<String, String>> filterStringsBoundByName,
+         @Named(PROPERTY_RESPONSE_CACHE_SIZE) long maxEntries) {
+      this(ttls(filterStringsBoundByName), maxEntries, Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   ConditionalGetCache(Map<String, Long> ttls, long maxEntries, Ticker ticker) {
+      this.ttls = ImmutableMap.copyOf(checkNotNull(ttls, "ttls"));
+      this.ticker = checkNotNull(ticker, "ticker");
+      this.entries = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+   }
+
+   /**
+    * Returns true if the results of {@code commandName} are cached, and {@code request} is a plain GET that isn't
+    * already conditional.
+    */
+   public boolean appliesTo(String commandName, HttpRequest request) {
+      if (ttls.isEmpty() || !"GET".equals(request.getMethod()))
+         return false;
+      for (String header : new String[] { IF_NONE_MATCH, IF_MODIFIED_SINCE, IF_MATCH, IF_UNMODIFIED_SINCE, RANGE }) {
+         if (request.getHeaders().containsKey(header))
+            return false;
+      }
+      return ttlMillis(commandName) > 0;
+   }
+
+   /**
+    * Returns the entry cached for {@code request}, or null if there is none or it has expired.
+    */
+   public Entry get(String commandName, HttpRequest request) {
+      String key = key(commandName, request);
+      Entry entry = entries.getIfPresent(key);
+      if (entry != null && ticker.read() - entry.expiresNanos >= 0) {
+         entries.invalidate(key);
+         return null;
+      }
+      return entry;
+   }
+
+   /**
+    * Caches {@code result}, parsed from {@code response} to {@code request}, if it can be revalidated later.
+    */
+   public void put(String commandName, HttpRequest request, HttpResponse response, Object result) {
+      if (response.getStatusCode() != 200 || !isCacheable(result))
+         return;
+      String etag = response.getFirstHeaderOrNull(ETAG);
+      String lastModified = response.getFirstHeaderOrNull(LAST_MODIFIED);
+      if (etag == null && lastModified == null)
+         return;
+      long expiresNanos = ticker.read() + MILLISECONDS.toNanos(ttlMillis(commandName));
+      entries.put(key(commandName, request), new Entry(result, etag, lastModified, expiresNanos));
+   }
+
+   /**
+    * Returns true if {@code exception} was raised because the server responded {@code 304 Not Modified}.
+    */
+   public static boolean isNotModified(Exception exception) {
+      HttpResponseException responseException = getFirstThrowableOfType(exception, HttpResponseException.class);
+      return responseException != null && responseException.getResponse() != null
+            && responseException.getResponse().getStatusCode() == 304;
+   }
+
+   @VisibleForTesting
+   long size() {
+      return entries.size();
+   }
+
+   private static boolean isCacheable(Object result) {
+      return result != null && !(result instanceof InputStream) && !(result instanceof Closeable)
+            && !(result instanceof PayloadEnclosing);
+   }
+
+   private long ttlMillis(String commandName) {
+      Long ttl = ttls.get(commandName);
+      int dot = commandName.indexOf('.');
+      if (ttl == null && dot != -1)
+         ttl = ttls.get(commandName.substring(0, dot));
+      if (ttl == null)
+         ttl = ttls.get("default");
+      return ttl != null ? ttl : 0;
+   }
+
+   private static String key(String commandName, HttpRequest request) {
+      return commandName + " " + request.getEndpoint();
+   }
+
+   /**
+    * time to live of the results of each command configured in properties, in ms
+    */
+   static Map<String, Long> ttls(Function<Predicate<String>, Map<String, String>> filterStringsBoundByName) {
+      Map<String, String> stringBoundWithCachePrefix = filterStringsBoundByName
+            .apply(startsWith(PROPERTY_RESPONSE_CACHE_PREFIX));
+      Map<String, Long> longsByName = transformValues(stringBoundWithCachePrefix, new Function<String, Long>() {
+         public Long apply(String input) {
+            return Long.valueOf(input);
+         }
+      });
+      return transformKeys(longsByName, new Function<String, String>() {
+         public String apply(String input) {
+            return input.replaceFirst(PROPERTY_RESPONSE_CACHE_PREFIX, "");
+         }
+      });
+   }
+}
@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.propagate;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.jclouds.Constants.PROPERTY_HEDGE_MAX_THREADS;
+import static org.jclouds.Constants.PROPERTY_HEDGE_MIN_DELAY;
+import static org.jclouds.Constants.PROPERTY_HEDGE_PERCENTILE;
+import static org.jclouds.http.HttpUtils.releasePayload;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.metrics.HttpMetrics;
+import org.jclouds.http.metrics.LatencyHistogram;
+import org.jclouds.http.metrics.internal.NullHttpMetrics;
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.annotations.Idempotent;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+
+/**
+ * Sends a backup attempt of an idempotent command whose response is slower than
+ * {@link org.jclouds.Constants#PROPERTY_HEDGE_PERCENTILE} of its previous responses, and uses whichever response
+ * arrives first. The attempt that loses is skipped if it has not started yet. Once started, it is not interrupted: it
+ * holds its thread and connection until its response arrives, and the response is then released.
+ * <p>
+ * Hedging is disabled unless the percentile is set, and a command is not hedged before {@link #MIN_SAMPLES} of its
+ * responses have been timed.
+ * <p>
+ * The attempts of a hedged command run on at most {@link org.jclouds.Constants#PROPERTY_HEDGE_MAX_THREADS} threads of
+ * the policy, so the calling thread is free to return whichever response arrives first. They don't use the user
+ * executor, as the calling thread may itself be a user thread blocked on the result. When all the threads of the
+ * policy are busy, the command is sent once, on the calling thread, and the backup is not sent.
+ */
+@Singleton
+public class HedgingPolicy {
+
+   @VisibleForTesting
+   static final int MIN_SAMPLES = 20;
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @VisibleForTesting
+   double percentile = 0;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_HEDGE_MIN_DELAY)
+   @VisibleForTesting
+   long minDelayMs = 5;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_HEDGE_MAX_THREADS)
+   @VisibleForTesting
+   int maxThreads = 20;
+
+   @Inject
+   @VisibleForTesting
+   HttpMetrics metrics = NullHttpMetrics.INSTANCE;
+
+   private final ConcurrentMap<String, LatencyHistogram> latencies = Maps.newConcurrentMap();
+
+   private ExecutorService attempts;
+   private boolean closed;
+
+   @Inject
+   HedgingPolicy() {
+   }
+
+   @VisibleForTesting
+   HedgingPolicy(ExecutorService attempts) {
+      this.attempts = checkNotNull(attempts, "attempts");
+   }
+
+   @Inject(optional = true)
+   void setPercentile(@Named(PROPERTY_HEDGE_PERCENTILE) double percentile) {
+      checkArgument(percentile > 0 && percentile <= 100, "%s must be greater than 0 and at most 100, but was %s",
+            PROPERTY_HEDGE_PERCENTILE, percentile);
+      this.percentile = percentile;
+   }
+
+   /**
+    * Returns true if {@code request} may be sent twice: hedging is enabled, the request is a GET or HEAD, or was
+    * created from a method annotated with {@link Idempotent}, and its payload, if any, can be read again.
+    */
+   public boolean appliesTo(HttpRequest request) {
+      if (percentile <= 0)
+         return false;
+      if (request.getPayload() != null && !request.getPayload().isRepeatable())
+         return false;
+      return isIdempotent(request);
+   }
+
+   /**
+    * Returns true if {@code request} is a GET or HEAD, or was created from a method annotated with {@link Idempotent}.
+    */
+   static boolean isIdempotent(HttpRequest request) {
+      String method = request.getMethod();
+      if ("GET".equals(method) || "HEAD".equals(method))
+         return true;
+      return request instanceof GeneratedHttpRequest
+            && GeneratedHttpRequest.class.cast(request).getInvocation().getInvokable()
+                  .isAnnotationPresent(Idempotent.class);
+   }
+
+   /**
+    * Invokes {@code command} with {@code http}, hedging it if it is slower than usual.
+    */
+   public HttpResponse invoke(HttpCommandExecutorService http, String commandName, HttpCommand command) {
+      long delayNanos = delayNanos(commandName);
+      if (delayNanos < 0)
+         return timedInvoke(http, commandName, command);
+      HttpRequest request = command.getCurrentRequest();
+      ListenableFuture<HttpResponse> primary;
+      try {
+         primary = attempt(http, commandName, command);
+      } catch (RejectedExecutionException e) {
+         logger.debug(">> not hedging %s as all hedging threads are busy", commandName);
+         return timedInvoke(http, commandName, command);
+      }
+      try {
+         return primary.get(delayNanos, NANOSECONDS);
+      } catch (TimeoutException e) {
+         // send the backup below
+      } catch (ExecutionException e) {
+         throw propagate(e.getCause());
+      } catch (InterruptedException e) {
+         primary.cancel(false);
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      }
+      ListenableFuture<HttpResponse> backup;
+      try {
+         backup = attempt(http, commandName, new HttpCommand(request, commandName));
+         logger.debug(">> hedging %s after %d ms", commandName, NANOSECONDS.toMillis(delayNanos));
+      } catch (RejectedExecutionException e) {
+         logger.debug(">> not hedging %s as all hedging threads are busy", commandName);
+         backup = null;
+      }
+      try {
+         return (backup == null ? primary : firstSuccessful(commandName, primary, backup)).get();
+      } catch (ExecutionException e) {
+         throw propagate(e.getCause());
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      } finally {
+         primary.cancel(false);
+         if (backup != null)
+            backup.cancel(false);
+      }
+   }
+
+   private HttpResponse timedInvoke(HttpCommandExecutorService http, String commandName, HttpCommand command) {
+      long start = System.nanoTime();
+      HttpResponse response = http.invoke(command);
+      latency(commandName).record(System.nanoTime() - start);
+      return response;
+   }
+
+   /**
+    * The delay before hedging {@code commandName}, or -1 if too few of its responses were timed.
+    */
+   @VisibleForTesting
+   long delayNanos(String commandName) {
+      LatencyHistogram latency = latency(commandName);
+      if (latency.count() < MIN_SAMPLES)
+         return -1;
+      long percentileNanos = MICROSECONDS.toNanos(latency.percentileMicros(percentile / 100));
+      return Math.max(MILLISECONDS.toNanos(minDelayMs), percentileNanos);
+   }
+
+   @VisibleForTesting
+   LatencyHistogram latency(String commandName) {
+      LatencyHistogram latency = latencies.get(commandName);
+      if (latency == null) {
+         LatencyHistogram newLatency = new LatencyHistogram();
+         latency = latencies.putIfAbsent(commandName, newLatency);
+         if (latency == null)
+            latency = newLatency;
+      }
+      return latency;
+   }
+
+   /**
+    * Stops the threads of the policy. Commands that are hedged afterwards fail.
+    */
+   @PreDestroy
+   public synchronized void close() {
+      closed = true;
+      if (attempts != null)
+         attempts.shutdownNow();
+   }
+
+   private synchronized ExecutorService attempts() {
+      checkState(!closed, "hedging policy is closed");
+      if (attempts == null) {
+         // no queue, so that a command is sent from the calling thread rather than waiting for a busy policy
+         attempts = new ThreadPoolExecutor(0, Math.max(1, maxThreads), 60L, SECONDS,
+               new SynchronousQueue<Runnable>(), new ThreadFactoryBuilder().setNameFormat("http hedge %d")
+                     .setDaemon(true).build());
+      }
+      return attempts;
+   }
+
+   /**
+    * Invokes {@code command} on a thread of the policy. If the returned future is cancelled before the response
+    * arrives, the response is released instead of being returned.
+    * 
+    * @throws RejectedExecutionException if all the threads of the policy are busy
+    */
+   private ListenableFuture<HttpResponse> attempt(final HttpCommandExecutorService http, final String commandName,
+         final HttpCommand command) {
+      final SettableFuture<HttpResponse> future = SettableFuture.create();
+      attempts().execute(new Runnable() {
+         @Override
+         public void run() {
+            if (future.isCancelled())
+               return;
+            try {
+               long start = System.nanoTime();
+               HttpResponse response = http.invoke(command);
+               latency(commandName).record(System.nanoTime() - start);
+               if (!future.set(response))
+                  releasePayload(response);
+            } catch (Throwable t) {
+               future.setException(t);
+            }
+         }
+
+         @Override
+         public String toString() {
+            return "attempt(" + commandName + ")";
+         }
+      });
+      return future;
+   }
+
+   /**
+    * Completes with the first response of either attempt, or with the failure of the primary attempt if both fail.
+    */
+   private ListenableFuture<HttpResponse> firstSuccessful(final String commandName,
+         final ListenableFuture<HttpResponse> primary, final ListenableFuture<HttpResponse> backup) {
+      final SettableFuture<HttpResponse> first = SettableFuture.create();
+      final AtomicInteger failures = new AtomicInteger();
+      for (final ListenableFuture<HttpResponse> attempt : ImmutableList.of(primary, backup)) {
+         Futures.addCallback(attempt, new FutureCallback<HttpResponse>() {
+            @Override
+            public void onSuccess(HttpResponse response) {
+               if (first.set(response))
+                  metrics.recordHedge(commandName, attempt == backup);
+               else
+                  releasePayload(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+               if (failures.incrementAndGet() == 2) {
+                  metrics.recordHedge(commandName, false);
+                  first.setException(primaryFailure(primary, t));
+               }
+            }
+         });
+      }
+      return first;
+   }
+
+   private static Throwable primaryFailure(ListenableFuture<HttpResponse> primary, Throwable last) {
+      try {
+         primary.get();
+      } catch (ExecutionException e) {
+         return e.getCause();
+      } catch (Exception e) {
+         // cancelled or interrupted, use the last failure
+      }
+      return last;
+   }
+}
@@ -19,9 +19,13 @@ package org.jclouds.rest.internal;
 import static com.google.common.base.Objects.equal;
 import static com.google.common.base.Objects.toStringHelper;
 import static com.google.common.base.Throwables.propagate;
+import static com.google.common.base.Throwables.propagateIfPossible;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -30,6 +34,10 @@ import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
+import org.jclouds.http.internal.BaseHttpCommandExecutorService;
+import org.jclouds.http.metrics.HttpMetrics;
+import org.jclouds.http.metrics.HttpMetrics.Phase;
+import org.jclouds.http.metrics.internal.NullHttpMetrics;
 import org.jclouds.logging.Logger;
 import org.jclouds.reflect.Invocation;
 import org.jclouds.rest.InvocationContext;
@@ -39,7 +47,9 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.TimeLimiter;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
 
 public class InvokeHttpMethod implements Function<Invocation, Object> {
 
@@ -52,6 +62,18 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
    private final Function<HttpRequest, Function<HttpResponse, ?>> transformerForRequest;
    private final InvocationConfig config;
 
+   @Inject
+   private HttpMetrics metrics = NullHttpMetrics.INSTANCE;
+
+   @Inject
+   private HedgingPolicy hedging;
+
+   @Inject
+   private ConditionalGetCache responseCache;
+
+   @Inject
+   private RequestCoalescer coalescer;
+
    @Inject
    @VisibleForTesting
    InvokeHttpMethod(Function<Invocation, HttpRequest> annotationProcessor,
@@ -87,7 +109,7 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
 
       logger.debug(">> invoking %s", commandName);
       try {
-         return transformer.apply(http.invoke(command));
+         return invokeAndTransform(commandName, command, transformer);
       } catch (Throwable t) {
          try {
             return fallback.createOrPropagate(t);
@@ -123,6 +145,8 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
 
       logger.debug(">> blocking on %s for %s", invocation, limitNanos);
       try {
+         if (canSubmit(commandName, command))
+            return submitAndTransform(commandName, command, limitNanos);
          return timeLimiter
                .callWithTimeout(new InvokeAndTransform(commandName, command), limitNanos, NANOSECONDS, true);
       } catch (Throwable t) {
@@ -134,6 +158,41 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       }
    }
 
+   /**
+    * Returns true if {@code command} can be {@link BaseHttpCommandExecutorService#submit(HttpCommand) submitted}, so
+    * that no thread is held while it waits to be retried. Commands that go through the response cache, the coalescer
+    * or hedging keep the blocking path.
+    */
+   private boolean canSubmit(String commandName, HttpCommand command) {
+      HttpRequest request = command.getCurrentRequest();
+      return http instanceof BaseHttpCommandExecutorService
+            && BaseHttpCommandExecutorService.class.cast(http).canSubmit()
+            && (responseCache == null || !responseCache.appliesTo(commandName, request))
+            && (coalescer == null || !coalescer.appliesTo(request))
+            && (hedging == null || !hedging.appliesTo(request));
+   }
+
+   /**
+    * waits for the submitted command like {@link TimeLimiter#callWithTimeout(Callable, long, TimeUnit, boolean)}
+    * would, cancelling its remaining attempts on timeout.
+    */
+   private Object submitAndTransform(String commandName, HttpCommand command, long limitNanos) throws Exception {
+      Function<HttpResponse, ?> transformer = getTransformer(commandName, command);
+      long start = System.nanoTime();
+      ListenableFuture<HttpResponse> response = BaseHttpCommandExecutorService.class.cast(http).submit(command);
+      try {
+         return transform(commandName, response.get(limitNanos, NANOSECONDS), transformer);
+      } catch (TimeoutException e) {
+         throw new UncheckedTimeoutException(e);
+      } catch (ExecutionException e) {
+         propagateIfPossible(e.getCause(), Exception.class);
+         throw propagate(e.getCause());
+      } finally {
+         response.cancel(true);
+         metrics.recordPhase(commandName, Phase.TOTAL, System.nanoTime() - start);
+      }
+   }
+
    private org.jclouds.Fallback<?> getFallback(String commandName, Invocation invocation, HttpCommand command) {
       HttpRequest request = command.getCurrentRequest();
       org.jclouds.Fallback<?> fallback = config.getFallback(invocation);
@@ -157,7 +216,7 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
 
       @Override
       public Object call() throws Exception {
-         return transformer.apply(http.invoke(command));
+         return invokeAndTransform(commandName, command, transformer);
       }
 
       @Override
@@ -183,11 +242,71 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       }
    }
 
+   private Object invokeAndTransform(String commandName, HttpCommand command, Function<HttpResponse, ?> transformer) {
+      long start = System.nanoTime();
+      try {
+         if (responseCache != null && responseCache.appliesTo(commandName, command.getCurrentRequest()))
+            return invokeAndTransformCached(commandName, command, transformer);
+         return transform(commandName, send(commandName, command), transformer);
+      } finally {
+         metrics.recordPhase(commandName, Phase.TOTAL, System.nanoTime() - start);
+      }
+   }
+
+   /**
+    * revalidates the result cached for {@code command}, if any, and returns it if the server responds not modified.
+    */
+   private Object invokeAndTransformCached(String commandName, HttpCommand command,
+         Function<HttpResponse, ?> transformer) {
+      HttpRequest request = command.getCurrentRequest();
+      ConditionalGetCache.Entry cached = responseCache.get(commandName, request);
+      if (cached != null)
+         command.setCurrentRequest(cached.revalidate(request));
+      HttpResponse response;
+      try {
+         response = send(commandName, command);
+      } catch (RuntimeException e) {
+         if (cached != null && ConditionalGetCache.isNotModified(e)) {
+            logger.debug("<< %s not modified, using cached result", commandName);
+            return cached.getResult();
+         }
+         throw e;
+      }
+      Object result = transform(commandName, response, transformer);
+      responseCache.put(commandName, request, response, result);
+      return result;
+   }
+
+   private HttpResponse send(String commandName, HttpCommand command) {
+      if (coalescer != null && coalescer.appliesTo(command.getCurrentRequest()))
+         return coalescer.invoke(hedgedHttp, commandName, command);
+      return hedgedHttp.invoke(command);
+   }
+
+   /**
+    * sends commands through the {@link HedgingPolicy} when it applies to them.
+    */
+   private final HttpCommandExecutorService hedgedHttp = new HttpCommandExecutorService() {
+      @Override
+      public HttpResponse invoke(HttpCommand command) {
+         if (hedging != null && hedging.appliesTo(command.getCurrentRequest()))
+            return hedging.invoke(http, command.getCommandName(), command);
+         return http.invoke(command);
+      }
+   };
+
+   private Object transform(String commandName, HttpResponse response, Function<HttpResponse, ?> transformer) {
+      long received = System.nanoTime();
+      Object result = transformer.apply(response);
+      metrics.recordPhase(commandName, Phase.PARSE, System.nanoTime() - received);
+      return result;
+   }
+
    private HttpCommand toCommand(String commandName, Invocation invocation) {
       logger.trace(">> converting %s", commandName);
       HttpRequest request = annotationProcessor.apply(invocation);
       logger.trace("<< converted %s to %s", commandName, request.getRequestLine());
-      return new HttpCommand(request);
+      return new HttpCommand(request, commandName);
    }
 
    private Function<HttpResponse, ?> getTransformer(String commandName, HttpCommand command) {
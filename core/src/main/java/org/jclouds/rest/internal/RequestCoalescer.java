@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static com.google.common.base.Throwables.propagate;
+import static org.jclouds.Constants.PROPERTY_COALESCE_MAX_PAYLOAD;
+import static org.jclouds.Constants.PROPERTY_COALESCE_REQUESTS;
+import static org.jclouds.util.Closeables2.closeQuietly;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.io.payloads.BaseMutableContentMetadata;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
+
+/**
+ * Makes concurrent callers of the same idempotent request share a single request to the provider.
+ * <p>
+ * The first caller sends the request and buffers the response; callers arriving while it is in flight wait for it, and
+ * every caller gets its own copy of the response, so that each parses an independent result. Responses larger than
+ * {@link org.jclouds.Constants#PROPERTY_COALESCE_MAX_PAYLOAD}, or of unknown length, are not buffered, and the callers
+ * waiting for them send their own request. Failures are shared like responses.
+ * <p>
+ * Requests are compared before filters are applied, so signatures and dates don't make identical requests differ.
+ */
+@Singleton
+public class RequestCoalescer {
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_COALESCE_REQUESTS)
+   @VisibleForTesting
+   boolean enabled = false;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_COALESCE_MAX_PAYLOAD)
+   @VisibleForTesting
+   long maxPayloadBytes = 1024 * 1024;
+
+   /**
+    * responses in flight by request; the response is null if it can't be shared.
+    */
+   private final ConcurrentMap<String, SettableFuture<HttpResponse>> inFlight = Maps.newConcurrentMap();
+
+   /**
+    * Returns true if coalescing is enabled and {@code request} is idempotent and has no payload.
+    */
+   public boolean appliesTo(HttpRequest request) {
+      return enabled && request.getPayload() == null && HedgingPolicy.isIdempotent(request);
+   }
+
+   /**
+    * Invokes {@code command} with {@code http}, unless an identical request is already in flight, in which case its
+    * response is copied.
+    */
+   public HttpResponse invoke(HttpCommandExecutorService http, String commandName, HttpCommand command) {
+      String key = key(command.getCurrentRequest());
+      SettableFuture<HttpResponse> shared = SettableFuture.create();
+      SettableFuture<HttpResponse> leader = inFlight.putIfAbsent(key, shared);
+      if (leader != null)
+         return follow(http, commandName, command, leader);
+      try {
+         HttpResponse response = http.invoke(command);
+         HttpResponse buffered = buffer(response);
+         shared.set(buffered);
+         return buffered != null ? copy(buffered) : response;
+      } catch (RuntimeException e) {
+         shared.setException(e);
+         throw e;
+      } catch (Error e) {
+         shared.setException(e);
+         throw e;
+      } finally {
+         inFlight.remove(key, shared);
+      }
+   }
+
+   private HttpResponse follow(HttpCommandExecutorService http, String commandName, HttpCommand command,
+         SettableFuture<HttpResponse> leader) {
+      HttpResponse buffered;
+      try {
+         buffered = leader.get();
+      } catch (ExecutionException e) {
+         throw propagate(e.getCause());
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      }
+      if (buffered == null) {
+         logger.trace(">> response to %s can't be shared, sending it again", commandName);
+         return http.invoke(command);
+      }
+      logger.trace("<< %s shared an identical request in flight", commandName);
+      return copy(buffered);
+   }
+
+   /**
+    * Returns {@code response} with its payload read into memory, or null if the payload is too large to buffer.
+    */
+   private HttpResponse buffer(HttpResponse response) {
+      Payload payload = response.getPayload();
+      if (payload == null)
+         return response;
+      Long length = payload.getContentMetadata().getContentLength();
+      if (length == null || length > maxPayloadBytes)
+         return null;
+      InputStream in = null;
+      byte[] bytes;
+      try {
+         in = payload.openStream();
+         bytes = ByteStreams.toByteArray(in);
+      } catch (IOException e) {
+         throw propagate(e);
+      } finally {
+         closeQuietly(in);
+         payload.release();
+      }
+      Payload buffered = Payloads.newByteArrayPayload(bytes);
+      buffered.setContentMetadata(BaseMutableContentMetadata.fromContentMetadata(payload.getContentMetadata()));
+      return response.toBuilder().payload(buffered).build();
+   }
+
+   private static HttpResponse copy(HttpResponse buffered) {
+      Payload payload = buffered.getPayload();
+      if (payload == null)
+         return buffered.toBuilder().build();
+      Payload copy = Payloads.newByteArrayPayload((byte[]) payload.getRawContent());
+      copy.setContentMetadata(BaseMutableContentMetadata.fromContentMetadata(payload.getContentMetadata()));
+      return buffered.toBuilder().payload(copy).build();
+   }
+
+   @VisibleForTesting
+   static String key(HttpRequest request) {
+      return request.getMethod() + " " + request.getEndpoint() + " "
+            + ImmutableSortedMap.copyOf(request.getHeaders().asMap());
+   }
+
+   @VisibleForTesting
+   int inFlight() {
+      return inFlight.size();
+   }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds;
+
+import static com.google.common.base.Suppliers.ofInstance;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.providers.AnonymousProviderMetadata.forApiOnEndpoint;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+
+import org.jclouds.domain.Credentials;
+import org.jclouds.http.IntegrationTestClient;
+import org.jclouds.location.Provider;
+import org.jclouds.providers.ProviderMetadata;
+import org.jclouds.rest.internal.ConditionalGetCache;
+import org.jclouds.rest.internal.HedgingPolicy;
+import org.jclouds.rest.internal.RequestCoalescer;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+
+@Test(groups = "unit", testName = "ContextTemplateTest")
+public class ContextTemplateTest {
+
+   private static final Key<Supplier<Credentials>> CREDENTIALS = Key.get(new TypeLiteral<Supplier<Credentials>>() {
+   }, Provider.class);
+   private static final Key<ListeningExecutorService> USER_EXECUTOR = Key.get(ListeningExecutorService.class,
+         Names.named(PROPERTY_USER_THREADS));
+
+   private ContextTemplate template() {
+      return ContextBuilder.newBuilder(forApiOnEndpoint(IntegrationTestClient.class, "http://localhost"))
+            .buildTemplate();
+   }
+
+   public void testContextsHaveTheirOwnCredentials() {
+      ContextTemplate template = template();
+      try {
+         Injector foo = template.buildInjector("foo", ofInstance(new Credentials("foo", "FOO")));
+         Injector bar = template.buildInjector("bar", ofInstance(new Credentials("bar", "BAR")));
+
+         assertEquals(foo.getInstance(CREDENTIALS).get(), new Credentials("foo", "FOO"));
+         assertEquals(bar.getInstance(CREDENTIALS).get(), new Credentials("bar", "BAR"));
+         assertEquals(foo.getInstance(Context.class).getName(), "foo");
+         assertEquals(bar.getInstance(Context.class).getName(), "bar");
+         assertSame(foo.getParent(), template.parent());
+         assertSame(bar.getParent(), template.parent());
+      } finally {
+         template.close();
+      }
+   }
+
+   public void testContextsShareTheUserExecutor() throws Exception {
+      ContextTemplate template = template();
+      try {
+         Injector foo = template.buildInjector("foo", ofInstance(new Credentials("foo", "FOO")));
+         Injector bar = template.buildInjector("bar", ofInstance(new Credentials("bar", "BAR")));
+         ListeningExecutorService executor = foo.getInstance(USER_EXECUTOR);
+         assertSame(bar.getInstance(USER_EXECUTOR), executor);
+
+         foo.getInstance(Context.class).close();
+         assertFalse(executor.isShutdown());
+         assertEquals(executor.submit(new Callable<String>() {
+            public String call() {
+               return "bar";
+            }
+         }).get(), "bar");
+      } finally {
+         template.close();
+      }
+      assertTrue(template.parent().getInstance(USER_EXECUTOR).isShutdown());
+   }
+
+   public void testContextsDoNotShareResponseState() {
+      ContextTemplate template = template();
+      try {
+         Injector foo = template.buildInjector("foo", ofInstance(new Credentials("foo", "FOO")));
+         Injector bar = template.buildInjector("bar", ofInstance(new Credentials("bar", "BAR")));
+
+         assertSame(foo.getInstance(RequestCoalescer.class), foo.getInstance(RequestCoalescer.class));
+         assertNotSame(foo.getInstance(RequestCoalescer.class), bar.getInstance(RequestCoalescer.class));
+         assertNotSame(foo.getInstance(HedgingPolicy.class), bar.getInstance(HedgingPolicy.class));
+         assertNotSame(foo.getInstance(ConditionalGetCache.class), bar.getInstance(ConditionalGetCache.class));
+      } finally {
+         template.close();
+      }
+   }
+
+   public void testWithEndpoint() {
+      ContextTemplate template = template();
+      try {
+         Injector other = template.withEndpoint("http://otherhost").buildInjector("other",
+               ofInstance(new Credentials("foo", "FOO")));
+         Injector local = template.buildInjector("local", ofInstance(new Credentials("foo", "FOO")));
+
+         assertEquals(other.getInstance(ProviderMetadata.class).getEndpoint(), "http://otherhost");
+         assertEquals(local.getInstance(ProviderMetadata.class).getEndpoint(), "http://localhost");
+         assertSame(other.getParent(), local.getParent());
+      } finally {
+         template.close();
+      }
+   }
+}
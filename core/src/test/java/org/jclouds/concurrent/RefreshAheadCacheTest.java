@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.concurrent;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheLoader;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+@Test(groups = "unit", testName = "RefreshAheadCacheTest")
+public class RefreshAheadCacheTest {
+
+   static class FakeTicker extends Ticker {
+      volatile long nanos;
+
+      @Override
+      public long read() {
+         return nanos;
+      }
+
+      void advance(long time, TimeUnit unit) {
+         nanos += unit.toNanos(time);
+      }
+   }
+
+   /**
+    * Logs in, returning a token that expires ten minutes from now.
+    */
+   static class Login extends CacheLoader<String, Token> {
+      final AtomicInteger count = new AtomicInteger();
+      volatile CountDownLatch gate;
+      volatile RuntimeException failure;
+
+      @Override
+      public Token load(String key) throws InterruptedException {
+         if (gate != null)
+            gate.await();
+         if (failure != null)
+            throw failure;
+         return new Token(key + count.incrementAndGet(), new Date(System.currentTimeMillis() + MINUTES.toMillis(10)));
+      }
+   }
+
+   static class Token {
+      final String id;
+      final Date expires;
+
+      Token(String id, Date expires) {
+         this.id = id;
+         this.expires = expires;
+      }
+   }
+
+   static final Function<Token, Date> EXPIRES = new Function<Token, Date>() {
+      public Date apply(Token in) {
+         return in.expires;
+      }
+   };
+
+   private final FakeTicker ticker = new FakeTicker();
+   private final Login login = new Login();
+
+   private RefreshAheadCache<String, Token> cache() {
+      return RefreshAheadCache.builder(login).expiresAt(EXPIRES).ticker(ticker).build();
+   }
+
+   public void testReturnsCurrentTokenUntilRefreshTime() {
+      RefreshAheadCache<String, Token> cache = cache();
+      Token token = cache.getUnchecked("user");
+      ticker.advance(8, MINUTES);
+      assertSame(cache.getUnchecked("user"), token);
+      assertEquals(login.count.get(), 1);
+      assertEquals(cache.stats().hitCount(), 1);
+      assertEquals(cache.stats().missCount(), 1);
+   }
+
+   public void testFirstReadPastRefreshTimeReloads() {
+      RefreshAheadCache<String, Token> cache = cache();
+      Token first = cache.getUnchecked("user");
+      ticker.advance(9, MINUTES);
+      // this read reloads, but still returns the token in hand
+      assertSame(cache.getUnchecked("user"), first);
+      Token second = cache.getUnchecked("user");
+      assertEquals(second.id, "user2");
+      assertEquals(cache.refreshCount(), 1);
+   }
+
+   public void testExecutorRefreshesOffTheReadingThread() {
+      final List<Runnable> refreshes = Lists.newArrayList();
+      RefreshAheadCache<String, Token> cache = RefreshAheadCache.builder(login).expiresAt(EXPIRES).ticker(ticker)
+            .executor(new Executor() {
+               @Override
+               public void execute(Runnable command) {
+                  refreshes.add(command);
+               }
+            }).build();
+      Token first = cache.getUnchecked("user");
+      ticker.advance(9, MINUTES);
+      assertSame(cache.getUnchecked("user"), first);
+      assertSame(cache.getUnchecked("user"), first);
+      assertEquals(login.count.get(), 1);
+      assertEquals(refreshes.size(), 1);
+
+      refreshes.get(0).run();
+      assertEquals(cache.getUnchecked("user").id, "user2");
+      assertEquals(cache.refreshCount(), 1);
+   }
+
+   public void testExpiredTokenIsLoadedAgain() {
+      RefreshAheadCache<String, Token> cache = cache();
+      cache.getUnchecked("user");
+      ticker.advance(11, MINUTES);
+      assertEquals(cache.getUnchecked("user").id, "user2");
+      assertEquals(cache.stats().missCount(), 2);
+   }
+
+   public void testFailedRefreshKeepsCurrentTokenAndRetriesLater() {
+      RefreshAheadCache<String, Token> cache = cache();
+      Token first = cache.getUnchecked("user");
+      ticker.advance(9, MINUTES);
+      login.failure = new IllegalStateException("keystone down");
+      assertSame(cache.getUnchecked("user"), first);
+      assertEquals(cache.refreshFailureCount(), 1);
+
+      // retried halfway between the failure and the expiry
+      login.failure = null;
+      ticker.advance(20, SECONDS);
+      assertSame(cache.getUnchecked("user"), first);
+      assertEquals(cache.refreshFailureCount(), 1);
+      ticker.advance(15, SECONDS);
+      cache.getUnchecked("user");
+      assertEquals(cache.getUnchecked("user").id, "user2");
+   }
+
+   public void testMaxLifetimeCapsExpiry() {
+      RefreshAheadCache<String, Token> cache = RefreshAheadCache.builder(login).expiresAt(EXPIRES)
+            .maxLifetime(60, SECONDS).ticker(ticker).build();
+      cache.getUnchecked("user");
+      ticker.advance(61, SECONDS);
+      assertEquals(cache.getUnchecked("user").id, "user2");
+   }
+
+   public void testValuesWithoutExpiryAreKept() {
+      RefreshAheadCache<String, Token> cache = RefreshAheadCache.builder(login).ticker(ticker).build();
+      Token token = cache.getUnchecked("user");
+      ticker.advance(100, TimeUnit.DAYS);
+      assertSame(cache.getUnchecked("user"), token);
+   }
+
+   public void testInvalidationRightAfterLoadIsIgnored() {
+      RefreshAheadCache<String, Token> cache = cache();
+      Token first = cache.getUnchecked("user");
+      ticker.advance(1, SECONDS);
+      cache.invalidateAll();
+      assertSame(cache.getIfPresent("user"), first);
+      assertEquals(cache.ignoredInvalidationCount(), 1);
+
+      ticker.advance(5, SECONDS);
+      cache.invalidateAll();
+      assertNull(cache.getIfPresent("user"));
+      assertEquals(cache.getUnchecked("user").id, "user2");
+      assertEquals(cache.stats().evictionCount(), 1);
+   }
+
+   public void testConcurrentLoadsShareOneLogin() throws Exception {
+      final RefreshAheadCache<String, Token> cache = cache();
+      login.gate = new CountDownLatch(1);
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+         List<Future<Token>> results = Lists.newArrayList();
+         for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(new Callable<Token>() {
+               public Token call() {
+                  return cache.getUnchecked("user");
+               }
+            }));
+         }
+         Thread.sleep(100);
+         login.gate.countDown();
+         for (Future<Token> result : results)
+            assertEquals(result.get().id, "user1");
+         assertEquals(login.count.get(), 1);
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testLoadFailurePropagatesLikeLoadingCache() {
+      RefreshAheadCache<String, Token> cache = cache();
+      login.failure = new IllegalArgumentException("bad credentials");
+      try {
+         cache.getUnchecked("user");
+         fail("expected the login failure");
+      } catch (UncheckedExecutionException e) {
+         assertSame(e.getCause(), login.failure);
+      }
+      assertEquals(cache.stats().loadExceptionCount(), 1);
+   }
+
+   public void testSchedulerRefreshesInTheBackground() throws Exception {
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+      try {
+         RefreshAheadCache<String, Token> cache = RefreshAheadCache.builder(login)
+               .expiresAt(new Function<Token, Date>() {
+                  public Date apply(Token in) {
+                     // refresh due in 90 milliseconds
+                     return new Date(System.currentTimeMillis() + 100);
+                  }
+               }).scheduler(scheduler).minReloadInterval(0, SECONDS).build();
+         cache.getUnchecked("user");
+         long deadline = System.currentTimeMillis() + 5000;
+         while (cache.refreshCount() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+         assertTrue(cache.refreshCount() > 0);
+         assertTrue(login.count.get() > 1);
+      } finally {
+         scheduler.shutdownNow();
+      }
+   }
+
+   public void testAsMapViewsCurrentValues() {
+      RefreshAheadCache<String, Token> cache = cache();
+      Token token = cache.getUnchecked("user");
+      assertEquals(ImmutableList.copyOf(cache.asMap().values()), ImmutableList.of(token));
+      ticker.advance(11, MINUTES);
+      assertTrue(cache.asMap().isEmpty());
+   }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.encryption.internal;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+@Test(groups = "unit", testName = "JCECryptoTest")
+public class JCECryptoTest {
+
+   private static final byte[] KEY = "secret".getBytes(UTF_8);
+   private static final byte[] DATA = "GET\n\n\nThu, 01 Jan 1970 00:00:00 GMT\n/bucket/key".getBytes(UTF_8);
+
+   public void testCachedMacMatchesFreshMac() throws Exception {
+      JCECrypto crypto = new JCECrypto();
+      Mac expected = Mac.getInstance("HmacSHA256");
+      expected.init(new SecretKeySpec(KEY, "HmacSHA256"));
+      byte[] signature = expected.doFinal(DATA);
+
+      assertEquals(crypto.hmacSHA256(KEY).doFinal(DATA), signature);
+      assertEquals(crypto.hmacSHA256(KEY).doFinal(DATA), signature);
+      assertEquals(crypto.cachedMacCount(), 1);
+   }
+
+   public void testMacsAreOwnedByTheCaller() throws Exception {
+      JCECrypto crypto = new JCECrypto();
+      Mac first = crypto.hmacSHA1(KEY);
+      Mac second = crypto.hmacSHA1(KEY);
+      assertNotSame(first, second);
+
+      // state left in one instance must not leak into another
+      first.update(DATA);
+      assertEquals(second.doFinal(DATA), crypto.hmacSHA1(KEY).doFinal(DATA));
+   }
+
+   public void testMacsAreKeyedByKeyContents() throws Exception {
+      JCECrypto crypto = new JCECrypto();
+      byte[] key = KEY.clone();
+      byte[] signature = crypto.hmacSHA1(key).doFinal(DATA);
+
+      // mutating the array passed in must not change the cached key
+      key[0] = 'S';
+      byte[] otherSignature = crypto.hmacSHA1(key).doFinal(DATA);
+      assertEquals(crypto.cachedMacCount(), 2);
+      assertEquals(crypto.hmacSHA1(KEY).doFinal(DATA), signature);
+      assertEquals(crypto.hmacSHA1("Secret".getBytes(UTF_8)).doFinal(DATA), otherSignature);
+   }
+
+   public void testConcurrentMacsMatchSingleThreadedMac() throws Exception {
+      final JCECrypto crypto = new JCECrypto();
+      final byte[] expected = crypto.hmacSHA256(KEY).doFinal(DATA);
+      final int threads = 8;
+      final int iterations = 500;
+      final CountDownLatch ready = new CountDownLatch(threads);
+      final CountDownLatch start = new CountDownLatch(1);
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicInteger maxRunning = new AtomicInteger();
+      final List<byte[]> results = Collections.synchronizedList(Lists.<byte[]> newArrayList());
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+         List<Future<?>> futures = Lists.newArrayList();
+         for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  ready.countDown();
+                  start.await();
+                  int now = running.incrementAndGet();
+                  int max;
+                  do {
+                     max = maxRunning.get();
+                  } while (now > max && !maxRunning.compareAndSet(max, now));
+                  try {
+                     for (int j = 0; j < iterations; j++)
+                        results.add(crypto.hmacSHA256(KEY).doFinal(DATA));
+                  } finally {
+                     running.decrementAndGet();
+                  }
+                  return null;
+               }
+            }));
+         }
+         assertTrue(ready.await(10, SECONDS), "threads did not start");
+         start.countDown();
+         for (Future<?> future : futures)
+            future.get(30, SECONDS);
+      } finally {
+         executor.shutdownNow();
+      }
+
+      assertTrue(maxRunning.get() > 1, "threads did not overlap");
+      assertEquals(results.size(), threads * iterations);
+      for (byte[] result : results)
+         assertEquals(result, expected);
+      assertEquals(crypto.cachedMacCount(), 1);
+   }
+
+   public void testReleasedCipherIsReused() throws Exception {
+      JCECrypto crypto = new JCECrypto();
+      Cipher cipher = crypto.borrowCipher("RSA");
+      assertNotSame(crypto.borrowCipher("RSA"), cipher);
+
+      crypto.releaseCipher(cipher);
+      assertSame(crypto.borrowCipher("RSA"), cipher);
+      assertNotSame(crypto.borrowCipher("RSA"), cipher);
+   }
+
+   public void testIdleCiphersAreBounded() throws Exception {
+      JCECrypto crypto = new JCECrypto();
+      List<Cipher> borrowed = Lists.newArrayList();
+      for (int i = 0; i <= JCECrypto.MAX_IDLE_CIPHERS; i++)
+         borrowed.add(crypto.borrowCipher("RSA"));
+      for (Cipher cipher : borrowed)
+         crypto.releaseCipher(cipher);
+
+      for (int i = 0; i < JCECrypto.MAX_IDLE_CIPHERS; i++)
+         assertSame(crypto.borrowCipher("RSA"), borrowed.get(i));
+      assertFalse(borrowed.contains(crypto.borrowCipher("RSA")));
+   }
+
+   public void testCloseDropsCachedMacsAndIdleCiphers() throws Exception {
+      JCECrypto crypto = new JCECrypto();
+      crypto.hmacSHA256(KEY);
+      Cipher cipher = crypto.borrowCipher("RSA");
+      crypto.releaseCipher(cipher);
+
+      crypto.close();
+
+      assertEquals(crypto.cachedMacCount(), 0);
+      assertNotSame(crypto.borrowCipher("RSA"), cipher);
+   }
+}
@@ -16,16 +16,24 @@
  */
 package org.jclouds.http;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
 import static org.jclouds.util.Closeables2.closeQuietly;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.fail;
 
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
 
+import org.jclouds.ContextBuilder;
 import org.jclouds.http.config.JavaUrlHttpCommandExecutorServiceModule;
+import org.jclouds.http.internal.BaseHttpCommandExecutorService;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.providers.AnonymousProviderMetadata;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Injector;
 import com.google.inject.Module;
 import com.squareup.okhttp.mockwebserver.MockResponse;
 import com.squareup.okhttp.mockwebserver.MockWebServer;
@@ -144,4 +152,52 @@ public class BackoffLimitedRetryJavaTest extends BaseMockWebServerTest {
       }
    }
 
+   @Test
+   public void testSubmitRetriesUntilSuccessful() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(500),
+            new MockResponse().setResponseCode(500), new MockResponse());
+      Injector injector = injector(server.getUrl("/").toString());
+      try {
+         HttpResponse response = http(injector).submit(command(server)).get(10, SECONDS);
+         assertEquals(response.getStatusCode(), 200);
+         assertEquals(server.getRequestCount(), 3);
+      } finally {
+         closeQuietly(injector.getInstance(Closer.class));
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testSubmitMaximumRetriesExceeded() throws Exception {
+      MockWebServer server = mockWebServer();
+      for (int i = 0; i <= maxRetries; i++) {
+         server.enqueue(new MockResponse().setResponseCode(500));
+      }
+      Injector injector = injector(server.getUrl("/").toString());
+      try {
+         http(injector).submit(command(server)).get(10, SECONDS);
+         fail("Request should not succeed within " + maxRetries + " requests");
+      } catch (ExecutionException ex) {
+         assertEquals(HttpResponseException.class.cast(ex.getCause()).getResponse().getStatusCode(), 500);
+         assertEquals(server.getRequestCount(), maxRetries + 1);
+      } finally {
+         closeQuietly(injector.getInstance(Closer.class));
+         server.shutdown();
+      }
+   }
+
+   private Injector injector(String url) {
+      Properties properties = new Properties();
+      addOverrideProperties(properties);
+      return ContextBuilder.newBuilder(AnonymousProviderMetadata.forApiOnEndpoint(IntegrationTestClient.class, url))
+            .modules(ImmutableSet.of(createConnectionModule())).overrides(properties).buildInjector();
+   }
+
+   private static BaseHttpCommandExecutorService<?> http(Injector injector) {
+      return BaseHttpCommandExecutorService.class.cast(injector.getInstance(HttpCommandExecutorService.class));
+   }
+
+   private static HttpCommand command(MockWebServer server) {
+      return new HttpCommand(HttpRequest.builder().method("GET").endpoint(server.getUrl("/").toString()).build());
+   }
 }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http;
+
+import static org.jclouds.Constants.PROPERTY_RESPONSE_CACHE_PREFIX;
+import static org.jclouds.util.Closeables2.closeQuietly;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Properties;
+
+import org.jclouds.http.config.JavaUrlHttpCommandExecutorServiceModule;
+import org.testng.annotations.Test;
+
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+
+/**
+ * Tests that results cached with {@link org.jclouds.Constants#PROPERTY_RESPONSE_CACHE_PREFIX} are revalidated, and
+ * reused when the server responds not modified.
+ */
+@Test(groups = "integration")
+public class ConditionalGetJavaTest extends BaseMockWebServerTest {
+
+   @Override
+   protected void addOverrideProperties(Properties props) {
+      props.setProperty(PROPERTY_RESPONSE_CACHE_PREFIX + "IntegrationTestClient", "60000");
+   }
+
+   @Override
+   protected Module createConnectionModule() {
+      return new JavaUrlHttpCommandExecutorServiceModule();
+   }
+
+   @Test
+   public void testNotModifiedReturnsCachedResult() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().addHeader("ETag", "\"v1\"").setBody("foo"),
+            new MockResponse().setResponseCode(304), new MockResponse().addHeader("ETag", "\"v2\"").setBody("bar"));
+      IntegrationTestClient client = api(IntegrationTestClient.class, server.getUrl("/").toString());
+      try {
+         assertEquals(client.download("a"), "foo");
+         assertEquals(client.download("a"), "foo");
+         assertEquals(client.download("a"), "bar");
+
+         assertNull(server.takeRequest().getHeader("If-None-Match"));
+         assertEquals(server.takeRequest().getHeader("If-None-Match"), "\"v1\"");
+         assertEquals(server.takeRequest().getHeader("If-None-Match"), "\"v1\"");
+         assertEquals(server.getRequestCount(), 3);
+      } finally {
+         closeQuietly(client);
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testResultsWithoutValidatorsAreNotCached() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setBody("foo"), new MockResponse().setBody("bar"));
+      IntegrationTestClient client = api(IntegrationTestClient.class, server.getUrl("/").toString());
+      try {
+         assertEquals(client.download("a"), "foo");
+         assertEquals(client.download("a"), "bar");
+
+         assertNull(server.takeRequest().getHeader("If-None-Match"));
+         assertNull(server.takeRequest().getHeader("If-None-Match"));
+      } finally {
+         closeQuietly(client);
+         server.shutdown();
+      }
+   }
+}
@@ -116,6 +116,42 @@ public class BackoffLimitedRetryHandlerTest {
       assertTrue(elapsedTime < period + acceptableDelay);
    }
 
+   @Test
+   void testFullJitterStaysWithinBackoffWindow() {
+      BackoffLimitedRetryHandler jittered = new BackoffLimitedRetryHandler();
+      jittered.fullJitter = true;
+      for (int failureCount = 1; failureCount <= 5; failureCount++) {
+         for (int i = 0; i < 100; i++) {
+            long delay = jittered.backoffDelay(50, 500, 2, failureCount);
+            assertTrue(delay >= 0 && delay <= Math.min(500, 50 * failureCount * failureCount), delay + "");
+         }
+      }
+   }
+
+   @Test
+   void testDeferredDelaysAreAddedToTheCommand() throws Exception {
+      HttpCommand command = createCommand();
+      command.setRetryDelayDeferred(true);
+      long startTime = System.nanoTime();
+      handler.imposeBackoffExponentialDelay(command, 500, 2, 2, 5, "TEST FAILURE: 2");
+      assertTrue((System.nanoTime() - startTime) / 1000000 < 500);
+      long deferred = command.takeRetryDelay();
+      assertTrue(deferred >= 2000 && deferred <= 5000, deferred + "");
+      assertEquals(command.takeRetryDelay(), 0);
+   }
+
+   @Test
+   void testDelaysOfOtherCommandsAreNotDeferred() throws Exception {
+      HttpCommand deferring = createCommand();
+      deferring.setRetryDelayDeferred(true);
+      HttpCommand command = createCommand();
+      long startTime = System.nanoTime();
+      handler.imposeBackoffExponentialDelay(command, 100, 2, 1, 5, "TEST FAILURE: 1");
+      assertTrue((System.nanoTime() - startTime) / 1000000 >= 100);
+      assertEquals(deferring.takeRetryDelay(), 0);
+      assertEquals(command.takeRetryDelay(), 0);
+   }
+
    @Test
    void testClosesInputStream() throws InterruptedException, IOException, SecurityException, NoSuchMethodException {
       HttpCommand command = createCommand();
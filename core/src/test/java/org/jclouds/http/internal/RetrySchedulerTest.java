@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+
+@Test(groups = "unit", testName = "RetrySchedulerTest")
+public class RetrySchedulerTest {
+
+   public void testRunsScheduledTask() throws Exception {
+      RetryScheduler scheduler = new RetryScheduler(sameThreadExecutor());
+      try {
+         SettableFuture<Boolean> result = SettableFuture.create();
+         scheduler.schedule(set(result), 10, MILLISECONDS, result);
+         assertTrue(result.get(10, SECONDS));
+      } finally {
+         scheduler.close();
+      }
+   }
+
+   public void testRejectedTaskFailsResult() throws Exception {
+      ListeningExecutorService userExecutor = listeningDecorator(newSingleThreadExecutor());
+      userExecutor.shutdown();
+      RetryScheduler scheduler = new RetryScheduler(userExecutor);
+      try {
+         SettableFuture<Boolean> now = SettableFuture.create();
+         scheduler.execute(set(now), now);
+         assertRejected(now);
+
+         SettableFuture<Boolean> later = SettableFuture.create();
+         scheduler.schedule(set(later), 10, MILLISECONDS, later);
+         assertRejected(later);
+      } finally {
+         scheduler.close();
+      }
+   }
+
+   public void testCloseFailsPendingTasks() throws Exception {
+      RetryScheduler scheduler = new RetryScheduler(sameThreadExecutor());
+      SettableFuture<Boolean> result = SettableFuture.create();
+      scheduler.schedule(set(result), 1, HOURS, result);
+      assertFalse(result.isDone());
+      scheduler.close();
+      assertRejected(result);
+
+      SettableFuture<Boolean> afterClose = SettableFuture.create();
+      scheduler.schedule(set(afterClose), 1, HOURS, afterClose);
+      assertRejected(afterClose);
+   }
+
+   public void testSkipsTaskWhenResultIsDone() throws Exception {
+      RetryScheduler scheduler = new RetryScheduler(sameThreadExecutor());
+      try {
+         final AtomicInteger runs = new AtomicInteger();
+         SettableFuture<Boolean> result = SettableFuture.create();
+         result.cancel(false);
+         scheduler.execute(new Runnable() {
+            @Override
+            public void run() {
+               runs.incrementAndGet();
+            }
+         }, result);
+         assertEquals(runs.get(), 0);
+      } finally {
+         scheduler.close();
+      }
+   }
+
+   private static Runnable set(final SettableFuture<Boolean> result) {
+      return new Runnable() {
+         @Override
+         public void run() {
+            result.set(true);
+         }
+      };
+   }
+
+   private static void assertRejected(SettableFuture<Boolean> result) throws Exception {
+      try {
+         result.get(10, SECONDS);
+         fail("expected the task to be rejected");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof RejectedExecutionException, e.getCause() + "");
+      }
+   }
+}
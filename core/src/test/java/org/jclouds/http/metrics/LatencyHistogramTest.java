@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "LatencyHistogramTest")
+public class LatencyHistogramTest {
+
+   public void testBucketsCoverTheirValues() {
+      for (long micros = 0; micros < 100000; micros += 7) {
+         int bucket = LatencyHistogram.bucket(micros);
+         assertTrue(LatencyHistogram.upperBound(bucket) >= micros, micros + " above bucket " + bucket);
+         if (bucket > 0)
+            assertTrue(LatencyHistogram.upperBound(bucket - 1) < micros, micros + " below bucket " + bucket);
+      }
+   }
+
+   public void testEmptySnapshot() {
+      LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+      assertEquals(snapshot.getCount(), 0);
+      assertEquals(snapshot.getP99Micros(), 0);
+   }
+
+   public void testPercentiles() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (int i = 0; i < 99; i++)
+         histogram.record(MICROSECONDS.toNanos(100));
+      histogram.record(MILLISECONDS.toNanos(50));
+
+      LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+      assertEquals(snapshot.getCount(), 100);
+      assertEquals(snapshot.getMaxMicros(), 50000);
+      assertTrue(snapshot.getP50Micros() >= 100 && snapshot.getP50Micros() < 125, snapshot.toString());
+      assertTrue(snapshot.getP99Micros() >= 100 && snapshot.getP99Micros() < 125, snapshot.toString());
+      histogram.record(MILLISECONDS.toNanos(50));
+      assertTrue(histogram.snapshot().getP99Micros() >= 50000, histogram.snapshot().toString());
+   }
+}
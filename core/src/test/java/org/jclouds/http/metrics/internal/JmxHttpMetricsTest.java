@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.metrics.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.jclouds.http.metrics.HttpMetrics.Phase;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "JmxHttpMetricsTest")
+public class JmxHttpMetricsTest {
+
+   public void testPublishesEachCommandUntilClosed() throws Exception {
+      MBeanServer server = MBeanServerFactory.newMBeanServer();
+      JmxHttpMetrics metrics = new JmxHttpMetrics(server, "ec2");
+
+      metrics.recordPhase("EC2Api.describeImages", Phase.FILTER, 1000);
+      metrics.recordResponse("EC2Api.describeImages", 503, 0, 10);
+      metrics.recordResponse("EC2Api.describeImages", 200, 0, 100);
+      metrics.recordCompletion("EC2Api.describeImages", 1, false);
+
+      ObjectName name = metrics.objectName("EC2Api.describeImages");
+      assertTrue(server.isRegistered(name));
+      assertEquals(server.getAttribute(name, "CompletedCount"), 1L);
+      assertEquals(server.getAttribute(name, "RetryCount"), 1L);
+      assertEquals(server.getAttribute(name, "BytesReceived"), 110L);
+      assertEquals(CompositeData.class.cast(server.getAttribute(name, "FilterLatency")).get("count"), 1L);
+      assertEquals(metrics.getCommandMetrics().get("EC2Api.describeImages").getStatusCodeCounts().get(503),
+            Long.valueOf(1));
+
+      metrics.close();
+      assertFalse(server.isRegistered(name));
+   }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.ratelimit.internal;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.jclouds.http.HttpRequest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+
+@Test(groups = "unit", testName = "AdaptiveHttpRateLimiterTest")
+public class AdaptiveHttpRateLimiterTest {
+
+   private static final HttpRequest EC2 = HttpRequest.builder().method("POST")
+         .endpoint("https://ec2.us-east-1.amazonaws.com/").build();
+   private static final HttpRequest S3 = HttpRequest.builder().method("GET")
+         .endpoint("https://s3.amazonaws.com/bucket/key").build();
+
+   private static class FakeTicker extends Ticker {
+      private long nanos;
+
+      @Override
+      public long read() {
+         return nanos;
+      }
+
+      void advance(long millis) {
+         nanos += MILLISECONDS.toNanos(millis);
+      }
+   }
+
+   private FakeTicker ticker;
+
+   @BeforeMethod
+   void setUp() {
+      ticker = new FakeTicker();
+   }
+
+   private AdaptiveHttpRateLimiter limiter(double maxRate, Map<String, Double> weights) {
+      AdaptiveHttpRateLimiter limiter = new AdaptiveHttpRateLimiter(weights, ticker);
+      limiter.maxRate = maxRate;
+      return limiter;
+   }
+
+   public void testBurstThenPacedAtRate() {
+      AdaptiveHttpRateLimiter limiter = limiter(10, ImmutableMap.<String, Double> of());
+      // an idle endpoint accepts a second worth of requests, and the request that starts paying them back
+      for (int i = 0; i < 11; i++)
+         assertEquals(limiter.reserve("DescribeInstances", EC2), 0);
+      assertEquals(limiter.reserve("DescribeInstances", EC2), 100);
+      assertEquals(limiter.reserve("DescribeInstances", EC2), 200);
+      // other endpoints are not affected
+      assertEquals(limiter.reserve("GetObject", S3), 0);
+   }
+
+   public void testThrottlingDecreasesRateOncePerInterval() {
+      AdaptiveHttpRateLimiter limiter = limiter(100, ImmutableMap.<String, Double> of());
+      limiter.throttled(EC2);
+      limiter.throttled(EC2);
+      assertEquals(limiter.rate(EC2), 50.0);
+      assertEquals(limiter.rate(S3), 100.0);
+      ticker.advance(SECONDS.toMillis(1));
+      limiter.throttled(EC2);
+      assertEquals(limiter.rate(EC2), 25.5);
+   }
+
+   public void testThrottlingStopsAtMinRate() {
+      AdaptiveHttpRateLimiter limiter = limiter(4, ImmutableMap.<String, Double> of());
+      limiter.increase = 0;
+      limiter.minRate = 1.5;
+      for (int i = 0; i < 3; i++) {
+         limiter.throttled(EC2);
+         ticker.advance(SECONDS.toMillis(1));
+      }
+      assertEquals(limiter.rate(EC2), 1.5);
+   }
+
+   public void testRateRampsBackUpToMaxRate() {
+      AdaptiveHttpRateLimiter limiter = limiter(10, ImmutableMap.<String, Double> of());
+      limiter.increase = 2;
+      limiter.throttled(EC2);
+      assertEquals(limiter.rate(EC2), 5.0);
+      ticker.advance(1500);
+      assertEquals(limiter.rate(EC2), 8.0);
+      ticker.advance(SECONDS.toMillis(10));
+      assertEquals(limiter.rate(EC2), 10.0);
+   }
+
+   public void testWeightsByCommandThenClassThenDefault() {
+      AdaptiveHttpRateLimiter limiter = limiter(10, ImmutableMap.of("DescribeInstances", 5.0, "S3Client", 2.0,
+            "default", 0.5));
+      assertEquals(limiter.weight("DescribeInstances"), 5.0);
+      assertEquals(limiter.weight("S3Client.getObject"), 2.0);
+      assertEquals(limiter.weight("DescribeImages"), 0.5);
+      assertEquals(new AdaptiveHttpRateLimiter(ImmutableMap.<String, Double> of(), ticker).weight("GET"), 1.0);
+   }
+
+   public void testHeavyCommandsTakeMoreCapacity() {
+      AdaptiveHttpRateLimiter limiter = limiter(10, ImmutableMap.of("DescribeInstances", 5.0));
+      assertEquals(limiter.reserve("DescribeInstances", EC2), 0);
+      assertEquals(limiter.reserve("DescribeInstances", EC2), 0);
+      assertEquals(limiter.reserve("RunInstances", EC2), 0);
+      assertEquals(limiter.reserve("RunInstances", EC2), 100);
+   }
+}
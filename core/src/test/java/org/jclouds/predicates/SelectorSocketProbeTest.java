@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.predicates;
+
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.ListenableFuture;
+
+@Test(groups = "unit", testName = "SelectorSocketProbeTest", singleThreaded = true)
+public class SelectorSocketProbeTest {
+
+   private final SocketOpen socketAlwaysClosed = new SocketOpen() {
+      @Override
+      public boolean apply(HostAndPort input) {
+         return false;
+      }
+   };
+
+   private final SocketOpen socketAlwaysOpen = new SocketOpen() {
+      @Override
+      public boolean apply(HostAndPort input) {
+         return true;
+      }
+   };
+
+   private final Function<URI, Proxy> noProxy = Functions.constant(Proxy.NO_PROXY);
+
+   private final SocketOpen defaultSocketOpen = new InetSocketAddressConnect(noProxy);
+
+   private ServerSocket server;
+   private HostAndPort openSocket;
+   private HostAndPort closedSocket;
+
+   @BeforeMethod
+   public void setUp() throws IOException {
+      server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+      openSocket = HostAndPort.fromParts("127.0.0.1", server.getLocalPort());
+      ServerSocket unused = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+      closedSocket = HostAndPort.fromParts("127.0.0.1", unused.getLocalPort());
+      unused.close();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() throws IOException {
+      if (server != null)
+         server.close();
+   }
+
+   public void testFindsOpenSocket() throws Exception {
+      SelectorSocketProbe probe = new SelectorSocketProbe(noProxy, defaultSocketOpen, sameThreadExecutor());
+      try {
+         ListenableFuture<HostAndPort> found = probe.findFirstOpen(ImmutableList.of(closedSocket, openSocket), 5,
+               SECONDS);
+         assertEquals(found.get(5, SECONDS), openSocket);
+      } finally {
+         probe.close();
+      }
+   }
+
+   public void testRetriesUntilDeadline() throws Exception {
+      SelectorSocketProbe probe = new SelectorSocketProbe(noProxy, defaultSocketOpen, sameThreadExecutor());
+      probe.initialBackoffMillis = 100;
+      try {
+         long start = System.currentTimeMillis();
+         ListenableFuture<HostAndPort> found = probe.findFirstOpen(ImmutableList.of(closedSocket), 500, MILLISECONDS);
+         try {
+            found.get(5, SECONDS);
+            fail("socket should not have opened");
+         } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NoSuchElementException, e.getCause().toString());
+         }
+         long elapsed = System.currentTimeMillis() - start;
+         assertTrue(elapsed >= 500 - 10, "elapsed=" + elapsed);
+      } finally {
+         probe.close();
+      }
+   }
+
+   public void testProxiedSocketsUseSocketOpen() throws Exception {
+      Function<URI, Proxy> socksProxy = Functions.constant(new Proxy(Proxy.Type.SOCKS, InetSocketAddress
+            .createUnresolved("proxy", 1080)));
+      SelectorSocketProbe probe = new SelectorSocketProbe(socksProxy, socketAlwaysOpen, sameThreadExecutor());
+      try {
+         ListenableFuture<HostAndPort> found = probe.findFirstOpen(ImmutableList.of(closedSocket), 5, SECONDS);
+         assertEquals(found.get(5, SECONDS), closedSocket);
+      } finally {
+         probe.close();
+      }
+   }
+
+   public void testFindsOpenSocketByHostName() throws Exception {
+      HostAndPort byName = HostAndPort.fromParts("localhost", openSocket.getPort());
+      ExecutorService resolver = Executors.newSingleThreadExecutor();
+      SelectorSocketProbe probe = new SelectorSocketProbe(noProxy, defaultSocketOpen, listeningDecorator(resolver));
+      try {
+         ListenableFuture<HostAndPort> found = probe.findFirstOpen(ImmutableList.of(byName), 5, SECONDS);
+         assertEquals(found.get(5, SECONDS), byName);
+      } finally {
+         probe.close();
+         resolver.shutdownNow();
+      }
+   }
+
+   public void testUnresolvedHostRetriesUntilDeadline() throws Exception {
+      SelectorSocketProbe probe = new SelectorSocketProbe(noProxy, defaultSocketOpen, sameThreadExecutor());
+      probe.initialBackoffMillis = 100;
+      try {
+         ListenableFuture<HostAndPort> found = probe.findFirstOpen(
+               ImmutableList.of(HostAndPort.fromParts("probe.invalid", 22)), 500, MILLISECONDS);
+         try {
+            found.get(5, SECONDS);
+            fail("socket should not have opened");
+         } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NoSuchElementException, e.getCause().toString());
+         }
+      } finally {
+         probe.close();
+      }
+   }
+
+   public void testBoundSocketOpenIsHonoured() throws Exception {
+      SelectorSocketProbe probe = new SelectorSocketProbe(noProxy, socketAlwaysClosed, sameThreadExecutor());
+      probe.initialBackoffMillis = 100;
+      try {
+         ListenableFuture<HostAndPort> found = probe.findFirstOpen(ImmutableList.of(openSocket), 500, MILLISECONDS);
+         try {
+            found.get(5, SECONDS);
+            fail("bound SocketOpen reports every socket closed");
+         } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NoSuchElementException, e.getCause().toString());
+         }
+      } finally {
+         probe.close();
+      }
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testClosedProbeRejectsNewProbes() {
+      SelectorSocketProbe probe = new SelectorSocketProbe(noProxy, socketAlwaysClosed, sameThreadExecutor());
+      probe.close();
+      probe.findFirstOpen(ImmutableList.of(openSocket), 5, SECONDS);
+   }
+}
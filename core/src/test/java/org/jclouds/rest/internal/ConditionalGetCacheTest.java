@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+@Test(groups = "unit", testName = "ConditionalGetCacheTest")
+public class ConditionalGetCacheTest {
+
+   private final HttpRequest listFlavors = HttpRequest.builder().method("GET")
+         .endpoint("http://nova/v2/1234/flavors/detail").build();
+   private final HttpResponse tagged = HttpResponse.builder().statusCode(200).addHeader("ETag", "\"abc\"").build();
+   private final HttpResponse dated = HttpResponse.builder().statusCode(200)
+         .addHeader("Last-Modified", "Wed, 15 Nov 1995 04:58:08 GMT").build();
+   private final Object flavors = ImmutableList.of("m1.small", "m1.large");
+
+   private static class FakeTicker extends Ticker {
+      private long nanos;
+
+      @Override
+      public long read() {
+         return nanos;
+      }
+   }
+
+   private FakeTicker ticker;
+   private ConditionalGetCache cache;
+
+   @BeforeMethod
+   void createCache() {
+      ticker = new FakeTicker();
+      cache = new ConditionalGetCache(ImmutableMap.of("FlavorApi.listInDetail", 1000L, "ImageApi", 2000L), 2, ticker);
+   }
+
+   public void testAppliesToConfiguredGetCommandsOnly() {
+      assertTrue(cache.appliesTo("FlavorApi.listInDetail", listFlavors));
+      assertTrue(cache.appliesTo("ImageApi.listInDetail", listFlavors));
+      assertFalse(cache.appliesTo("ServerApi.listInDetail", listFlavors));
+      assertFalse(cache.appliesTo("FlavorApi.listInDetail", listFlavors.toBuilder().method("POST").build()));
+      assertFalse(cache.appliesTo("FlavorApi.listInDetail", listFlavors.toBuilder().addHeader("If-None-Match", "\"x\"")
+            .build()));
+      assertFalse(new ConditionalGetCache(ImmutableMap.<String, Long> of(), 2, ticker).appliesTo("FlavorApi.list",
+            listFlavors));
+   }
+
+   public void testRevalidatesWithValidatorsOfResponse() {
+      cache.put("FlavorApi.listInDetail", listFlavors, tagged, flavors);
+      ConditionalGetCache.Entry entry = cache.get("FlavorApi.listInDetail", listFlavors);
+      assertSame(entry.getResult(), flavors);
+      HttpRequest revalidation = entry.revalidate(listFlavors);
+      assertEquals(revalidation.getFirstHeaderOrNull("If-None-Match"), "\"abc\"");
+      assertNull(revalidation.getFirstHeaderOrNull("If-Modified-Since"));
+      assertEquals(revalidation.getEndpoint(), listFlavors.getEndpoint());
+
+      cache.put("ImageApi.listInDetail", listFlavors, dated, flavors);
+      revalidation = cache.get("ImageApi.listInDetail", listFlavors).revalidate(listFlavors);
+      assertEquals(revalidation.getFirstHeaderOrNull("If-Modified-Since"), "Wed, 15 Nov 1995 04:58:08 GMT");
+   }
+
+   public void testEntriesExpireAfterTimeToLive() {
+      cache.put("FlavorApi.listInDetail", listFlavors, tagged, flavors);
+      ticker.nanos = MILLISECONDS.toNanos(999);
+      assertSame(cache.get("FlavorApi.listInDetail", listFlavors).getResult(), flavors);
+      ticker.nanos = MILLISECONDS.toNanos(1000);
+      assertNull(cache.get("FlavorApi.listInDetail", listFlavors));
+      assertEquals(cache.size(), 0);
+   }
+
+   public void testEvictsBeyondMaximumSize() {
+      for (int i = 0; i < 5; i++)
+         cache.put("ImageApi.get", listFlavors.toBuilder().endpoint("http://nova/v2/1234/images/" + i).build(), tagged,
+               flavors);
+      assertEquals(cache.size(), 2);
+   }
+
+   public void testDoesNotCacheWithoutValidatorsOrWithStreams() {
+      cache.put("FlavorApi.listInDetail", listFlavors, HttpResponse.builder().statusCode(200).build(), flavors);
+      cache.put("ImageApi.listInDetail", listFlavors, tagged, new ByteArrayInputStream(new byte[0]));
+      cache.put("ImageApi.get", listFlavors, tagged.toBuilder().statusCode(203).build(), flavors);
+      assertEquals(cache.size(), 0);
+   }
+
+   public void testIsNotModified() {
+      HttpCommand command = new HttpCommand(listFlavors);
+      assertTrue(ConditionalGetCache.isNotModified(new RuntimeException(new HttpResponseException(command,
+            HttpResponse.builder().statusCode(304).build()))));
+      assertFalse(ConditionalGetCache.isNotModified(new HttpResponseException(command, HttpResponse.builder()
+            .statusCode(404).build())));
+      assertFalse(ConditionalGetCache.isNotModified(new IllegalStateException()));
+   }
+}
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.metrics.CommandMetrics;
+import org.jclouds.http.metrics.HttpMetricsRegistry;
+import org.jclouds.io.Payloads;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.annotations.Idempotent;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@Test(groups = "unit", testName = "HedgingPolicyTest", singleThreaded = true)
+public class HedgingPolicyTest {
+
+   public interface ThingApi {
+      @Idempotent
+      HttpResponse put();
+
+      HttpResponse post();
+   }
+
+   private final HttpRequest get = HttpRequest.builder().method("GET").endpoint("http://thing").build();
+   private final HttpResponse primaryResponse = HttpResponse.builder().statusCode(200).payload("primary").build();
+   private final HttpResponse backupResponse = HttpResponse.builder().statusCode(200).payload("backup").build();
+
+   private ListeningExecutorService attempts;
+   private HttpMetricsRegistry metrics;
+   private HedgingPolicy hedging;
+
+   @BeforeMethod
+   void createPolicy() {
+      attempts = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+      metrics = new HttpMetricsRegistry();
+      hedging = new HedgingPolicy(attempts);
+      hedging.metrics = metrics;
+      hedging.percentile = 90;
+      hedging.minDelayMs = 1;
+   }
+
+   @AfterMethod
+   void shutdownExecutor() {
+      attempts.shutdownNow();
+   }
+
+   private void usuallyRespondsIn(String commandName, long millis) {
+      for (int i = 0; i < HedgingPolicy.MIN_SAMPLES; i++)
+         hedging.latency(commandName).record(MILLISECONDS.toNanos(millis));
+   }
+
+   public void testAppliesToIdempotentRequestsOnlyWhenEnabled() throws Exception {
+      HttpRequest put = GeneratedHttpRequest.builder().method("PUT").endpoint("http://thing")
+            .invocation(Invocation.create(method(ThingApi.class, "put"), ImmutableList.of())).build();
+      HttpRequest post = GeneratedHttpRequest.builder().method("POST").endpoint("http://thing")
+            .invocation(Invocation.create(method(ThingApi.class, "post"), ImmutableList.of())).build();
+      HttpRequest head = get.toBuilder().method("HEAD").build();
+      HttpRequest streamed = put.toBuilder().payload(Payloads.newInputStreamPayload(new ByteArrayInputStream(new byte[1]))).build();
+
+      assertTrue(hedging.appliesTo(get));
+      assertTrue(hedging.appliesTo(head));
+      assertTrue(hedging.appliesTo(put));
+      assertFalse(hedging.appliesTo(post));
+      assertFalse(hedging.appliesTo(streamed));
+
+      hedging.percentile = 0;
+      assertFalse(hedging.appliesTo(get));
+   }
+
+   public void testPercentileMustBeWithinRange() {
+      hedging.setPercentile(100);
+      assertEquals(hedging.percentile, 100.0);
+      for (double invalid : new double[] { 0, -1, 100.5 }) {
+         try {
+            hedging.setPercentile(invalid);
+            fail("expected " + invalid + " to be rejected");
+         } catch (IllegalArgumentException e) {
+            assertEquals(hedging.percentile, 100.0);
+         }
+      }
+   }
+
+   public void testAttemptsFailOnceClosed() {
+      usuallyRespondsIn("GetThing", 1);
+      hedging.close();
+      HttpCommandExecutorService http = new HttpCommandExecutorService() {
+         @Override
+         public HttpResponse invoke(HttpCommand command) {
+            return primaryResponse;
+         }
+      };
+      try {
+         hedging.invoke(http, "GetThing", new HttpCommand(get, "GetThing"));
+         fail("expected the closed policy to refuse the attempt");
+      } catch (IllegalStateException e) {
+         assertTrue(attempts.isShutdown());
+      }
+   }
+
+   public void testDelayIsPercentileOfPreviousResponses() {
+      assertEquals(hedging.delayNanos("GetThing"), -1);
+      usuallyRespondsIn("GetThing", 1);
+      hedging.latency("GetThing").record(SECONDS.toNanos(1));
+      assertTrue(hedging.delayNanos("GetThing") >= MILLISECONDS.toNanos(1));
+      assertTrue(hedging.delayNanos("GetThing") < MILLISECONDS.toNanos(2));
+
+      hedging.minDelayMs = 100;
+      assertEquals(hedging.delayNanos("GetThing"), MILLISECONDS.toNanos(100));
+   }
+
+   public void testDoesNotHedgeUntilEnoughResponsesWereTimed() {
+      final AtomicInteger invocations = new AtomicInteger();
+      HttpCommandExecutorService http = new HttpCommandExecutorService() {
+         @Override
+         public HttpResponse invoke(HttpCommand command) {
+            invocations.incrementAndGet();
+            return primaryResponse;
+         }
+      };
+      for (int i = 0; i < HedgingPolicy.MIN_SAMPLES; i++)
+         assertSame(hedging.invoke(http, "GetThing", new HttpCommand(get, "GetThing")), primaryResponse);
+      assertEquals(invocations.get(), HedgingPolicy.MIN_SAMPLES);
+      assertEquals(hedging.latency("GetThing").count(), HedgingPolicy.MIN_SAMPLES);
+      assertTrue(metrics.getCommandMetrics().isEmpty());
+   }
+
+   public void testSlowPrimaryIsHedgedAndBackupWins() throws Exception {
+      usuallyRespondsIn("GetThing", 1);
+      final CountDownLatch primaryBlocked = new CountDownLatch(1);
+      final AtomicInteger invocations = new AtomicInteger();
+      HttpCommandExecutorService http = new HttpCommandExecutorService() {
+         @Override
+         public HttpResponse invoke(HttpCommand command) {
+            if (invocations.incrementAndGet() == 1) {
+               Uninterruptibles.awaitUninterruptibly(primaryBlocked);
+               return primaryResponse;
+            }
+            return backupResponse;
+         }
+      };
+
+      assertSame(hedging.invoke(http, "GetThing", new HttpCommand(get, "GetThing")), backupResponse);
+      primaryBlocked.countDown();
+
+      assertEquals(invocations.get(), 2);
+      CommandMetrics getThing = metrics.getCommandMetrics().get("GetThing");
+      assertEquals(getThing.getHedgeCount(), 1);
+      assertEquals(getThing.getHedgeWinCount(), 1);
+   }
+
+   public void testFastPrimaryIsNotHedged() throws Exception {
+      usuallyRespondsIn("GetThing", 1000);
+      final AtomicInteger invocations = new AtomicInteger();
+      HttpCommandExecutorService http = new HttpCommandExecutorService() {
+         @Override
+         public HttpResponse invoke(HttpCommand command) {
+            invocations.incrementAndGet();
+            return primaryResponse;
+         }
+      };
+
+      assertSame(hedging.invoke(http, "GetThing", new HttpCommand(get, "GetThing")), primaryResponse);
+      assertEquals(invocations.get(), 1);
+      assertTrue(metrics.getCommandMetrics().isEmpty());
+   }
+
+   public void testCommandIsSentOnceFromCallingThreadWhenAllThreadsAreBusy() throws Exception {
+      ThreadPoolExecutor oneThread = new ThreadPoolExecutor(0, 1, 1, SECONDS, new SynchronousQueue<Runnable>());
+      final CountDownLatch busy = new CountDownLatch(1);
+      try {
+         oneThread.execute(new Runnable() {
+            @Override
+            public void run() {
+               Uninterruptibles.awaitUninterruptibly(busy);
+            }
+         });
+         hedging = new HedgingPolicy(oneThread);
+         hedging.metrics = metrics;
+         hedging.percentile = 90;
+         usuallyRespondsIn("GetThing", 1);
+         final Thread caller = Thread.currentThread();
+         final AtomicInteger invocations = new AtomicInteger();
+         HttpCommandExecutorService http = new HttpCommandExecutorService() {
+            @Override
+            public HttpResponse invoke(HttpCommand command) {
+               assertSame(Thread.currentThread(), caller);
+               invocations.incrementAndGet();
+               return primaryResponse;
+            }
+         };
+
+         assertSame(hedging.invoke(http, "GetThing", new HttpCommand(get, "GetThing")), primaryResponse);
+         assertEquals(invocations.get(), 1);
+         assertTrue(metrics.getCommandMetrics().isEmpty());
+      } finally {
+         busy.countDown();
+         oneThread.shutdownNow();
+      }
+   }
+
+   public void testFailureOfPrimaryIsPropagatedWhenBothFail() throws Exception {
+      usuallyRespondsIn("GetThing", 1);
+      final IllegalStateException primaryFailure = new IllegalStateException("primary");
+      final AtomicInteger invocations = new AtomicInteger();
+      HttpCommandExecutorService http = new HttpCommandExecutorService() {
+         @Override
+         public HttpResponse invoke(HttpCommand command) {
+            if (invocations.incrementAndGet() == 1) {
+               Uninterruptibles.sleepUninterruptibly(50, MILLISECONDS);
+               throw primaryFailure;
+            }
+            throw new IllegalStateException("backup");
+         }
+      };
+
+      try {
+         hedging.invoke(http, "GetThing", new HttpCommand(get, "GetThing"));
+         fail("expected failure of the primary attempt");
+      } catch (IllegalStateException e) {
+         assertSame(e, primaryFailure);
+      }
+      CommandMetrics getThing = metrics.getCommandMetrics().get("GetThing");
+      assertEquals(getThing.getHedgeCount(), 1);
+      assertEquals(getThing.getHedgeWinCount(), 0);
+   }
+}
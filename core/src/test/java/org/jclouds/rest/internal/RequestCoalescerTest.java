@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.util.Strings2;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@Test(groups = "unit", testName = "RequestCoalescerTest", singleThreaded = true)
+public class RequestCoalescerTest {
+
+   private final HttpRequest getImage = HttpRequest.builder().method("GET").endpoint("http://nova/images/1")
+         .addHeader("Accept", "application/json").build();
+
+   private ListeningExecutorService callers;
+   private RequestCoalescer coalescer;
+
+   @BeforeMethod
+   void createCoalescer() {
+      callers = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+      coalescer = new RequestCoalescer();
+      coalescer.enabled = true;
+   }
+
+   @AfterMethod
+   void shutdownCallers() {
+      callers.shutdownNow();
+   }
+
+   /**
+    * responds once {@code release} is counted down, so that callers pile up behind the first request.
+    */
+   private static class BlockingHttp implements HttpCommandExecutorService {
+      private final CountDownLatch release = new CountDownLatch(1);
+      private final AtomicInteger invocations = new AtomicInteger();
+      private final String body;
+
+      private BlockingHttp(String body) {
+         this.body = body;
+      }
+
+      @Override
+      public HttpResponse invoke(HttpCommand command) {
+         invocations.incrementAndGet();
+         Uninterruptibles.awaitUninterruptibly(release);
+         return HttpResponse.builder().statusCode(200).payload(body).build();
+      }
+   }
+
+   private List<ListenableFuture<HttpResponse>> invokeConcurrently(final HttpCommandExecutorService http, int count) {
+      List<ListenableFuture<HttpResponse>> responses = Lists.newArrayList();
+      for (int i = 0; i < count; i++) {
+         responses.add(callers.submit(new Callable<HttpResponse>() {
+            @Override
+            public HttpResponse call() {
+               return coalescer.invoke(http, "GetImage", new HttpCommand(getImage, "GetImage"));
+            }
+         }));
+      }
+      return responses;
+   }
+
+   private void awaitFollowers(List<ListenableFuture<HttpResponse>> responses) {
+      // followers block on the leader, so give them a moment to join before it responds
+      Uninterruptibles.sleepUninterruptibly(200, MILLISECONDS);
+      for (ListenableFuture<HttpResponse> response : responses)
+         assertFalse(response.isDone());
+   }
+
+   public void testAppliesToIdempotentRequestsWithoutPayload() {
+      assertTrue(coalescer.appliesTo(getImage));
+      assertTrue(coalescer.appliesTo(getImage.toBuilder().method("HEAD").build()));
+      assertFalse(coalescer.appliesTo(getImage.toBuilder().method("POST").build()));
+      assertFalse(coalescer.appliesTo(getImage.toBuilder().payload("foo").build()));
+      coalescer.enabled = false;
+      assertFalse(coalescer.appliesTo(getImage));
+   }
+
+   public void testKeyIgnoresHeaderOrder() {
+      HttpRequest ab = getImage.toBuilder().addHeader("A", "1").addHeader("B", "2").build();
+      HttpRequest ba = getImage.toBuilder().addHeader("B", "2").addHeader("A", "1").build();
+      assertEquals(RequestCoalescer.key(ab), RequestCoalescer.key(ba));
+      assertFalse(RequestCoalescer.key(ab).equals(RequestCoalescer.key(getImage)));
+   }
+
+   public void testConcurrentCallersShareOneRequestButNotPayloads() throws Exception {
+      BlockingHttp http = new BlockingHttp("{\"image\":{}}");
+      List<ListenableFuture<HttpResponse>> responses = invokeConcurrently(http, 10);
+      awaitFollowers(responses);
+      http.release.countDown();
+
+      List<HttpResponse> results = Futures.allAsList(responses).get(10, SECONDS);
+      assertEquals(http.invocations.get(), 1);
+      assertEquals(coalescer.inFlight(), 0);
+      for (HttpResponse response : results) {
+         assertEquals(response.getStatusCode(), 200);
+         assertEquals(Strings2.toStringAndClose(response.getPayload().openStream()), "{\"image\":{}}");
+         assertEquals(response.getPayload().getContentMetadata().getContentLength(), Long.valueOf(12));
+      }
+      assertNotSame(results.get(0).getPayload(), results.get(1).getPayload());
+   }
+
+   public void testLargeResponsesAreNotShared() throws Exception {
+      coalescer.maxPayloadBytes = 4;
+      BlockingHttp http = new BlockingHttp("too large to share");
+      List<ListenableFuture<HttpResponse>> responses = invokeConcurrently(http, 3);
+      awaitFollowers(responses);
+      http.release.countDown();
+
+      Futures.allAsList(responses).get(10, SECONDS);
+      assertEquals(http.invocations.get(), 3);
+   }
+
+   public void testFailuresAreShared() throws Exception {
+      final CountDownLatch release = new CountDownLatch(1);
+      final IllegalStateException failure = new IllegalStateException();
+      final AtomicInteger invocations = new AtomicInteger();
+      HttpCommandExecutorService http = new HttpCommandExecutorService() {
+         @Override
+         public HttpResponse invoke(HttpCommand command) {
+            invocations.incrementAndGet();
+            Uninterruptibles.awaitUninterruptibly(release);
+            throw failure;
+         }
+      };
+      List<ListenableFuture<HttpResponse>> responses = invokeConcurrently(http, 3);
+      awaitFollowers(responses);
+      release.countDown();
+
+      for (ListenableFuture<HttpResponse> response : responses) {
+         try {
+            response.get(10, SECONDS);
+            fail("expected the failure of the shared request");
+         } catch (ExecutionException e) {
+            assertSame(e.getCause(), failure);
+         }
+      }
+      assertEquals(invocations.get(), 1);
+   }
+}
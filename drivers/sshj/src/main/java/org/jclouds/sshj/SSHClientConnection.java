@@ -60,6 +60,7 @@ public class SSHClientConnection implements Connection<SSHClient> {
       protected int connectTimeout;
       protected int sessionTimeout;
       protected Optional<Connector> agentConnector;
+      protected SSHClientConnectionPool pool;
 
       /**
        * @see SSHClientConnection#getHostAndPort()
@@ -101,8 +102,17 @@ public class SSHClientConnection implements Connection<SSHClient> {
          return this;
       }
 
+      /**
+       * @see SSHClientConnection#getPool()
+       */
+      public Builder pool(SSHClientConnectionPool pool) {
+         this.pool = pool;
+         return this;
+      }
+
       public SSHClientConnection build() {
-         return new SSHClientConnection(hostAndPort, loginCredentials, connectTimeout, sessionTimeout, agentConnector);
+         return new SSHClientConnection(hostAndPort, loginCredentials, connectTimeout, sessionTimeout, agentConnector,
+                  pool);
       }
 
       protected Builder fromSSHClientConnection(SSHClientConnection in) {
@@ -112,12 +122,13 @@ public class SSHClientConnection implements Connection<SSHClient> {
    }
 
    private SSHClientConnection(HostAndPort hostAndPort, LoginCredentials loginCredentials, int connectTimeout,
-            int sessionTimeout, Optional<Connector> agentConnector) {
+            int sessionTimeout, Optional<Connector> agentConnector, SSHClientConnectionPool pool) {
       this.hostAndPort = checkNotNull(hostAndPort, "hostAndPort");
       this.loginCredentials = checkNotNull(loginCredentials, "loginCredentials for %", hostAndPort);
       this.connectTimeout = connectTimeout;
       this.sessionTimeout = sessionTimeout;
       this.agentConnector = checkNotNull(agentConnector, "agentConnector for %", hostAndPort);
+      this.pool = pool;
    }
    
    @Resource
@@ -128,13 +139,21 @@ public class SSHClientConnection implements Connection<SSHClient> {
    private final LoginCredentials loginCredentials;
    private final int connectTimeout;
    private final int sessionTimeout;
+   private final SSHClientConnectionPool pool;
 
    @VisibleForTesting
    transient SSHClient ssh;
 
+   private transient SSHClientConnectionPool.Lease lease;
+
    @Override
    public void clear() {
-      if (ssh != null && ssh.isConnected()) {
+      if (lease != null) {
+         // the transport may still be in use by other connections, so give it back instead of disconnecting
+         pool.release(lease);
+         lease = null;
+         ssh = null;
+      } else if (ssh != null && ssh.isConnected()) {
          try {
             ssh.disconnect();
          } catch (AssertionError e) {
@@ -146,9 +165,35 @@ public class SSHClientConnection implements Connection<SSHClient> {
       }
    }
 
+   /**
+    * Disconnects the transport after it failed. A pooled transport is discarded rather than given back to the pool.
+    */
+   public void invalidate() {
+      if (lease != null) {
+         pool.invalidate(lease);
+         lease = null;
+         ssh = null;
+      } else {
+         clear();
+      }
+   }
+
    @Override
    public SSHClient create() throws Exception {
-      ssh = new net.schmizz.sshj.SSHClient();
+      if (pool != null) {
+         lease = pool.lease(this);
+         ssh = lease.getSSHClient();
+      } else {
+         ssh = connect();
+      }
+      return ssh;
+   }
+
+   /**
+    * Opens and authenticates a new transport, regardless of the pool.
+    */
+   SSHClient connect() throws Exception {
+      SSHClient ssh = new net.schmizz.sshj.SSHClient();
       ssh.addHostKeyVerifier(new PromiscuousVerifier());
       if (connectTimeout != 0) {
          ssh.setConnectTimeout(connectTimeout);
@@ -156,16 +201,28 @@ public class SSHClientConnection implements Connection<SSHClient> {
       if (sessionTimeout != 0) {
          ssh.setTimeout(sessionTimeout);
       }
-      ssh.connect(hostAndPort.getHostText(), hostAndPort.getPortOrDefault(22));
-      if (loginCredentials.getOptionalPassword().isPresent()) {
-         ssh.authPassword(loginCredentials.getUser(), loginCredentials.getOptionalPassword().get());
-      } else if (loginCredentials.hasUnencryptedPrivateKey()) {
-         OpenSSHKeyFile key = new OpenSSHKeyFile();
-         key.init(loginCredentials.getOptionalPrivateKey().get(), null);
-         ssh.authPublickey(loginCredentials.getUser(), key);
-      } else if (agentConnector.isPresent()) {
-         AgentProxy proxy = new AgentProxy(agentConnector.get());
-         ssh.auth(loginCredentials.getUser(), getAuthMethods(proxy));
+      try {
+         ssh.connect(hostAndPort.getHostText(), hostAndPort.getPortOrDefault(22));
+         if (loginCredentials.getOptionalPassword().isPresent()) {
+            ssh.authPassword(loginCredentials.getUser(), loginCredentials.getOptionalPassword().get());
+         } else if (loginCredentials.hasUnencryptedPrivateKey()) {
+            OpenSSHKeyFile key = new OpenSSHKeyFile();
+            key.init(loginCredentials.getOptionalPrivateKey().get(), null);
+            ssh.authPublickey(loginCredentials.getUser(), key);
+         } else if (agentConnector.isPresent()) {
+            AgentProxy proxy = new AgentProxy(agentConnector.get());
+            ssh.auth(loginCredentials.getUser(), getAuthMethods(proxy));
+         }
+      } catch (Exception e) {
+         // don't leak the socket of a half-open connection
+         if (ssh.isConnected()) {
+            try {
+               ssh.disconnect();
+            } catch (IOException ignored) {
+               logger.debug("<< exception disconnecting from %s: %s", hostAndPort, ignored.getMessage());
+            }
+         }
+         throw e;
       }
       return ssh;
    }
@@ -209,6 +266,14 @@ public class SSHClientConnection implements Connection<SSHClient> {
       return agentConnector;
    }
 
+   /**
+    *
+    * @return pool the ssh transport is leased from, or {@code null} if it is not pooled
+    */
+   public SSHClientConnectionPool getPool() {
+      return pool;
+   }
+
    /**
     * 
     * @return the current ssh or {@code null} if not connected
@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sshj;
+
+import static com.google.common.base.Objects.equal;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import net.schmizz.sshj.SSHClient;
+
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+
+/**
+ * Keeps authenticated {@link SSHClient} transports open so that the exec and sftp channels of several
+ * {@link SshjSshClient}s to the same node share a connection, instead of each paying a full key exchange. Only used
+ * when {@code jclouds.ssh.pool-connections} is true.
+ * <p>
+ * Connections are keyed by host, port, login and timeouts. A connection is shared by up to
+ * {@code jclouds.ssh.pool.max-sessions-per-connection} leases at a time, which should stay below the {@code MaxSessions}
+ * of the ssh server. A connection that was not used for {@code jclouds.ssh.pool.validate-after-inactivity}
+ * milliseconds is checked by opening and closing a session before it is leased again, as a socket can look connected
+ * long after the server or a firewall dropped it. Connections that are idle for longer than
+ * {@code jclouds.ssh.pool.idle-timeout} milliseconds are disconnected by a background thread, and all of them are
+ * disconnected when the context is closed.
+ */
+@Singleton
+public class SSHClientConnectionPool {
+
+   @Resource
+   @Named("jclouds.ssh")
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named("jclouds.ssh.pool.max-sessions-per-connection")
+   @VisibleForTesting
+   int maxSessionsPerConnection = 8;
+
+   @Inject(optional = true)
+   @Named("jclouds.ssh.pool.idle-timeout")
+   @VisibleForTesting
+   long idleTimeoutMillis = 60000;
+
+   @Inject(optional = true)
+   @Named("jclouds.ssh.pool.validate-after-inactivity")
+   @VisibleForTesting
+   long validateAfterInactivityMillis = 2000;
+
+   private final Map<Key, List<PooledSSHClient>> pool = Maps.newHashMap();
+   private ScheduledExecutorService evictor;
+   private boolean closed;
+
+   /**
+    * Leases a healthy pooled transport for the given connection, connecting a new one if all the pooled ones are busy.
+    */
+   Lease lease(SSHClientConnection connection) throws Exception {
+      Key key = new Key(connection);
+      for (PooledSSHClient client = reserve(key); client != null; client = reserve(key)) {
+         Lease lease = new Lease(key, client);
+         if (validate(key, client)) {
+            logger.trace("<< (%s) reusing pooled ssh connection %s", key, client.ssh.hashCode());
+            return lease;
+         }
+         invalidate(lease);
+      }
+      // connect outside the lock, as the key exchange and authentication are slow
+      SSHClient ssh = connection.connect();
+      PooledSSHClient client = new PooledSSHClient(ssh);
+      synchronized (this) {
+         if (closed) {
+            disconnect(client);
+            throw new IllegalStateException("ssh connection pool is closed");
+         }
+         List<PooledSSHClient> clients = pool.get(key);
+         if (clients == null) {
+            clients = Lists.newLinkedList();
+            pool.put(key, clients);
+         }
+         clients.add(client);
+         startEvictor();
+         return new Lease(key, client);
+      }
+   }
+
+   /**
+    * Returns a leased transport to the pool, disconnecting it if it is no longer usable.
+    */
+   void release(Lease lease) {
+      if (lease.released)
+         return;
+      lease.released = true;
+      PooledSSHClient client = lease.client;
+      boolean discard;
+      synchronized (this) {
+         client.leases--;
+         client.lastUsed = System.currentTimeMillis();
+         // an invalidated transport was already disconnected
+         discard = client.leases == 0 && !client.invalid && (closed || !isHealthy(client.ssh));
+         if (discard)
+            remove(lease.key, client);
+      }
+      if (discard)
+         disconnect(client);
+   }
+
+   /**
+    * Disconnects a leased transport that failed, instead of returning it to the pool. Other leases of the same
+    * transport fail on their next use, and their callers acquire a new one.
+    */
+   void invalidate(Lease lease) {
+      if (lease.released)
+         return;
+      lease.released = true;
+      PooledSSHClient client = lease.client;
+      synchronized (this) {
+         client.leases--;
+         client.invalid = true;
+         remove(lease.key, client);
+      }
+      logger.debug("<< (%s) discarding pooled ssh connection %s", lease.key, client.ssh.hashCode());
+      disconnect(client);
+   }
+
+   /**
+    * Disconnects all the pooled connections.
+    */
+   @PreDestroy
+   public void close() {
+      List<PooledSSHClient> toClose = Lists.newArrayList();
+      synchronized (this) {
+         closed = true;
+         if (evictor != null)
+            evictor.shutdownNow();
+         for (List<PooledSSHClient> clients : pool.values()) {
+            for (PooledSSHClient client : clients) {
+               if (client.leases == 0)
+                  toClose.add(client);
+            }
+         }
+         pool.clear();
+      }
+      for (PooledSSHClient client : toClose) {
+         disconnect(client);
+      }
+   }
+
+   @VisibleForTesting
+   synchronized int size() {
+      int size = 0;
+      for (List<PooledSSHClient> clients : pool.values()) {
+         size += clients.size();
+      }
+      return size;
+   }
+
+   /**
+    * Disconnects the pooled connections that have been idle for too long or are no longer connected.
+    */
+   @VisibleForTesting
+   void evictIdle() {
+      long now = System.currentTimeMillis();
+      List<PooledSSHClient> toClose = Lists.newArrayList();
+      synchronized (this) {
+         for (Iterator<List<PooledSSHClient>> lists = pool.values().iterator(); lists.hasNext();) {
+            List<PooledSSHClient> clients = lists.next();
+            for (Iterator<PooledSSHClient> it = clients.iterator(); it.hasNext();) {
+               PooledSSHClient client = it.next();
+               if (client.leases == 0 && (now - client.lastUsed > idleTimeoutMillis || !isHealthy(client.ssh))) {
+                  it.remove();
+                  toClose.add(client);
+               }
+            }
+            if (clients.isEmpty())
+               lists.remove();
+         }
+      }
+      for (PooledSSHClient client : toClose) {
+         disconnect(client);
+      }
+   }
+
+   /**
+    * Takes a lease on a pooled transport for {@code key} with a free session, if there is one.
+    */
+   private synchronized PooledSSHClient reserve(Key key) {
+      checkState(!closed, "ssh connection pool is closed");
+      List<PooledSSHClient> clients = pool.get(key);
+      if (clients != null) {
+         for (PooledSSHClient client : clients) {
+            if (client.leases < maxSessionsPerConnection && isHealthy(client.ssh)) {
+               client.leases++;
+               return client;
+            }
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Checks that a transport which was not used recently still reaches the server, by opening and closing a session.
+    */
+   private boolean validate(Key key, PooledSSHClient client) {
+      long now = System.currentTimeMillis();
+      if (now - client.lastUsed < validateAfterInactivityMillis)
+         return true;
+      try {
+         client.ssh.startSession().close();
+         client.lastUsed = now;
+         return true;
+      } catch (IOException e) {
+         logger.debug("<< (%s) pooled ssh connection %s is stale: %s", key, client.ssh.hashCode(), e.getMessage());
+         return false;
+      }
+   }
+
+   private void startEvictor() {
+      if (evictor != null)
+         return;
+      evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("ssh connection pool evictor").setDaemon(true).build());
+      long period = Math.max(idleTimeoutMillis / 2, 1);
+      evictor.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               evictIdle();
+            } catch (RuntimeException e) {
+               logger.warn(e, "<< error evicting idle ssh connections");
+            }
+         }
+
+         @Override
+         public String toString() {
+            return "evictIdle()";
+         }
+      }, period, period, TimeUnit.MILLISECONDS);
+   }
+
+   private void remove(Key key, PooledSSHClient client) {
+      List<PooledSSHClient> clients = pool.get(key);
+      if (clients != null) {
+         clients.remove(client);
+         if (clients.isEmpty())
+            pool.remove(key);
+      }
+   }
+
+   private static boolean isHealthy(SSHClient ssh) {
+      return ssh.isConnected() && ssh.isAuthenticated();
+   }
+
+   private void disconnect(PooledSSHClient client) {
+      try {
+         client.ssh.disconnect();
+      } catch (AssertionError e) {
+         // already disconnected
+      } catch (IOException e) {
+         logger.debug("<< exception disconnecting pooled ssh connection: %s", e.getMessage());
+      }
+   }
+
+   private static final class PooledSSHClient {
+      private final SSHClient ssh;
+      private int leases = 1;
+      private volatile long lastUsed = System.currentTimeMillis();
+      private boolean invalid;
+
+      private PooledSSHClient(SSHClient ssh) {
+         this.ssh = ssh;
+      }
+   }
+
+   /**
+    * A pooled transport in use by a {@link SSHClientConnection}.
+    */
+   static final class Lease {
+      private final Key key;
+      private final PooledSSHClient client;
+      private volatile boolean released;
+
+      private Lease(Key key, PooledSSHClient client) {
+         this.key = key;
+         this.client = client;
+      }
+
+      SSHClient getSSHClient() {
+         return client.ssh;
+      }
+   }
+
+   private static final class Key {
+      private final HostAndPort hostAndPort;
+      private final LoginCredentials loginCredentials;
+      private final int connectTimeout;
+      private final int sessionTimeout;
+
+      private Key(SSHClientConnection connection) {
+         this.hostAndPort = connection.getHostAndPort();
+         this.loginCredentials = connection.getLoginCredentials();
+         this.connectTimeout = connection.getConnectTimeout();
+         this.sessionTimeout = connection.getSessionTimeout();
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o)
+            return true;
+         if (!(o instanceof Key))
+            return false;
+         Key that = (Key) o;
+         return equal(this.hostAndPort, that.hostAndPort) && equal(this.loginCredentials, that.loginCredentials)
+               && this.connectTimeout == that.connectTimeout && this.sessionTimeout == that.sessionTimeout;
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(hostAndPort, loginCredentials, connectTimeout, sessionTimeout);
+      }
+
+      @Override
+      public String toString() {
+         return loginCredentials.getUser() + "@" + hostAndPort;
+      }
+   }
+}
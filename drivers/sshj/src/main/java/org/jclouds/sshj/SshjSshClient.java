@@ -142,6 +142,16 @@ public class SshjSshClient implements SshClient {
 
    public SshjSshClient(BackoffLimitedRetryHandler backoffLimitedRetryHandler, HostAndPort socket,
             LoginCredentials loginCredentials, int timeout, Optional<Connector> agentConnector) {
+      this(backoffLimitedRetryHandler, socket, loginCredentials, timeout, agentConnector, null);
+   }
+
+   /**
+    * @param pool
+    *           if not null, the ssh transport is leased from this pool and shared with other clients to the same node
+    */
+   public SshjSshClient(BackoffLimitedRetryHandler backoffLimitedRetryHandler, HostAndPort socket,
+            LoginCredentials loginCredentials, int timeout, Optional<Connector> agentConnector,
+            SSHClientConnectionPool pool) {
       this.user = checkNotNull(loginCredentials, "loginCredentials").getUser();
       this.host = checkNotNull(socket, "socket").getHostText();
       checkArgument(socket.getPort() > 0, "ssh port must be greater then zero" + socket.getPort());
@@ -162,7 +172,7 @@ public class SshjSshClient implements SshClient {
                   host, socket.getPort());
       }
       sshClientConnection = SSHClientConnection.builder().hostAndPort(HostAndPort.fromParts(host, socket.getPort()))
-               .loginCredentials(loginCredentials).connectTimeout(timeout).sessionTimeout(timeout).agentConnector(agentConnector).build();
+               .loginCredentials(loginCredentials).connectTimeout(timeout).sessionTimeout(timeout).agentConnector(agentConnector).pool(pool).build();
    }
 
    @Override
@@ -196,7 +206,8 @@ public class SshjSshClient implements SshClient {
             return returnVal;
          } catch (Exception from) {
             try {
-               disconnect();
+               // don't give a transport that just failed back to the pool
+               sshClientConnection.invalidate();
             } catch (Exception e1) {
                logger.warn(from, "<< (%s) error closing connection", toString());
             }
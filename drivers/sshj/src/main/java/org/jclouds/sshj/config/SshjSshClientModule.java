@@ -23,6 +23,7 @@ import org.jclouds.domain.LoginCredentials;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.ssh.SshClient;
 import org.jclouds.ssh.config.ConfiguresSshClient;
+import org.jclouds.sshj.SSHClientConnectionPool;
 import org.jclouds.sshj.SshjSshClient;
 
 import com.google.common.base.Optional;
@@ -58,18 +59,30 @@ public class SshjSshClientModule extends AbstractModule {
          }
       }
 
+      /**
+       * Whether clients to the same node share their ssh connections, see {@link SSHClientConnectionPool}. Off by
+       * default, as a pooled connection outlives the client that opened it.
+       */
+      @Named("jclouds.ssh.pool-connections")
+      @Inject(optional = true)
+      boolean poolConnections = false;
+
       private final BackoffLimitedRetryHandler backoffLimitedRetryHandler;
+      private final SSHClientConnectionPool pool;
       private final Injector injector;
 
       @Inject
-      public Factory(BackoffLimitedRetryHandler backoffLimitedRetryHandler, Injector injector) {
+      public Factory(BackoffLimitedRetryHandler backoffLimitedRetryHandler, SSHClientConnectionPool pool,
+            Injector injector) {
          this.backoffLimitedRetryHandler = backoffLimitedRetryHandler;
+         this.pool = pool;
          this.injector = injector;
       }
 
       @Override
       public SshClient create(HostAndPort socket, LoginCredentials credentials) {
-         SshClient client = new SshjSshClient(backoffLimitedRetryHandler, socket, credentials, timeout, getAgentConnector());
+         SshClient client = new SshjSshClient(backoffLimitedRetryHandler, socket, credentials, timeout,
+               getAgentConnector(), poolConnections ? pool : null);
          injector.injectMembers(client);  // add logger
          return client;
       }
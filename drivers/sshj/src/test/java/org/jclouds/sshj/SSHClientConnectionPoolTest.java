@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sshj;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import net.schmizz.sshj.SSHClient;
+import net.schmizz.sshj.connection.ConnectionException;
+import net.schmizz.sshj.connection.channel.direct.Session;
+
+import org.easymock.IAnswer;
+import org.jclouds.domain.LoginCredentials;
+import org.testng.annotations.Test;
+
+import com.google.common.net.HostAndPort;
+
+@Test(groups = "unit", testName = "SSHClientConnectionPoolTest")
+public class SSHClientConnectionPoolTest {
+
+   private final HostAndPort hostAndPort = HostAndPort.fromParts("localhost", 22);
+   private final LoginCredentials credentials = LoginCredentials.builder().user("username").password("password")
+         .build();
+
+   private SSHClientConnection mockConnection(SSHClient... clients) throws Exception {
+      SSHClientConnection connection = createMock(SSHClientConnection.class);
+      expect(connection.getHostAndPort()).andReturn(hostAndPort).anyTimes();
+      expect(connection.getLoginCredentials()).andReturn(credentials).anyTimes();
+      expect(connection.getConnectTimeout()).andReturn(1000).anyTimes();
+      expect(connection.getSessionTimeout()).andReturn(1000).anyTimes();
+      for (SSHClient client : clients) {
+         expect(connection.connect()).andReturn(client);
+      }
+      replay(connection);
+      return connection;
+   }
+
+   private SSHClient healthyClient() {
+      SSHClient ssh = createMock(SSHClient.class);
+      expect(ssh.isConnected()).andReturn(true).anyTimes();
+      expect(ssh.isAuthenticated()).andReturn(true).anyTimes();
+      return ssh;
+   }
+
+   public void testLeasesShareConnection() throws Exception {
+      SSHClient ssh = healthyClient();
+      replay(ssh);
+      SSHClientConnection connection = mockConnection(ssh);
+
+      SSHClientConnectionPool pool = new SSHClientConnectionPool();
+      SSHClientConnectionPool.Lease first = pool.lease(connection);
+      SSHClientConnectionPool.Lease second = pool.lease(connection);
+      assertSame(first.getSSHClient(), ssh);
+      assertSame(second.getSSHClient(), ssh);
+      pool.release(first);
+      pool.release(second);
+
+      assertSame(pool.lease(connection).getSSHClient(), ssh);
+      assertEquals(pool.size(), 1);
+      verify(connection);
+   }
+
+   public void testOpensNewConnectionWhenSessionsExhausted() throws Exception {
+      SSHClient ssh1 = healthyClient();
+      SSHClient ssh2 = healthyClient();
+      replay(ssh1, ssh2);
+      SSHClientConnection connection = mockConnection(ssh1, ssh2);
+
+      SSHClientConnectionPool pool = new SSHClientConnectionPool();
+      pool.maxSessionsPerConnection = 1;
+      assertSame(pool.lease(connection).getSSHClient(), ssh1);
+      assertSame(pool.lease(connection).getSSHClient(), ssh2);
+      assertEquals(pool.size(), 2);
+      verify(connection);
+   }
+
+   public void testDisconnectsUnhealthyConnectionOnRelease() throws Exception {
+      SSHClient ssh = createMock(SSHClient.class);
+      expect(ssh.isConnected()).andReturn(false).anyTimes();
+      ssh.disconnect();
+      expectLastCall();
+      replay(ssh);
+      SSHClientConnection connection = mockConnection(ssh);
+
+      SSHClientConnectionPool pool = new SSHClientConnectionPool();
+      pool.release(pool.lease(connection));
+
+      assertEquals(pool.size(), 0);
+      verify(ssh);
+   }
+
+   public void testEvictsIdleConnections() throws Exception {
+      SSHClient ssh1 = healthyClient();
+      ssh1.disconnect();
+      expectLastCall();
+      SSHClient ssh2 = healthyClient();
+      replay(ssh1, ssh2);
+      SSHClientConnection connection = mockConnection(ssh1, ssh2);
+
+      SSHClientConnectionPool pool = new SSHClientConnectionPool();
+      pool.idleTimeoutMillis = -1;
+      pool.release(pool.lease(connection));
+      pool.evictIdle();
+
+      assertSame(pool.lease(connection).getSSHClient(), ssh2);
+      assertEquals(pool.size(), 1);
+      verify(ssh1);
+   }
+
+   public void testCloseDisconnectsIdleConnections() throws Exception {
+      SSHClient ssh = healthyClient();
+      ssh.disconnect();
+      expectLastCall();
+      replay(ssh);
+      SSHClientConnection connection = mockConnection(ssh);
+
+      SSHClientConnectionPool pool = new SSHClientConnectionPool();
+      pool.release(pool.lease(connection));
+      pool.close();
+
+      assertEquals(pool.size(), 0);
+      verify(ssh);
+   }
+
+   public void testEvictsIdleConnectionsWithoutLeasing() throws Exception {
+      final CountDownLatch disconnected = new CountDownLatch(1);
+      SSHClient ssh = healthyClient();
+      ssh.disconnect();
+      expectLastCall().andAnswer(new IAnswer<Object>() {
+         @Override
+         public Object answer() {
+            disconnected.countDown();
+            return null;
+         }
+      });
+      replay(ssh);
+      SSHClientConnection connection = mockConnection(ssh);
+
+      SSHClientConnectionPool pool = new SSHClientConnectionPool();
+      pool.idleTimeoutMillis = 10;
+      pool.release(pool.lease(connection));
+
+      assertTrue(disconnected.await(10, SECONDS), "idle connection was not evicted");
+      assertEquals(pool.size(), 0);
+      verify(ssh);
+   }
+
+   public void testReplacesConnectionThatFailsValidation() throws Exception {
+      SSHClient stale = healthyClient();
+      expect(stale.startSession()).andThrow(new ConnectionException("Broken pipe"));
+      stale.disconnect();
+      expectLastCall();
+      SSHClient fresh = healthyClient();
+      replay(stale, fresh);
+      SSHClientConnection connection = mockConnection(stale, fresh);
+
+      SSHClientConnectionPool pool = new SSHClientConnectionPool();
+      pool.validateAfterInactivityMillis = 0;
+      pool.release(pool.lease(connection));
+
+      assertSame(pool.lease(connection).getSSHClient(), fresh);
+      assertEquals(pool.size(), 1);
+      verify(stale, connection);
+   }
+
+   public void testReusesConnectionThatPassesValidation() throws Exception {
+      Session session = createMock(Session.class);
+      session.close();
+      expectLastCall();
+      SSHClient ssh = healthyClient();
+      expect(ssh.startSession()).andReturn(session);
+      replay(ssh, session);
+      SSHClientConnection connection = mockConnection(ssh);
+
+      SSHClientConnectionPool pool = new SSHClientConnectionPool();
+      pool.validateAfterInactivityMillis = 0;
+      pool.release(pool.lease(connection));
+
+      assertSame(pool.lease(connection).getSSHClient(), ssh);
+      verify(ssh, session, connection);
+   }
+
+   public void testDisconnectsInvalidatedConnection() throws Exception {
+      SSHClient ssh1 = healthyClient();
+      ssh1.disconnect();
+      expectLastCall();
+      SSHClient ssh2 = healthyClient();
+      replay(ssh1, ssh2);
+      SSHClientConnection connection = mockConnection(ssh1, ssh2);
+
+      SSHClientConnectionPool pool = new SSHClientConnectionPool();
+      SSHClientConnectionPool.Lease failed = pool.lease(connection);
+      SSHClientConnectionPool.Lease other = pool.lease(connection);
+      pool.invalidate(failed);
+      assertEquals(pool.size(), 0);
+      pool.release(other);
+
+      assertSame(pool.lease(connection).getSSHClient(), ssh2);
+      verify(ssh1, connection);
+   }
+}
@@ -184,8 +184,8 @@ public class SshjSshClientTest {
 
       mockConnection.clear(); expectLastCall();
       mockConnection.create(); expectLastCall().andThrow(new ConnectionException("test1"));
-      mockConnection.clear(); expectLastCall();
-      //currently does two clears, one on failure (above) and one on next iteration (below)
+      //the failed transport is invalidated (above), and cleared again on the next iteration (below)
+      mockConnection.invalidate(); expectLastCall();
       mockConnection.clear(); expectLastCall();
       mockConnection.create(); expectLastCall().andReturn(mockClient);
       replay(mockConnection);
@@ -34,6 +34,7 @@ import org.jclouds.aws.ec2.domain.AWSRunningInstance;
 import org.jclouds.aws.ec2.domain.SpotInstanceRequest;
 import org.jclouds.aws.ec2.functions.SpotInstanceRequestToAWSRunningInstance;
 import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.ec2.compute.strategy.EC2ListNodesStrategy;
 import org.jclouds.ec2.domain.RunningInstance;
 import org.jclouds.location.Region;
@@ -51,6 +52,20 @@ public class AWSEC2ListNodesStrategy extends EC2ListNodesStrategy {
    protected final SpotInstanceRequestToAWSRunningInstance spotConverter;
 
    @Inject
+   protected AWSEC2ListNodesStrategy(AWSEC2Api client, @Region Supplier<Set<String>> regions,
+            Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata,
+            @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+            SpotInstanceRequestToAWSRunningInstance spotConverter, GroupNamingConvention.Factory namingConvention) {
+      super(client, regions, runningInstanceToNodeMetadata, userExecutor, namingConvention);
+      this.client = checkNotNull(client, "client");
+      this.spotConverter = checkNotNull(spotConverter, "spotConverter");
+   }
+
+   /**
+    * @deprecated without a {@link GroupNamingConvention.Factory}, listing a group lists every instance. This
+    *             constructor will be removed in jclouds 2.0.
+    */
+   @Deprecated
    protected AWSEC2ListNodesStrategy(AWSEC2Api client, @Region Supplier<Set<String>> regions,
             Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata,
             @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
@@ -69,6 +84,18 @@ public class AWSEC2ListNodesStrategy extends EC2ListNodesStrategy {
       return concat(super.pollRunningInstances(), spots);
    }
 
+   @Override
+   protected Iterable<? extends RunningInstance> pollRunningInstancesInGroup(String group) {
+      if (namingConvention == null)
+         return pollRunningInstances();
+      // spot requests aren't filtered server-side, the caller filters them with the rest
+      Iterable<? extends AWSRunningInstance> spots = filter(transform(concat(transform(regions.get(),
+                                                                                       allSpotInstancesInRegion())),
+                                                                      spotConverter), notNull());
+
+      return concat(super.pollRunningInstancesInGroup(group), spots);
+   }
+
    @Override
    protected Iterable<? extends RunningInstance> pollRunningInstancesByRegionsAndIds(final Multimap<String, String> idsByRegions) {
       Iterable<? extends AWSRunningInstance> spots = filter(transform(concat(transform(idsByRegions.keySet(),
@@ -22,6 +22,7 @@ import static org.jclouds.http.HttpUtils.releasePayload;
 import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 
+import org.jclouds.concurrent.RefreshAheadCache;
 import org.jclouds.domain.Credentials;
 import org.jclouds.dynect.v3.domain.Session;
 import org.jclouds.dynect.v3.domain.SessionCredentials;
@@ -37,7 +38,6 @@ import org.jclouds.location.Provider;
 import org.jclouds.logging.Logger;
 
 import com.google.common.base.Supplier;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.inject.Inject;
@@ -73,12 +73,16 @@ public final class SessionManager extends BackoffLimitedRetryHandler implements
       this.sessionApi = sessionApi;
    }
 
+   /**
+    * Sessions do not say when they expire, so they are kept until invalidated. Concurrent logins for the same
+    * credentials share one call, and the storm of invalidations that follows an expired session only logs in once.
+    */
    static LoadingCache<Credentials, Session> buildCache(final SessionApi sessionApi) {
-      return CacheBuilder.newBuilder().build(new CacheLoader<Credentials, Session>() {
+      return RefreshAheadCache.builder(new CacheLoader<Credentials, Session>() {
          public Session load(Credentials key) {
             return sessionApi.login(convert(key));
          }
-      });
+      }).build();
    }
 
    static SessionCredentials convert(Credentials key) {
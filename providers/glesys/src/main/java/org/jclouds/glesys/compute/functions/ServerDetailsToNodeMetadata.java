@@ -23,10 +23,8 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.io.BaseEncoding.base16;
 import static org.jclouds.compute.util.ComputeServiceUtils.addMetadataAndParseTagsFromCommaDelimitedValue;
 import static org.jclouds.compute.util.ComputeServiceUtils.groupFromMapOrName;
-import static org.jclouds.location.predicates.LocationPredicates.idEquals;
 
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Set;
 
 import javax.annotation.Resource;
@@ -46,6 +44,7 @@ import org.jclouds.compute.domain.Volume;
 import org.jclouds.compute.domain.internal.VolumeImpl;
 import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.suppliers.IndexedSupplier;
 import org.jclouds.domain.Location;
 import org.jclouds.glesys.domain.Ip;
 import org.jclouds.glesys.domain.ServerDetails;
@@ -53,12 +52,10 @@ import org.jclouds.logging.Logger;
 import org.jclouds.util.InetAddresses2.IsPrivateIPAddress;
 
 import com.google.common.base.Function;
-import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
-import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -77,19 +74,8 @@ public class ServerDetailsToNodeMetadata implements Function<ServerDetails, Node
    protected final Supplier<Set<? extends Image>> images;
    protected final Supplier<Set<? extends Location>> locations;
    protected final GroupNamingConvention nodeNamingConvention;
-
-   private static class FindImageForServer implements Predicate<Image> {
-      private final ServerDetails instance;
-
-      private FindImageForServer(ServerDetails instance) {
-         this.instance = instance;
-      }
-
-      @Override
-      public boolean apply(Image input) {
-         return input.getProviderId().equals(instance.getTemplateName());
-      }
-   }
+   protected final IndexedSupplier<String, Image> imagesByProviderId;
+   protected final IndexedSupplier<String, Location> locationsById;
 
    @Inject
    ServerDetailsToNodeMetadata(@Memoized Supplier<Set<? extends Location>> locations,
@@ -97,6 +83,8 @@ public class ServerDetailsToNodeMetadata implements Function<ServerDetails, Node
       this.nodeNamingConvention = checkNotNull(namingConvention, "namingConvention").createWithoutPrefix();
       this.locations = checkNotNull(locations, "locations");
       this.images = checkNotNull(images, "images");
+      this.imagesByProviderId = IndexedSupplier.byProviderId(images);
+      this.locationsById = IndexedSupplier.locationsById(locations);
    }
 
    @Override
@@ -105,7 +93,7 @@ public class ServerDetailsToNodeMetadata implements Function<ServerDetails, Node
       builder.ids(from.getId() + "");
       builder.name(from.getHostname());
       builder.hostname(from.getHostname());
-      Location location = FluentIterable.from(locations.get()).firstMatch(idEquals(from.getDatacenter())).orNull();
+      Location location = from.getDatacenter() != null ? locationsById.first(from.getDatacenter()) : null;
       checkState(location != null, "no location matched ServerDetails %s", from);
 
       Map<String, String> metadataMap;
@@ -140,11 +128,10 @@ public class ServerDetailsToNodeMetadata implements Function<ServerDetails, Node
    }
 
    protected OperatingSystem parseOperatingSystem(ServerDetails from) {
-      try {
-         return Iterables.find(images.get(), new FindImageForServer(from)).getOperatingSystem();
-      } catch (NoSuchElementException e) {
-         logger.debug("could not find a matching image for server %s", from);
-      }
+      Image image = from.getTemplateName() != null ? imagesByProviderId.first(from.getTemplateName()) : null;
+      if (image != null)
+         return image.getOperatingSystem();
+      logger.debug("could not find a matching image for server %s", from);
       return null;
    }
 }
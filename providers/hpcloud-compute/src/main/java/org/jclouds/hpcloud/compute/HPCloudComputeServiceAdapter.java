@@ -16,14 +16,18 @@
  */
 package org.jclouds.hpcloud.compute;
 
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
 import java.util.Set;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import org.jclouds.location.Region;
 import org.jclouds.openstack.nova.v2_0.NovaApi;
 import org.jclouds.openstack.nova.v2_0.compute.NovaComputeServiceAdapter;
 import org.jclouds.openstack.nova.v2_0.compute.functions.RemoveFloatingIpFromNodeAndDeallocate;
+import org.jclouds.openstack.nova.v2_0.compute.strategy.IncrementalServerListing;
 import org.jclouds.openstack.nova.v2_0.domain.KeyPair;
 import org.jclouds.openstack.nova.v2_0.domain.regionscoped.ImageInRegion;
 import org.jclouds.openstack.nova.v2_0.domain.regionscoped.RegionAndName;
@@ -32,13 +36,17 @@ import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 public class HPCloudComputeServiceAdapter extends NovaComputeServiceAdapter {
 
    @Inject
    public HPCloudComputeServiceAdapter(NovaApi novaApi, @Region Supplier<Set<String>> regionIds,
-            RemoveFloatingIpFromNodeAndDeallocate removeFloatingIpFromNodeAndDeallocate, LoadingCache<RegionAndName, KeyPair> keyPairCache) {
-      super(novaApi, regionIds, removeFloatingIpFromNodeAndDeallocate, keyPairCache);
+            RemoveFloatingIpFromNodeAndDeallocate removeFloatingIpFromNodeAndDeallocate, LoadingCache<RegionAndName, KeyPair> keyPairCache,
+            @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+            IncrementalServerListing incrementalServerListing) {
+      super(novaApi, regionIds, removeFloatingIpFromNodeAndDeallocate, keyPairCache, userExecutor,
+            incrementalServerListing);
    }
 
    @Override
@@ -17,7 +17,6 @@
 package org.jclouds.softlayer.compute.functions;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.FluentIterable.from;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -31,8 +30,8 @@ import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.NodeMetadata.Status;
 import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.suppliers.IndexedSupplier;
 import org.jclouds.domain.Location;
-import org.jclouds.location.predicates.LocationPredicates;
 import org.jclouds.softlayer.domain.TagReference;
 import org.jclouds.softlayer.domain.VirtualGuest;
 
@@ -50,7 +49,7 @@ public class VirtualGuestToNodeMetadata implements Function<VirtualGuest, NodeMe
          .put(VirtualGuest.State.PAUSED, Status.SUSPENDED).put(VirtualGuest.State.RUNNING, Status.RUNNING)
          .put(VirtualGuest.State.UNRECOGNIZED, Status.UNRECOGNIZED).build();
 
-   private final Supplier<Set<? extends Location>> locations;
+   private final IndexedSupplier<String, Location> locations;
    private final GroupNamingConvention nodeNamingConvention;
    private final VirtualGuestToImage virtualGuestToImage;
    private final VirtualGuestToHardware virtualGuestToHardware;
@@ -60,7 +59,7 @@ public class VirtualGuestToNodeMetadata implements Function<VirtualGuest, NodeMe
          GroupNamingConvention.Factory namingConvention, VirtualGuestToImage virtualGuestToImage,
          VirtualGuestToHardware virtualGuestToHardware) {
       this.nodeNamingConvention = checkNotNull(namingConvention, "namingConvention").createWithoutPrefix();
-      this.locations = checkNotNull(locations, "locations");
+      this.locations = IndexedSupplier.locationsById(checkNotNull(locations, "locations"));
       this.virtualGuestToImage = checkNotNull(virtualGuestToImage, "virtualGuestToImage");
       this.virtualGuestToHardware = checkNotNull(virtualGuestToHardware, "virtualGuestToHardware");
    }
@@ -72,8 +71,7 @@ public class VirtualGuestToNodeMetadata implements Function<VirtualGuest, NodeMe
       builder.name(from.getHostname());
       builder.hostname(from.getHostname() + from.getDomain());
       if (from.getDatacenter() != null) {
-         builder.location(from(locations.get()).firstMatch(
-                 LocationPredicates.idEquals(from.getDatacenter().getId() + "")).orNull());
+         builder.location(locations.first(from.getDatacenter().getId() + ""));
       }
       builder.group(nodeNamingConvention.groupInUniqueNameOrNull(from.getHostname()));
       builder.hardware(virtualGuestToHardware.apply(from));
@@ -19,13 +19,15 @@ package org.jclouds.softlayer.compute.strategy;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
-import static com.google.common.collect.Iterables.contains;
+import static com.google.common.base.Predicates.notNull;
 import static com.google.common.collect.Iterables.filter;
-import static com.google.common.collect.Iterables.find;
 import static com.google.common.collect.Iterables.get;
 import static com.google.common.collect.Iterables.tryFind;
 import static java.lang.Math.round;
 import static java.lang.String.format;
+import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.concurrent.FutureIterables.transformParallel;
 import static org.jclouds.compute.domain.Volume.Type;
 import static org.jclouds.compute.util.ComputeServiceUtils.getCores;
 import static org.jclouds.compute.util.ComputeServiceUtils.getSpace;
@@ -35,7 +37,10 @@ import static org.jclouds.softlayer.reference.SoftLayerConstants.PROPERTY_SOFTLA
 import static org.jclouds.util.Predicates2.retry;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -76,12 +81,18 @@ import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet.Builder;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 /**
  * defines the connection between the {@link SoftLayerApi} implementation and
@@ -106,6 +117,8 @@ public class SoftLayerComputeServiceAdapter implements
    private final long guestLoginDelay;
    private final long activeTransactionsDelay;
    private final boolean includePublicImages;
+   private final ListeningExecutorService userExecutor;
+   private final Supplier<Map<String, OperatingSystem>> imagesById;
 
    @Inject
    public SoftLayerComputeServiceAdapter(SoftLayerApi api,
@@ -113,7 +126,9 @@ public class SoftLayerComputeServiceAdapter implements
          @Memoized Supplier<ContainerVirtualGuestConfiguration> createObjectOptionsSupplier,
          @Named(PROPERTY_SOFTLAYER_VIRTUALGUEST_LOGIN_DETAILS_DELAY) long guestLoginDelay,
          @Named(PROPERTY_SOFTLAYER_VIRTUALGUEST_ACTIVE_TRANSACTIONS_DELAY) long activeTransactionsDelay,
-         @Named(PROPERTY_SOFTLAYER_INCLUDE_PUBLIC_IMAGES) boolean includePublicImages) {
+         @Named(PROPERTY_SOFTLAYER_INCLUDE_PUBLIC_IMAGES) boolean includePublicImages,
+         @Named(PROPERTY_SESSION_INTERVAL) long sessionInterval,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
       this.api = checkNotNull(api, "api");
       this.guestLoginDelay = checkNotNull(guestLoginDelay, "guestLoginDelay");
       this.activeTransactionsDelay = checkNotNull(activeTransactionsDelay, "activeTransactionsDelay");
@@ -121,6 +136,18 @@ public class SoftLayerComputeServiceAdapter implements
       this.createObjectOptionsSupplier = checkNotNull(createObjectOptionsSupplier, "createObjectOptionsSupplier");
       checkArgument(guestLoginDelay > 500, "guestOrderDelay must be in milliseconds and greater than 500");
       this.loginDetailsTester = retry(virtualGuestHasLoginDetailsPresent, guestLoginDelay);
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.imagesById = Suppliers.memoizeWithExpiration(new Supplier<Map<String, OperatingSystem>>() {
+         @Override
+         public Map<String, OperatingSystem> get() {
+            return indexById(listImages());
+         }
+
+         @Override
+         public String toString() {
+            return "imagesById()";
+         }
+      }, sessionInterval, TimeUnit.SECONDS);
    }
 
    @Override
@@ -316,15 +343,22 @@ public class SoftLayerComputeServiceAdapter implements
       return result;
    }
 
+   /**
+    * looks the image up in an index of {@link #listImages()}, which is rebuilt at most once per session interval, as
+    * listing the images takes several calls including one for all public images.
+    */
    @Override
-   public OperatingSystem getImage(final String id) {
-      return find(listImages(), new Predicate<OperatingSystem>() {
+   public OperatingSystem getImage(String id) {
+      return imagesById.get().get(id);
+   }
 
-         @Override
-         public boolean apply(OperatingSystem input) {
-            return input.getId().equals(id);
-         }
-      }, null);
+   private static Map<String, OperatingSystem> indexById(Iterable<OperatingSystem> images) {
+      Map<String, OperatingSystem> index = Maps.newHashMap();
+      for (OperatingSystem image : images) {
+         if (!index.containsKey(image.getId()))
+            index.put(image.getId(), image);
+      }
+      return ImmutableMap.copyOf(index);
    }
 
    @Override
@@ -332,15 +366,37 @@ public class SoftLayerComputeServiceAdapter implements
       return api.getAccountApi().listVirtualGuests();
    }
 
+   /**
+    * gets each virtual guest concurrently, rather than listing every guest in the account. Guests that no longer
+    * exist, and ids that are not guest ids, are skipped.
+    */
    @Override
-   public Iterable<VirtualGuest> listNodesByIds(final Iterable<String> ids) {
-      return filter(listNodes(), new Predicate<VirtualGuest>() {
+   public Iterable<VirtualGuest> listNodesByIds(Iterable<String> ids) {
+      Set<Long> guestIds = Sets.newLinkedHashSet();
+      for (String id : ids) {
+         Long guestId = Longs.tryParse(id);
+         if (guestId != null)
+            guestIds.add(guestId);
+      }
+      return FluentIterable.from(transformParallel(guestIds,
+            new Function<Long, ListenableFuture<? extends VirtualGuest>>() {
+
+               @Override
+               public ListenableFuture<? extends VirtualGuest> apply(final Long input) {
+                  return userExecutor.submit(new Callable<VirtualGuest>() {
+                     @Override
+                     public VirtualGuest call() {
+                        return api.getVirtualGuestApi().getVirtualGuest(input);
+                     }
+                  });
+               }
 
-         @Override
-         public boolean apply(VirtualGuest server) {
-            return contains(ids, server.getId());
-         }
-      });
+               @Override
+               public String toString() {
+                  return "getVirtualGuest()";
+               }
+
+            }, userExecutor, null, logger, "virtualGuests")).filter(notNull()).toList();
    }
 
    @Override